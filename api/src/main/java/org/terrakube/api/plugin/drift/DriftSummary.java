@@ -0,0 +1,57 @@
+package org.terrakube.api.plugin.drift;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Resource counts of a refresh only plan, taken from the "# resource has changed" and "# resource has been deleted"
+ * lines terraform prints for the objects that changed outside of terraform
+ */
+@Slf4j
+@Getter
+public class DriftSummary {
+
+    private static final Pattern ANSI_COLOR = Pattern.compile("\u001B\\[[;\\d]*m");
+    private static final Pattern CHANGED = Pattern.compile("^\\s*# .+ has changed\\s*$", Pattern.MULTILINE);
+    private static final Pattern DELETED = Pattern.compile("^\\s*# .+ has been deleted\\s*$", Pattern.MULTILINE);
+
+    private int changed;
+    private int deleted;
+
+    public static DriftSummary parse(byte[] output) {
+        DriftSummary driftSummary = new DriftSummary();
+        if (output == null || output.length == 0)
+            return driftSummary;
+
+        String planOutput = ANSI_COLOR.matcher(decode(output)).replaceAll("");
+        driftSummary.changed = count(CHANGED.matcher(planOutput));
+        driftSummary.deleted = count(DELETED.matcher(planOutput));
+        return driftSummary;
+    }
+
+    private static String decode(byte[] output) {
+        if (output.length > 2 && output[0] == (byte) 0x1f && output[1] == (byte) 0x8b) {
+            try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(output))) {
+                return new String(gzipInputStream.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                log.error("Unable to read compressed plan output: {}", e.getMessage());
+                return "";
+            }
+        }
+        return new String(output, StandardCharsets.UTF_8);
+    }
+
+    private static int count(Matcher matcher) {
+        int count = 0;
+        while (matcher.find())
+            count++;
+        return count;
+    }
+}
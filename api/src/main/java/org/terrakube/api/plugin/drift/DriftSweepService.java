@@ -0,0 +1,315 @@
+package org.terrakube.api.plugin.drift;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.scheduler.ScheduleJobService;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.repository.*;
+import org.terrakube.api.rs.drift.DriftResult;
+import org.terrakube.api.rs.drift.DriftResultStatus;
+import org.terrakube.api.rs.drift.DriftSweep;
+import org.terrakube.api.rs.drift.DriftSweepStatus;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.job.JobVia;
+import org.terrakube.api.rs.job.step.Step;
+import org.terrakube.api.rs.template.Template;
+import org.terrakube.api.rs.workspace.Workspace;
+import org.terrakube.api.rs.workspace.tag.WorkspaceTag;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the drift sweeps. A new sweep creates one result for each target workspace, the pending results are started as
+ * refresh only plans while the sweep, the global and the vcs host limits allow it and the finished jobs are collected
+ * into the result drift summary. The whole state is stored in the database so a sweep continues after a restart.
+ * Cancelling a sweep cancels the jobs it already dispatched and the results that were not started.
+ */
+@Slf4j
+@Service
+public class DriftSweepService {
+
+    private static final String SWEEP_LOCK = "terrakube:drift:lock";
+    // the lock is only released by the instance holding it, it could have expired and been taken by another instance
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+    private static final List<JobStatus> ACTIVE_JOB = List.of(JobStatus.pending, JobStatus.queue, JobStatus.running,
+            JobStatus.waitingApproval, JobStatus.approved);
+    private static final String NO_HOST = "none";
+    private static final Pattern SCP_SOURCE = Pattern.compile("^[\\w.-]+@([\\w.-]+):.*");
+    private static final String DEFAULT_TCL = Base64.getEncoder().encodeToString(("flow:\n" +
+            "  - type: \"terraformPlan\"\n" +
+            "    name: \"Drift Detection\"\n" +
+            "    step: 100\n").getBytes(StandardCharsets.UTF_8));
+
+    private final DriftSweepRepository driftSweepRepository;
+    private final DriftResultRepository driftResultRepository;
+    private final WorkspaceRepository workspaceRepository;
+    private final WorkspaceTagRepository workspaceTagRepository;
+    private final TemplateRepository templateRepository;
+    private final JobRepository jobRepository;
+    private final StepRepository stepRepository;
+    private final StorageTypeService storageTypeService;
+    private final ScheduleJobService scheduleJobService;
+    private final RedisTemplate redisTemplate;
+    private final int maxConcurrent;
+
+    public DriftSweepService(DriftSweepRepository driftSweepRepository,
+                             DriftResultRepository driftResultRepository,
+                             WorkspaceRepository workspaceRepository,
+                             WorkspaceTagRepository workspaceTagRepository,
+                             TemplateRepository templateRepository,
+                             JobRepository jobRepository,
+                             StepRepository stepRepository,
+                             StorageTypeService storageTypeService,
+                             ScheduleJobService scheduleJobService,
+                             RedisTemplate redisTemplate,
+                             @Value("${org.terrakube.api.drift.maxConcurrent:0}") int maxConcurrent) {
+        this.driftSweepRepository = driftSweepRepository;
+        this.driftResultRepository = driftResultRepository;
+        this.workspaceRepository = workspaceRepository;
+        this.workspaceTagRepository = workspaceTagRepository;
+        this.templateRepository = templateRepository;
+        this.jobRepository = jobRepository;
+        this.stepRepository = stepRepository;
+        this.storageTypeService = storageTypeService;
+        this.scheduleJobService = scheduleJobService;
+        this.redisTemplate = redisTemplate;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    @Scheduled(fixedDelayString = "${org.terrakube.api.drift.interval:30}", timeUnit = TimeUnit.SECONDS)
+    public void processSweeps() {
+        // a single api instance dispatches the sweeps at a time
+        String lockToken = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(SWEEP_LOCK, lockToken, Duration.ofMinutes(5))))
+            return;
+
+        try {
+            cancelResults();
+
+            Map<String, Integer> hostUsage = new HashMap<>();
+            int running = 0;
+            for (DriftResult driftResult : driftResultRepository.findAllByStatus(DriftResultStatus.running)) {
+                if (!collectResult(driftResult)) {
+                    hostUsage.merge(driftResult.getVcsHost(), 1, Integer::sum);
+                    running++;
+                }
+            }
+
+            for (DriftSweep driftSweep : driftSweepRepository.findAllByStatusIn(List.of(DriftSweepStatus.pending, DriftSweepStatus.running))) {
+                try {
+                    if (driftSweep.getStatus() == DriftSweepStatus.pending)
+                        expandSweep(driftSweep);
+                    running += dispatchSweep(driftSweep, hostUsage, running);
+                    updateTotals(driftSweep);
+                } catch (Exception ex) {
+                    log.error("Unable to process drift sweep {}: {}", driftSweep.getId(), ex.getMessage());
+                }
+            }
+        } finally {
+            redisTemplate.execute(RELEASE_LOCK, List.of(SWEEP_LOCK), lockToken);
+        }
+    }
+
+    private void cancelResults() {
+        for (DriftResult driftResult : driftResultRepository.findAllBySweepStatusAndStatusIn(DriftSweepStatus.cancelled,
+                List.of(DriftResultStatus.pending, DriftResultStatus.running))) {
+            if (driftResult.getStatus() == DriftResultStatus.running && driftResult.getJobId() != null) {
+                Optional<Job> job = jobRepository.findById(driftResult.getJobId());
+                if (job.isPresent() && ACTIVE_JOB.contains(job.get().getStatus())) {
+                    try {
+                        job.get().setStatus(JobStatus.cancelled);
+                        jobRepository.save(job.get());
+                        scheduleJobService.deleteJobContext(job.get().getId());
+                        log.info("Drift sweep {} cancelled, job {} cancelled", driftResult.getSweep().getId(), job.get().getId());
+                    } catch (Exception ex) {
+                        log.error("Unable to cancel drift detection job {}: {}", job.get().getId(), ex.getMessage());
+                        continue;
+                    }
+                }
+            }
+            driftResult.setStatus(DriftResultStatus.cancelled);
+            driftResultRepository.save(driftResult);
+        }
+    }
+
+    private void expandSweep(DriftSweep driftSweep) {
+        // results created before a restart are kept, only the missing workspaces are added
+        Set<UUID> existing = new HashSet<>(driftResultRepository.findWorkspaceIdsBySweep(driftSweep));
+        List<DriftResult> driftResults = new ArrayList<>();
+        for (Workspace workspace : getTargetWorkspaces(driftSweep)) {
+            if (!existing.add(workspace.getId()))
+                continue;
+            DriftResult driftResult = new DriftResult();
+            driftResult.setSweep(driftSweep);
+            driftResult.setWorkspace(workspace);
+            driftResult.setVcsHost(getVcsHost(workspace.getSource()));
+            driftResult.setStatus(DriftResultStatus.pending);
+            driftResults.add(driftResult);
+        }
+        driftResultRepository.saveAll(driftResults);
+
+        driftSweep.setStatus(DriftSweepStatus.running);
+        driftSweepRepository.save(driftSweep);
+        log.info("Drift sweep {} started with {} workspaces", driftSweep.getId(), existing.size());
+    }
+
+    private List<Workspace> getTargetWorkspaces(DriftSweep driftSweep) {
+        if (driftSweep.getTagId() == null || driftSweep.getTagId().isEmpty())
+            return workspaceRepository.findAllByOrganization(driftSweep.getOrganization());
+
+        return workspaceTagRepository.findAllByTagId(driftSweep.getTagId()).stream()
+                .map(WorkspaceTag::getWorkspace)
+                .filter(workspace -> workspace != null && !workspace.isDeleted()
+                        && workspace.getOrganization().getId().equals(driftSweep.getOrganization().getId()))
+                .toList();
+    }
+
+    private int dispatchSweep(DriftSweep driftSweep, Map<String, Integer> hostUsage, int running) {
+        long sweepRunning = driftResultRepository.countBySweepAndStatus(driftSweep, DriftResultStatus.running);
+        int started = 0;
+        for (DriftResult driftResult : driftResultRepository.findAllBySweepAndStatusOrderByIdAsc(driftSweep, DriftResultStatus.pending)) {
+            if (sweepRunning + started >= driftSweep.getMaxConcurrent() || (maxConcurrent > 0 && running + started >= maxConcurrent))
+                break;
+            if (driftSweep.getMaxPerVcsHost() > 0 && hostUsage.getOrDefault(driftResult.getVcsHost(), 0) >= driftSweep.getMaxPerVcsHost())
+                continue;
+
+            Workspace workspace = driftResult.getWorkspace();
+            if (workspace == null || workspace.isDeleted() || workspace.isLocked()) {
+                driftResult.setStatus(DriftResultStatus.skipped);
+                driftResultRepository.save(driftResult);
+                continue;
+            }
+
+            try {
+                Job job = createDriftJob(driftSweep, workspace);
+                driftResult.setJobId(job.getId());
+                driftResult.setStatus(DriftResultStatus.running);
+                driftResultRepository.save(driftResult);
+                scheduleJobService.createJobContext(job);
+                hostUsage.merge(driftResult.getVcsHost(), 1, Integer::sum);
+                started++;
+            } catch (Exception ex) {
+                log.error("Unable to start drift detection for workspace {}: {}", workspace.getId(), ex.getMessage());
+                driftResult.setStatus(DriftResultStatus.failed);
+                driftResultRepository.save(driftResult);
+            }
+        }
+        return started;
+    }
+
+    private Job createDriftJob(DriftSweep driftSweep, Workspace workspace) {
+        Job job = new Job();
+        job.setRefresh(true);
+        job.setRefreshOnly(true);
+        job.setWorkspace(workspace);
+        job.setOrganization(workspace.getOrganization());
+        job.setTcl(DEFAULT_TCL);
+        if (driftSweep.getTemplateReference() != null && !driftSweep.getTemplateReference().isEmpty()) {
+            Optional<Template> template = templateRepository.findById(UUID.fromString(driftSweep.getTemplateReference()));
+            if (template.isPresent()) {
+                job.setTcl(template.get().getTcl());
+                job.setTemplateReference(driftSweep.getTemplateReference());
+            }
+        }
+        job.setStatus(JobStatus.pending);
+        job.setVia(JobVia.Schedule.name());
+        job.setCreatedBy("serviceAccount");
+        job.setUpdatedBy("serviceAccount");
+        Date createdDate = new Date(System.currentTimeMillis());
+        job.setCreatedDate(createdDate);
+        job.setUpdatedDate(createdDate);
+        return jobRepository.save(job);
+    }
+
+    /**
+     * @return true when the job of the result is finished and the drift summary was saved
+     */
+    private boolean collectResult(DriftResult driftResult) {
+        Optional<Job> job = driftResult.getJobId() != null ? jobRepository.findById(driftResult.getJobId()) : Optional.empty();
+        if (job.isEmpty()) {
+            driftResult.setStatus(DriftResultStatus.failed);
+            driftResultRepository.save(driftResult);
+            return true;
+        }
+
+        switch (job.get().getStatus()) {
+            case completed:
+                if (job.get().isPlanChanges()) {
+                    DriftSummary driftSummary = DriftSummary.parse(getPlanOutput(job.get()));
+                    driftResult.setStatus(DriftResultStatus.drifted);
+                    driftResult.setResourcesChanged(driftSummary.getChanged());
+                    driftResult.setResourcesDeleted(driftSummary.getDeleted());
+                } else {
+                    driftResult.setStatus(DriftResultStatus.noDrift);
+                }
+                break;
+            case noChanges:
+                driftResult.setStatus(DriftResultStatus.noDrift);
+                break;
+            case failed:
+            case cancelled:
+            case rejected:
+            case notExecuted:
+            case unknown:
+                driftResult.setStatus(DriftResultStatus.failed);
+                break;
+            default:
+                return false;
+        }
+        driftResultRepository.save(driftResult);
+        return true;
+    }
+
+    private byte[] getPlanOutput(Job job) {
+        try {
+            Optional<Step> planStep = stepRepository.findByJobId(job.getId()).stream()
+                    .min(Comparator.comparingInt(Step::getStepNumber));
+            if (planStep.isPresent())
+                return storageTypeService.getStepOutput(job.getOrganization().getId().toString(),
+                        String.valueOf(job.getId()), planStep.get().getId().toString());
+        } catch (Exception ex) {
+            log.error("Unable to read plan output for job {}: {}", job.getId(), ex.getMessage());
+        }
+        return new byte[0];
+    }
+
+    private void updateTotals(DriftSweep driftSweep) {
+        driftSweep.setTotal((int) driftResultRepository.countBySweep(driftSweep));
+        driftSweep.setDrifted((int) driftResultRepository.countBySweepAndStatus(driftSweep, DriftResultStatus.drifted));
+        driftSweep.setFailed((int) driftResultRepository.countBySweepAndStatus(driftSweep, DriftResultStatus.failed));
+        if (driftResultRepository.countBySweepAndStatus(driftSweep, DriftResultStatus.pending) == 0
+                && driftResultRepository.countBySweepAndStatus(driftSweep, DriftResultStatus.running) == 0) {
+            driftSweep.setStatus(DriftSweepStatus.completed);
+            log.info("Drift sweep {} completed, {} of {} workspaces drifted", driftSweep.getId(), driftSweep.getDrifted(), driftSweep.getTotal());
+        }
+        driftSweepRepository.save(driftSweep);
+    }
+
+    static String getVcsHost(String source) {
+        if (source == null || source.isEmpty())
+            return NO_HOST;
+        Matcher scpSource = SCP_SOURCE.matcher(source);
+        if (scpSource.matches())
+            return scpSource.group(1);
+        try {
+            String host = URI.create(source).getHost();
+            return host != null ? host : NO_HOST;
+        } catch (IllegalArgumentException ex) {
+            return NO_HOST;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.terrakube.api.plugin.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.rs.job.JobStatus;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Number of jobs in each active status, the terminal statuses are not included because they only grow
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+public class JobStatusMetrics implements MeterBinder {
+
+    private static final List<JobStatus> ACTIVE_STATUS = Arrays.asList(
+            JobStatus.pending,
+            JobStatus.waitingApproval,
+            JobStatus.approved,
+            JobStatus.queue,
+            JobStatus.running);
+
+    JobRepository jobRepository;
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        for (JobStatus jobStatus : ACTIVE_STATUS) {
+            Gauge.builder("terrakube.jobs", jobRepository, repository -> countJobs(repository, jobStatus))
+                    .description("Jobs by status")
+                    .tag("status", jobStatus.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    private double countJobs(JobRepository repository, JobStatus jobStatus) {
+        try {
+            return repository.countByStatus(jobStatus);
+        } catch (Exception ex) {
+            log.error("Unable to count jobs with status {}: {}", jobStatus, ex.getMessage());
+            return Double.NaN;
+        }
+    }
+}
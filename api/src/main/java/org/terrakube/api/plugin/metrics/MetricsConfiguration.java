@@ -0,0 +1,17 @@
+package org.terrakube.api.plugin.metrics;
+
+import io.micrometer.core.instrument.binder.commonspool2.CommonsObjectPool2Metrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfiguration {
+
+    /**
+     * Active, idle and waiting connections of the jedis pools (streaming and module cache), hikari is bound by spring boot
+     */
+    @Bean
+    CommonsObjectPool2Metrics commonsObjectPool2Metrics() {
+        return new CommonsObjectPool2Metrics();
+    }
+}
@@ -2,12 +2,16 @@ package org.terrakube.api.plugin.proxy;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.netty.channel.ChannelOption;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.terrakube.api.repository.GlobalVarRepository;
 import org.terrakube.api.repository.VariableRepository;
 import org.terrakube.api.repository.WorkspaceRepository;
@@ -15,9 +19,13 @@ import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.workspace.Workspace;
 import org.terrakube.api.rs.workspace.parameters.Variable;
 import org.terrakube.api.rs.globalvar.Globalvar;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -26,36 +34,59 @@ import java.util.regex.Pattern;
 @Service
 public class ProxyService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final Pattern VAR_PATTERN = Pattern.compile("\\{\\{var\\.(\\w+)\\}\\}");
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final WorkspaceRepository workspaceRepository;
     private final VariableRepository variableRepository;
     private final GlobalVarRepository globalVarRepository;
-
-    public static final Map<String, String> VARS = new HashMap<>();
-
-    public ProxyService(WorkspaceRepository workspaceRepository, VariableRepository variableRepository, GlobalVarRepository globalVarRepository) {
+    private final WebClient webClient;
+    private final Cache<String, ResponseEntity<String>> responseCache;
+
+    public ProxyService(WorkspaceRepository workspaceRepository,
+                        VariableRepository variableRepository,
+                        GlobalVarRepository globalVarRepository,
+                        @Value("${org.terrakube.api.proxy.maxConnections:100}") int maxConnections,
+                        @Value("${org.terrakube.api.proxy.connectTimeout:10}") int connectTimeout,
+                        @Value("${org.terrakube.api.proxy.readTimeout:30}") int readTimeout,
+                        @Value("${org.terrakube.api.proxy.cacheSeconds:0}") int cacheSeconds) {
         this.workspaceRepository = workspaceRepository;
         this.variableRepository = variableRepository;
         this.globalVarRepository = globalVarRepository;
+
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("terrakube-proxy")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofSeconds(readTimeout))
+                .maxIdleTime(Duration.ofSeconds(60))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout * 1000)
+                .responseTimeout(Duration.ofSeconds(readTimeout));
+        this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+                .build();
+
+        this.responseCache = cacheSeconds > 0
+                ? Caffeine.newBuilder().expireAfterWrite(Duration.ofSeconds(cacheSeconds)).maximumSize(1000).build()
+                : null;
     }
 
-    @Transactional(propagation = Propagation.REQUIRED)
-    public ResponseEntity<String> proxyRequest(RequestEntity<String> requestEntity, String targetUrl, String proxyHeadersJson, UUID workspaceId) {
+    public Mono<ResponseEntity<String>> proxyRequest(RequestEntity<String> requestEntity, String targetUrl, String proxyHeadersJson, UUID workspaceId) {
         HttpMethod method = requestEntity.getMethod();
         HttpHeaders headers = new HttpHeaders();
 
-        // Fetch workspace and variables
-        fetchWorkspaceVars(workspaceId);
+        // Fetch workspace and variables, every request has its own copy
+        Map<String, String> vars = fetchWorkspaceVars(workspaceId);
 
         // Replace variables in targetUrl
-        targetUrl = replaceVars(targetUrl);
+        String finalTargetUrl = replaceVars(targetUrl, vars);
 
         // Add custom headers
         if (proxyHeadersJson != null) {
             try {
                 Map<String, String> customHeaders = objectMapper.readValue(proxyHeadersJson, Map.class);
-                customHeaders.forEach((key, value) -> headers.set(key, replaceVars(value)));
+                customHeaders.forEach((key, value) -> headers.set(key, replaceVars(value, vars)));
             } catch (Exception e) {
                 log.error("Error parsing proxyheaders JSON: ", e);
             }
@@ -73,7 +104,7 @@ public class ProxyService {
                 if (proxyBodyNode != null) {
                     String proxyBodyString = proxyBodyNode.asText();
                     // Replace variables in the proxy body
-                    String replacedBody = replaceVars(proxyBodyString);
+                    String replacedBody = replaceVars(proxyBodyString, vars);
 
                     // Reassign the processed body
                     body = replacedBody;
@@ -84,48 +115,69 @@ public class ProxyService {
         }
 
         // Log headers and body for debugging
-        log.info("Request Headers: {}", headers);
-        log.info("Request Body: {}", body);
-        log.info("Target URL: {}", targetUrl);
-
-        HttpEntity<String> entity = new HttpEntity<>(body, headers);
-
-        try {
-            ResponseEntity<String> response = restTemplate.exchange(targetUrl, method, entity, String.class);
-            return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
-        } catch (Exception e) {
-            log.error("Error forwarding request to {}: ", targetUrl, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error forwarding request");
+        log.debug("Request Headers: {}", headers.keySet());
+        log.debug("Request Body: {}", body);
+        log.info("Target URL: {}", finalTargetUrl);
+
+        String cacheKey = null;
+        if (responseCache != null && HttpMethod.GET.equals(method)) {
+            cacheKey = DigestUtils.sha256Hex(workspaceId + "|" + finalTargetUrl + "|" + new TreeMap<>(headers.toSingleValueMap()));
+            ResponseEntity<String> cachedResponse = responseCache.getIfPresent(cacheKey);
+            if (cachedResponse != null) {
+                log.info("Using cached response for {}", finalTargetUrl);
+                return Mono.just(cachedResponse);
+            }
         }
+
+        WebClient.RequestBodySpec request = webClient.method(method)
+                .uri(finalTargetUrl)
+                .headers(requestHeaders -> requestHeaders.addAll(headers));
+        if (body != null)
+            request.bodyValue(body);
+
+        final String responseCacheKey = cacheKey;
+        return request.retrieve()
+                .toEntity(String.class)
+                .map(response -> {
+                    ResponseEntity<String> proxyResponse = ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+                    if (responseCacheKey != null)
+                        responseCache.put(responseCacheKey, proxyResponse);
+                    return proxyResponse;
+                })
+                .onErrorResume(e -> {
+                    log.error("Error forwarding request to {}: ", finalTargetUrl, e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error forwarding request"));
+                });
     }
 
-    @Transactional
-    public void fetchWorkspaceVars(UUID workspaceId) {
-        VARS.clear();
+    public Map<String, String> fetchWorkspaceVars(UUID workspaceId) {
+        Map<String, String> vars = new HashMap<>();
         Workspace workspace = workspaceRepository.findById(workspaceId).orElseThrow(() -> new IllegalArgumentException("Invalid workspace ID"));
         Organization organization = workspace.getOrganization();
 
         List<Globalvar> globalVariables = globalVarRepository.findByOrganization(organization);
-        globalVariables.forEach(globalvar -> VARS.put(globalvar.getKey(), globalvar.getValue()));
+        globalVariables.forEach(globalvar -> vars.put(globalvar.getKey(), globalvar.getValue()));
 
         List<Variable> variables = variableRepository.findByWorkspace(workspace);
-        variables.forEach(variable -> VARS.put(variable.getKey(), variable.getValue()));
+        variables.forEach(variable -> vars.put(variable.getKey(), variable.getValue()));
+        return vars;
     }
 
-    public String replaceVars(String input) {
+    public String replaceVars(String input, Map<String, String> vars) {
         if (input == null) {
             return null;
         }
 
-        Pattern pattern = Pattern.compile("\\{\\{var\\.(\\w+)\\}\\}");
-        Matcher matcher = pattern.matcher(input);
-        StringBuffer buffer = new StringBuffer();
+        Matcher matcher = VAR_PATTERN.matcher(input);
+        StringBuilder buffer = new StringBuilder();
 
         while (matcher.find()) {
-            String replacement = VARS.getOrDefault(matcher.group(1), matcher.group(0));
-            matcher.appendReplacement(buffer, replacement);
+            String replacement = vars.get(matcher.group(1));
+            if (replacement == null)
+                replacement = matcher.group(0);
+            matcher.appendReplacement(buffer, Matcher.quoteReplacement(replacement));
         }
         matcher.appendTail(buffer);
         return buffer.toString();
     }
-}
\ No newline at end of file
+}
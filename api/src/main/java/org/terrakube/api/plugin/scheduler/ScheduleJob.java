@@ -1,24 +1,30 @@
 package org.terrakube.api.plugin.scheduler;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.DateUtils;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.terrakube.api.plugin.scheduler.fairshare.FairShareService;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.DispatchResult;
 import org.terrakube.api.plugin.scheduler.job.tcl.executor.ExecutorService;
 import org.terrakube.api.plugin.scheduler.job.tcl.TclService;
 import org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral.EphemeralExecutorService;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolProperties;
 import org.terrakube.api.plugin.scheduler.job.tcl.model.Flow;
 import org.terrakube.api.plugin.scheduler.job.tcl.model.FlowType;
 import org.terrakube.api.plugin.scheduler.job.tcl.model.ScheduleTemplate;
+import org.terrakube.api.plugin.scheduler.job.transition.JobTransitionService;
 import org.terrakube.api.plugin.softdelete.SoftDeleteService;
+import org.terrakube.api.plugin.streaming.LogRetentionService;
 import org.terrakube.api.plugin.vcs.provider.github.GitHubWebhookService;
 import org.terrakube.api.repository.*;
 import org.terrakube.api.rs.job.Job;
 import org.terrakube.api.rs.job.JobStatus;
 import org.terrakube.api.rs.job.JobVia;
 import org.terrakube.api.rs.job.step.Step;
+import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.JobKey;
@@ -31,6 +37,7 @@ import org.terrakube.api.rs.workspace.schedule.Schedule;
 
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static org.terrakube.api.plugin.scheduler.ScheduleJobService.PREFIX_JOB_CONTEXT;
 
@@ -44,6 +51,7 @@ public class ScheduleJob implements org.quartz.Job {
     private final TemplateRepository templateRepository;
 
     public static final String JOB_ID = "jobId";
+    public static final String DISPATCH_ATTEMPT = "dispatchAttempt";
     private final EphemeralExecutorService ephemeralExecutorService;
 
     JobRepository jobRepository;
@@ -58,15 +66,24 @@ public class ScheduleJob implements org.quartz.Job {
 
     ScheduleJobService scheduleJobService;
 
-    RedisTemplate redisTemplate;
+    LogRetentionService logRetentionService;
     
     GitHubWebhookService gitHubWebhookService;
 
+    MeterRegistry meterRegistry;
+
+    FairShareService fairShareService;
+
+    ExecutorPoolProperties executorPoolProperties;
+
+    JobTransitionService jobTransitionService;
+
     @Transactional
     @Override
     public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
         int jobId = jobExecutionContext.getJobDetail().getJobDataMap().getInt(JOB_ID);
         Job job = jobRepository.getReferenceById(jobId);
+        recordTick(job, jobExecutionContext);
 
         Date jobExpiration = DateUtils.addHours(job.getCreatedDate(), 6);
         Date currentTime = new Date(System.currentTimeMillis());
@@ -76,7 +93,7 @@ public class ScheduleJob implements org.quartz.Job {
             try {
                 job.setStatus(JobStatus.failed);
                 jobRepository.save(job);
-                redisTemplate.delete(String.valueOf(job.getId()));
+                logRetentionService.deleteLogs(job.getId());
                 log.warn("Deleting Job Context {} from Quartz", PREFIX_JOB_CONTEXT + job.getId());
                 updateJobStepsWithStatus(job.getId(), JobStatus.failed);
                 updateJobStatusOnVcs(job, JobStatus.unknown);
@@ -113,25 +130,29 @@ public class ScheduleJob implements org.quartz.Job {
                 case pending:
                     log.info("Pending with plan changes {}", job.isPlanChanges());
                     if(job.isPlanChanges()) {
-                        redisTemplate.delete(String.valueOf(job.getId()));
-                        executePendingJob(job, jobExecutionContext);
-                        removeJobContext(job, jobExecutionContext);
+                        if (!fairShareService.admit(job)) {
+                            log.info("Job {} is waiting for executor capacity, priority {}", jobId, fairShareService.getPriority(job));
+                            waitForExecutors(job, jobExecutionContext);
+                            break;
+                        }
+                        logRetentionService.deleteLogs(job.getId());
+                        if (executePendingJob(job, jobExecutionContext))
+                            removeJobContext(job, jobExecutionContext);
                     } else {
-                        log.warn("Job {} completed with no changes...", jobId);
-                        completeJob(job);
-                        redisTemplate.delete(String.valueOf(job.getId()));
-                        updateJobStepsWithStatus(job.getId(), JobStatus.notExecuted);
-                        updateJobStatusOnVcs(job, JobStatus.completed);
+                        completeJobWithoutChanges(job);
                     }
                     break;
                 case approved:
-                    executeApprovedJobs(job);
+                    executeApprovedJobs(job, jobExecutionContext);
                     break;
+                case queue:
                 case running:
                     log.info("Job {} running", job.getId());
+                    if (tclService.hasDependencies(job))
+                        executeParallelFlows(job, null, jobExecutionContext);
                     break;
                 case completed:
-                    redisTemplate.delete(String.valueOf(job.getId()));
+                    logRetentionService.deleteLogs(job.getId());
                     removeJobContext(job, jobExecutionContext);
                     ephemeralExecutorService.deleteEphemeralJob(job);
                     updateJobStatusOnVcs(job, JobStatus.completed);
@@ -139,7 +160,7 @@ public class ScheduleJob implements org.quartz.Job {
                 case cancelled:
                 case failed:
                 case rejected:
-                    redisTemplate.delete(String.valueOf(job.getId()));
+                    logRetentionService.deleteLogs(job.getId());
                     log.info("Deleting Failed/Cancelled/Rejected Job Context {} from Quartz", PREFIX_JOB_CONTEXT + job.getId());
                     updateJobStepsWithStatus(job.getId(), JobStatus.failed);
                     updateJobStatusOnVcs(job, JobStatus.failed);
@@ -153,7 +174,10 @@ public class ScheduleJob implements org.quartz.Job {
         }
     }
 
-    private void executePendingJob(Job job, JobExecutionContext jobExecutionContext) {
+    /**
+     * @return false when the step was not sent because every executor was busy, the job keeps waiting in pending
+     */
+    private boolean executePendingJob(Job job, JobExecutionContext jobExecutionContext) {
         job = tclService.initJobConfiguration(job);
 
         Optional<Flow> flow = Optional.ofNullable(tclService.getNextFlow(job));
@@ -167,9 +191,27 @@ public class ScheduleJob implements org.quartz.Job {
                 case terraformApply:
                 case terraformDestroy:
                 case customScripts:
-                    if (executorService.execute(job, stepId, flow.get()))
+                    boolean parallel = tclService.hasDependencies(job);
+                    if (parallel)
+                        updateStepStatus(stepId, JobStatus.queue);
+                    DispatchResult dispatch = executorService.execute(job, stepId, flow.get());
+                    if (dispatch == DispatchResult.dispatched) {
                         log.info("Executing Job {} Step Id {}", job.getId(), stepId);
-                    else {
+                        if (parallel)
+                            executeParallelFlows(job, stepId, jobExecutionContext);
+                    } else if (dispatch == DispatchResult.memoized) {
+                        if (parallel)
+                            executeParallelFlows(completeMemoizedStep(job, stepId), stepId, jobExecutionContext);
+                        else
+                            completeJobWithoutChanges(job);
+                    } else if (dispatch == DispatchResult.busy) {
+                        log.warn("Executors are busy, Job {} Step Id {} will be sent again", job.getId(), stepId);
+                        if (parallel)
+                            updateStepStatus(stepId, JobStatus.pending);
+                        retryDispatch(job, jobExecutionContext);
+                        waitForExecutors(job, jobExecutionContext);
+                        return false;
+                    } else {
                         log.error("Error when sending context to executor marking job {} as failed, step count {}", job.getId(), job.getStep().size());
                         job.setStatus(JobStatus.failed);
                         jobRepository.save(job);
@@ -186,7 +228,7 @@ public class ScheduleJob implements org.quartz.Job {
                         log.info("Waiting Approval for Job {} Step Id {}", job.getId(), stepId);
                     } else {
                         log.info("Auto Approving is enabled for Job {} Step Id {}", job.getId(), stepId);
-                        executeApprovedJobs(job);
+                        return executeApprovedJobs(job, jobExecutionContext);
                     }
                     break;
                 case disableWorkspace:
@@ -236,6 +278,72 @@ public class ScheduleJob implements org.quartz.Job {
             completeJob(job);
             removeJobContext(job, jobExecutionContext);
         }
+        return true;
+    }
+
+    /**
+     * Send the flows declaring dependencies that are ready to run alongside the current step, the steps are queued
+     * before they are sent so the next tick does not pick them again
+     */
+    private void executeParallelFlows(Job job, String currentStepId, JobExecutionContext jobExecutionContext) {
+        for (Map.Entry<String, Flow> readyFlow : tclService.getReadyFlows(job).entrySet()) {
+            String stepId = readyFlow.getKey();
+            Flow flow = readyFlow.getValue();
+            if (stepId.equals(currentStepId) || flow.getDependsOn() == null || !isExecutorFlow(flow))
+                continue;
+
+            updateStepStatus(stepId, JobStatus.queue);
+            DispatchResult dispatch = executorService.execute(job, stepId, flow);
+            if (dispatch == DispatchResult.dispatched) {
+                log.info("Executing Job {} parallel Step Id {}", job.getId(), stepId);
+            } else if (dispatch == DispatchResult.memoized) {
+                log.info("Job {} parallel Step Id {} reuses a plan without changes", job.getId(), stepId);
+                job = completeMemoizedStep(job, stepId);
+            } else if (dispatch == DispatchResult.busy) {
+                log.warn("Executors are busy, Job {} parallel Step Id {} will be sent again", job.getId(), stepId);
+                updateStepStatus(stepId, JobStatus.pending);
+                retryDispatch(job, jobExecutionContext);
+                waitForExecutors(job, jobExecutionContext);
+                break;
+            } else {
+                log.error("Error when sending parallel step {} to executor marking job {} as failed", stepId, job.getId());
+                Step step = stepRepository.getReferenceById(UUID.fromString(stepId));
+                step.setStatus(JobStatus.failed);
+                step.setName("Error sending to executor, check logs");
+                stepRepository.save(step);
+                job.setStatus(JobStatus.failed);
+                jobRepository.save(job);
+                break;
+            }
+        }
+    }
+
+    /**
+     * A memoized plan in a template with dependencies only completes its own step so the other steps keep running, the
+     * job is read again because the transition updates it outside of this entity
+     */
+    private Job completeMemoizedStep(Job job, String stepId) {
+        jobTransitionService.completeMemoizedPlan(job, UUID.fromString(stepId));
+        return jobRepository.getReferenceById(job.getId());
+    }
+
+    private boolean isExecutorFlow(Flow flow) {
+        switch (FlowType.valueOf(flow.getType())) {
+            case terraformPlanDestroy:
+            case terraformPlan:
+            case terraformApply:
+            case terraformDestroy:
+            case customScripts:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void updateStepStatus(String stepId, JobStatus jobStatus) {
+        Step step = stepRepository.getReferenceById(UUID.fromString(stepId));
+        step.setStatus(jobStatus);
+        stepRepository.save(step);
     }
 
     private boolean setupScheduler(Job job, Flow flow) {
@@ -281,13 +389,25 @@ public class ScheduleJob implements org.quartz.Job {
         log.info("Update Job {} to completed", job.getId());
     }
 
+    /**
+     * Plans without changes, including the memoized ones of templates without dependencies, complete the job and
+     * report the commit status
+     */
+    private void completeJobWithoutChanges(Job job) {
+        log.warn("Job {} completed with no changes...", job.getId());
+        job.setPlanChanges(false);
+        completeJob(job);
+        logRetentionService.deleteLogs(job.getId());
+        updateJobStepsWithStatus(job.getId(), JobStatus.notExecuted);
+        updateJobStatusOnVcs(job, JobStatus.completed);
+    }
+
     private void removeJobContext(Job job, JobExecutionContext jobExecutionContext) {
         try {
-            Boolean triggerByStatusChange = jobExecutionContext.getJobDetail().getJobDataMap().getBooleanFromString("isTriggerFromStatusChange");
-            if(!triggerByStatusChange.booleanValue()) {
-                log.info("Deleting Schedule Job Context {}, InstanceId {}", PREFIX_JOB_CONTEXT + job.getId(), jobExecutionContext.getFireInstanceId());
-                jobExecutionContext.getScheduler().deleteJob(new JobKey(PREFIX_JOB_CONTEXT + job.getId()));
-            } else {
+            log.info("Deleting Schedule Job Context {}, InstanceId {}", PREFIX_JOB_CONTEXT + job.getId(), jobExecutionContext.getFireInstanceId());
+            // the periodic job context could have been created again while the job was waiting for executors
+            jobExecutionContext.getScheduler().deleteJob(new JobKey(PREFIX_JOB_CONTEXT + job.getId()));
+            if (isTriggerFromStatusChange(jobExecutionContext)) {
                 String jobIdentity = jobExecutionContext.getJobDetail().getJobDataMap().getString("identity");
                 jobExecutionContext.getScheduler().deleteJob(new JobKey(jobIdentity));
             }
@@ -296,7 +416,11 @@ public class ScheduleJob implements org.quartz.Job {
         }
     }
 
-    private void executeApprovedJobs(Job job) {
+    private static boolean isTriggerFromStatusChange(JobExecutionContext jobExecutionContext) {
+        return jobExecutionContext.getJobDetail().getJobDataMap().getBooleanFromString("isTriggerFromStatusChange");
+    }
+
+    private boolean executeApprovedJobs(Job job, JobExecutionContext jobExecutionContext) {
         job = tclService.initJobConfiguration(job);
         Optional<Flow> flow = Optional.ofNullable(tclService.getNextFlow(job));
         if (flow.isPresent()) {
@@ -304,15 +428,65 @@ public class ScheduleJob implements org.quartz.Job {
             String stepId = tclService.getCurrentStepId(job);
             job.setApprovalTeam("");
             jobRepository.save(job);
-            if (executorService.execute(job, stepId, flow.get()))
+            DispatchResult dispatch = executorService.execute(job, stepId, flow.get());
+            if (dispatch == DispatchResult.dispatched)
                 log.info("Executing Job {} Step Id {}", job.getId(), stepId);
+            else if (dispatch == DispatchResult.memoized) {
+                if (tclService.hasDependencies(job))
+                    completeMemoizedStep(job, stepId);
+                else
+                    completeJobWithoutChanges(job);
+            } else if (dispatch == DispatchResult.busy) {
+                log.warn("Executors are busy, Job {} Step Id {} will be sent again", job.getId(), stepId);
+                retryDispatch(job, jobExecutionContext);
+                waitForExecutors(job, jobExecutionContext);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Every executor was busy, a new job context sends the step again after the backoff. The scheduler transaction is
+     * not kept open while waiting. After maxRetries attempts no more retries are scheduled, the periodic job context
+     * keeps sending the step and does not start a second chain of retries while one is already scheduled.
+     */
+    private void retryDispatch(Job job, JobExecutionContext jobExecutionContext) {
+        JobDataMap jobDataMap = jobExecutionContext.getJobDetail().getJobDataMap();
+        int maxRetries = executorPoolProperties.getMaxRetries();
+        int attempt = jobDataMap.containsKey(DISPATCH_ATTEMPT) ? jobDataMap.getInt(DISPATCH_ATTEMPT) + 1 : 1;
+        if (attempt >= maxRetries) {
+            log.warn("Job {} is waiting for executors after {} retries", job.getId(), maxRetries);
+            return;
+        }
+
+        try {
+            if (attempt == 1 && scheduleJobService.isJobContextRetryScheduled(job, maxRetries))
+                return;
+            scheduleJobService.createJobContextRetry(job, attempt, executorPoolProperties.getRetryBackoff() * attempt);
+        } catch (SchedulerException e) {
+            log.error("Unable to retry job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * The job waits for executor capacity, the periodic job context keeps checking it. Status change and retry job
+     * contexts only fire once so the periodic job context is created again when it was already removed.
+     */
+    private void waitForExecutors(Job job, JobExecutionContext jobExecutionContext) {
+        try {
+            scheduleJobService.keepJobContext(job);
+            if (isTriggerFromStatusChange(jobExecutionContext))
+                jobExecutionContext.getScheduler().deleteJob(new JobKey(jobExecutionContext.getJobDetail().getJobDataMap().getString("identity")));
+        } catch (ParseException | SchedulerException e) {
+            log.error("Unable to keep job context for job {}: {}", job.getId(), e.getMessage());
         }
     }
     
     private void updateJobStepsWithStatus(int jobId, JobStatus jobStatus) {
         log.warn("Cancelling pending steps");
         for (Step step : stepRepository.findByJobId(jobId)) {
-            if (step.getStatus().equals(JobStatus.pending) || step.getStatus().equals(JobStatus.running)) {
+            if (step.getStatus().equals(JobStatus.pending) || step.getStatus().equals(JobStatus.queue) || step.getStatus().equals(JobStatus.running)) {
                 step.setStatus(jobStatus);
                 stepRepository.save(step);
             }
@@ -320,7 +494,7 @@ public class ScheduleJob implements org.quartz.Job {
     }
 
     private void updateJobStatusOnVcs(Job job, JobStatus jobStatus) {
-        if (job.getVia().equals(JobVia.UI.name()) || job.getVia().equals(JobVia.CLI.name())) {
+        if (job.getVia().equals(JobVia.UI.name()) || job.getVia().equals(JobVia.CLI.name()) || job.getVia().equals(JobVia.Schedule.name())) {
             return; 
         }
         
@@ -332,4 +506,11 @@ public class ScheduleJob implements org.quartz.Job {
                 break;
         }
     }
+
+    private void recordTick(Job job, JobExecutionContext jobExecutionContext) {
+        if (jobExecutionContext.getScheduledFireTime() != null)
+            meterRegistry.timer("terrakube.scheduler.tick.lag").record(
+                    Math.max(0, System.currentTimeMillis() - jobExecutionContext.getScheduledFireTime().getTime()), TimeUnit.MILLISECONDS);
+        meterRegistry.counter("terrakube.scheduler.ticks", "status", String.valueOf(job.getStatus())).increment();
+    }
 }
@@ -2,17 +2,30 @@ package org.terrakube.api.plugin.scheduler;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.repository.ScheduleRepository;
 import org.terrakube.api.repository.StepRepository;
+import org.terrakube.api.repository.TemplateRepository;
 import org.terrakube.api.repository.WorkspaceRepository;
 import org.terrakube.api.rs.job.Job;
 import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.job.JobVia;
 import org.terrakube.api.rs.job.step.Step;
+import org.terrakube.api.rs.template.Template;
+import org.terrakube.api.rs.workspace.schedule.Schedule;
 import org.quartz.*;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.terrakube.api.rs.workspace.Workspace;
 
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 @AllArgsConstructor
@@ -22,6 +35,7 @@ public class ScheduleJobService {
 
     public static final String PREFIX_JOB = "TerrakubeV2_Trigger_";
     public static final String PREFIX_JOB_CONTEXT = "TerrakubeV2_Job_";
+    public static final String CANCEL_CHANNEL = "terrakube:executor:cancel";
     public static final String CRON_SCHEDULE = "0 * * ? * *"; //CHECK EVERY MINUTES
 
     Scheduler scheduler;
@@ -30,6 +44,14 @@ public class ScheduleJobService {
 
     WorkspaceRepository workspaceRepository;
 
+    ScheduleRepository scheduleRepository;
+
+    JobRepository jobRepository;
+
+    TemplateRepository templateRepository;
+
+    RedisTemplate redisTemplate;
+
     public void createJobTrigger(String cronExpression, String triggerId) throws ParseException, SchedulerException {
 
         JobDataMap jobDataMap = new JobDataMap();
@@ -81,6 +103,14 @@ public class ScheduleJobService {
         scheduler.scheduleJob(jobDetail, trigger);
     }
 
+    /**
+     * Jobs waiting for executors keep the periodic job context, it is created again when it was already removed
+     */
+    public void keepJobContext(Job job) throws ParseException, SchedulerException {
+        if (!scheduler.checkExists(new JobKey(PREFIX_JOB_CONTEXT + job.getId())))
+            createJobContext(job);
+    }
+
     public void createJobContextNow(Job job) throws SchedulerException {
 
         String random = UUID.randomUUID().toString();
@@ -108,6 +138,46 @@ public class ScheduleJobService {
         scheduler.scheduleJob(jobDetail, trigger);
     }
 
+    /**
+     * One time job context fired after the backoff when every executor was busy, the attempt is kept in the job data
+     */
+    public void createJobContextRetry(Job job, int dispatchAttempt, long delayMillis) throws SchedulerException {
+
+        String identity = getRetryIdentity(job, dispatchAttempt);
+        JobDataMap jobDataMap = new JobDataMap();
+        jobDataMap.put(ScheduleJob.JOB_ID, job.getId());
+        jobDataMap.put(ScheduleJob.DISPATCH_ATTEMPT, dispatchAttempt);
+        jobDataMap.put("isTriggerFromStatusChange", "true");
+        jobDataMap.put("identity", identity);
+
+        JobDetail jobDetail = JobBuilder.newJob().ofType(ScheduleJob.class)
+                .setJobData(jobDataMap)
+                .withIdentity(identity)
+                .withDescription(String.valueOf(job.getId()))
+                .build();
+
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .forJob(jobDetail)
+                .withIdentity(identity)
+                .withDescription(String.valueOf(job.getId()))
+                .startAt(new Date(System.currentTimeMillis() + delayMillis))
+                .build();
+
+        log.info("Retrying Job Context {} in {} ms, attempt {}", job.getId(), delayMillis, dispatchAttempt);
+        scheduler.scheduleJob(jobDetail, trigger);
+    }
+
+    public boolean isJobContextRetryScheduled(Job job, int maxRetries) throws SchedulerException {
+        for (int attempt = 1; attempt < maxRetries; attempt++)
+            if (scheduler.checkExists(new JobKey(getRetryIdentity(job, attempt))))
+                return true;
+        return false;
+    }
+
+    private String getRetryIdentity(Job job, int dispatchAttempt) {
+        return PREFIX_JOB_CONTEXT + job.getId() + "_retry_" + dispatchAttempt;
+    }
+
     public void deleteJobTrigger(String triggerId) throws ParseException, SchedulerException {
         log.info("Delete Schedule Job Trigger {}", triggerId);
         scheduler.deleteJob(new JobKey(PREFIX_JOB + triggerId));
@@ -117,12 +187,82 @@ public class ScheduleJobService {
     public void deleteJobContext(int jobId) throws ParseException, SchedulerException {
         log.info("Delete Job Context {}", jobId);
         scheduler.deleteJob(new JobKey(PREFIX_JOB_CONTEXT + jobId));
+        boolean cancelledSteps = false;
         for(Step step: stepRepository.findByJobId(jobId)){
-            if(step.getStatus().equals(JobStatus.pending) || step.getStatus().equals(JobStatus.running)){
+            if(step.getStatus().equals(JobStatus.pending) || step.getStatus().equals(JobStatus.running) || step.getStatus().equals(JobStatus.queue)){
                 step.setStatus(JobStatus.cancelled);
                 stepRepository.save(step);
+                cancelledSteps = true;
             }
         }
+
+        if (cancelledSteps)
+            publishCancellation(jobId);
     }
 
-}
\ No newline at end of file
+    /**
+     * The executor running the job is subscribed to the cancel channel and stops the terraform process right away
+     */
+    private void publishCancellation(int jobId) {
+        try {
+            byte[] channel = CANCEL_CHANNEL.getBytes(StandardCharsets.UTF_8);
+            byte[] message = String.valueOf(jobId).getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, message));
+        } catch (Exception e) {
+            log.error("Unable to publish cancellation for job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * Create the jobs for the schedule triggers in a single transaction and start their job context
+     */
+    @Transactional
+    public List<Job> createScheduledJobs(Collection<String> triggerIds) {
+        List<Job> jobs = new ArrayList<>();
+        Date triggerDate = new Date(System.currentTimeMillis());
+        for (String triggerId : triggerIds) {
+            Schedule schedule = scheduleRepository.findById(UUID.fromString(triggerId)).orElse(null);
+            if (schedule == null) {
+                log.warn("Schedule {} no longer exists", triggerId);
+                continue;
+            }
+
+            if (schedule.getWorkspace().isLocked()) {
+                log.warn("Workspace {} {} is locked, new jobs can not be created until the lock is released", schedule.getWorkspace().getId(), schedule.getWorkspace().getName());
+                continue;
+            }
+
+            log.info("Creating new job for triggerId: {}", triggerId);
+            Job job = new Job();
+            job.setRefresh(true);
+            job.setRefreshOnly(false);
+            job.setWorkspace(schedule.getWorkspace());
+            job.setOrganization(schedule.getWorkspace().getOrganization());
+            if (schedule.getTemplateReference() != null) {
+                Template template = templateRepository.getReferenceById(UUID.fromString(schedule.getTemplateReference()));
+                job.setTcl(template.getTcl());
+                job.setTemplateReference(schedule.getTemplateReference());
+            } else {
+                job.setTcl(schedule.getTcl());
+            }
+            job.setStatus(JobStatus.pending);
+            job.setVia(JobVia.Schedule.name());
+            job.setCreatedBy("serviceAccount");
+            job.setUpdatedBy("serviceAccount");
+            job.setCreatedDate(triggerDate);
+            job.setUpdatedDate(triggerDate);
+            jobs.add(job);
+        }
+
+        jobs = jobRepository.saveAll(jobs);
+        for (Job job : jobs) {
+            try {
+                log.info("Creating Job Context: {}", job.getId());
+                createJobContext(job);
+            } catch (ParseException | SchedulerException e) {
+                log.error(e.getMessage());
+            }
+        }
+        return jobs;
+    }
+}
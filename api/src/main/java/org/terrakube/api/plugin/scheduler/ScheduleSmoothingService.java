@@ -0,0 +1,144 @@
+package org.terrakube.api.plugin.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorCapacity;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolProperties;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolService;
+import org.terrakube.api.repository.ScheduleRepository;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads the workspace schedules that fire at the same time. When enabled the schedule triggers are queued in redis
+ * with a delay between zero and the smoothing window derived from the workspace id, so a workspace always runs at the
+ * same offset, and the queued schedules are released in batches limited by the free executor slots. Only the api
+ * replica holding the release lock releases schedules, so the batch limit applies to the whole cluster.
+ */
+@Slf4j
+@Service
+public class ScheduleSmoothingService {
+
+    private static final String PENDING_SCHEDULES = "terrakube:schedules:pending";
+    private static final String RELEASE_LOCK_KEY = "terrakube:schedules:release:lock";
+    // the lock is only released by the instance holding it, it could have expired and been taken by another instance
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private final RedisTemplate redisTemplate;
+    private final ScheduleRepository scheduleRepository;
+    private final ScheduleJobService scheduleJobService;
+    private final ExecutorPoolService executorPoolService;
+    private final ExecutorPoolProperties executorPoolProperties;
+    private final boolean enabled;
+    private final int windowSeconds;
+    private final int releaseLimit;
+
+    public ScheduleSmoothingService(RedisTemplate redisTemplate,
+                                    ScheduleRepository scheduleRepository,
+                                    ScheduleJobService scheduleJobService,
+                                    ExecutorPoolService executorPoolService,
+                                    ExecutorPoolProperties executorPoolProperties,
+                                    @Value("${org.terrakube.api.schedules.smoothing.enabled:false}") boolean enabled,
+                                    @Value("${org.terrakube.api.schedules.smoothing.window:300}") int windowSeconds,
+                                    @Value("${org.terrakube.api.schedules.smoothing.releaseLimit:10}") int releaseLimit) {
+        this.redisTemplate = redisTemplate;
+        this.scheduleRepository = scheduleRepository;
+        this.scheduleJobService = scheduleJobService;
+        this.executorPoolService = executorPoolService;
+        this.executorPoolProperties = executorPoolProperties;
+        this.enabled = enabled;
+        this.windowSeconds = windowSeconds;
+        this.releaseLimit = releaseLimit;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void enqueue(String triggerId, Date fireTime) {
+        String workspaceId = scheduleRepository.findById(UUID.fromString(triggerId))
+                .map(schedule -> schedule.getWorkspace().getId().toString())
+                .orElse(triggerId);
+        long releaseTime = fireTime.getTime() + TimeUnit.SECONDS.toMillis(jitter(workspaceId));
+
+        // a schedule that fires again before it was released is only queued once and keeps its release time
+        if (Boolean.TRUE.equals(redisTemplate.opsForZSet().addIfAbsent(PENDING_SCHEDULES, triggerId, releaseTime)))
+            log.info("Schedule {} queued, release at {}", triggerId, new Date(releaseTime));
+        else
+            log.info("Schedule {} is already queued", triggerId);
+    }
+
+    @Scheduled(fixedDelayString = "${org.terrakube.api.schedules.smoothing.interval:5}", timeUnit = TimeUnit.SECONDS)
+    public void release() {
+        if (!enabled)
+            return;
+
+        String lockToken = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(RELEASE_LOCK_KEY, lockToken, Duration.ofMinutes(1))))
+            return;
+
+        try {
+            releaseDueSchedules();
+        } finally {
+            redisTemplate.execute(RELEASE_LOCK, List.of(RELEASE_LOCK_KEY), lockToken);
+        }
+    }
+
+    private void releaseDueSchedules() {
+        int budget = getReleaseBudget();
+        if (budget <= 0)
+            return;
+
+        Set<Object> dueSchedules = redisTemplate.opsForZSet().rangeByScore(PENDING_SCHEDULES, 0, System.currentTimeMillis(), 0, budget);
+        if (dueSchedules == null || dueSchedules.isEmpty())
+            return;
+
+        // removing the schedule from the queue claims it, a replica that took an expired lock skips it
+        List<String> claimedSchedules = new ArrayList<>();
+        for (Object triggerId : dueSchedules) {
+            Long removed = redisTemplate.opsForZSet().remove(PENDING_SCHEDULES, triggerId);
+            if (removed != null && removed > 0)
+                claimedSchedules.add(triggerId.toString());
+        }
+        if (claimedSchedules.isEmpty())
+            return;
+
+        try {
+            log.info("Releasing {} scheduled jobs", claimedSchedules.size());
+            scheduleJobService.createScheduledJobs(claimedSchedules);
+        } catch (Exception ex) {
+            log.error("Unable to create scheduled jobs {}: {}", claimedSchedules, ex.getMessage());
+            long retryTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            claimedSchedules.forEach(triggerId -> redisTemplate.opsForZSet().addIfAbsent(PENDING_SCHEDULES, triggerId, retryTime));
+        }
+    }
+
+    private int getReleaseBudget() {
+        if (!executorPoolProperties.isEnabled())
+            return releaseLimit;
+
+        // executors that do not advertise their capacity are not limited, like the fair share capacity
+        List<ExecutorCapacity> executors = executorPoolService.getAvailableExecutors();
+        if (executors.isEmpty())
+            return releaseLimit;
+
+        int freeSlots = executors
+                .stream()
+                .mapToInt(executor -> Math.max(0, executor.getFreeSlots()))
+                .sum();
+        return Math.min(releaseLimit, freeSlots);
+    }
+
+    private int jitter(String workspaceId) {
+        return windowSeconds > 0 ? Math.floorMod(workspaceId.hashCode(), windowSeconds) : 0;
+    }
+}
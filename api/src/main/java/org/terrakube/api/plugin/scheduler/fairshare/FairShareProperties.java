@@ -0,0 +1,36 @@
+package org.terrakube.api.plugin.scheduler.fairshare;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Weights and concurrency caps are configured by organization name, for example
+ * org.terrakube.api.scheduler.fairshare.weights.myorg=3 or org.terrakube.api.scheduler.fairshare.maxConcurrent.myorg=5.
+ * The priority class of a job is derived from the job via and can be changed with
+ * org.terrakube.api.scheduler.fairshare.priorities.Github=interactive. A pending job moves up one priority class for
+ * every agingSeconds it waits, zero disables the aging.
+ */
+@Component
+@Getter
+@Setter
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
+@PropertySource(value = "classpath:application-${spring.profiles.active}.properties", ignoreResourceNotFound = true)
+@ConfigurationProperties(prefix = "org.terrakube.api.scheduler.fairshare")
+public class FairShareProperties {
+
+    private boolean enabled;
+    private int defaultWeight = 1;
+    private int defaultMaxConcurrent;
+    private int capacity;
+    private int snapshotSeconds = 5;
+    private int agingSeconds = 300;
+    private Map<String, Integer> weights = new HashMap<>();
+    private Map<String, Integer> maxConcurrent = new HashMap<>();
+    private Map<String, JobPriority> priorities = new HashMap<>();
+}
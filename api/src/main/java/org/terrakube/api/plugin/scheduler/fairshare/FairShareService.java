@@ -0,0 +1,199 @@
+package org.terrakube.api.plugin.scheduler.fairshare;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorCapacity;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolProperties;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolService;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.job.JobVia;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which pending jobs can be sent to the executors. The next job of every workspace competes for the free
+ * capacity, jobs from a higher priority class go first and inside the same class the organization with the lowest
+ * number of active jobs relative to its weight wins, organizations that reached their concurrency cap are skipped.
+ * Waiting jobs age into higher priority classes so scheduled jobs are not starved by interactive ones.
+ * The admitted jobs are kept in redis for a few seconds so the job contexts of every api replica share the same
+ * decision, a job is admitted only once by removing it from the admitted set.
+ */
+@Slf4j
+@Service
+public class FairShareService {
+
+    private static final List<JobStatus> ACTIVE = List.of(JobStatus.queue, JobStatus.running);
+    private static final String ADMITTED = "terrakube:fairshare:admitted";
+    private static final String SNAPSHOT = "terrakube:fairshare:snapshot";
+    private static final String REFRESH_LOCK_KEY = "terrakube:fairshare:lock";
+    // the lock is only released by the instance holding it, it could have expired and been taken by another instance
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private final JobRepository jobRepository;
+    private final ExecutorPoolService executorPoolService;
+    private final ExecutorPoolProperties executorPoolProperties;
+    private final FairShareProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final RedisTemplate redisTemplate;
+
+    public FairShareService(JobRepository jobRepository,
+                            ExecutorPoolService executorPoolService,
+                            ExecutorPoolProperties executorPoolProperties,
+                            FairShareProperties properties,
+                            MeterRegistry meterRegistry,
+                            RedisTemplate redisTemplate) {
+        this.jobRepository = jobRepository;
+        this.executorPoolService = executorPoolService;
+        this.executorPoolProperties = executorPoolProperties;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.redisTemplate = redisTemplate;
+    }
+
+    public boolean admit(Job job) {
+        if (!properties.isEnabled())
+            return true;
+
+        // jobs created after the last decision are considered right away so interactive runs are not delayed
+        Object lastJobId = redisTemplate.opsForValue().get(SNAPSHOT);
+        if (lastJobId == null || job.getId() > Integer.parseInt(lastJobId.toString()))
+            refresh();
+
+        Long removed = redisTemplate.opsForSet().remove(ADMITTED, String.valueOf(job.getId()));
+        boolean result = removed != null && removed > 0;
+        meterRegistry.counter("terrakube.scheduler.fairshare",
+                "result", result ? "admitted" : "deferred",
+                "priority", getPriority(job).name()).increment();
+        return result;
+    }
+
+    public JobPriority getPriority(Job job) {
+        return getPriority(job.getVia());
+    }
+
+    private JobPriority getPriority(String jobVia) {
+        String via = jobVia != null ? jobVia : JobVia.UI.name();
+        JobPriority priority = properties.getPriorities().get(via);
+        if (priority != null)
+            return priority;
+        if (via.equals(JobVia.UI.name()) || via.equals(JobVia.CLI.name()))
+            return JobPriority.interactive;
+        if (via.equals(JobVia.Schedule.name()))
+            return JobPriority.scheduled;
+        return JobPriority.vcs;
+    }
+
+    private void refresh() {
+        // the replica holding the lock takes the decision, the others use the admitted set that is already stored
+        String lockToken = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(REFRESH_LOCK_KEY, lockToken, Duration.ofSeconds(30))))
+            return;
+
+        try {
+            decide(lockToken);
+        } finally {
+            redisTemplate.execute(RELEASE_LOCK, List.of(REFRESH_LOCK_KEY), lockToken);
+        }
+    }
+
+    private void decide(String lockToken) {
+        Map<UUID, Integer> allocated = new HashMap<>();
+        int activeJobs = 0;
+        for (OrganizationJobs organizationJobs : jobRepository.countByOrganizationAndStatusIn(ACTIVE)) {
+            allocated.put(organizationJobs.getOrganizationId(), (int) organizationJobs.getJobs());
+            activeJobs += (int) organizationJobs.getJobs();
+        }
+        Set<UUID> busyWorkspaces = new HashSet<>(jobRepository.findWorkspaceIdsByStatusIn(ACTIVE));
+
+        // only the oldest pending job of a workspace can run, the rest are waiting for it anyway
+        Map<UUID, PendingJob> candidates = new LinkedHashMap<>();
+        int maxJobId = 0;
+        for (PendingJob pendingJob : jobRepository.findPendingJobsByStatus(JobStatus.pending)) {
+            maxJobId = Math.max(maxJobId, pendingJob.getId());
+            if (pendingJob.isWorkspaceLocked() || busyWorkspaces.contains(pendingJob.getWorkspaceId()))
+                continue;
+            candidates.putIfAbsent(pendingJob.getWorkspaceId(), pendingJob);
+        }
+
+        int capacity = getCapacity(activeJobs);
+        long now = System.currentTimeMillis();
+        List<String> selected = new ArrayList<>();
+        List<PendingJob> waiting = new ArrayList<>(candidates.values());
+        while (selected.size() < capacity && !waiting.isEmpty()) {
+            PendingJob next = null;
+            for (PendingJob candidate : waiting) {
+                if (isCapped(candidate, allocated))
+                    continue;
+                if (next == null || compare(candidate, next, allocated, now) < 0)
+                    next = candidate;
+            }
+            if (next == null)
+                break;
+
+            waiting.remove(next);
+            selected.add(String.valueOf(next.getId()));
+            allocated.merge(next.getOrganizationId(), 1, Integer::sum);
+        }
+
+        log.info("Fair share admitted {} of {} pending workspaces, capacity {}", selected.size(), candidates.size(),
+                capacity == Integer.MAX_VALUE ? "unlimited" : capacity);
+        if (selected.isEmpty()) {
+            redisTemplate.delete(ADMITTED);
+        } else {
+            // the new decision replaces the previous one in a single step
+            String nextAdmitted = ADMITTED + ":" + lockToken;
+            redisTemplate.opsForSet().add(nextAdmitted, selected.toArray());
+            redisTemplate.rename(nextAdmitted, ADMITTED);
+        }
+        redisTemplate.opsForValue().set(SNAPSHOT, String.valueOf(maxJobId), Duration.ofSeconds(properties.getSnapshotSeconds()));
+    }
+
+    private int getCapacity(int activeJobs) {
+        if (executorPoolProperties.isEnabled()) {
+            List<ExecutorCapacity> executors = executorPoolService.getAvailableExecutors();
+            if (!executors.isEmpty())
+                return executors.stream().mapToInt(executor -> Math.max(0, executor.getFreeSlots())).sum();
+        }
+        if (properties.getCapacity() > 0)
+            return Math.max(0, properties.getCapacity() - activeJobs);
+        return Integer.MAX_VALUE;
+    }
+
+    private boolean isCapped(PendingJob job, Map<UUID, Integer> allocated) {
+        int maxConcurrent = properties.getMaxConcurrent().getOrDefault(job.getOrganizationName(), properties.getDefaultMaxConcurrent());
+        return maxConcurrent > 0 && allocated.getOrDefault(job.getOrganizationId(), 0) >= maxConcurrent;
+    }
+
+    private int compare(PendingJob job, PendingJob other, Map<UUID, Integer> allocated, long now) {
+        int priority = Integer.compare(getRank(job, now), getRank(other, now));
+        if (priority != 0)
+            return priority;
+        int share = Double.compare(getShare(job, allocated), getShare(other, allocated));
+        if (share != 0)
+            return share;
+        return Integer.compare(job.getId(), other.getId());
+    }
+
+    private int getRank(PendingJob job, long now) {
+        int rank = getPriority(job.getVia()).ordinal();
+        if (properties.getAgingSeconds() <= 0 || job.getCreatedDate() == null)
+            return rank;
+        long waitingSeconds = TimeUnit.MILLISECONDS.toSeconds(now - job.getCreatedDate().getTime());
+        return (int) Math.max(0, rank - waitingSeconds / properties.getAgingSeconds());
+    }
+
+    private double getShare(PendingJob job, Map<UUID, Integer> allocated) {
+        int weight = properties.getWeights().getOrDefault(job.getOrganizationName(), properties.getDefaultWeight());
+        return allocated.getOrDefault(job.getOrganizationId(), 0) / (double) Math.max(1, weight);
+    }
+}
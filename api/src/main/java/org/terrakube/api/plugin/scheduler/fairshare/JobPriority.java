@@ -0,0 +1,10 @@
+package org.terrakube.api.plugin.scheduler.fairshare;
+
+/**
+ * Priority classes used by the fair share scheduler, declared from the highest to the lowest priority
+ */
+public enum JobPriority {
+    interactive,
+    vcs,
+    scheduled
+}
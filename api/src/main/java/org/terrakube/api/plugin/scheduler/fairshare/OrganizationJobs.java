@@ -0,0 +1,10 @@
+package org.terrakube.api.plugin.scheduler.fairshare;
+
+import java.util.UUID;
+
+public interface OrganizationJobs {
+
+    UUID getOrganizationId();
+
+    long getJobs();
+}
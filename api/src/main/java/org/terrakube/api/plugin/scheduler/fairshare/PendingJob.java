@@ -0,0 +1,24 @@
+package org.terrakube.api.plugin.scheduler.fairshare;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Pending job columns needed by the fair share decision, loaded without the job entity
+ */
+public interface PendingJob {
+
+    int getId();
+
+    String getVia();
+
+    Date getCreatedDate();
+
+    UUID getOrganizationId();
+
+    String getOrganizationName();
+
+    UUID getWorkspaceId();
+
+    boolean isWorkspaceLocked();
+}
@@ -6,9 +6,9 @@ import org.apache.commons.lang3.time.DateUtils;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.JobKey;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.terrakube.api.plugin.streaming.LogRetentionService;
 import org.terrakube.api.plugin.vcs.provider.github.GitHubWebhookService;
 import org.terrakube.api.repository.JobRepository;
 import org.terrakube.api.repository.StepRepository;
@@ -28,7 +28,7 @@ import static org.terrakube.api.plugin.scheduler.ScheduleJobService.PREFIX_JOB_C
 public class InactiveJobs implements org.quartz.Job {
 
     JobRepository jobRepository;
-    RedisTemplate redisTemplate;
+    LogRetentionService logRetentionService;
     GitHubWebhookService gitHubWebhookService;
     StepRepository stepRepository;
 
@@ -48,7 +48,7 @@ public class InactiveJobs implements org.quartz.Job {
                     log.error("Job has been running for more than 6 hours, cancelling running job {}", job.getId());
                     job.setStatus(JobStatus.failed);
                     jobRepository.save(job);
-                    redisTemplate.delete(String.valueOf(job.getId()));
+                    logRetentionService.deleteLogs(job.getId());
                     log.warn("Cancelling pending steps");
                     for (Step step : stepRepository.findByJobId(job.getId())) {
                         if (step.getStatus().equals(JobStatus.pending) || step.getStatus().equals(JobStatus.running)) {
@@ -56,7 +56,7 @@ public class InactiveJobs implements org.quartz.Job {
                             stepRepository.save(step);
                         }
                     }
-                    if (job.getVia().equals(JobVia.CLI.name()) || job.getVia().equals(JobVia.UI.name()) ) {
+                    if (job.getVia().equals(JobVia.CLI.name()) || job.getVia().equals(JobVia.UI.name()) || job.getVia().equals(JobVia.Schedule.name())) {
                         log.info("No information to update for job", job.getId());
                         return;
                     } else {
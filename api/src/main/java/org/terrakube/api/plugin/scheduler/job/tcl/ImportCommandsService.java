@@ -0,0 +1,156 @@
+package org.terrakube.api.plugin.scheduler.job.tcl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Ref;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.Command;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.CommandConfig;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Loads the commands imported by a template flow (importComands). The parsed commands are kept per repository, branch,
+ * folder and commit, the commit of the branch is resolved with ls-remote and refreshed in the background so a step is
+ * only dispatched after a clone when the commands repository really changed.
+ */
+@Slf4j
+@Service
+public class ImportCommandsService {
+
+    private static final String IMPORT_DIRECTORY = "%s/.terraform-spring-boot/importCommands/%s";
+
+    private final LoadingCache<String, String> commitCache;
+    private final Cache<String, List<Command>> commandsCache;
+
+    public ImportCommandsService(@Value("${org.terrakube.api.templates.importCommandsRefresh:300}") int refreshSeconds) {
+        this.commitCache = Caffeine.newBuilder()
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .expireAfterAccess(Duration.ofDays(1))
+                .maximumSize(1000)
+                .build(this::resolveCommit);
+        this.commandsCache = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofDays(1))
+                .maximumSize(1000)
+                .build();
+    }
+
+    public List<Command> importCommands(String repository, String branch, String folder) {
+        String commit;
+        try {
+            commit = commitCache.get(repository + "|" + branch);
+        } catch (Exception ex) {
+            log.error("Unable to resolve commit for {} branch {}: {}", repository, branch, ex.getMessage());
+            return loadCommands(repository, branch, folder);
+        }
+
+        String cacheKey = String.join("|", repository, branch, folder, commit);
+        List<Command> commands = commandsCache.getIfPresent(cacheKey);
+        if (commands != null) {
+            log.info("Using cached commands from {} branch {} folder {} commit {}", repository, branch, folder, commit);
+            return commands;
+        }
+
+        commands = loadCommands(repository, branch, folder);
+        if (commands != null && !commands.isEmpty())
+            commandsCache.put(cacheKey, commands);
+        return commands;
+    }
+
+    private String resolveCommit(String repositoryBranch) throws GitAPIException {
+        String repository = repositoryBranch.substring(0, repositoryBranch.lastIndexOf('|'));
+        String branch = repositoryBranch.substring(repositoryBranch.lastIndexOf('|') + 1);
+        Map<String, Ref> refs = Git.lsRemoteRepository()
+                .setRemote(repository)
+                .setHeads(true)
+                .setTags(true)
+                .callAsMap();
+
+        Ref ref = refs.getOrDefault("refs/heads/" + branch, refs.get("refs/tags/" + branch));
+        if (ref == null)
+            throw new IllegalArgumentException("Branch " + branch + " not found");
+
+        String commit = ref.getPeeledObjectId() != null ? ref.getPeeledObjectId().getName() : ref.getObjectId().getName();
+        log.info("Import commands repository {} branch {} is at {}", repository, branch, commit);
+        return commit;
+    }
+
+    private List<Command> loadCommands(String repository, String branch, String folder) {
+        List<Command> commands = new ArrayList<>();
+        File importFolder = generateImportFolder();
+        try {
+            log.info("Get commands text");
+            String commandsText = getCommandList(repository, branch, folder, importFolder);
+
+            log.info("Parsing yaml file");
+            Yaml yaml = new Yaml(new Constructor(CommandConfig.class, new LoaderOptions()));
+            CommandConfig temp = yaml.load(commandsText);
+
+            if (temp != null && temp.getCommands() != null)
+                commands = temp.getCommands();
+
+            log.info("Importing commands \n{}\n", commandsText);
+        } finally {
+            log.info("Cleaning temp directory");
+            FileUtils.deleteQuietly(importFolder);
+        }
+        return commands;
+    }
+
+    private String getCommandList(String repository, String branch, String folder, File folderImport) {
+        String commandList = "";
+        log.info("Cloning template import repository");
+        try (Git git = Git.cloneRepository()
+                .setURI(repository)
+                .setDirectory(folderImport)
+                .setBranch(branch)
+                .setDepth(1)
+                .call()) {
+            File importData = null;
+            if (folder.equals("/")) {
+                importData = new File(String.format("%s/commands.yaml", folderImport.getCanonicalPath()));
+            } else {
+                importData = new File(String.format("%s/%s/commands.yaml", folderImport.getCanonicalPath(), folder));
+            }
+
+            log.info("Reading commands.yaml file");
+            commandList = FileUtils.readFileToString(importData, Charset.defaultCharset());
+        } catch (IOException | GitAPIException e) {
+            log.error(e.getMessage());
+        }
+        return commandList;
+    }
+
+    private File generateImportFolder() {
+        log.info("Creating import folder");
+        String importCommandFolder = String.format(IMPORT_DIRECTORY, FileUtils.getUserDirectoryPath(), UUID.randomUUID());
+        File importFolder = new File(importCommandFolder);
+        try {
+            if (!importFolder.exists()) {
+                log.info("Creating new import folder for {}", importCommandFolder);
+                FileUtils.forceMkdir(importFolder);
+            } else {
+                FileUtils.cleanDirectory(importFolder);
+            }
+        } catch (IOException e) {
+            log.error(e.getMessage());
+        }
+        return importFolder;
+    }
+}
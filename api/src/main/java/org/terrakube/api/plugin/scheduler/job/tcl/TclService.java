@@ -1,12 +1,12 @@
 package org.terrakube.api.plugin.scheduler.job.tcl;
 
-import lombok.AllArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FileUtils;
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.GitAPIException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.terrakube.api.plugin.scheduler.job.tcl.model.*;
 import org.terrakube.api.repository.JobRepository;
@@ -20,23 +20,38 @@ import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.Constructor;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.Charset;
 import java.util.*;
 
-@AllArgsConstructor
 @Service
 @Getter
 @Setter
 @Slf4j
 public class TclService {
 
-    private static final String IMPORT_DIRECTORY = "%s/.terraform-spring-boot/importCommands/%s";
-
     JobRepository jobRepository;
     StepRepository stepRepository;
     TemplateRepository templateRepository;
+    ImportCommandsService importCommandsService;
+
+    /**
+     * Parsed templates keyed by the hash of the template content, the same template is parsed when the job is
+     * created and again for every step the scheduler runs
+     */
+    private final Cache<String, FlowConfig> flowConfigCache;
+
+    public TclService(JobRepository jobRepository,
+                      StepRepository stepRepository,
+                      TemplateRepository templateRepository,
+                      ImportCommandsService importCommandsService,
+                      @Value("${org.terrakube.api.templates.cacheSize:500}") int templateCacheSize) {
+        this.jobRepository = jobRepository;
+        this.stepRepository = stepRepository;
+        this.templateRepository = templateRepository;
+        this.importCommandsService = importCommandsService;
+        this.flowConfigCache = Caffeine.newBuilder()
+                .maximumSize(templateCacheSize)
+                .build();
+    }
 
     @Transactional
     public Job initJobConfiguration(Job job) {
@@ -54,7 +69,9 @@ public class TclService {
             }
             log.info("Custom Job Setup: \n {}", flowConfig.toString());
 
-            flowConfig.getFlow().parallelStream().forEach(flow -> {
+            Job parentJob = jobRepository.getReferenceById(job.getId());
+            List<Step> steps = new ArrayList<>();
+            for (Flow flow : flowConfig.getFlow()) {
                 log.info("Creating step: {}", flow.toString());
                 Step newStep = new Step();
                 newStep.setStatus(JobStatus.pending);
@@ -65,23 +82,25 @@ public class TclService {
                     newStep.setName("Running Step" + flow.getStep());
                 }
                 log.info("Step name {}", newStep.getName());
-                Job parentJob = jobRepository.getReferenceById(job.getId());
                 newStep.setJob(parentJob);
-                newStep = stepRepository.save(newStep);
-                log.info("Parent {} Step created {}", newStep.getJob().getId(), newStep.getId());
-            });
+                steps.add(newStep);
+            }
+            stepRepository.saveAll(steps).forEach(step -> log.info("Parent {} Step created {}", step.getJob().getId(), step.getId()));
             return jobRepository.getReferenceById(job.getId());
         } else
             return job;
     }
 
     private FlowConfig getFlowConfig(String tcl) {
+        return flowConfigCache.get(DigestUtils.sha256Hex(tcl), key -> parseFlowConfig(tcl));
+    }
+
+    private FlowConfig parseFlowConfig(String tcl) {
         Yaml yaml = new Yaml(new Constructor(FlowConfig.class, new LoaderOptions()));
         FlowConfig flowConfig = null;
         try {
-            FlowConfig temp = yaml.load(new String(Base64.getDecoder().decode(tcl)));
-            log.info("FlowConfig: \n {}", temp);
             flowConfig = yaml.load(new String(Base64.getDecoder().decode(tcl)));
+            log.info("FlowConfig: \n {}", flowConfig);
 
             if (flowConfig.getFlow().isEmpty()) {
                 log.error("Exception parsing yaml: template with no flows");
@@ -109,103 +128,143 @@ public class TclService {
     }
 
     public Flow getNextFlow(Job job) {
-        TreeMap<Integer, Step> map = getPendingSteps(job);
-
-        if (!map.isEmpty()) {
-            log.info("Next Command: {}", map.firstKey());
-
-            Optional<Flow> nextFlow = getFlowConfig(job.getTcl())
-                    .getFlow()
-                    .stream()
-                    .filter(flow -> flow.getStep() == map.firstKey())
-                    .findFirst();
-
-            if (nextFlow.isPresent()) {
-                Flow finalFlow = nextFlow.get();
-                log.info("Checking import commands in YAML");
-                ImportComands importComands = finalFlow.getImportComands();
-                if (importComands != null) {
-                    log.info("Import commands from {} branch {} folder {}", importComands.getRepository(), importComands.getBranch(), importComands.getFolder().split(",")[0]);
-                    finalFlow.setCommands(importCommands(importComands.getRepository(), importComands.getBranch(), importComands.getFolder().split(",")[0]));
-                }
-
-                return finalFlow;
-
-            } else {
-                return null;
-            }
-        } else
-            return null;
+        Map<String, Flow> readyFlows = getReadySteps(job);
+        return readyFlows.isEmpty() ? null : importCommands(copyFlow(readyFlows.values().iterator().next()));
     }
 
-    private List<Command> importCommands(String repository, String branch, String folder) {
-        List<Command> commands = new ArrayList<>();
-        try {
-            File importFolder = generateImportFolder();
-            log.info("Get commands text");
-            String commandsText = getCommandList(repository, branch, folder, generateImportFolder());
+    /**
+     * Pending flows that can run now keyed by step id in step order. A flow declaring dependsOn waits for those steps
+     * only, a flow without it waits for every step with a lower number like the templates always did.
+     */
+    public Map<String, Flow> getReadyFlows(Job job) {
+        Map<String, Flow> readyFlows = new LinkedHashMap<>();
+        getReadySteps(job).forEach((stepId, flow) -> readyFlows.put(stepId, importCommands(copyFlow(flow))));
+        return readyFlows;
+    }
 
-            log.info("Parsing yaml file");
-            Yaml yaml = new Yaml(new Constructor(CommandConfig.class, new LoaderOptions()));
-            CommandConfig temp = yaml.load(commandsText);
+    private Map<String, Flow> getReadySteps(Job job) {
+        Map<String, Flow> readyFlows = new LinkedHashMap<>();
+        List<Step> steps = stepRepository.findByJobId(job.getId());
+        TreeMap<Integer, Step> pendingSteps = getPendingSteps(steps);
+        if (pendingSteps.isEmpty())
+            return readyFlows;
 
-            commands = temp.getCommands();
+        Map<Integer, Flow> flows = new HashMap<>();
+        getFlowConfig(job.getTcl()).getFlow().forEach(flow -> flows.putIfAbsent(flow.getStep(), flow));
+        Set<Integer> unfinishedSteps = new HashSet<>();
+        // templates without dependencies always continue with the lowest pending step
+        if (flows.values().stream().anyMatch(flow -> flow.getDependsOn() != null))
+            for (Step step : steps)
+                if (isUnfinished(step.getStatus()))
+                    unfinishedSteps.add(step.getStepNumber());
 
-            log.info("Importing commands \n{}\n", commandsText);
+        for (Map.Entry<Integer, Step> pendingStep : pendingSteps.entrySet()) {
+            Flow flow = flows.get(pendingStep.getKey());
+            if (flow == null)
+                break;
+            if (!isReady(flow, unfinishedSteps))
+                continue;
 
-            log.info("Cleaning temp directory");
-            FileUtils.cleanDirectory(importFolder);
-        } catch (IOException e) {
-            log.error(e.getMessage());
+            log.info("Next Command: {}", pendingStep.getKey());
+            readyFlows.put(pendingStep.getValue().getId().toString(), flow);
+            // flows without dependencies keep running one at a time
+            if (flow.getDependsOn() == null)
+                break;
         }
-        return commands;
+        return readyFlows;
     }
 
-    private String getCommandList(String repository, String branch, String folder, File folderImport) {
-        String commandList = "";
-        try {
-            log.info("Cloning template import repository");
-            Git.cloneRepository()
-                    .setURI(repository)
-                    .setDirectory(folderImport)
-                    .setBranch(branch)
-                    .call();
-            File importData = null;
-            if (folder.equals("/")) {
-                importData = new File(String.format("%s/commands.yaml", folderImport.getCanonicalPath()));
-            } else {
-                importData = new File(String.format("%s/%s/commands.yaml", folderImport.getCanonicalPath(), folder));
-            }
+    public boolean hasDependencies(Job job) {
+        return getFlowConfig(job.getTcl()).getFlow().stream().anyMatch(flow -> flow.getDependsOn() != null);
+    }
+
+    /**
+     * Plan steps that can run at the same time as the given step, they are not a dependency of the step and they do
+     * not depend on it. Templates without dependencies run one step at a time and never have parallel plans.
+     */
+    public Set<Integer> getParallelPlanSteps(Job job, int stepNumber) {
+        Set<Integer> parallelSteps = new HashSet<>();
+        if (job.getTcl() == null || !hasDependencies(job))
+            return parallelSteps;
 
-            log.info("Reading commands.yaml file");
-            commandList = FileUtils.readFileToString(importData, Charset.defaultCharset());
-        } catch (IOException | GitAPIException e) {
-            log.error(e.getMessage());
+        Map<Integer, Flow> flows = new HashMap<>();
+        getFlowConfig(job.getTcl()).getFlow().forEach(flow -> flows.putIfAbsent(flow.getStep(), flow));
+        Set<Integer> dependencies = getDependencies(flows, stepNumber);
+        for (Flow flow : flows.values()) {
+            if (flow.getStep() == stepNumber || dependencies.contains(flow.getStep()) || !isPlan(flow))
+                continue;
+            if (!getDependencies(flows, flow.getStep()).contains(stepNumber))
+                parallelSteps.add(flow.getStep());
         }
-        return commandList;
+        return parallelSteps;
     }
 
-    private File generateImportFolder() {
-        log.info("Creating import folder");
-        String importCommandFolder = String.format(IMPORT_DIRECTORY, FileUtils.getUserDirectoryPath(), UUID.randomUUID());
-        File importFolder = new File(importCommandFolder);
-        try {
-            if (!importFolder.exists()) {
-                log.info("Creating new import folder for {}", importCommandFolder);
-                FileUtils.forceMkdir(importFolder);
-            } else {
-                FileUtils.cleanDirectory(importFolder);
-            }
-        } catch (IOException e) {
-            log.error(e.getMessage());
+    private static Set<Integer> getDependencies(Map<Integer, Flow> flows, int stepNumber) {
+        Set<Integer> dependencies = new HashSet<>();
+        Deque<Integer> next = new ArrayDeque<>();
+        next.push(stepNumber);
+        while (!next.isEmpty()) {
+            Flow flow = flows.get(next.pop());
+            if (flow == null)
+                continue;
+            // same rules as isReady, a flow without dependsOn waits for every lower step
+            Collection<Integer> direct = flow.getDependsOn() != null ? flow.getDependsOn() : flows.keySet();
+            for (Integer step : direct)
+                if (step < flow.getStep() && dependencies.add(step))
+                    next.push(step);
         }
-        return importFolder;
+        return dependencies;
+    }
+
+    private static boolean isPlan(Flow flow) {
+        return FlowType.terraformPlan.name().equals(flow.getType()) || FlowType.terraformPlanDestroy.name().equals(flow.getType());
+    }
+
+    private boolean isReady(Flow flow, Set<Integer> unfinishedSteps) {
+        if (flow.getDependsOn() == null)
+            return unfinishedSteps.stream().noneMatch(step -> step < flow.getStep());
+
+        // dependencies can only point to lower steps so a template can not wait forever on a cycle
+        return flow.getDependsOn().stream()
+                .filter(step -> step < flow.getStep())
+                .noneMatch(unfinishedSteps::contains);
+    }
+
+    private static boolean isUnfinished(JobStatus status) {
+        return status == JobStatus.pending || status == JobStatus.queue || status == JobStatus.running
+                || status == JobStatus.waitingApproval;
+    }
+
+    private Flow importCommands(Flow finalFlow) {
+        // the parsed template is shared through the cache, the imported commands are set on a copy
+        log.info("Checking import commands in YAML");
+        ImportComands importComands = finalFlow.getImportComands();
+        if (importComands != null) {
+            log.info("Import commands from {} branch {} folder {}", importComands.getRepository(), importComands.getBranch(), importComands.getFolder().split(",")[0]);
+            finalFlow.setCommands(importCommandsService.importCommands(importComands.getRepository(), importComands.getBranch(), importComands.getFolder().split(",")[0]));
+        }
+        return finalFlow;
+    }
+
+    private Flow copyFlow(Flow flow) {
+        Flow copy = new Flow();
+        copy.setType(flow.getType());
+        copy.setTeam(flow.getTeam());
+        copy.setName(flow.getName());
+        copy.setError(flow.getError());
+        copy.setStep(flow.getStep());
+        copy.setDependsOn(flow.getDependsOn());
+        copy.setCommands(flow.getCommands());
+        copy.setTemplates(flow.getTemplates());
+        copy.setInputsEnv(flow.getInputsEnv());
+        copy.setInputsTerraform(flow.getInputsTerraform());
+        copy.setImportComands(flow.getImportComands());
+        return copy;
     }
 
-    private TreeMap<Integer, Step> getPendingSteps(Job job) {
+    private TreeMap<Integer, Step> getPendingSteps(List<Step> steps) {
         final TreeMap<Integer, Step> map = new TreeMap<>();
-        stepRepository.findByJobId(job.getId())
-                .stream()
+        steps.stream()
                 .filter(step -> step.getStatus().equals(JobStatus.pending))
                 .forEach(step -> map.put(Integer.valueOf(step.getStepNumber()), step));
         log.info("Pending steps {}", map.size());
@@ -213,7 +272,10 @@ public class TclService {
     }
 
     public String getCurrentStepId(Job job) {
-        return getPendingSteps(job).firstEntry().getValue().getId().toString();
+        Map<String, Flow> readyFlows = getReadySteps(job);
+        return readyFlows.isEmpty()
+                ? getPendingSteps(stepRepository.findByJobId(job.getId())).firstEntry().getValue().getId().toString()
+                : readyFlows.keySet().iterator().next();
     }
 
     private String getTemplateTcl(String templateId) {
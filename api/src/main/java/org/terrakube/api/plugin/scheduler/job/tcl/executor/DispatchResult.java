@@ -0,0 +1,8 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor;
+
+public enum DispatchResult {
+    dispatched,
+    busy,
+    failed,
+    memoized
+}
@@ -32,6 +32,7 @@ public class ExecutorContext {
     private String commitId;
     private boolean tofu;
     private String agentUrl;
+    private String terraformPlan;
     private HashMap<String, String> environmentVariables;
     private HashMap<String, String> variables;
 }
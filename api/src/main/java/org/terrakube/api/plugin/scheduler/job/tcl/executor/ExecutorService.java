@@ -14,9 +14,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral.EphemeralExecutorService;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolService;
 import org.terrakube.api.plugin.scheduler.job.tcl.model.Flow;
 import org.terrakube.api.plugin.token.dynamic.DynamicCredentialsService;
 import org.terrakube.api.plugin.vcs.TokenService;
@@ -34,6 +37,9 @@ import org.terrakube.api.rs.workspace.parameters.Variable;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -66,9 +72,26 @@ public class ExecutorService {
     @Autowired
     TokenService tokenService;
 
+    @Autowired
+    ExecutorPoolService executorPoolService;
+
+    @Autowired
+    RestTemplate executorRestTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    PlanFingerprintService planFingerprintService;
+
+    /**
+     * Build the executor context and send it to an executor. When every executor is busy the job is left as it is and
+     * the caller schedules the retry, the backoff never blocks the scheduler transaction.
+     */
     @Transactional
-    public boolean execute(Job job, String stepId, Flow flow) {
+    public DispatchResult execute(Job job, String stepId, Flow flow) {
         log.info("Pending Job: {} WorkspaceId: {}", job.getId(), job.getWorkspace().getId());
+        Timer.Sample dispatchSample = Timer.start(meterRegistry);
 
         ExecutorContext executorContext = new ExecutorContext();
         executorContext.setOrganizationId(job.getOrganization().getId().toString());
@@ -158,14 +181,35 @@ public class ExecutorService {
         }
         executorContext.setTofu(iacType(job));
         executorContext.setCommitId(job.getCommitId());
-        executorContext
-                .setFolder(job.getWorkspace().getFolder() != null ? job.getWorkspace().getFolder().split(",")[0] : "/");
+        executorContext.setTerraformPlan(job.getTerraformPlan());
+        executorContext.setFolder(getFolder(job, environmentVariables));
         executorContext.setRefresh(job.isRefresh());
         executorContext.setRefreshOnly(job.isRefreshOnly());
         executorContext.setAgentUrl(getExecutorUrl(job));
-        return executorContext.getEnvironmentVariables().containsKey("TERRAKUBE_ENABLE_EPHEMERAL_EXECUTOR")
-                ? ephemeralExecutorService.sendToEphemeralExecutor(job, executorContext)
-                : sendToExecutor(job, executorContext);
+
+        String planFingerprint = planFingerprintService.getFingerprint(job, flow, executorContext);
+        String previousFingerprint = job.getPlanFingerprint();
+        if (planFingerprint != null) {
+            if (planFingerprintService.skipUnchangedPlan(job, planFingerprint)) {
+                dispatchSample.stop(meterRegistry.timer("terrakube.executor.dispatch", "type", "memoized", "result", "success"));
+                return DispatchResult.memoized;
+            }
+            job.setPlanFingerprint(planFingerprint);
+        }
+
+        boolean ephemeral = executorContext.getEnvironmentVariables().containsKey("TERRAKUBE_ENABLE_EPHEMERAL_EXECUTOR");
+        DispatchResult dispatched;
+        if (ephemeral)
+            dispatched = ephemeralExecutorService.sendToEphemeralExecutor(job, executorContext) ? DispatchResult.dispatched : DispatchResult.failed;
+        else
+            dispatched = sendToExecutor(job, executorContext);
+        // only a plan sent to an executor can be reused, a busy or failed dispatch keeps the previous fingerprint
+        if (dispatched != DispatchResult.dispatched)
+            job.setPlanFingerprint(previousFingerprint);
+        dispatchSample.stop(meterRegistry.timer("terrakube.executor.dispatch",
+                "type", ephemeral ? "ephemeral" : "executor",
+                "result", dispatched == DispatchResult.dispatched ? "success" : dispatched == DispatchResult.busy ? "busy" : "failure"));
+        return dispatched;
     }
 
     private String getExecutorUrl(Job job) {
@@ -176,36 +220,53 @@ public class ExecutorService {
         return agentUrl;
     }
 
+    /**
+     * Workspaces with TERRAKUBE_PARALLEL_FOLDERS send every folder to the executor, the folders are planned and applied
+     * in the same job with a separate state for each folder. Other workspaces only use the first folder.
+     */
+    private String getFolder(Job job, HashMap<String, String> environmentVariables) {
+        String folder = job.getWorkspace().getFolder();
+        if (folder == null)
+            return "/";
+        return environmentVariables.containsKey("TERRAKUBE_PARALLEL_FOLDERS") ? folder : folder.split(",")[0];
+    }
+
     private boolean iacType(Job job) {
         return job.getWorkspace().getIacType() != null && job.getWorkspace().getIacType().equals("terraform") ? false
                 : true;
     }
 
-    private boolean sendToExecutor(Job job, ExecutorContext executorContext) {
-        RestTemplate restTemplate = new RestTemplate();
-        boolean executed = false;
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<ExecutorContext> entity = new HttpEntity<>(executorContext, headers);
-            ResponseEntity<ExecutorContext> response = restTemplate.postForEntity(getExecutorUrl(job), entity, ExecutorContext.class);
-            executorContext.setAccessToken("****");
-            executorContext.setModuleSshKey("****");
-            log.debug("Sending Job: /n {}", executorContext);
-            log.info("Response Status: {}", response.getStatusCode().value());
-
-            if (response.getStatusCode().equals(HttpStatus.ACCEPTED)) {
-                job.setStatus(JobStatus.queue);
-                jobRepository.save(job);
-                executed = true;
-            } else
-                executed = false;
-        } catch (RestClientException ex) {
-            log.error(ex.getMessage());
-            executed = false;
+    private DispatchResult sendToExecutor(Job job, ExecutorContext executorContext) {
+        List<String> executorUrls = job.getWorkspace().getAgent() != null
+                ? List.of(getExecutorUrl(job))
+                : executorPoolService.getExecutorUrls(executorContext, getExecutorUrl(job));
+
+        boolean busy = false;
+        for (String executorUrl : executorUrls) {
+            executorContext.setAgentUrl(executorUrl);
+            try {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                HttpEntity<ExecutorContext> entity = new HttpEntity<>(executorContext, headers);
+                ResponseEntity<ExecutorContext> response = executorRestTemplate.postForEntity(executorUrl, entity, ExecutorContext.class);
+                log.info("Job {} sent to {}, Response Status: {}", job.getId(), executorUrl, response.getStatusCode().value());
+
+                if (response.getStatusCode().equals(HttpStatus.ACCEPTED)) {
+                    // a parallel step does not move a running job back to the queue
+                    if (job.getStatus() != JobStatus.running)
+                        job.setStatus(JobStatus.queue);
+                    jobRepository.save(job);
+                    return DispatchResult.dispatched;
+                }
+            } catch (HttpClientErrorException.TooManyRequests | HttpServerErrorException.ServiceUnavailable ex) {
+                log.warn("Executor {} is busy for job {}", executorUrl, job.getId());
+                busy = true;
+            } catch (RestClientException ex) {
+                log.error("Error sending job {} to executor {}: {}", job.getId(), executorUrl, ex.getMessage());
+            }
         }
 
-        return executed;
+        return busy ? DispatchResult.busy : DispatchResult.failed;
     }
 
     private HashMap<String, String> loadOtherEnvironmentVariables(Job job, Flow flow,
@@ -0,0 +1,105 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.Flow;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.FlowType;
+import org.terrakube.api.repository.GlobalVarRepository;
+import org.terrakube.api.repository.HistoryRepository;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.rs.globalvar.Globalvar;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.workspace.parameters.Variable;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plans are memoized by the inputs that can change their result: commit, source, folder, variables, terraform
+ * version, last state and template. A plan with the same fingerprint as a recent plan without changes is not sent to
+ * an executor. Jobs without a commit id are always planned because the branch could have moved, workspaces can opt
+ * out with the environment variable TERRAKUBE_DISABLE_PLAN_MEMOIZATION.
+ */
+@Slf4j
+@Service
+public class PlanFingerprintService {
+
+    public static final String DISABLE_MEMOIZATION = "TERRAKUBE_DISABLE_PLAN_MEMOIZATION";
+
+    private final JobRepository jobRepository;
+    private final HistoryRepository historyRepository;
+    private final GlobalVarRepository globalVarRepository;
+    private final boolean enabled;
+    private final int maxAgeMinutes;
+
+    public PlanFingerprintService(JobRepository jobRepository,
+                                  HistoryRepository historyRepository,
+                                  GlobalVarRepository globalVarRepository,
+                                  @Value("${org.terrakube.api.plans.memoization.enabled:false}") boolean enabled,
+                                  @Value("${org.terrakube.api.plans.memoization.maxAge:60}") int maxAgeMinutes) {
+        this.jobRepository = jobRepository;
+        this.historyRepository = historyRepository;
+        this.globalVarRepository = globalVarRepository;
+        this.enabled = enabled;
+        this.maxAgeMinutes = maxAgeMinutes;
+    }
+
+    /**
+     * @return the plan fingerprint or null when the plan result can not be reused
+     */
+    public String getFingerprint(Job job, Flow flow, ExecutorContext executorContext) {
+        if (!enabled || !FlowType.terraformPlan.name().equals(flow.getType()) || job.isRefreshOnly()
+                || executorContext.getCommitId() == null || executorContext.getCommitId().isEmpty()
+                || executorContext.getEnvironmentVariables().containsKey(DISABLE_MEMOIZATION))
+            return null;
+
+        List<String> inputs = new ArrayList<>();
+        inputs.add("commit=" + executorContext.getCommitId());
+        inputs.add("source=" + executorContext.getSource());
+        inputs.add("branch=" + executorContext.getBranch());
+        inputs.add("folder=" + executorContext.getFolder());
+        inputs.add("version=" + executorContext.getTerraformVersion());
+        inputs.add("tofu=" + executorContext.isTofu());
+        inputs.add("refresh=" + executorContext.isRefresh());
+        inputs.add("template=" + DigestUtils.sha256Hex(String.valueOf(job.getTcl())));
+        inputs.add("state=" + historyRepository.findFirstByWorkspaceOrderByCreatedDateDesc(job.getWorkspace())
+                .map(history -> history.getId() + ":" + history.getSerial())
+                .orElse("none"));
+
+        // the configured values are used, dynamic credentials generated for each job would never match
+        List<String> variables = new ArrayList<>();
+        if (job.getWorkspace().getVariable() != null)
+            for (Variable variable : job.getWorkspace().getVariable())
+                variables.add("workspace:" + variable.getCategory() + ":" + variable.getKey() + "=" + variable.getValue());
+        for (Globalvar globalvar : globalVarRepository.findByOrganization(job.getOrganization()))
+            variables.add("global:" + globalvar.getCategory() + ":" + globalvar.getKey() + "=" + globalvar.getValue());
+        variables.sort(String::compareTo);
+        inputs.add("variables=" + DigestUtils.sha256Hex(String.join("\n", variables)));
+
+        return DigestUtils.sha256Hex(String.join("\n", inputs));
+    }
+
+    /**
+     * A recent plan with the same fingerprint had no changes, the scheduler completes the step like any other plan
+     * without changes. The job is not changed, a skipped plan does not keep the fingerprint so a chain of skipped jobs
+     * can not renew the max age window without ever running the plan.
+     *
+     * @return true when the plan was skipped
+     */
+    public boolean skipUnchangedPlan(Job job, String planFingerprint) {
+        Date minDate = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(maxAgeMinutes));
+        Optional<Job> previousJob = jobRepository.findFirstByWorkspaceAndPlanFingerprintAndPlanChangesFalseAndStatusAndUpdatedDateAfterOrderByIdDesc(
+                job.getWorkspace(), planFingerprint, JobStatus.completed, minDate);
+        if (previousJob.isEmpty() || previousJob.get().getId() == job.getId())
+            return false;
+
+        log.info("Job {} plan inputs match job {} without changes, skipping plan", job.getId(), previousJob.get().getId());
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@AllArgsConstructor
+@RequestMapping("/ephemeral/v1/assignment")
+public class EphemeralAssignmentController {
+
+    EphemeralWarmPoolService ephemeralWarmPoolService;
+
+    @GetMapping(path = "/{profileId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getAssignment(@PathVariable("profileId") String profileId, @RequestParam("jobName") String jobName) {
+        return ephemeralWarmPoolService.pollAssignment(profileId, jobName)
+                .map(jobData -> new ResponseEntity<>(jobData, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
+}
@@ -23,4 +23,7 @@ public class EphemeralConfiguration {
     private String image;
     private String secret;
     private Map<String, String> nodeSelector;
+    private int warmPoolSize;
+    private int warmPoolIdleMinutes = 30;
+    private int warmPoolAssignmentTtl = 300;
 }
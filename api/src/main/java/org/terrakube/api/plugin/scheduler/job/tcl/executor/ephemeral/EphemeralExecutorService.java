@@ -19,16 +19,26 @@ import java.util.*;
 @AllArgsConstructor
 public class EphemeralExecutorService {
 
-    private static final String NODE_SELECTOR = "EPHEMERAL_CONFIG_NODE_SELECTOR_TAGS";
-    private static final String SERVICE_ACCOUNT = "EPHEMERAL_CONFIG_SERVICE_ACCOUNT";
-    private static final String ANNOTATIONS = "EPHEMERAL_CONFIG_ANNOTATIONS";
-
     KubernetesClient kubernetesClient;
     EphemeralConfiguration ephemeralConfiguration;
+    EphemeralWarmPoolService ephemeralWarmPoolService;
 
     public boolean sendToEphemeralExecutor(Job job, ExecutorContext executorContext) {
         final String jobName = "job-" + job.getId();
         deleteEphemeralJob(job);
+        EphemeralProfile profile = EphemeralProfile.fromEnvironment(executorContext.getEnvironmentVariables(), ephemeralConfiguration.getNodeSelector());
+        String jobJson = null;
+        try {
+            jobJson = new ObjectMapper().writeValueAsString(executorContext);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+
+        if (jobJson != null && ephemeralWarmPoolService.assignToWarmExecutor(profile, executorContext.getJobId(), jobJson)) {
+            log.info("Job {} assigned to warm executor pool {}", executorContext.getJobId(), profile.getId());
+            return true;
+        }
+
         log.info("Ephemeral Executor Image {}, Job: {}, Namespace: {}, NodeSelector: {}", ephemeralConfiguration.getImage(), jobName, ephemeralConfiguration.getNamespace(), ephemeralConfiguration.getNodeSelector());
         SecretEnvSource secretEnvSource = new SecretEnvSource();
         secretEnvSource.setName(ephemeralConfiguration.getSecret());
@@ -43,42 +53,13 @@ public class EphemeralExecutorService {
         EnvVar executorFlagBatchJsonContent = new EnvVar();
         try {
             executorFlagBatchJsonContent.setName("EphemeralJobData");
-            ObjectMapper mapper = new ObjectMapper();
-            String jobJson = mapper.writeValueAsString(executorContext);
             executorFlagBatchJsonContent.setValue(Base64.getEncoder().encodeToString(jobJson.getBytes("UTF-8")));
         } catch (Exception e) {
             log.error(e.getMessage());
         }
 
         final List<EnvVar> executorEnvVarFlags = Arrays.asList(executorFlagBatch, executorFlagBatchJsonContent);
-
-        Optional<String> nodeSelector = Optional.ofNullable(executorContext.getEnvironmentVariables().containsKey(NODE_SELECTOR) ? executorContext.getEnvironmentVariables().get(NODE_SELECTOR) : null);
-        Map<String, String> nodeSelectorInfo = new HashMap();
-        log.info("Custom Node selector: {} {}", nodeSelector.isPresent(), nodeSelector.isEmpty());
-        if(nodeSelector.isPresent()) {
-            log.info("Using custom node selector information");
-            for (String nodeSelectorData : nodeSelector.get().split(";")) {
-                String[] info = nodeSelectorData.split("=");
-                nodeSelectorInfo.put(info[0], info[1]);
-            }
-        } else {
-            log.info("Using default node selector information");
-            nodeSelectorInfo = ephemeralConfiguration.getNodeSelector();
-        }
-
-        Optional<String> annotationsInfo = Optional.ofNullable(executorContext.getEnvironmentVariables().containsKey(ANNOTATIONS) ? executorContext.getEnvironmentVariables().get(ANNOTATIONS) : null);
-        Map<String, String> annotations = new HashMap();
-        log.info("Custom Annotations: {}", annotationsInfo.isPresent());
-        if(annotationsInfo.isPresent()) {
-            for (String annotationData : annotationsInfo.get().split(";")) {
-                String[] info = annotationData.split("=");
-                annotations.put(info[0], info[1]);
-            }
-        }
-
-        Optional<String> serviceAccountInfo = Optional.ofNullable(
-                executorContext.getEnvironmentVariables().containsKey(SERVICE_ACCOUNT) ? executorContext.getEnvironmentVariables().get(SERVICE_ACCOUNT) : null);
-        String serviceAccount = serviceAccountInfo.isPresent() ? serviceAccountInfo.get() : null;
+        log.info("Ephemeral profile: {}", profile);
 
         io.fabric8.kubernetes.api.model.batch.v1.Job k8sJob = new JobBuilder()
                 .withApiVersion("batch/v1")
@@ -88,13 +69,13 @@ public class EphemeralExecutorService {
                 .withLabels(Collections.singletonMap("jobId", executorContext.getJobId()))
                 .withLabels(Collections.singletonMap("organizationId", executorContext.getOrganizationId()))
                 .withLabels(Collections.singletonMap("workspaceId", executorContext.getWorkspaceId()))
-                .withAnnotations(annotations)
+                .withAnnotations(profile.getAnnotations())
                 .endMetadata()
                 .withNewSpec()
                 .withNewTemplate()
                 .withNewSpec()
-                .withNodeSelector(nodeSelectorInfo)
-                .withServiceAccountName(serviceAccount)
+                .withNodeSelector(profile.getNodeSelector())
+                .withServiceAccountName(profile.getServiceAccount())
                 .addNewContainer()
                 .withName(jobName)
                 .withEnvFrom(executorEnvVarFromSecret)
@@ -133,5 +114,8 @@ public class EphemeralExecutorService {
         } catch (Exception ex) {
             log.error(ex.getMessage());
         }
+
+        if (ephemeralWarmPoolService.isEnabled())
+            ephemeralWarmPoolService.deleteAssignedExecutor(String.valueOf(job.getId()));
     }
 }
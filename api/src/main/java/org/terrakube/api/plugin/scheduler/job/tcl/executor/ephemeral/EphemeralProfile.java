@@ -0,0 +1,59 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Kubernetes scheduling settings of an ephemeral executor (node selector, service account and annotations), warm
+ * executors are only reused by jobs with the same profile
+ */
+@ToString
+@Getter
+@Setter
+public class EphemeralProfile {
+
+    public static final String NODE_SELECTOR = "EPHEMERAL_CONFIG_NODE_SELECTOR_TAGS";
+    public static final String SERVICE_ACCOUNT = "EPHEMERAL_CONFIG_SERVICE_ACCOUNT";
+    public static final String ANNOTATIONS = "EPHEMERAL_CONFIG_ANNOTATIONS";
+
+    private Map<String, String> nodeSelector = new HashMap<>();
+    private Map<String, String> annotations = new HashMap<>();
+    private String serviceAccount;
+
+    public static EphemeralProfile fromEnvironment(Map<String, String> environmentVariables, Map<String, String> defaultNodeSelector) {
+        EphemeralProfile profile = new EphemeralProfile();
+        if (environmentVariables.containsKey(NODE_SELECTOR)) {
+            profile.setNodeSelector(parseValues(environmentVariables.get(NODE_SELECTOR)));
+        } else if (defaultNodeSelector != null) {
+            profile.setNodeSelector(new HashMap<>(defaultNodeSelector));
+        }
+
+        if (environmentVariables.containsKey(ANNOTATIONS))
+            profile.setAnnotations(parseValues(environmentVariables.get(ANNOTATIONS)));
+
+        profile.setServiceAccount(environmentVariables.get(SERVICE_ACCOUNT));
+        return profile;
+    }
+
+    @JsonIgnore
+    public String getId() {
+        String profileData = new TreeMap<>(nodeSelector) + "|" + new TreeMap<>(annotations) + "|" + serviceAccount;
+        return DigestUtils.sha256Hex(profileData).substring(0, 12);
+    }
+
+    private static Map<String, String> parseValues(String values) {
+        Map<String, String> parsedValues = new HashMap<>();
+        for (String data : values.split(";")) {
+            String[] info = data.split("=");
+            parsedValues.put(info[0], info[1]);
+        }
+        return parsedValues;
+    }
+}
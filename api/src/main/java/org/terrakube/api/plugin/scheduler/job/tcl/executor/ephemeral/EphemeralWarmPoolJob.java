@@ -0,0 +1,24 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+@AllArgsConstructor
+public class EphemeralWarmPoolJob implements org.quartz.Job {
+
+    EphemeralWarmPoolService ephemeralWarmPoolService;
+
+    @Override
+    public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
+        try {
+            ephemeralWarmPoolService.replenish();
+        } catch (Exception e) {
+            log.error("Unable to replenish ephemeral warm pool: {}", e.getMessage());
+        }
+    }
+}
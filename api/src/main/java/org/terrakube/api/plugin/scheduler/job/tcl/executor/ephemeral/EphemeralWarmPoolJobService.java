@@ -0,0 +1,57 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.*;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.text.ParseException;
+
+@Service
+@Slf4j
+@AllArgsConstructor
+public class EphemeralWarmPoolJobService {
+
+    private static final String PREFIX_WARM_POOL = "TerrakubeV2_EphemeralWarmPool";
+
+    private Scheduler scheduler;
+    private EphemeralConfiguration ephemeralConfiguration;
+
+    @PostConstruct
+    public void initWarmPoolJob() {
+        try {
+            JobDetail jobDetail = scheduler.getJobDetail(new JobKey(PREFIX_WARM_POOL));
+            if (jobDetail != null) {
+                log.info("Delete Old Quartz Job for ephemeral warm pool");
+                scheduler.deleteJob(new JobKey(PREFIX_WARM_POOL));
+            }
+
+            if (ephemeralConfiguration.getWarmPoolSize() > 0) {
+                log.info("Setup job to replenish ephemeral warm pool, size {}", ephemeralConfiguration.getWarmPoolSize());
+                setupWarmPoolJob("0 * * ? * *");
+            }
+        } catch (Exception ex) {
+            log.error(ex.getMessage());
+        }
+    }
+
+    public void setupWarmPoolJob(String quartzSchedule) throws ParseException, SchedulerException {
+        JobDetail jobDetail = JobBuilder.newJob().ofType(EphemeralWarmPoolJob.class)
+                .storeDurably()
+                .withIdentity(PREFIX_WARM_POOL)
+                .withDescription("EphemeralWarmPoolV1")
+                .build();
+
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .startNow()
+                .forJob(jobDetail)
+                .withIdentity(PREFIX_WARM_POOL)
+                .withDescription("EphemeralWarmPoolV1")
+                .withSchedule(CronScheduleBuilder.cronSchedule(new CronExpression(quartzSchedule)))
+                .build();
+
+        log.info("Create Schedule Job Trigger for ephemeral warm pool {}", jobDetail.getKey());
+        scheduler.scheduleJob(jobDetail, trigger);
+    }
+}
@@ -0,0 +1,237 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.EnvFromSource;
+import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.SecretEnvSource;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.fabric8.kubernetes.api.model.batch.v1.JobBuilder;
+import io.fabric8.kubernetes.api.model.batch.v1.JobStatus;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a pool of idle ephemeral executors per profile. The idle executors poll the api for a job assignment, run a
+ * single job and exit, every assignment creates a new executor so the pool size stays the same. The queue only keeps
+ * the job id, the job data includes the secrets sent to the executor and expires if no executor picks it up.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class EphemeralWarmPoolService {
+
+    public static final String WARM_POOL_LABEL = "terrakube.io/warm-pool";
+    public static final String ASSIGNED_LABEL = "terrakube.io/warm-pool-assigned";
+    public static final String JOB_ID_LABEL = "terrakube.io/job-id";
+
+    private static final String PROFILES = "terrakube:ephemeral:profiles";
+    private static final String PROFILE = "terrakube:ephemeral:profile:%s";
+    private static final String QUEUE = "terrakube:ephemeral:queue:%s";
+    private static final String ASSIGNMENT = "terrakube:ephemeral:assignment:%s";
+    private static final String RESERVED = "terrakube:ephemeral:reserved:%s";
+
+    KubernetesClient kubernetesClient;
+    EphemeralConfiguration ephemeralConfiguration;
+    RedisTemplate redisTemplate;
+
+    public boolean isEnabled() {
+        return ephemeralConfiguration.getWarmPoolSize() > 0;
+    }
+
+    public boolean assignToWarmExecutor(EphemeralProfile profile, String jobId, String jobData) {
+        if (!isEnabled())
+            return false;
+
+        registerProfile(profile);
+        String queue = String.format(QUEUE, profile.getId());
+        String reserved = String.format(RESERVED, profile.getId());
+        long assignmentTtl = ephemeralConfiguration.getWarmPoolAssignmentTtl();
+
+        // the idle executor is reserved with INCR so two replicas can not assign the last idle executor twice
+        Long reservedExecutors = redisTemplate.opsForValue().increment(reserved);
+        redisTemplate.expire(reserved, assignmentTtl, TimeUnit.SECONDS);
+        long idleExecutors = countIdleExecutors(profile);
+        log.info("Warm pool {} idle executors {} reserved {} for job {}", profile.getId(), idleExecutors, reservedExecutors, jobId);
+        if (reservedExecutors == null || reservedExecutors > idleExecutors) {
+            redisTemplate.opsForValue().decrement(reserved);
+            return false;
+        }
+
+        redisTemplate.opsForValue().set(String.format(ASSIGNMENT, jobId), jobData, assignmentTtl, TimeUnit.SECONDS);
+        redisTemplate.opsForList().rightPush(queue, jobId);
+        redisTemplate.expire(queue, assignmentTtl, TimeUnit.SECONDS);
+        createWarmExecutor(profile);
+        return true;
+    }
+
+    public Optional<String> pollAssignment(String profileId, String warmJobName) {
+        String queue = String.format(QUEUE, profileId);
+        Object jobData = null;
+        String jobId = null;
+        while (jobData == null) {
+            Object queuedJobId = redisTemplate.opsForList().leftPop(queue);
+            if (queuedJobId == null)
+                return Optional.empty();
+
+            releaseReservation(profileId);
+            jobId = queuedJobId.toString();
+            jobData = redisTemplate.opsForValue().getAndDelete(String.format(ASSIGNMENT, jobId));
+            if (jobData == null)
+                log.warn("Warm pool assignment for job {} expired", jobId);
+        }
+
+        String assignedJobId = jobId;
+        log.info("Warm executor {} assigned to job {}", warmJobName, assignedJobId);
+        try {
+            kubernetesClient.batch().v1().jobs()
+                    .inNamespace(ephemeralConfiguration.getNamespace())
+                    .withName(warmJobName)
+                    .edit(job -> new JobBuilder(job)
+                            .editMetadata()
+                            .addToLabels(ASSIGNED_LABEL, "true")
+                            .addToLabels(JOB_ID_LABEL, assignedJobId)
+                            .endMetadata()
+                            .build());
+        } catch (Exception ex) {
+            log.error("Unable to label warm executor {}: {}", warmJobName, ex.getMessage());
+        }
+        return Optional.of(jobData.toString());
+    }
+
+    public void replenish() {
+        if (!isEnabled())
+            return;
+
+        Set<Object> profileIds = redisTemplate.opsForSet().members(PROFILES);
+        if (profileIds == null)
+            return;
+
+        ObjectMapper mapper = new ObjectMapper();
+        for (Object profileId : profileIds) {
+            Object profileData = redisTemplate.opsForValue().get(String.format(PROFILE, profileId));
+            if (profileData == null) {
+                redisTemplate.opsForSet().remove(PROFILES, profileId);
+                continue;
+            }
+            try {
+                replenish(mapper.readValue(profileData.toString(), EphemeralProfile.class));
+            } catch (JsonProcessingException e) {
+                log.error("Invalid warm pool profile {}: {}", profileId, e.getMessage());
+            }
+        }
+    }
+
+    public void replenish(EphemeralProfile profile) {
+        long missingExecutors = ephemeralConfiguration.getWarmPoolSize() - countIdleExecutors(profile);
+        log.info("Warm pool {} missing executors {}", profile.getId(), Math.max(0, missingExecutors));
+        for (long i = 0; i < missingExecutors; i++) {
+            createWarmExecutor(profile);
+        }
+    }
+
+    public long countIdleExecutors(EphemeralProfile profile) {
+        return kubernetesClient.batch().v1().jobs()
+                .inNamespace(ephemeralConfiguration.getNamespace())
+                .withLabel(WARM_POOL_LABEL, profile.getId())
+                .list()
+                .getItems()
+                .stream()
+                .filter(job -> job.getMetadata().getLabels() == null || !job.getMetadata().getLabels().containsKey(ASSIGNED_LABEL))
+                .filter(job -> isActive(job.getStatus()))
+                .count();
+    }
+
+    public void deleteAssignedExecutor(String jobId) {
+        try {
+            kubernetesClient.batch().v1().jobs()
+                    .inNamespace(ephemeralConfiguration.getNamespace())
+                    .withLabel(JOB_ID_LABEL, jobId)
+                    .delete();
+        } catch (Exception ex) {
+            log.error(ex.getMessage());
+        }
+    }
+
+    private void createWarmExecutor(EphemeralProfile profile) {
+        String jobName = "warm-" + profile.getId() + "-" + RandomStringUtils.randomAlphanumeric(8).toLowerCase();
+
+        SecretEnvSource secretEnvSource = new SecretEnvSource();
+        secretEnvSource.setName(ephemeralConfiguration.getSecret());
+        EnvFromSource envFromSource = new EnvFromSource();
+        envFromSource.setSecretRef(secretEnvSource);
+
+        List<EnvVar> warmExecutorFlags = Arrays.asList(
+                new EnvVar("EphemeralFlagBatch", "true", null),
+                new EnvVar("EphemeralWarmPool", profile.getId(), null),
+                new EnvVar("EphemeralWarmPoolJobName", jobName, null),
+                new EnvVar("EphemeralWarmPoolIdleMinutes", String.valueOf(ephemeralConfiguration.getWarmPoolIdleMinutes()), null)
+        );
+
+        Job k8sJob = new JobBuilder()
+                .withApiVersion("batch/v1")
+                .withNewMetadata()
+                .withName(jobName)
+                .withNamespace(ephemeralConfiguration.getNamespace())
+                .withLabels(Collections.singletonMap(WARM_POOL_LABEL, profile.getId()))
+                .withAnnotations(profile.getAnnotations())
+                .endMetadata()
+                .withNewSpec()
+                .withTtlSecondsAfterFinished(300)
+                .withNewTemplate()
+                .withNewMetadata()
+                .withLabels(Collections.singletonMap(WARM_POOL_LABEL, profile.getId()))
+                .withAnnotations(profile.getAnnotations())
+                .endMetadata()
+                .withNewSpec()
+                .withNodeSelector(profile.getNodeSelector())
+                .withServiceAccountName(profile.getServiceAccount())
+                .addNewContainer()
+                .withName(jobName)
+                .withEnvFrom(envFromSource)
+                .withImage(ephemeralConfiguration.getImage())
+                .withEnv(warmExecutorFlags)
+                .endContainer()
+                .withRestartPolicy("Never")
+                .endSpec()
+                .endTemplate()
+                .endSpec()
+                .build();
+
+        log.info("Creating warm executor {} for profile {}", jobName, profile);
+        kubernetesClient.batch().v1().jobs().inNamespace(ephemeralConfiguration.getNamespace()).resource(k8sJob).create();
+    }
+
+    /**
+     * The reservation counter expires with the queue, it is removed instead of going below zero
+     */
+    private void releaseReservation(String profileId) {
+        String reserved = String.format(RESERVED, profileId);
+        Long reservedExecutors = redisTemplate.opsForValue().decrement(reserved);
+        if (reservedExecutors != null && reservedExecutors <= 0)
+            redisTemplate.delete(reserved);
+    }
+
+    private void registerProfile(EphemeralProfile profile) {
+        try {
+            redisTemplate.opsForValue().set(String.format(PROFILE, profile.getId()), new ObjectMapper().writeValueAsString(profile), 24, TimeUnit.HOURS);
+            redisTemplate.opsForSet().add(PROFILES, profile.getId());
+        } catch (JsonProcessingException e) {
+            log.error(e.getMessage());
+        }
+    }
+
+    private boolean isActive(JobStatus jobStatus) {
+        if (jobStatus == null)
+            return true;
+        return (jobStatus.getSucceeded() == null || jobStatus.getSucceeded() == 0)
+                && (jobStatus.getFailed() == null || jobStatus.getFailed() == 0);
+    }
+}
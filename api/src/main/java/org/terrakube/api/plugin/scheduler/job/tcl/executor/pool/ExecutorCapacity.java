@@ -0,0 +1,23 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.pool;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Set;
+
+@ToString
+@Getter
+@Setter
+public class ExecutorCapacity {
+    private String id;
+    private String url;
+    private int slots;
+    private int freeSlots;
+    private Set<String> runningJobs;
+    private Set<String> workspaces;
+    private Set<String> sources;
+    private Set<String> terraformVersions;
+    private Set<String> plans;
+    private long updated;
+}
@@ -0,0 +1,27 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.pool;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Configuration
+public class ExecutorPoolConfiguration {
+
+    /**
+     * Shared client used to dispatch jobs, the JDK client keeps the connections to the executors alive between calls
+     */
+    @Bean
+    public RestTemplate executorRestTemplate(ExecutorPoolProperties executorPoolProperties) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(executorPoolProperties.getConnectTimeout()))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofSeconds(executorPoolProperties.getReadTimeout()));
+        return new RestTemplate(requestFactory);
+    }
+}
@@ -0,0 +1,22 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.pool;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
+@PropertySource(value = "classpath:application-${spring.profiles.active}.properties", ignoreResourceNotFound = true)
+@ConfigurationProperties(prefix = "org.terrakube.executor.pool")
+public class ExecutorPoolProperties {
+
+    private boolean enabled;
+    private int maxRetries = 3;
+    private long retryBackoff = 2000;
+    private int connectTimeout = 10;
+    private int readTimeout = 30;
+}
@@ -0,0 +1,115 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.pool;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ExecutorContext;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the capacity advertised by the executors in redis and sorts them so the job is sent first to the executor
+ * with the workspace/repository already cached and the most free slots
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class ExecutorPoolService {
+
+    public static final String EXECUTOR_SET = "terrakube:executors";
+    public static final String EXECUTOR_KEY = "terrakube:executor:%s";
+
+    RedisTemplate redisTemplate;
+    ExecutorPoolProperties executorPoolProperties;
+
+    public List<String> getExecutorUrls(ExecutorContext executorContext, String defaultUrl) {
+        List<String> executorUrls = new ArrayList<>();
+        if (executorPoolProperties.isEnabled()) {
+            getAvailableExecutors()
+                    .stream()
+                    .filter(executor -> executor.getFreeSlots() > 0)
+                    .sorted(Comparator.comparingInt((ExecutorCapacity executor) -> affinityScore(executor, executorContext))
+                            .thenComparingInt(ExecutorCapacity::getFreeSlots)
+                            .reversed())
+                    .forEach(executor -> executorUrls.add(executor.getUrl()));
+            log.info("Job {} executor candidates {}", executorContext.getJobId(), executorUrls);
+        }
+
+        if (!executorUrls.contains(defaultUrl))
+            executorUrls.add(defaultUrl);
+        return executorUrls;
+    }
+
+    public List<ExecutorCapacity> getAvailableExecutors() {
+        List<ExecutorCapacity> executors = new ArrayList<>();
+        try {
+            Set<Object> executorIds = redisTemplate.opsForSet().members(EXECUTOR_SET);
+            if (executorIds == null)
+                return executors;
+
+            for (Object executorId : executorIds) {
+                Map<Object, Object> capacity = redisTemplate.opsForHash().entries(String.format(EXECUTOR_KEY, executorId));
+                if (capacity == null || capacity.isEmpty() || capacity.get("url") == null || capacity.get("url").toString().isEmpty()) {
+                    log.info("Executor {} has not reported capacity, removing from pool", executorId);
+                    redisTemplate.opsForSet().remove(EXECUTOR_SET, executorId);
+                    continue;
+                }
+                executors.add(toExecutorCapacity(capacity));
+            }
+        } catch (Exception ex) {
+            log.error("Unable to read executor pool: {}", ex.getMessage());
+        }
+        return executors;
+    }
+
+    private int affinityScore(ExecutorCapacity executor, ExecutorContext executorContext) {
+        int score = 0;
+        // the apply reuses the plan cached by the executor that generated it, plans are advertised as jobId/stepId
+        if (executor.getPlans().stream().anyMatch(plan -> plan.startsWith(executorContext.getJobId() + "/")))
+            score += 8;
+        if (executor.getWorkspaces().contains(executorContext.getWorkspaceId()))
+            score += 4;
+        if (executorContext.getSource() != null && executor.getSources().contains(executorContext.getSource()))
+            score += 2;
+        if (executorContext.getTerraformVersion() != null && executor.getTerraformVersions().contains(executorContext.getTerraformVersion()))
+            score += 1;
+        return score;
+    }
+
+    private ExecutorCapacity toExecutorCapacity(Map<Object, Object> capacity) {
+        ExecutorCapacity executorCapacity = new ExecutorCapacity();
+        executorCapacity.setId(getString(capacity, "id"));
+        executorCapacity.setUrl(getString(capacity, "url"));
+        executorCapacity.setSlots(getInt(capacity, "slots"));
+        executorCapacity.setFreeSlots(getInt(capacity, "freeSlots"));
+        executorCapacity.setRunningJobs(getSet(capacity, "runningJobs"));
+        executorCapacity.setWorkspaces(getSet(capacity, "workspaces"));
+        executorCapacity.setSources(getSet(capacity, "sources"));
+        executorCapacity.setTerraformVersions(getSet(capacity, "terraformVersions"));
+        executorCapacity.setPlans(getSet(capacity, "plans"));
+        executorCapacity.setUpdated(Long.parseLong(Optional.ofNullable(getString(capacity, "updated")).orElse("0")));
+        return executorCapacity;
+    }
+
+    private String getString(Map<Object, Object> capacity, String key) {
+        Object value = capacity.get(key);
+        return value != null ? value.toString() : null;
+    }
+
+    private int getInt(Map<Object, Object> capacity, String key) {
+        try {
+            return Integer.parseInt(Optional.ofNullable(getString(capacity, key)).orElse("0"));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private Set<String> getSet(Map<Object, Object> capacity, String key) {
+        String value = getString(capacity, key);
+        if (value == null || value.isEmpty())
+            return new HashSet<>();
+        return Arrays.stream(value.split(",")).collect(Collectors.toSet());
+    }
+}
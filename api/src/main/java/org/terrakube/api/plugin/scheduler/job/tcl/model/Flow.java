@@ -17,6 +17,7 @@ public class Flow {
 
     private String error;
     private int step;
+    List<Integer> dependsOn;
     List<Command> commands;
 
     List<ScheduleTemplate> templates;
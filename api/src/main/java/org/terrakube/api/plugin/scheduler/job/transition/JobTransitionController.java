@@ -0,0 +1,65 @@
+package org.terrakube.api.plugin.scheduler.job.transition;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.SchedulerException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.terrakube.api.plugin.scheduler.ScheduleJobService;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+
+@Slf4j
+@RestController
+@AllArgsConstructor
+@RequestMapping("/transition/v1")
+public class JobTransitionController {
+
+    JobTransitionService jobTransitionService;
+    ScheduleJobService scheduleJobService;
+
+    @PostMapping(path = "/organization/{organizationId}/job/{jobId}/step/{stepId}",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StepTransitionResult> transition(@PathVariable("organizationId") String organizationId,
+                                                           @PathVariable("jobId") int jobId,
+                                                           @PathVariable("stepId") UUID stepId,
+                                                           @RequestBody StepTransition transition) {
+        if (!isJobStatus(transition.getFromStatus()) || !isJobStatus(transition.getToStatus())) {
+            log.error("Invalid step transition {}", transition);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        Optional<StepTransitionResult> result = jobTransitionService.transition(organizationId, jobId, stepId, transition);
+
+        if (result.isEmpty())
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+
+        if (!result.get().isApplied())
+            return new ResponseEntity<>(result.get(), HttpStatus.CONFLICT);
+
+        // same as the job update hook, the job context continues with the next flow once the job left running, a step
+        // finished while other steps are running can unblock flows that depend on it
+        JobStatus jobStatus = JobStatus.valueOf(result.get().getJobStatus());
+        JobStatus stepStatus = JobStatus.valueOf(result.get().getStepStatus());
+        if (!result.get().isCancelled() && (jobStatus != JobStatus.running || stepStatus != JobStatus.running)) {
+            try {
+                Job job = new Job();
+                job.setId(jobId);
+                scheduleJobService.createJobContextNow(job);
+            } catch (SchedulerException e) {
+                log.error("Unable to schedule job {}: {}", jobId, e.getMessage());
+            }
+        }
+        return ResponseEntity.ok(result.get());
+    }
+
+    private static boolean isJobStatus(String status) {
+        return status != null && Arrays.stream(JobStatus.values()).anyMatch(jobStatus -> jobStatus.name().equals(status));
+    }
+}
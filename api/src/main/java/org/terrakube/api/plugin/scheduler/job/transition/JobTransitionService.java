@@ -0,0 +1,138 @@
+package org.terrakube.api.plugin.scheduler.job.transition;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.terrakube.api.plugin.scheduler.job.tcl.TclService;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.repository.StepRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.job.step.Step;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Applies the step and job status changes reported by the executor in a single transaction. Both updates are compare
+ * and set on the status read in the transaction, a step that is no longer in the expected status (cancelled or already
+ * moved by the scheduler) is not overwritten and a cancelled job is never moved back to pending. The job row is locked
+ * so steps running in parallel complete one after the other, the job only goes back to pending with the last one.
+ * Plans running in parallel add up, the job has changes when any of them has changes.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class JobTransitionService {
+
+    private JobRepository jobRepository;
+    private StepRepository stepRepository;
+    private TclService tclService;
+
+    @Transactional
+    public Optional<StepTransitionResult> transition(String organizationId, int jobId, UUID stepId, StepTransition transition) {
+        Optional<Job> currentJob = jobRepository.findForUpdateById(jobId)
+                .filter(job -> job.getOrganization().getId().toString().equals(organizationId));
+        Optional<Step> currentStep = stepRepository.findById(stepId)
+                .filter(step -> step.getJob().getId() == jobId);
+        if (currentJob.isEmpty() || currentStep.isEmpty())
+            return Optional.empty();
+
+        Job job = currentJob.get();
+        Step step = currentStep.get();
+        JobStatus fromStatus = JobStatus.valueOf(transition.getFromStatus());
+        JobStatus toStatus = JobStatus.valueOf(transition.getToStatus());
+
+        // parallel steps are queued by the scheduler before the executor picks them up
+        if (fromStatus == JobStatus.pending && step.getStatus() == JobStatus.queue)
+            fromStatus = JobStatus.queue;
+
+        // retried transitions from the executor are accepted without changing the step again
+        boolean stepUpdated = step.getStatus() == toStatus
+                || stepRepository.transitionStatus(stepId, fromStatus, toStatus, transition.getOutput()) == 1;
+        if (!stepUpdated) {
+            log.warn("Step {} is {} and can not move from {} to {}", stepId, step.getStatus(), fromStatus, toStatus);
+            return Optional.of(new StepTransitionResult(false, job.getStatus() == JobStatus.cancelled, job.getStatus().name(), step.getStatus().name()));
+        }
+
+        if (job.getStatus() == JobStatus.cancelled) {
+            log.warn("Job {} was cancelled when running executor", jobId);
+            return Optional.of(new StepTransitionResult(true, true, job.getStatus().name(), toStatus.name()));
+        }
+
+        if (job.getStatus() == JobStatus.failed || job.getStatus() == JobStatus.completed || job.getStatus() == JobStatus.noChanges) {
+            log.warn("Job {} is already {}, step {} does not change it", jobId, job.getStatus(), stepId);
+            return Optional.of(new StepTransitionResult(true, false, job.getStatus().name(), toStatus.name()));
+        }
+
+        JobStatus jobStatus = JobStatus.running;
+        boolean planChanges = job.isPlanChanges();
+        String output = job.getOutput();
+        String terraformPlan = job.getTerraformPlan();
+        if (toStatus != JobStatus.running) {
+            planChanges = transition.isPlan() || job.isPlanChanges();
+            jobStatus = toStatus == JobStatus.completed ? JobStatus.pending : JobStatus.failed;
+            if (toStatus == JobStatus.completed && transition.isPlan()) {
+                switch (transition.getExitCode()) {
+                    case 0:
+                        // the first parallel plan to complete replaces the value of the previous plans
+                        planChanges = job.isPlanChanges() && hasCompletedParallelPlans(job, step);
+                        break;
+                    case 1:
+                        jobStatus = JobStatus.failed;
+                        planChanges = false;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (jobStatus == JobStatus.pending && hasRunningSteps(jobId, stepId))
+                jobStatus = JobStatus.running;
+            output = output == null ? "" : output + " Step " + stepId + " completed\n";
+            if (transition.getTerraformPlan() != null)
+                terraformPlan = transition.getTerraformPlan();
+        }
+
+        int updated = jobRepository.transitionStatus(jobId, job.getStatus(), jobStatus, planChanges, output,
+                terraformPlan, transition.getCommitId(), new Date());
+        if (updated == 0) {
+            JobStatus currentStatus = jobRepository.findById(jobId).map(Job::getStatus).orElse(JobStatus.unknown);
+            log.warn("Job {} changed to {} while updating the status", jobId, currentStatus);
+            return Optional.of(new StepTransitionResult(true, currentStatus == JobStatus.cancelled, currentStatus.name(), toStatus.name()));
+        }
+
+        log.info("Job {} step {} moved to {}, job status {}", jobId, stepId, toStatus, jobStatus);
+        return Optional.of(new StepTransitionResult(true, false, jobStatus.name(), toStatus.name()));
+    }
+
+    /**
+     * A memoized plan is applied like a plan without changes reported by the executor, only its step is completed
+     */
+    @Transactional
+    public Optional<StepTransitionResult> completeMemoizedPlan(Job job, UUID stepId) {
+        StepTransition transition = new StepTransition();
+        transition.setFromStatus(JobStatus.pending.name());
+        transition.setToStatus(JobStatus.completed.name());
+        transition.setPlan(true);
+        transition.setExitCode(0);
+        transition.setCommitId(job.getCommitId());
+        return transition(job.getOrganization().getId().toString(), job.getId(), stepId, transition);
+    }
+
+    private boolean hasCompletedParallelPlans(Job job, Step step) {
+        Set<Integer> parallelPlans = tclService.getParallelPlanSteps(job, step.getStepNumber());
+        return !parallelPlans.isEmpty() && stepRepository.findByJobId(job.getId()).stream()
+                .anyMatch(sibling -> !sibling.getId().equals(step.getId())
+                        && sibling.getStatus() == JobStatus.completed
+                        && parallelPlans.contains(sibling.getStepNumber()));
+    }
+
+    private boolean hasRunningSteps(int jobId, UUID stepId) {
+        return stepRepository.findByJobId(jobId).stream()
+                .anyMatch(step -> !step.getId().equals(stepId)
+                        && (step.getStatus() == JobStatus.queue || step.getStatus() == JobStatus.running));
+    }
+}
@@ -0,0 +1,18 @@
+package org.terrakube.api.plugin.scheduler.job.transition;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@ToString
+@Getter
+@Setter
+public class StepTransition {
+    private String fromStatus;
+    private String toStatus;
+    private int exitCode;
+    private boolean plan;
+    private String terraformPlan;
+    private String output;
+    private String commitId;
+}
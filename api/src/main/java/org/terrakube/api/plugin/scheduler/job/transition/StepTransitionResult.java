@@ -0,0 +1,19 @@
+package org.terrakube.api.plugin.scheduler.job.transition;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@ToString
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StepTransitionResult {
+    private boolean applied;
+    private boolean cancelled;
+    private String jobStatus;
+    private String stepStatus;
+}
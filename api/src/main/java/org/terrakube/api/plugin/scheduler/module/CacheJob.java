@@ -16,11 +16,11 @@ import org.terrakube.api.rs.module.GitTagsCache;
 public class CacheJob implements Job {
 
     OrganizationRepository organizationRepository;
+    GitTagsCache gitTagsCache;
 
     @Transactional
     @Override
     public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
-        GitTagsCache gitTagsCache = new GitTagsCache();
         organizationRepository.findAll().forEach(organization -> {
             organization.getModule().forEach(module -> {
                 try {
@@ -6,24 +6,30 @@ import org.quartz.Job;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.springframework.stereotype.Component;
-import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.softdelete.StorageCleanupService;
 
-import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 @Slf4j
 @AllArgsConstructor
 @Component
 public class DeleteStorageBackendJob implements Job {
 
-    StorageTypeService storageTypeService;
+    StorageCleanupService storageCleanupService;
 
     @Override
     public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
         String workspaceId = jobExecutionContext.getJobDetail().getJobDataMap().getString("workspaceId");
         String organizationId = jobExecutionContext.getJobDetail().getJobDataMap().getString("organizationId");
-        List<Integer> jobList = (List<Integer>) jobExecutionContext.getJobDetail().getJobDataMap().get("jobList");
 
-        storageTypeService.deleteWorkspaceOutputData(organizationId, jobList);
-        storageTypeService.deleteWorkspaceStateData(organizationId, workspaceId);
+        try {
+            storageCleanupService.cleanupWorkspace(organizationId, workspaceId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobExecutionException(e);
+        } catch (ExecutionException e) {
+            log.error("Storage cleanup for workspace {} failed: {}", workspaceId, e.getMessage());
+            throw new JobExecutionException(e);
+        }
     }
 }
@@ -17,16 +17,14 @@ import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtDecoders;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
-import org.terrakube.api.repository.PatRepository;
-import org.terrakube.api.repository.TeamTokenRepository;
-import org.terrakube.api.rs.token.group.Group;
-import org.terrakube.api.rs.token.pat.Pat;
+import org.springframework.security.oauth2.jwt.SupplierJwtDecoder;
+import org.terrakube.api.plugin.token.revocation.TokenRevocationService;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Builder
 @Getter
@@ -39,16 +37,17 @@ public class DexAuthenticationManagerResolver implements AuthenticationManagerRe
     private String dexIssuerUri;
     private String patJwtSecret;
     private String internalJwtSecret;
-    private PatRepository patRepository;
-    private TeamTokenRepository teamTokenRepository;
+    private TokenRevocationService tokenRevocationService;
+    @Builder.Default
+    private Map<String, AuthenticationManager> authenticationManagers = new ConcurrentHashMap<>();
 
     @Override
     public AuthenticationManager resolve(HttpServletRequest request) {
-        ProviderManager providerManager = null;
         String issuer = "";
         try{
-            issuer = getIssuer(request);
-            if (isTokenDeleted(getTokenId(request))){
+            Claims claims = getClaims(request);
+            issuer = claims.getIssuer() != null ? claims.getIssuer() : "";
+            if (tokenRevocationService.isRevoked(claims.getId())){
                 //FORCE TOKEN TO USE INTERNAL AUTH SO IT CAN ALWAYS FAIL
                 issuer = jwtTypeInternal;
             }
@@ -58,18 +57,16 @@ public class DexAuthenticationManagerResolver implements AuthenticationManagerRe
         switch (issuer) {
             case jwtTypePat:
                 log.debug("Using Terrakube Authentication Provider");
-                providerManager = new ProviderManager(new JwtAuthenticationProvider(getJwtEncoder(jwtTypePat)));
-                break;
+                return authenticationManagers.computeIfAbsent(jwtTypePat, issuerType -> new ProviderManager(new JwtAuthenticationProvider(getJwtEncoder(issuerType))));
             case jwtTypeInternal:
                 log.debug("Using Terrakube Internal Authentication Provider");
-                providerManager = new ProviderManager(new JwtAuthenticationProvider(getJwtEncoder(jwtTypeInternal)));
-                break;
+                return authenticationManagers.computeIfAbsent(jwtTypeInternal, issuerType -> new ProviderManager(new JwtAuthenticationProvider(getJwtEncoder(issuerType))));
             default:
                 log.debug("Using Dex JWT Authentication Provider");
-                providerManager = new ProviderManager(new JwtAuthenticationProvider(JwtDecoders.fromIssuerLocation(this.dexIssuerUri)));
-                break;
+                // the issuer metadata is loaded on the first dex token, the decoder keeps the JWKS cached and reloads it for unknown key ids
+                return authenticationManagers.computeIfAbsent("Dex", issuerType -> new ProviderManager(new JwtAuthenticationProvider(
+                        new SupplierJwtDecoder(() -> JwtDecoders.fromIssuerLocation(this.dexIssuerUri)))));
         }
-        return providerManager;
     }
 
     private JwtDecoder getJwtEncoder(String issuerType) {
@@ -78,45 +75,13 @@ public class DexAuthenticationManagerResolver implements AuthenticationManagerRe
         return NimbusJwtDecoder.withSecretKey(jwtSecretKey).macAlgorithm(MacAlgorithm.HS256).build();
     }
 
-    private String getIssuer(HttpServletRequest request) {
+    private Claims getClaims(HttpServletRequest request) {
         String token = request.getHeader("authorization").replace("Bearer ", "");
         String withoutSignature = token.substring(0, token.lastIndexOf('.') + 1);
         Jwt<Header, Claims> untrusted = Jwts.parserBuilder().build().parseClaimsJwt(withoutSignature);
-        log.debug("Token {}", token);
-        log.debug("Token Without Signature {}", withoutSignature);
         log.debug("Issuer {}", untrusted.getBody().getIssuer());
-
-        return untrusted.getBody().getIssuer();
-    }
-
-    private String getTokenId(HttpServletRequest request) {
-        String searchToken = request.getHeader("authorization").replace("Bearer ", "");
-        String withoutSignature = searchToken.substring(0, searchToken.lastIndexOf('.') + 1);
-        Jwt<Header, Claims> untrusted = Jwts.parserBuilder().build().parseClaimsJwt(withoutSignature);
         log.debug("TokenId {}", untrusted.getBody().getId());
 
-        return untrusted.getBody().getId();
-    }
-
-    private boolean isTokenDeleted(String tokenId) {
-        if (tokenId != null) {
-            Optional<Pat> searchPat = patRepository.findById(UUID.fromString(tokenId));
-            Optional<Group> searchGroupToken = teamTokenRepository.findById(UUID.fromString(tokenId));
-            if (searchPat.isPresent()) {
-                Pat pat = searchPat.get();
-                if (pat.isDeleted()) {
-                    return true;
-                } else return false;
-            }
-
-            if (searchGroupToken.isPresent()) {
-                Group group = searchGroupToken.get();
-                if (group.isDeleted()) {
-                    return true;
-                } else return false;
-            }
-        }
-
-        return false;
+        return untrusted.getBody();
     }
-}
\ No newline at end of file
+}
@@ -6,16 +6,19 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManagerResolver;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
-import org.terrakube.api.repository.PatRepository;
-import org.terrakube.api.repository.TeamTokenRepository;
+import org.terrakube.api.plugin.token.revocation.TokenRevocationService;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.Arrays;
@@ -31,8 +34,8 @@ public class DexWebSecurityAdapter {
         public SecurityFilterChain filterChain(HttpSecurity http,
                         @Value("${org.terrakube.token.issuer-uri}") String issuerUri,
                         @Value("${org.terrakube.token.pat}") String patJwtSecret,
-                        @Value("${org.terrakube.token.internal}") String internalJwtSecret, PatRepository patRepository,
-                        TeamTokenRepository teamTokenRepository) throws Exception {
+                        @Value("${org.terrakube.token.internal}") String internalJwtSecret,
+                        TokenRevocationService tokenRevocationService) throws Exception {
                 http.cors(Customizer.withDefaults())
                                 .csrf(crsf -> crsf.ignoringRequestMatchers("/remote/tfe/v2/configuration-versions/*",
                                                 "/tfstate/v1/archive/*/terraform.tfstate",
@@ -40,7 +43,7 @@ public class DexWebSecurityAdapter {
                                 .authorizeHttpRequests(authz -> {
                                         authz
                                                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-                                                        .requestMatchers("/actuator/**").permitAll()
+                                                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
                                                         .requestMatchers("/error").permitAll()
                                                         .requestMatchers("/callback/v1/**").permitAll()
                                                         .requestMatchers("/webhook/v1/**").permitAll()
@@ -62,6 +65,8 @@ public class DexWebSecurityAdapter {
                                                         .requestMatchers("/remote/tfe/v2/applies/*/logs").permitAll()
                                                         .requestMatchers("/app/*/*/runs/*").permitAll()
                                                         .requestMatchers("/tofu/index.json").permitAll()
+                                                        .requestMatchers("/ephemeral/v1/**").access(internalToken())
+                                                        .requestMatchers("/transition/v1/**").access(internalToken())
                                                         .anyRequest().authenticated();
                                 })
                                 .oauth2ResourceServer(oauth2 -> {
@@ -70,8 +75,7 @@ public class DexWebSecurityAdapter {
                                                         .dexIssuerUri(issuerUri)
                                                         .patJwtSecret(patJwtSecret)
                                                         .internalJwtSecret(internalJwtSecret)
-                                                        .patRepository(patRepository)
-                                                        .teamTokenRepository(teamTokenRepository)
+                                                        .tokenRevocationService(tokenRevocationService)
                                                         .build();
                                         oauth2.authenticationManagerResolver(authenticationManagerResolver);
                                 });
@@ -79,6 +83,15 @@ public class DexWebSecurityAdapter {
                 return http.build();
         }
 
+        /**
+         * Endpoints only called by the executors with the internal token
+         */
+        private static AuthorizationManager<RequestAuthorizationContext> internalToken() {
+                return (authentication, context) -> new AuthorizationDecision(
+                                authentication.get() instanceof JwtAuthenticationToken token
+                                                && "TerrakubeInternal".equals(token.getTokenAttributes().get("iss")));
+        }
+
         @Bean
         CorsConfigurationSource corsConfigurationSource(
                         @Value("${org.terrakube.ui.url:http://localhost:3000}") String uiURL) {
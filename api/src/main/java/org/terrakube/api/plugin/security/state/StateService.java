@@ -1,36 +1,25 @@
 package org.terrakube.api.plugin.security.state;
 
-import java.util.List;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
-import org.terrakube.api.repository.TeamRepository;
-import org.terrakube.api.rs.team.Team;
+import org.terrakube.api.rs.checks.membership.TeamPermission;
+import org.terrakube.api.rs.checks.membership.TeamPermissionService;
 
 @Service
 public class StateService {
    @Autowired
-   private TeamRepository teamRepository;
+   private TeamPermissionService teamPermissionService;
 
    public boolean hasManageStatePermission(Authentication authentication, String orgnizationId) {
       if (((JwtAuthenticationToken) authentication).getTokenAttributes().get("iss").equals("TerrakubeInternal")) {
          return true;
       } else {
-         Object groupNames = ((JwtAuthenticationToken) authentication).getTokenAttributes().get("groups");
-         if (groupNames == null) {
-            return false;
-         }
-         @SuppressWarnings("unchecked")
-         List<Team> teams = teamRepository.findAllByOrganizationIdAndNameIn(UUID.fromString(orgnizationId), (List<String>) groupNames);
-         for (Team team : teams) {
-            if (team.isManageState()) {
-               return true;
-            }
-         }
-         return false;
+         return teamPermissionService.getPermissions((JwtAuthenticationToken) authentication, UUID.fromString(orgnizationId))
+               .contains(TeamPermission.MANAGE_STATE);
       }
    }
 }
@@ -9,13 +9,10 @@ import org.terrakube.api.plugin.scheduler.workspace.DeleteStorageBackendJob;
 import org.terrakube.api.repository.ScheduleRepository;
 import org.terrakube.api.repository.WorkspaceRepository;
 import org.terrakube.api.rs.Organization;
-import org.terrakube.api.rs.job.Job;
 import org.terrakube.api.rs.workspace.Workspace;
 import org.terrakube.api.rs.workspace.schedule.Schedule;
 
 import java.text.ParseException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.UUID;
 
 @AllArgsConstructor
@@ -48,21 +45,18 @@ public class SoftDeleteService {
     }
 
     public void deleteWorkspaceStorage(Workspace workspace){
-        List<Job> jobList = workspace.getJob();
-        List<Integer> jobIdList = new ArrayList();
-        jobList.forEach(job -> jobIdList.add(job.getId()));
         String workspaceId = workspace.getId().toString();
         String organizationId = workspace.getOrganization().getId().toString();
 
         try {
-            log.info("Setup job to delete storage for organization {} workspace {} jobs {}", organizationId, workspaceId, jobIdList);
+            log.info("Setup job to delete storage for organization {} workspace {}", organizationId, workspaceId);
             JobDataMap jobDataMap = new JobDataMap();
             jobDataMap.put("organizationId", organizationId);
             jobDataMap.put("workspaceId", workspaceId);
-            jobDataMap.put("jobList", jobIdList);
 
             JobDetail jobDetail = JobBuilder.newJob().ofType(DeleteStorageBackendJob.class)
                     .storeDurably()
+                    .requestRecovery()
                     .setJobData(jobDataMap)
                     .withIdentity(PREFIX_JOB_MODULE_DELETE_STORAGE + "_" + UUID.randomUUID())
                     .withDescription("WorkspaceDeleteStorage")
@@ -0,0 +1,105 @@
+package org.terrakube.api.plugin.softdelete;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.repository.JobRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Deletes the storage of a deleted workspace. Job ids are read in pages and the outputs of each page are deleted in
+ * parallel batches, the last deleted job id is saved in redis so a cleanup interrupted by a restart continues from the
+ * last completed page.
+ */
+@Slf4j
+@Service
+public class StorageCleanupService {
+
+    private static final String CHECKPOINT = "terrakube:cleanup:workspace:%s";
+
+    private final StorageTypeService storageTypeService;
+    private final JobRepository jobRepository;
+    private final RedisTemplate redisTemplate;
+    private final ExecutorService cleanupExecutor;
+    private final int pageSize;
+    private final int batchSize;
+
+    public StorageCleanupService(StorageTypeService storageTypeService,
+                                 JobRepository jobRepository,
+                                 RedisTemplate redisTemplate,
+                                 @Value("${org.terrakube.api.storage.cleanup.parallelism:4}") int parallelism,
+                                 @Value("${org.terrakube.api.storage.cleanup.pageSize:1000}") int pageSize,
+                                 @Value("${org.terrakube.api.storage.cleanup.batchSize:100}") int batchSize) {
+        this.storageTypeService = storageTypeService;
+        this.jobRepository = jobRepository;
+        this.redisTemplate = redisTemplate;
+        this.cleanupExecutor = Executors.newFixedThreadPool(parallelism);
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+    }
+
+    public void cleanupWorkspace(String organizationId, String workspaceId) throws InterruptedException, ExecutionException {
+        String checkpointKey = String.format(CHECKPOINT, workspaceId);
+        Object checkpoint = redisTemplate.opsForValue().get(checkpointKey);
+        int lastJobId = checkpoint != null ? Integer.parseInt(checkpoint.toString()) : 0;
+        if (lastJobId > 0)
+            log.info("Resuming storage cleanup for workspace {} after job {}", workspaceId, lastJobId);
+
+        long deletedJobs = 0;
+        List<Integer> jobIds = jobRepository.findIdsByWorkspaceId(UUID.fromString(workspaceId), lastJobId, PageRequest.of(0, pageSize));
+        while (!jobIds.isEmpty()) {
+            List<Future<?>> batches = new ArrayList<>();
+            try {
+                for (int from = 0; from < jobIds.size(); from += batchSize) {
+                    List<Integer> batch = jobIds.subList(from, Math.min(from + batchSize, jobIds.size()));
+                    batches.add(cleanupExecutor.submit(() -> storageTypeService.deleteWorkspaceOutputData(organizationId, batch)));
+                }
+                for (Future<?> batch : batches) {
+                    batch.get();
+                }
+            } catch (CancellationException | RejectedExecutionException e) {
+                throw interrupted(workspaceId, lastJobId);
+            } catch (ExecutionException e) {
+                // a batch interrupted by the shutdown can fail instead of being cancelled
+                if (cleanupExecutor.isShutdown())
+                    throw interrupted(workspaceId, lastJobId);
+                throw e;
+            }
+
+            deletedJobs += jobIds.size();
+            lastJobId = jobIds.get(jobIds.size() - 1);
+            redisTemplate.opsForValue().set(checkpointKey, String.valueOf(lastJobId), 7, TimeUnit.DAYS);
+            log.info("Workspace {} storage cleanup, {} jobs deleted, last job {}", workspaceId, deletedJobs, lastJobId);
+            jobIds = jobRepository.findIdsByWorkspaceId(UUID.fromString(workspaceId), lastJobId, PageRequest.of(0, pageSize));
+        }
+
+        storageTypeService.deleteWorkspaceStateData(organizationId, workspaceId);
+        redisTemplate.delete(checkpointKey);
+        log.info("Workspace {} storage cleanup completed", workspaceId);
+    }
+
+    private static InterruptedException interrupted(String workspaceId, int lastJobId) {
+        log.warn("Storage cleanup for workspace {} interrupted after job {}", workspaceId, lastJobId);
+        return new InterruptedException("Storage cleanup interrupted by shutdown");
+    }
+
+    /**
+     * An interrupted cleanup is resumed from the checkpoint, the queued batches are cancelled so the cleanup waiting
+     * for them is interrupted instead of waiting forever
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Runnable batch : cleanupExecutor.shutdownNow()) {
+            if (batch instanceof Future<?> future)
+                future.cancel(false);
+        }
+    }
+}
@@ -14,12 +14,8 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.apache.commons.text.TextStringBuilder;
 import org.quartz.SchedulerException;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.connection.stream.MapRecord;
-import org.springframework.data.redis.connection.stream.StreamOffset;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
 import org.terrakube.api.plugin.scheduler.ScheduleJobService;
@@ -55,6 +51,7 @@ import org.terrakube.api.plugin.state.model.workspace.WorkspaceModel;
 import org.terrakube.api.plugin.state.model.workspace.state.consumers.StateConsumerList;
 import org.terrakube.api.plugin.state.model.workspace.tags.TagDataList;
 import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.streaming.LogRetentionService;
 import org.terrakube.api.plugin.token.team.TeamTokenService;
 import org.terrakube.api.repository.ArchiveRepository;
 import org.terrakube.api.repository.ContentRepository;
@@ -98,8 +95,7 @@ public class RemoteTfeService {
     private String hostname;
     private StorageTypeService storageTypeService;
     private StepRepository stepRepository;
-    @SuppressWarnings("rawtypes")
-    private RedisTemplate redisTemplate;
+    private LogRetentionService logRetentionService;
     private int executorCount;
 
     private TagRepository tagRepository;
@@ -120,7 +116,7 @@ public class RemoteTfeService {
             @Value("${org.terrakube.hostname}") String hostname,
             StorageTypeService storageTypeService,
             StepRepository stepRepository,
-            @SuppressWarnings("rawtypes") RedisTemplate redisTemplate,
+            LogRetentionService logRetentionService,
             @Value("${org.terrakube.executor.replicas}") int executorCount,
             TagRepository tagRepository,
             WorkspaceTagRepository workspaceTagRepository,
@@ -136,7 +132,7 @@ public class RemoteTfeService {
         this.hostname = hostname;
         this.storageTypeService = storageTypeService;
         this.stepRepository = stepRepository;
-        this.redisTemplate = redisTemplate;
+        this.logRetentionService = logRetentionService;
         this.executorCount = executorCount;
         this.tagRepository = tagRepository;
         this.workspaceTagRepository = workspaceTagRepository;
@@ -1150,24 +1146,13 @@ public class RemoteTfeService {
     byte[] getPlanLogs(int planId, int offset, int limit) {
         Job job = jobRepository.getReferenceById(Integer.valueOf(planId));
         byte[] logs = "".getBytes();
-        TextStringBuilder logsOutput = new TextStringBuilder();
         if (job.getStep() != null && !job.getStep().isEmpty())
             for (Step step : job.getStep()) {
                 if (step.getStepNumber() == 100) {
                     log.info("Checking logs for plan: {}", step.getId());
 
                     try {
-                        @SuppressWarnings("unchecked")
-                        List<MapRecord<String, String, String>> messagesPlan = redisTemplate.opsForStream()
-                                .read(StreamOffset.fromStart(String.valueOf(job.getId())),
-                                        StreamOffset.latest(String.valueOf(job.getId())));
-
-                        for (MapRecord<String, String, String> mapRecord : messagesPlan) {
-                            Map<String, String> streamData = (Map<String, String>) mapRecord.getValue();
-                            logsOutput.appendln(streamData.get("output"));
-                        }
-
-                        String logsOutputString = logsOutput.toString();
+                        String logsOutputString = logRetentionService.readLogs(job);
                         int potentialEndIndex = limit + offset;
                         int endIndex = logsOutputString.length() > potentialEndIndex ? potentialEndIndex
                                 : logsOutputString.length();
@@ -1184,24 +1169,13 @@ public class RemoteTfeService {
     byte[] getApplyLogs(int planId, int offset, int limit) {
         Job job = jobRepository.getReferenceById(Integer.valueOf(planId));
         byte[] logs = "".getBytes();
-        TextStringBuilder logsOutputApply = new TextStringBuilder();
         if (job.getStep() != null && !job.getStep().isEmpty())
             for (Step step : job.getStep()) {
                 if (step.getStepNumber() == 100) {
                     log.info("Checking logs stepId for apply: {}", step.getId());
 
                     try {
-                        @SuppressWarnings("unchecked")
-                        List<MapRecord<String, String, String>> messagesApply = redisTemplate.opsForStream().read(
-                                StreamOffset.fromStart(String.valueOf(job.getId())),
-                                StreamOffset.latest(String.valueOf(job.getId())));
-
-                        for (MapRecord<String, String, String> mapRecord : messagesApply) {
-                            Map<String, String> streamData = (Map<String, String>) mapRecord.getValue();
-                            logsOutputApply.appendln(streamData.get("output"));
-                        }
-
-                        String logsOutputString = logsOutputApply.toString();
+                        String logsOutputString = logRetentionService.readLogs(job);
                         int potentialEndIndex = limit + offset;
                         int endIndex = logsOutputString.length() > potentialEndIndex ? potentialEndIndex
                                 : logsOutputString.length();
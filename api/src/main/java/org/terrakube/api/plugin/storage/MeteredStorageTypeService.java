@@ -0,0 +1,167 @@
+package org.terrakube.api.plugin.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records latency and transferred bytes of every storage operation, tagged with the storage backend
+ */
+public class MeteredStorageTypeService implements StorageTypeService {
+
+    private final StorageTypeService delegate;
+    private final MeterRegistry meterRegistry;
+    private final String backend;
+
+    public MeteredStorageTypeService(StorageTypeService delegate, MeterRegistry meterRegistry, String backend) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.backend = backend;
+    }
+
+    @Override
+    public byte[] getStepOutput(String organizationId, String jobId, String stepId) {
+        return read("getStepOutput", () -> delegate.getStepOutput(organizationId, jobId, stepId));
+    }
+
+    @Override
+    public InputStream getStepOutputStream(String organizationId, String jobId, String stepId) {
+        return time("getStepOutputStream", () -> delegate.getStepOutputStream(organizationId, jobId, stepId));
+    }
+
+    @Override
+    public long getStepOutputSize(String organizationId, String jobId, String stepId) {
+        return time("getStepOutputSize", () -> delegate.getStepOutputSize(organizationId, jobId, stepId));
+    }
+
+    @Override
+    public byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId) {
+        return read("getTerraformPlan", () -> delegate.getTerraformPlan(organizationId, workspaceId, jobId, stepId));
+    }
+
+    @Override
+    public byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName) {
+        return read("getTerraformStateJson", () -> delegate.getTerraformStateJson(organizationId, workspaceId, stateFileName));
+    }
+
+    @Override
+    public void uploadTerraformStateJson(String organizationId, String workspaceId, String stateJson, String stateJsonHistoryId) {
+        write("uploadTerraformStateJson", stateJson, () -> delegate.uploadTerraformStateJson(organizationId, workspaceId, stateJson, stateJsonHistoryId));
+    }
+
+    @Override
+    public byte[] getCurrentTerraformState(String organizationId, String workspaceId) {
+        return read("getCurrentTerraformState", () -> delegate.getCurrentTerraformState(organizationId, workspaceId));
+    }
+
+    @Override
+    public void uploadState(String organizationId, String workspaceId, String terraformState, String historyId) {
+        write("uploadState", terraformState, () -> delegate.uploadState(organizationId, workspaceId, terraformState, historyId));
+    }
+
+    @Override
+    public String saveContext(int jobId, String jobContext) {
+        recordBytes("saveContext", "upload", jobContext);
+        return time("saveContext", () -> delegate.saveContext(jobId, jobContext));
+    }
+
+    @Override
+    public String getContext(int jobId) {
+        String context = time("getContext", () -> delegate.getContext(jobId));
+        recordBytes("getContext", "download", context);
+        return context;
+    }
+
+    @Override
+    public void createContentFile(String contentId, InputStream inputStream) {
+        time("createContentFile", () -> {
+            delegate.createContentFile(contentId, inputStream);
+            return null;
+        });
+    }
+
+    @Override
+    public byte[] getContentFile(String contentId) {
+        return read("getContentFile", () -> delegate.getContentFile(contentId));
+    }
+
+    @Override
+    public void deleteModuleStorage(String organizationName, String moduleName, String providerName) {
+        time("deleteModuleStorage", () -> {
+            delegate.deleteModuleStorage(organizationName, moduleName, providerName);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteWorkspaceOutputData(String organizationId, List<Integer> jobList) {
+        time("deleteWorkspaceOutputData", () -> {
+            delegate.deleteWorkspaceOutputData(organizationId, jobList);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteWorkspaceStateData(String organizationId, String workspaceId) {
+        time("deleteWorkspaceStateData", () -> {
+            delegate.deleteWorkspaceStateData(organizationId, workspaceId);
+            return null;
+        });
+    }
+
+    @Override
+    public void saveLogChunk(String organizationId, String jobId, int chunk, byte[] compressedLogs) {
+        bytes("saveLogChunk", "upload").record(compressedLogs.length);
+        time("saveLogChunk", () -> {
+            delegate.saveLogChunk(organizationId, jobId, chunk, compressedLogs);
+            return null;
+        });
+    }
+
+    @Override
+    public byte[] getLogChunk(String organizationId, String jobId, int chunk) {
+        return read("getLogChunk", () -> delegate.getLogChunk(organizationId, jobId, chunk));
+    }
+
+    private byte[] read(String operation, Supplier<byte[]> supplier) {
+        byte[] data = time(operation, supplier);
+        if (data != null)
+            bytes(operation, "download").record(data.length);
+        return data;
+    }
+
+    private void write(String operation, String data, Runnable runnable) {
+        recordBytes(operation, "upload", data);
+        time(operation, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    private void recordBytes(String operation, String direction, String data) {
+        if (data != null)
+            bytes(operation, direction).record(data.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private <T> T time(String operation, Supplier<T> supplier) {
+        Timer timer = Timer.builder("terrakube.storage.requests")
+                .tag("backend", backend)
+                .tag("operation", operation)
+                .register(meterRegistry);
+        return timer.record(supplier);
+    }
+
+    private DistributionSummary bytes(String operation, String direction) {
+        return DistributionSummary.builder("terrakube.storage.bytes")
+                .baseUnit("bytes")
+                .tag("backend", backend)
+                .tag("operation", operation)
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+}
@@ -7,6 +7,16 @@ public interface StorageTypeService {
 
     byte[] getStepOutput(String organizationId, String jobId, String stepId);
 
+    /**
+     * Step output as it is stored, the caller closes the stream
+     */
+    InputStream getStepOutputStream(String organizationId, String jobId, String stepId);
+
+    /**
+     * Size in bytes of the step output as it is stored, -1 when the output does not exist
+     */
+    long getStepOutputSize(String organizationId, String jobId, String stepId);
+
     byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId);
 
     byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName);
@@ -30,4 +40,8 @@ public interface StorageTypeService {
     void deleteWorkspaceOutputData(String organizationId, List<Integer> jobList);
 
     void deleteWorkspaceStateData(String organizationId, String workspaceId);
+
+    void saveLogChunk(String organizationId, String jobId, int chunk, byte[] compressedLogs);
+
+    byte[] getLogChunk(String organizationId, String jobId, int chunk);
 }
@@ -8,9 +8,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.StringUtils;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -19,6 +21,7 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
 
     private static final String TERRAFORM_PLAN_FILE = "terraformLibrary.tfPlan";
     private static final String BUCKET_LOCATION_OUTPUT = "tfoutput/%s/%s/%s.tfoutput";
+    private static final String BUCKET_LOCATION_LOGS = "tfoutput/%s/%s/logs/%s.gz";
     private static final String BUCKET_STATE_LOCATION = "tfstate/%s/%s/%s/%s/" + TERRAFORM_PLAN_FILE;
 
     private static final String BUCKET_STATE_JSON = "tfstate/%s/%s/state/%s.json";
@@ -27,6 +30,7 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
     private static final String S3_ERROR_LOG = "S3 Not found: {}";
 
     private static final String TERRAFORM_TAR_GZ = "content/%s/terraformContent.tar.gz";
+    private static final int MAX_DELETE_KEYS = 1000;
 
     @NonNull
     private AmazonS3 s3client;
@@ -49,6 +53,27 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
         return data;
     }
 
+    @Override
+    public InputStream getStepOutputStream(String organizationId, String jobId, String stepId) {
+        try {
+            log.info("Streaming: tfoutput/{}/{}/{}.tfoutput", organizationId, jobId, stepId);
+            return s3client.getObject(bucketName, String.format(BUCKET_LOCATION_OUTPUT, organizationId, jobId, stepId)).getObjectContent();
+        } catch (Exception e) {
+            log.error(S3_ERROR_LOG, e.getMessage());
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    }
+
+    @Override
+    public long getStepOutputSize(String organizationId, String jobId, String stepId) {
+        try {
+            return s3client.getObjectMetadata(bucketName, String.format(BUCKET_LOCATION_OUTPUT, organizationId, jobId, stepId)).getContentLength();
+        } catch (Exception e) {
+            log.error(S3_ERROR_LOG, e.getMessage());
+            return -1;
+        }
+    }
+
     @Override
     public byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId) {
         byte[] data;
@@ -175,10 +200,11 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
 
     @Override
     public void deleteWorkspaceOutputData(String organizationId, List<Integer> jobList) {
+        List<String> prefixes = new ArrayList<>();
         for (Integer jobId: jobList){
-            String workspaceOutputFolder = String.format("tfoutput/%s/%s/", organizationId, jobId);
-            deleteFolderFromBucket(workspaceOutputFolder);
+            prefixes.add(String.format("tfoutput/%s/%s/", organizationId, jobId));
         }
+        deleteFoldersFromBucket(prefixes);
     }
 
     @Override
@@ -187,16 +213,59 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
         deleteFolderFromBucket(workspaceStateFolder);
     }
 
+    @Override
+    public void saveLogChunk(String organizationId, String jobId, int chunk, byte[] compressedLogs) {
+        String blobKey = String.format(BUCKET_LOCATION_LOGS, organizationId, jobId, chunk);
+        log.info("Archiving logs: {}", blobKey);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(compressedLogs.length);
+        metadata.setContentType("application/gzip");
+        s3client.putObject(bucketName, blobKey, new ByteArrayInputStream(compressedLogs), metadata);
+    }
+
+    @Override
+    public byte[] getLogChunk(String organizationId, String jobId, int chunk) {
+        byte[] data;
+        try {
+            S3Object s3object = s3client.getObject(bucketName, String.format(BUCKET_LOCATION_LOGS, organizationId, jobId, chunk));
+            data = s3object.getObjectContent().getDelegateStream().readAllBytes();
+        } catch (Exception e) {
+            log.error(S3_ERROR_LOG, e.getMessage());
+            data = new byte[0];
+        }
+        return data;
+    }
+
     private void deleteFolderFromBucket(String prefix) {
-        ObjectListing objectList = s3client.listObjects(bucketName, prefix);
-        List<S3ObjectSummary> objectSummeryList = objectList.getObjectSummaries();
-        String[] keysList = new String[objectSummeryList.size()];
-        int count = 0;
-        for (S3ObjectSummary summary : objectSummeryList) {
-            keysList[count++] = summary.getKey();
-            log.warn("File {} will be deleted.",summary.getKey());
+        deleteFoldersFromBucket(List.of(prefix));
+    }
+
+    /**
+     * Keys from all the prefixes are deleted with DeleteObjects requests of up to 1000 keys
+     */
+    private void deleteFoldersFromBucket(List<String> prefixes) {
+        List<DeleteObjectsRequest.KeyVersion> keys = new ArrayList<>();
+        for (String prefix : prefixes) {
+            ObjectListing objectList = s3client.listObjects(bucketName, prefix);
+            while (true) {
+                for (S3ObjectSummary summary : objectList.getObjectSummaries()) {
+                    keys.add(new DeleteObjectsRequest.KeyVersion(summary.getKey()));
+                    if (keys.size() == MAX_DELETE_KEYS)
+                        deleteKeys(keys);
+                }
+                if (!objectList.isTruncated())
+                    break;
+                objectList = s3client.listNextBatchOfObjects(objectList);
+            }
         }
-        DeleteObjectsRequest deleteObjectsRequest = new DeleteObjectsRequest(bucketName).withKeys(keysList);
-        s3client.deleteObjects(deleteObjectsRequest);
+        deleteKeys(keys);
+    }
+
+    private void deleteKeys(List<DeleteObjectsRequest.KeyVersion> keys) {
+        if (keys.isEmpty())
+            return;
+        log.warn("Deleting {} files, first {}", keys.size(), keys.get(0).getKey());
+        s3client.deleteObjects(new DeleteObjectsRequest(bucketName).withKeys(new ArrayList<>(keys)).withQuiet(true));
+        keys.clear();
     }
 }
@@ -11,6 +11,7 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -26,6 +27,7 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
 
     private static final String CONTAINER_TERRAFORM_CONTENT = "content";
     private static final String CONTEXT_FILE = "context/%s/context.json";
+    private static final String LOGS_FILE = "%s/%s/logs/%s.gz";
 
     private static final String TERRAFORM_TAR_GZ = "content/%s/terraformContent.tar.gz";
 
@@ -45,6 +47,29 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
         return response;
     }
 
+    @Override
+    public InputStream getStepOutputStream(String organizationId, String jobId, String stepId) {
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_OUTPUT);
+        log.info("Streaming: /tfoutput/{}/{}/{}.tfoutput", organizationId, jobId, stepId);
+        try {
+            return containerClient.getBlobClient(String.format("%s/%s/%s.tfoutput", organizationId, jobId, stepId)).openInputStream();
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    }
+
+    @Override
+    public long getStepOutputSize(String organizationId, String jobId, String stepId) {
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_OUTPUT);
+        try {
+            return containerClient.getBlobClient(String.format("%s/%s/%s.tfoutput", organizationId, jobId, stepId)).getProperties().getBlobSize();
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return -1;
+        }
+    }
+
     @Override
     public byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId) {
         BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
@@ -196,6 +221,29 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
         deleteFolderFromContainer(CONTAINER_NAME_STATE, moduleFolderPath);
     }
 
+    @Override
+    public void saveLogChunk(String organizationId, String jobId, int chunk, byte[] compressedLogs) {
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_OUTPUT);
+        if (!containerClient.exists()) {
+            containerClient.create();
+        }
+        String blobName = String.format(LOGS_FILE, organizationId, jobId, chunk);
+        log.info("Archiving logs: {}", blobName);
+        containerClient.getBlobClient(blobName).upload(BinaryData.fromBytes(compressedLogs), true);
+    }
+
+    @Override
+    public byte[] getLogChunk(String organizationId, String jobId, int chunk) {
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_OUTPUT);
+        byte[] response = new byte[0];
+        try {
+            response = containerClient.getBlobClient(String.format(LOGS_FILE, organizationId, jobId, chunk)).downloadContent().toBytes();
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return response;
+    }
+
     private void deleteFolderFromContainer(String containerName, String folderPath) {
         BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(containerName);
         ListBlobsOptions options = new ListBlobsOptions().setPrefix(folderPath)
@@ -203,7 +251,7 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
         containerClient.listBlobs(options, null).iterator()
                 .forEachRemaining(item -> {
                     log.warn("Deleting file: {}", item.getName());
-                    containerClient.getBlobClient(item.getName()).delete();
+                    containerClient.getBlobClient(item.getName()).deleteIfExists();
                 });
     }
 }
@@ -14,8 +14,10 @@ import com.google.auth.Credentials;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Base64;
+import org.terrakube.api.plugin.storage.MeteredStorageTypeService;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 import org.terrakube.api.plugin.storage.aws.AwsStorageTypeProperties;
 import org.terrakube.api.plugin.storage.aws.AwsStorageTypeServiceImpl;
@@ -44,7 +46,7 @@ import java.io.IOException;
 public class StorageTypeAutoConfiguration {
 
     @Bean
-    public StorageTypeService terraformOutput(StreamingService streamingService, StorageTypeProperties storageTypeProperties, AzureStorageTypeProperties azureStorageTypeProperties, AwsStorageTypeProperties awsStorageTypeProperties, GcpStorageTypeProperties gcpStorageTypeProperties) {
+    public StorageTypeService terraformOutput(StreamingService streamingService, StorageTypeProperties storageTypeProperties, AzureStorageTypeProperties azureStorageTypeProperties, AwsStorageTypeProperties awsStorageTypeProperties, GcpStorageTypeProperties gcpStorageTypeProperties, MeterRegistry meterRegistry) {
         StorageTypeService storageTypeService = null;
         log.info("StorageType={}", storageTypeProperties.getType());
         switch (storageTypeProperties.getType()) {
@@ -117,6 +119,8 @@ public class StorageTypeAutoConfiguration {
             default:
                 storageTypeService = LocalStorageTypeServiceImpl.builder().build();
         }
-        return storageTypeService;
+        return storageTypeService != null
+                ? new MeteredStorageTypeService(storageTypeService, meterRegistry, storageTypeProperties.getType().name())
+                : null;
     }
 }
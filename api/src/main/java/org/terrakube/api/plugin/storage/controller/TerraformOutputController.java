@@ -2,13 +2,24 @@ package org.terrakube.api.plugin.storage.controller;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.terrakube.api.plugin.streaming.StreamingService;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
 @AllArgsConstructor
 @RestController
@@ -20,21 +31,137 @@ public class TerraformOutputController {
 
     private StreamingService streamingService;
 
+    /**
+     * Step output, executors upload it gzip compressed so it is streamed as it is stored with Content-Encoding gzip,
+     * outputs from older executors and clients without gzip support get the plain text. The stored output is never
+     * loaded in memory, range requests are served over the stored bytes (the gzip bytes when they are passed through)
+     * and are not supported when the output has to be decompressed because its length is unknown.
+     */
     @Transactional
     @GetMapping(
             value = "/organization/{organizationId}/job/{jobId}/step/{stepId}",
             produces = MediaType.APPLICATION_OCTET_STREAM_VALUE
     )
-    public @ResponseBody byte[] getFile(@PathVariable("organizationId") String organizationId, @PathVariable("jobId") String jobId, @PathVariable("stepId") String stepId) {
+    public ResponseEntity<Resource> getFile(@PathVariable("organizationId") String organizationId, @PathVariable("jobId") String jobId, @PathVariable("stepId") String stepId,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
         String tempLogs = streamingService.getCurrentLogs(stepId);
-        
+
         if (tempLogs.length() > 0) {
             log.info("Reading output from redis stream....");
-            return tempLogs.getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.ok().body(new ByteArrayResource(tempLogs.getBytes(StandardCharsets.UTF_8)));
         } else {
             log.info("Reading output from storage");
-            return storageTypeService.getStepOutput(organizationId, jobId, stepId);
+            InputStream output = new BufferedInputStream(storageTypeService.getStepOutputStream(organizationId, jobId, stepId));
+            if (!isGzip(output))
+                return ResponseEntity.ok().body(storedOutput(output, organizationId, jobId, stepId));
+
+            if (acceptsGzip(acceptEncoding))
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                        .body(storedOutput(output, organizationId, jobId, stepId));
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .body(new InputStreamResource(new GZIPInputStream(output)));
         }
 
     }
+
+    /**
+     * Spring only serves ranges for resources with a known length, an InputStreamResource is always sent in full
+     */
+    private Resource storedOutput(InputStream output, String organizationId, String jobId, String stepId) {
+        long size = storageTypeService.getStepOutputSize(organizationId, jobId, stepId);
+        if (size < 0)
+            return new InputStreamResource(output);
+
+        return new StoredOutputResource(output, () -> storageTypeService.getStepOutputStream(organizationId, jobId, stepId), size);
+    }
+
+    private static boolean isGzip(InputStream output) throws IOException {
+        output.mark(2);
+        int first = output.read();
+        int second = output.read();
+        output.reset();
+        return first == 0x1f && second == 0x8b;
+    }
+
+    /**
+     * An explicit gzip coding wins over the wildcard, a zero quality value means the coding is not acceptable
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+
+        Float gzip = null;
+        Float wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim();
+            float quality = 1;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Float.parseFloat(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip"))
+                gzip = quality;
+            else if (name.equals("*"))
+                wildcard = quality;
+        }
+
+        if (gzip != null)
+            return gzip > 0;
+        return wildcard != null && wildcard > 0;
+    }
+
+    /**
+     * Stored output with its stored size, the stream already opened is used for the first read and every other read
+     * (one per range of a multipart response) opens the stored output again
+     */
+    static class StoredOutputResource extends AbstractResource {
+
+        private final Supplier<InputStream> storage;
+
+        private final long contentLength;
+
+        private InputStream output;
+
+        StoredOutputResource(InputStream output, Supplier<InputStream> storage, long contentLength) {
+            this.output = output;
+            this.storage = storage;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Stored step output";
+        }
+
+        @Override
+        public synchronized InputStream getInputStream() {
+            if (output == null)
+                return storage.get();
+
+            InputStream current = output;
+            output = null;
+            return current;
+        }
+    }
 }
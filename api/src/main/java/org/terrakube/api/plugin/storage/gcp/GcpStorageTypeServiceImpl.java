@@ -8,12 +8,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.StringUtils;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -22,6 +25,7 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
 
     private static final String TERRAFORM_PLAN_FILE = "terraformLibrary.tfPlan";
     private static final String GCP_LOCATION_OUTPUT = "tfoutput/%s/%s/%s.tfoutput";
+    private static final String GCP_LOCATION_LOGS = "tfoutput/%s/%s/logs/%s.gz";
     private static final String GCP_STATE_LOCATION = "tfstate/%s/%s/%s/%s/" + TERRAFORM_PLAN_FILE;
     private static final String GCP_STATE_JSON = "tfstate/%s/%s/state/%s.json";
     private static final String GCP_HISTORY_RAW_STATE = "tfstate/%s/%s/state/%s.raw.json";
@@ -29,6 +33,7 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
     private static final String CONTEXT_JSON = "tfoutput/context/%s/context.json";
 
     private static final String TERRAFORM_TAR_GZ = "content/%s/terraformContent.tar.gz";
+    private static final int MAX_BATCH_SIZE = 100;
 
     @NonNull
     private String bucketName;
@@ -51,6 +56,31 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
         return response;
     }
 
+    @Override
+    public InputStream getStepOutputStream(String organizationId, String jobId, String stepId) {
+        log.info("getStepOutputStream {}", String.format(GCP_LOCATION_OUTPUT, organizationId, jobId, stepId));
+        try {
+            Blob blob = storage.get(BlobId.of(bucketName, String.format(GCP_LOCATION_OUTPUT, organizationId, jobId, stepId)));
+            if (blob != null)
+                return Channels.newInputStream(blob.reader());
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public long getStepOutputSize(String organizationId, String jobId, String stepId) {
+        try {
+            Blob blob = storage.get(BlobId.of(bucketName, String.format(GCP_LOCATION_OUTPUT, organizationId, jobId, stepId)));
+            if (blob != null && blob.getSize() != null)
+                return blob.getSize();
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return -1;
+    }
+
     @Override
     public byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId) {
         log.info("getTerraformPlan {}", String.format(GCP_STATE_LOCATION, organizationId, workspaceId, jobId, stepId));
@@ -236,10 +266,11 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
 
     @Override
     public void deleteWorkspaceOutputData(String organizationId, List<Integer> jobList) {
+        List<String> outputPaths = new ArrayList<>();
         for (Integer jobId : jobList) {
-            String outputPath = String.format("tfoutput/%s/%s/", organizationId, jobId);
-            deleteFolderFromBucket(outputPath);
+            outputPaths.add(String.format("tfoutput/%s/%s/", organizationId, jobId));
         }
+        deleteFoldersFromBucket(outputPaths);
     }
 
     @Override
@@ -248,22 +279,50 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
         deleteFolderFromBucket(outputPath);
     }
 
+    @Override
+    public void saveLogChunk(String organizationId, String jobId, int chunk, byte[] compressedLogs) {
+        String blobKey = String.format(GCP_LOCATION_LOGS, organizationId, jobId, chunk);
+        log.info("Archiving logs: {}", blobKey);
+        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucketName, blobKey)).setContentType("application/gzip").build();
+        storage.create(blobInfo, compressedLogs);
+    }
+
+    @Override
+    public byte[] getLogChunk(String organizationId, String jobId, int chunk) {
+        byte[] response = new byte[0];
+        try {
+            response = storage.get(BlobId.of(bucketName, String.format(GCP_LOCATION_LOGS, organizationId, jobId, chunk))).getContent();
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return response;
+    }
+
     private void deleteFolderFromBucket(String folderPath) {
-        Page<Blob> blobs =
-                storage.list(
-                        bucketName,
-                        Storage.BlobListOption.currentDirectory(),
-                        Storage.BlobListOption.prefix(folderPath)
-                );
-
-        for (Blob blob : blobs.iterateAll()) {
-            if (blob.getName().endsWith("/")) {
-                deleteFolderFromBucket(blob.getName());
-            } else {
-                log.info("Deleting object: {}", blob.getName());
-                storage.delete(blob.getBlobId());
-            }
+        deleteFoldersFromBucket(List.of(folderPath));
+    }
 
+    /**
+     * Objects from all the folders are deleted with batch requests of up to 100 objects
+     */
+    private void deleteFoldersFromBucket(List<String> folderPaths) {
+        List<BlobId> blobIds = new ArrayList<>();
+        for (String folderPath : folderPaths) {
+            Page<Blob> blobs = storage.list(bucketName, Storage.BlobListOption.prefix(folderPath));
+            for (Blob blob : blobs.iterateAll()) {
+                blobIds.add(blob.getBlobId());
+                if (blobIds.size() == MAX_BATCH_SIZE)
+                    deleteBlobs(blobIds);
+            }
         }
+        deleteBlobs(blobIds);
+    }
+
+    private void deleteBlobs(List<BlobId> blobIds) {
+        if (blobIds.isEmpty())
+            return;
+        log.info("Deleting {} objects, first {}", blobIds.size(), blobIds.get(0).getName());
+        storage.delete(new ArrayList<>(blobIds));
+        blobIds.clear();
     }
 }
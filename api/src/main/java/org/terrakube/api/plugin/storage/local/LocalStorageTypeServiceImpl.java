@@ -8,10 +8,12 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -22,6 +24,7 @@ import java.util.List;
 public class LocalStorageTypeServiceImpl implements StorageTypeService {
 
     private static final String OUTPUT_DIRECTORY = "/.terraform-spring-boot/local/output/%s/%s/%s.tfoutput";
+    private static final String LOGS_DIRECTORY = "/.terraform-spring-boot/local/output/%s/%s/logs/%s.gz";
     private static final String CONTENT_DIRECTORY = "/.terraform-spring-boot/local/content/%s/terraformContent.tar.gz";
     private static final String CONTEXT_DIRECTORY = "/.terraform-spring-boot/local/output/context/%s/context.json";
     private static final String STATE_DIRECTORY = "/.terraform-spring-boot/local/state/%s/%s/%s/%s/terraformLibrary.tfPlan";
@@ -38,6 +41,23 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
         return getOutputBytes(outputFilePath);
     }
 
+    @Override
+    public InputStream getStepOutputStream(String organizationId, String jobId, String stepId) {
+        File outputFile = new File(FileUtils.getUserDirectoryPath().concat(String.format(OUTPUT_DIRECTORY, organizationId, jobId, stepId)));
+        try {
+            return outputFile.exists() ? new FileInputStream(outputFile) : new ByteArrayInputStream(new byte[0]);
+        } catch (IOException e) {
+            log.error(e.getMessage());
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    }
+
+    @Override
+    public long getStepOutputSize(String organizationId, String jobId, String stepId) {
+        File outputFile = new File(FileUtils.getUserDirectoryPath().concat(String.format(OUTPUT_DIRECTORY, organizationId, jobId, stepId)));
+        return outputFile.exists() ? outputFile.length() : -1;
+    }
+
     @Override
     public byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId) {
         log.info("Searching: /.terraform-spring-boot/local/state/{}/{}/{}/{}/terraformLibrary.tfPlan", organizationId, workspaceId, jobId, stepId);
@@ -181,14 +201,10 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
 
     @Override
     public void deleteWorkspaceOutputData(String organizationId, List<Integer> jobList) {
-        try {
-            for (Integer jobId : jobList) {
-                String workspaceOutputFolder = String.format("%s/.terraform-spring-boot/local/output/%s/%s", FileUtils.getUserDirectoryPath(), organizationId, jobId);
-                log.warn("Delete workspace output folder: {}", workspaceOutputFolder);
-                FileUtils.cleanDirectory(new File(workspaceOutputFolder));
-            }
-        } catch (IOException e) {
-            log.error(e.getMessage());
+        for (Integer jobId : jobList) {
+            String workspaceOutputFolder = String.format("%s/.terraform-spring-boot/local/output/%s/%s", FileUtils.getUserDirectoryPath(), organizationId, jobId);
+            log.warn("Delete workspace output folder: {}", workspaceOutputFolder);
+            FileUtils.deleteQuietly(new File(workspaceOutputFolder));
         }
     }
 
@@ -206,4 +222,22 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
             log.error(e.getMessage());
         }
     }
+
+    @Override
+    public void saveLogChunk(String organizationId, String jobId, int chunk, byte[] compressedLogs) {
+        try {
+            String logsFilename = String.format(LOGS_DIRECTORY, organizationId, jobId, chunk);
+            log.info("Archiving logs: {}", logsFilename);
+            File logsFile = new File(FileUtils.getUserDirectoryPath().concat(FilenameUtils.separatorsToSystem(logsFilename)));
+            FileUtils.writeByteArrayToFile(logsFile, compressedLogs);
+        } catch (IOException e) {
+            // the stream is only trimmed after the chunk is stored
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public byte[] getLogChunk(String organizationId, String jobId, int chunk) {
+        return getOutputBytes(String.format(LOGS_DIRECTORY, organizationId, jobId, chunk));
+    }
 }
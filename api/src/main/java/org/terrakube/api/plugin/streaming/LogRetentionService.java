@@ -0,0 +1,205 @@
+package org.terrakube.api.plugin.streaming;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.text.TextStringBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps only the hot tail of the job log streams in redis. The oldest entries of a running job are archived in order to
+ * the storage backend as gzip chunks and trimmed from the stream, the logs are read merging the archived chunks and the
+ * live stream. Archived chunks never change so they are kept decompressed in memory while the job logs are polled.
+ */
+@Slf4j
+@Service
+public class LogRetentionService {
+
+    private static final String ARCHIVE = "terrakube:logs:archive:%s";
+    private static final String ARCHIVE_LOCK = "terrakube:logs:archive:lock:%s";
+    private static final String CHUNKS = "chunks";
+    private static final String LAST_ID = "lastId";
+    // the lock is only released by the instance holding it, it could have expired and been taken by another instance
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private final RedisTemplate redisTemplate;
+    private final StorageTypeService storageTypeService;
+    private final JobRepository jobRepository;
+    private final int maxLength;
+    private final int chunkSize;
+    private final Cache<String, String> chunkCache = Caffeine.newBuilder()
+            .maximumWeight(64L * 1024 * 1024)
+            .weigher((String key, String chunk) -> chunk.length())
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    public LogRetentionService(RedisTemplate redisTemplate,
+                               StorageTypeService storageTypeService,
+                               JobRepository jobRepository,
+                               @Value("${org.terrakube.api.logs.maxLength:10000}") int maxLength,
+                               @Value("${org.terrakube.api.logs.chunkSize:5000}") int chunkSize) {
+        this.redisTemplate = redisTemplate;
+        this.storageTypeService = storageTypeService;
+        this.jobRepository = jobRepository;
+        this.maxLength = maxLength;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${org.terrakube.api.logs.archiveInterval:15}", timeUnit = TimeUnit.SECONDS)
+    public void archiveRunningJobs() {
+        if (maxLength <= 0)
+            return;
+
+        for (Job job : jobRepository.findAllByStatusInOrderByIdAsc(List.of(JobStatus.running))) {
+            try {
+                archive(job.getOrganization().getId().toString(), String.valueOf(job.getId()));
+            } catch (Exception ex) {
+                log.error("Unable to archive logs for job {}: {}", job.getId(), ex.getMessage());
+            }
+        }
+    }
+
+    public void archive(String organizationId, String jobId) throws IOException {
+        Long size = redisTemplate.opsForStream().size(jobId);
+        if (size == null || size <= maxLength + chunkSize)
+            return;
+
+        // a single api instance archives a stream at a time
+        String lockKey = String.format(ARCHIVE_LOCK, jobId);
+        String lockToken = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, lockToken, Duration.ofMinutes(5))))
+            return;
+
+        try {
+            String archiveKey = String.format(ARCHIVE, jobId);
+            Map<Object, Object> archive = redisTemplate.opsForHash().entries(archiveKey);
+            int chunk = archive.containsKey(CHUNKS) ? Integer.parseInt(archive.get(CHUNKS).toString()) : 0;
+            String lastId = archive.containsKey(LAST_ID) ? archive.get(LAST_ID).toString() : null;
+
+            // entries appended while archiving stay in the hot tail until the next run
+            long pendingChunks = (size - maxLength) / chunkSize;
+            for (long i = 0; i < pendingChunks; i++) {
+                List<MapRecord> records = redisTemplate.opsForStream().range(jobId, after(lastId), Limit.limit().count(chunkSize));
+                if (records == null || records.isEmpty())
+                    break;
+
+                storageTypeService.saveLogChunk(organizationId, jobId, chunk, compress(records));
+                lastId = records.get(records.size() - 1).getId().getValue();
+                chunk++;
+
+                Map<String, String> archiveData = new HashMap<>();
+                archiveData.put(CHUNKS, String.valueOf(chunk));
+                archiveData.put(LAST_ID, lastId);
+                redisTemplate.opsForHash().putAll(archiveKey, archiveData);
+
+                trimArchived(jobId, lastId);
+                log.info("Job {} logs chunk {} archived with {} entries, last entry {}", jobId, chunk - 1, records.size(), lastId);
+            }
+        } finally {
+            redisTemplate.execute(RELEASE_LOCK, List.of(lockKey), lockToken);
+        }
+    }
+
+    public String readLogs(Job job) throws IOException {
+        String jobId = String.valueOf(job.getId());
+        TextStringBuilder logs = new TextStringBuilder();
+
+        Map<Object, Object> archive = redisTemplate.opsForHash().entries(String.format(ARCHIVE, jobId));
+        int chunks = archive.containsKey(CHUNKS) ? Integer.parseInt(archive.get(CHUNKS).toString()) : 0;
+        String lastId = archive.containsKey(LAST_ID) ? archive.get(LAST_ID).toString() : null;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            logs.append(readChunk(job.getOrganization().getId().toString(), jobId, chunk));
+        }
+
+        List<MapRecord> records = redisTemplate.opsForStream().range(jobId, after(lastId));
+        if (records != null)
+            for (MapRecord mapRecord : records) {
+                logs.appendln(((Map) mapRecord.getValue()).get("output"));
+            }
+        return logs.toString();
+    }
+
+    public void deleteLogs(int jobId) {
+        redisTemplate.delete(List.of(String.valueOf(jobId), String.format(ARCHIVE, jobId)));
+        chunkCache.asMap().keySet().removeIf(key -> key.startsWith(jobId + "/"));
+    }
+
+    private String readChunk(String organizationId, String jobId, int chunk) throws IOException {
+        String chunkKey = jobId + "/" + chunk;
+        String logs = chunkCache.getIfPresent(chunkKey);
+        if (logs != null)
+            return logs;
+
+        byte[] compressedLogs = storageTypeService.getLogChunk(organizationId, jobId, chunk);
+        if (compressedLogs.length == 0)
+            return "";
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(compressedLogs))) {
+            logs = new String(gzipInputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        chunkCache.put(chunkKey, logs);
+        return logs;
+    }
+
+    /**
+     * XTRIM MINID only removes entries older than the archived ones, with MAXLEN the entries added by the executor
+     * while the chunk was uploaded could be trimmed before they are archived. Approximate trimming never removes more
+     * entries than requested, the entries up to lastId that are still in the stream are skipped when reading.
+     */
+    private void trimArchived(String jobId, String lastId) {
+        byte[] key = redisTemplate.getKeySerializer().serialize(jobId);
+        redisTemplate.execute((RedisCallback<Object>) connection -> connection.execute("XTRIM", key,
+                "MINID".getBytes(StandardCharsets.UTF_8),
+                "~".getBytes(StandardCharsets.UTF_8),
+                nextId(lastId).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Range<String> after(String lastId) {
+        return lastId == null ? Range.unbounded() : Range.rightUnbounded(Range.Bound.inclusive(nextId(lastId)));
+    }
+
+    private static String nextId(String recordId) {
+        String[] id = recordId.split("-");
+        return id[0] + "-" + (Long.parseLong(id[1]) + 1);
+    }
+
+    private static byte[] compress(List<MapRecord> records) throws IOException {
+        TextStringBuilder chunk = new TextStringBuilder();
+        for (MapRecord mapRecord : records) {
+            chunk.appendln(((Map) mapRecord.getValue()).get("output"));
+        }
+
+        ByteArrayOutputStream compressedLogs = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressedLogs)) {
+            gzipOutputStream.write(chunk.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return compressedLogs.toByteArray();
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.token.revocation.TokenRevocationService;
 import org.terrakube.api.repository.PatRepository;
 import org.terrakube.api.rs.token.pat.Pat;
 
@@ -28,6 +29,9 @@ public class PatService {
     @Autowired
     private PatRepository patRepository;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     public String createToken(int days, String description, Object name, Object email, Object groups) {
         String jws = "";
         SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64URL.decode(this.base64Key));
@@ -68,6 +72,7 @@ public class PatService {
             Pat pat = searchPat.get();
             pat.setDeleted(true);
             patRepository.save(pat);
+            tokenRevocationService.revoke(pat.getId());
             return true;
         }else{
             return false;
@@ -0,0 +1,94 @@
+package org.terrakube.api.plugin.token.revocation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.repository.PatRepository;
+import org.terrakube.api.repository.TeamTokenRepository;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory set of revoked personal and team tokens. Every revocation increases a revision counter in redis, the other
+ * api instances reload the set from the database when the revision changes.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private static final String REVISION_KEY = "terrakube:tokens:revocation";
+
+    private final PatRepository patRepository;
+    private final TeamTokenRepository teamTokenRepository;
+    private final RedisTemplate redisTemplate;
+
+    private final Set<UUID> revokedTokens = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded = false;
+    private volatile long revision = -1;
+
+    public TokenRevocationService(PatRepository patRepository, TeamTokenRepository teamTokenRepository, RedisTemplate redisTemplate) {
+        this.patRepository = patRepository;
+        this.teamTokenRepository = teamTokenRepository;
+        this.redisTemplate = redisTemplate;
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null)
+            return false;
+
+        if (!loaded)
+            refresh(currentRevision());
+
+        try {
+            return revokedTokens.contains(UUID.fromString(tokenId));
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    public void revoke(UUID tokenId) {
+        revokedTokens.add(tokenId);
+        try {
+            redisTemplate.opsForValue().increment(REVISION_KEY);
+        } catch (Exception ex) {
+            log.error("Unable to publish token revocation: {}", ex.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${org.terrakube.token.revocation.refresh:5}", timeUnit = TimeUnit.SECONDS)
+    public void checkRevision() {
+        long currentRevision = currentRevision();
+        if (loaded && currentRevision == revision && currentRevision != -1)
+            return;
+
+        refresh(currentRevision);
+    }
+
+    private synchronized void refresh(long currentRevision) {
+        if (loaded && currentRevision == revision && currentRevision != -1)
+            return;
+
+        Set<UUID> tokens = ConcurrentHashMap.newKeySet();
+        patRepository.findByDeletedTrue().forEach(pat -> tokens.add(pat.getId()));
+        teamTokenRepository.findByDeletedTrue().forEach(group -> tokens.add(group.getId()));
+        revokedTokens.addAll(tokens);
+        revokedTokens.retainAll(tokens);
+        revision = currentRevision;
+        loaded = true;
+        log.debug("Revoked tokens {} revision {}", revokedTokens.size(), revision);
+    }
+
+    private long currentRevision() {
+        try {
+            Long currentRevision = redisTemplate.opsForValue().increment(REVISION_KEY, 0);
+            return currentRevision != null ? currentRevision : -1;
+        } catch (Exception ex) {
+            log.error("Unable to read token revocation revision: {}", ex.getMessage());
+            return -1;
+        }
+    }
+}
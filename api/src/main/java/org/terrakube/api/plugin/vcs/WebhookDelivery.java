@@ -0,0 +1,18 @@
+package org.terrakube.api.plugin.vcs;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@ToString(exclude = {"payload", "headers"})
+public class WebhookDelivery {
+    private String webhookId;
+    private String payload;
+    private Map<String, String> headers;
+    private long received;
+    private int attempts;
+}
@@ -0,0 +1,159 @@
+package org.terrakube.api.plugin.vcs;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.vcs.provider.bitbucket.BitBucketWebhookService;
+import org.terrakube.api.plugin.vcs.provider.github.GitHubWebhookService;
+import org.terrakube.api.plugin.vcs.provider.gitlab.GitLabWebhookService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Webhook deliveries are verified, stored in redis without the signature headers and acknowledged right away. A
+ * background task validates them and keeps only the newest event for every webhook, event and branch during the
+ * coalesce window so a burst of pushes runs a single job.
+ */
+@Slf4j
+@Service
+public class WebhookQueueService {
+
+    private static final String QUEUE = "terrakube:webhooks:queue";
+    private static final String PENDING = "terrakube:webhooks:pending";
+    private static final Set<String> SIGNATURE_HEADERS = Set.of(GitHubWebhookService.SIGNATURE_HEADER,
+            BitBucketWebhookService.SIGNATURE_HEADER, GitLabWebhookService.TOKEN_HEADER);
+    private static final int MAX_ATTEMPTS = 3;
+    // the entry is only removed if no other api instance replaced it with a newer event after it was read
+    private static final RedisScript<Long> DELETE_IF_EQUALS = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then return redis.call('HDEL', KEYS[1], ARGV[1]) end return 0",
+            Long.class);
+
+    private final WebhookService webhookService;
+    private final RedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final int coalesceSeconds;
+    private final int batchSize;
+
+    public WebhookQueueService(WebhookService webhookService,
+                               RedisTemplate redisTemplate,
+                               ObjectMapper objectMapper,
+                               @Value("${org.terrakube.api.webhooks.coalesceSeconds:10}") int coalesceSeconds,
+                               @Value("${org.terrakube.api.webhooks.batchSize:100}") int batchSize) {
+        this.webhookService = webhookService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.coalesceSeconds = coalesceSeconds;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return false when the delivery signature is not valid
+     */
+    public boolean enqueue(String webhookId, String jsonPayload, Map<String, String> headers) throws JsonProcessingException {
+        if (!webhookService.verifyWebhook(webhookId, jsonPayload, headers)) {
+            log.warn("Webhook {} signature is not valid", webhookId);
+            return false;
+        }
+
+        Map<String, String> deliveryHeaders = new HashMap<>(headers);
+        deliveryHeaders.keySet().removeIf(header -> SIGNATURE_HEADERS.contains(header.toLowerCase()));
+        WebhookDelivery webhookDelivery = new WebhookDelivery();
+        webhookDelivery.setWebhookId(webhookId);
+        webhookDelivery.setPayload(jsonPayload);
+        webhookDelivery.setHeaders(deliveryHeaders);
+        webhookDelivery.setReceived(System.currentTimeMillis());
+        redisTemplate.opsForList().rightPush(QUEUE, objectMapper.writeValueAsString(webhookDelivery));
+        log.info("Webhook {} queued", webhookId);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${org.terrakube.api.webhooks.interval:2}", timeUnit = TimeUnit.SECONDS)
+    public void processQueue() {
+        try {
+            readDeliveries();
+            triggerPending();
+        } catch (Exception ex) {
+            log.error("Unable to process webhook queue: {}", ex.getMessage());
+        }
+    }
+
+    private void readDeliveries() throws JsonProcessingException {
+        for (int i = 0; i < batchSize; i++) {
+            Object delivery = redisTemplate.opsForList().leftPop(QUEUE);
+            if (delivery == null)
+                return;
+
+            WebhookDelivery webhookDelivery;
+            try {
+                webhookDelivery = objectMapper.readValue(delivery.toString(), WebhookDelivery.class);
+            } catch (JsonProcessingException ex) {
+                log.error("Invalid webhook delivery: {}", ex.getMessage());
+                continue;
+            }
+
+            try {
+                log.info("Processing webhook {}", webhookDelivery.getWebhookId());
+                Optional<WebhookTrigger> webhookTrigger = webhookService.evaluateWebhook(webhookDelivery.getWebhookId(),
+                        webhookDelivery.getPayload(), webhookDelivery.getHeaders());
+                if (webhookTrigger.isPresent()) {
+                    webhookTrigger.get().setReceived(webhookDelivery.getReceived());
+                    addPending(webhookTrigger.get());
+                }
+            } catch (Exception ex) {
+                log.error("Error processing webhook delivery", ex);
+                requeue(webhookDelivery);
+            }
+        }
+    }
+
+    private void requeue(WebhookDelivery webhookDelivery) throws JsonProcessingException {
+        webhookDelivery.setAttempts(webhookDelivery.getAttempts() + 1);
+        if (webhookDelivery.getAttempts() >= MAX_ATTEMPTS) {
+            log.error("Webhook {} failed {} times, discarding delivery", webhookDelivery.getWebhookId(), webhookDelivery.getAttempts());
+            return;
+        }
+        redisTemplate.opsForList().rightPush(QUEUE, objectMapper.writeValueAsString(webhookDelivery));
+    }
+
+    private void addPending(WebhookTrigger webhookTrigger) throws JsonProcessingException {
+        String pendingKey = String.join("|", webhookTrigger.getWebhookId(), webhookTrigger.getEvent(), webhookTrigger.getBranch());
+        Object current = redisTemplate.opsForHash().get(PENDING, pendingKey);
+        if (current != null) {
+            WebhookTrigger currentTrigger = objectMapper.readValue(current.toString(), WebhookTrigger.class);
+            log.info("Workspace {} {} branch {} commit {} replaced by commit {}", webhookTrigger.getWorkspaceId(),
+                    webhookTrigger.getEvent(), webhookTrigger.getBranch(), currentTrigger.getCommit(), webhookTrigger.getCommit());
+            // keep the time of the first push so a stream of pushes does not delay the job forever
+            webhookTrigger.setReceived(Math.min(currentTrigger.getReceived(), webhookTrigger.getReceived()));
+        }
+        redisTemplate.opsForHash().put(PENDING, pendingKey, objectMapper.writeValueAsString(webhookTrigger));
+    }
+
+    private void triggerPending() throws JsonProcessingException {
+        Map<Object, Object> pending = redisTemplate.opsForHash().entries(PENDING);
+        long limit = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(coalesceSeconds);
+        for (Map.Entry<Object, Object> entry : pending.entrySet()) {
+            WebhookTrigger webhookTrigger = objectMapper.readValue(entry.getValue().toString(), WebhookTrigger.class);
+            if (webhookTrigger.getReceived() > limit)
+                continue;
+
+            // only the api instance that removes the entry creates the job
+            Long removed = (Long) redisTemplate.execute(DELETE_IF_EQUALS, List.of(PENDING), entry.getKey(), entry.getValue());
+            if (removed != null && removed > 0) {
+                log.info("Creating job for workspace {} branch {} commit {}", webhookTrigger.getWorkspaceId(),
+                        webhookTrigger.getBranch(), webhookTrigger.getCommit());
+                webhookService.triggerJob(webhookTrigger);
+            }
+        }
+    }
+}
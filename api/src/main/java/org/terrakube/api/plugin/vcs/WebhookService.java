@@ -1,11 +1,15 @@
 package org.terrakube.api.plugin.vcs;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +27,8 @@ import org.terrakube.api.rs.webhook.WebhookEvent;
 import org.terrakube.api.rs.workspace.Workspace;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -40,21 +46,58 @@ public class WebhookService {
     ScheduleJobService scheduleJobService;
     ObjectMapper objectMapper;
 
+    // trigger path patterns compiled once per webhook path instead of once per changed file
+    private final Cache<String, List<Pattern>> pathPatterns = Caffeine.newBuilder().maximumSize(1000).build();
+
+    /**
+     * Checks the provider signature before the delivery is queued, the signature headers are not stored with it
+     */
+    @Transactional
+    public boolean verifyWebhook(String webhookId, String jsonPayload, Map<String, String> headers) {
+        Optional<Webhook> searchWebhook = webhookRepository.findById(UUID.fromString(webhookId));
+        if (searchWebhook.isEmpty()) {
+            log.error("Webhook {} not found", webhookId);
+            return false;
+        }
+        Workspace workspace = searchWebhook.get().getWorkspace();
+        Vcs vcs = workspace.getVcs();
+        if (vcs == null) {
+            log.error("VCS not found for workspace {} with id {}", workspace.getName(), workspace.getId());
+            return false;
+        }
+
+        String base64WorkspaceId = Base64.getEncoder()
+                .encodeToString(workspace.getId().toString().getBytes(StandardCharsets.UTF_8));
+        switch (vcs.getVcsType()) {
+            case GITHUB:
+                return gitHubWebhookService.verifyWebhook(jsonPayload, headers, base64WorkspaceId);
+            case GITLAB:
+                return gitLabWebhookService.verifyWebhook(headers, base64WorkspaceId);
+            case BITBUCKET:
+                return bitBucketWebhookService.verifyWebhook(jsonPayload, headers, base64WorkspaceId);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Validates the queued delivery (branch and changed files) and returns the event that should trigger a job
+     */
     @Transactional
-    public String processWebhook(String webhookId, String jsonPayload, Map<String, String> headers) {
-        String result = "";
-        Webhook webhook = webhookRepository.getReferenceById(UUID.fromString(webhookId));
-        if (webhook == null) {
+    public Optional<WebhookTrigger> evaluateWebhook(String webhookId, String jsonPayload, Map<String, String> headers) {
+        Optional<Webhook> searchWebhook = webhookRepository.findById(UUID.fromString(webhookId));
+        if (searchWebhook.isEmpty()) {
             log.error("Webhook {} not found", webhookId);
-            return result;
+            return Optional.empty();
         }
+        Webhook webhook = searchWebhook.get();
         Workspace workspace = webhook.getWorkspace();
         Vcs vcs = workspace.getVcs();
 
         // if the VCS is empty we cannot process the webhook
         if (vcs == null) {
             log.error("VCS not found for workspace {} with id {}", workspace.getName(), workspace.getId());
-            return result;
+            return Optional.empty();
         }
 
         WebhookResult webhookResult = new WebhookResult();
@@ -80,22 +123,43 @@ public class WebhookService {
         log.info("webhook result {}", webhookResult);
 
         if (!webhookResult.isValid())
-            return result;
+            return Optional.empty();
 
         String webhookBranch = webhookResult.getBranch();
 
         // Return if branch in the event doesn't match any set branches or if the file
         // changes doesn't match the set path
         if (!checkBranch(webhookBranch, webhook) || !checkFileChanges(webhookResult.getFileChanges(), webhook)) {
-            return result;
+            return Optional.empty();
         }
 
+        WebhookTrigger webhookTrigger = new WebhookTrigger();
+        webhookTrigger.setWebhookId(webhookId);
+        webhookTrigger.setWorkspaceId(workspace.getId().toString());
+        webhookTrigger.setBranch(webhookBranch);
+        webhookTrigger.setCommit(webhookResult.getCommit());
+        webhookTrigger.setEvent(webhookResult.getEvent());
+        webhookTrigger.setCreatedBy(webhookResult.getCreatedBy());
+        webhookTrigger.setVia(webhookResult.getVia());
+        return Optional.of(webhookTrigger);
+    }
+
+    @Transactional
+    public void triggerJob(WebhookTrigger webhookTrigger) {
+        Optional<Webhook> searchWebhook = webhookRepository.findById(UUID.fromString(webhookTrigger.getWebhookId()));
+        if (searchWebhook.isEmpty()) {
+            log.error("Webhook {} not found", webhookTrigger.getWebhookId());
+            return;
+        }
+        Webhook webhook = searchWebhook.get();
+        Workspace workspace = webhook.getWorkspace();
+
         try {
             String templateId = webhook.getTemplateId();
 
             // If the webhook branch is the same as the default workspace branch, or the
             // webhook template is not valid, use the default template of the workspace.
-            if (webhookResult.getBranch().equals(workspace.getBranch()) || templateId == null || templateId.isEmpty()) {
+            if (webhookTrigger.getBranch().equals(workspace.getBranch()) || templateId == null || templateId.isEmpty()) {
                 templateId = workspace.getDefaultTemplate();
             }
             // If the template is still not valid, log an error and return
@@ -103,33 +167,32 @@ public class WebhookService {
                 log.error(
                         "No valid template found for the configured webhook event {}, nor default template configured for workspace {}",
                         webhook.getEvent(), workspace.getName());
-                return result;
+                return;
 
             }
-            log.info("webhook event {} for workspace {}, using template with id {}", webhookResult.getEvent(),
-                    webhook.getWorkspace().getName(), templateId);
+            log.info("webhook event {} for workspace {}, using template with id {}", webhookTrigger.getEvent(),
+                    workspace.getName(), templateId);
             Job job = new Job();
             job.setTemplateReference(templateId);
             job.setRefresh(true);
             job.setPlanChanges(true);
             job.setRefreshOnly(false);
-            job.setOverrideBranch(webhookBranch);
+            job.setOverrideBranch(webhookTrigger.getBranch());
             job.setOrganization(workspace.getOrganization());
             job.setWorkspace(workspace);
-            job.setCreatedBy(webhookResult.getCreatedBy());
-            job.setUpdatedBy(webhookResult.getCreatedBy());
+            job.setCreatedBy(webhookTrigger.getCreatedBy());
+            job.setUpdatedBy(webhookTrigger.getCreatedBy());
             Date triggerDate = new Date(System.currentTimeMillis());
             job.setCreatedDate(triggerDate);
             job.setUpdatedDate(triggerDate);
-            job.setVia(webhookResult.getVia());
-            job.setCommitId(webhookResult.getCommit());
+            job.setVia(webhookTrigger.getVia());
+            job.setCommitId(webhookTrigger.getCommit());
             Job savedJob = jobRepository.save(job);
             sendCommitStatus(savedJob);
             scheduleJobService.createJobContext(savedJob);
         } catch (Exception e) {
             log.error("Error creating the job", e);
         }
-        return result;
     }
 
     @Transactional
@@ -215,7 +278,7 @@ public class WebhookService {
     }
 
     private boolean checkFileChanges(List<String> files, Webhook webhook) {
-        String[] triggeredPath = webhook.getPath().split(",");
+        List<Pattern> triggeredPath = pathPatterns.get(webhook.getPath(), this::compilePathPatterns);
         String workspaceFolder = webhook.getWorkspace().getFolder();
         if (workspaceFolder.substring(0, 1).equals("/")) {
             workspaceFolder = workspaceFolder.substring(1);
@@ -225,17 +288,29 @@ public class WebhookService {
                 log.info("Changed file {} in set workspace path {}", file, workspaceFolder);
                 return true;
             }
-            for (int i = 0; i < triggeredPath.length; i++) {
-                if (file.matches(triggeredPath[i])) {
-                    log.info("Changed file {} matches set trigger pattern {}", file, triggeredPath[i]);
+            for (Pattern pattern : triggeredPath) {
+                if (pattern.matcher(file).matches()) {
+                    log.info("Changed file {} matches set trigger pattern {}", file, pattern);
                     return true;
                 }
             }
         }
-        log.info("Changed files {} doesn't match any of the trigger path pattern {}", files, triggeredPath);
+        log.info("{} changed files don't match any of the trigger path pattern {}", files.size(), triggeredPath);
         return false;
     }
 
+    private List<Pattern> compilePathPatterns(String path) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String triggeredPath : path.split(",")) {
+            try {
+                patterns.add(Pattern.compile(triggeredPath));
+            } catch (PatternSyntaxException e) {
+                log.error("Invalid webhook trigger pattern {}: {}", triggeredPath, e.getMessage());
+            }
+        }
+        return patterns;
+    }
+
     private void sendCommitStatus(Job job) {
         switch (job.getWorkspace().getVcs().getVcsType()) {
             case GITHUB:
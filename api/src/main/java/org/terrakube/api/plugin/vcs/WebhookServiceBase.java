@@ -88,8 +88,10 @@ public class WebhookServiceBase {
         return restTemplate.exchange(apiUrl, method, entity, String.class);
     }
 
-    protected WebhookResult handleWebhook(String jsonPayload, Map<String, String> headers, String token,
-            String signatureHeader, String via,
+    /**
+     * Parses a delivery that was already verified with the provider signature when it was queued
+     */
+    protected WebhookResult handleWebhook(String jsonPayload, Map<String, String> headers, String token, String via,
             TriFunction<String, WebhookResult, Map<String, String>, WebhookResult> handleEvent) {
         WebhookResult result = new WebhookResult();
         result.setBranch("");
@@ -97,14 +99,7 @@ public class WebhookServiceBase {
         String workspaceId = new String(Base64.getMimeDecoder().decode(token.getBytes(StandardCharsets.UTF_8)));
         log.info("WorkspaceId: {}", workspaceId);
         result.setWorkspaceId(workspaceId);
-
-        log.info("verify signature for " + via + " webhook");
-        result.setValid(verifySignature(headers, signatureHeader, token, jsonPayload));
-
-        if (!result.isValid()) {
-            log.info("Signature verification failed");
-            return result;
-        }
+        result.setValid(true);
 
         log.info("Parsing " + via + " webhook payload");
 
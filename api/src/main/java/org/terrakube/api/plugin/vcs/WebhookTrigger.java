@@ -0,0 +1,19 @@
+package org.terrakube.api.plugin.vcs;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class WebhookTrigger {
+    private String webhookId;
+    private String workspaceId;
+    private String branch;
+    private String commit;
+    private String event;
+    private String createdBy;
+    private String via;
+    private long received;
+}
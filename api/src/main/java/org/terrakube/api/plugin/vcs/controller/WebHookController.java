@@ -1,13 +1,14 @@
 package org.terrakube.api.plugin.vcs.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
-import org.terrakube.api.plugin.vcs.WebhookService;
+import org.terrakube.api.plugin.vcs.WebhookQueueService;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -20,7 +21,7 @@ import java.util.Map;
 public class WebHookController {
 
     @Autowired
-    WebhookService webhookService;
+    WebhookQueueService webhookQueueService;
 
     @Autowired
     ObjectMapper objectMapper;
@@ -28,15 +29,16 @@ public class WebHookController {
     @PostMapping("/webhook/v1/{webhookId}")
     public ResponseEntity<String> processWebhook(@PathVariable String webhookId,@RequestBody Map<String, Object> payload,@RequestHeader Map<String, String> headers) {
 
-        log.info("Processing webhook {}", webhookId);
+        log.info("Receiving webhook {}", webhookId);
         try {
             String jsonPayload = objectMapper.writeValueAsString(payload);
-            log.info("webhook payload: {}", jsonPayload);
-            webhookService.processWebhook(webhookId, jsonPayload,headers);
+            log.debug("webhook payload: {}", jsonPayload);
+            if (!webhookQueueService.enqueue(webhookId, jsonPayload, headers))
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         } catch (Exception e) {
             log.error("Error processing webhook", e);
             return ResponseEntity.internalServerError().build();
         }
-        return ResponseEntity.ok().build();
+        return ResponseEntity.accepted().build();
     }
 }
\ No newline at end of file
@@ -27,6 +27,8 @@ import java.util.*;
 @Slf4j
 public class BitBucketWebhookService extends WebhookServiceBase {
 
+    public static final String SIGNATURE_HEADER = "x-hub-signature";
+
     private final ObjectMapper objectMapper;
 
     @Value("${org.terrakube.hostname}")
@@ -39,8 +41,12 @@ public class BitBucketWebhookService extends WebhookServiceBase {
         this.workspaceRepository = workspaceRepository;
     }
 
+    public boolean verifyWebhook(String jsonPayload, Map<String, String> headers, String token) {
+        return verifySignature(headers, SIGNATURE_HEADER, token, jsonPayload);
+    }
+
     public WebhookResult processWebhook(String jsonPayload, Map<String, String> headers, String token) {
-        return handleWebhook(jsonPayload, headers, token, "x-hub-signature", "Bitbucket", this::handleEvent);
+        return handleWebhook(jsonPayload, headers, token, "Bitbucket", this::handleEvent);
     }
 
     private WebhookResult handleEvent(String jsonPayload, WebhookResult result, Map<String, String> headers) {
@@ -32,6 +32,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class GitHubWebhookService extends WebhookServiceBase {
 
+    public static final String SIGNATURE_HEADER = "x-hub-signature-256";
+
     private final ObjectMapper objectMapper;
     private final TokenService tokenService;
 
@@ -45,9 +47,12 @@ public class GitHubWebhookService extends WebhookServiceBase {
         this.tokenService = tokenService;
     }
 
+    public boolean verifyWebhook(String jsonPayload, Map<String, String> headers, String token) {
+        return verifySignature(headers, SIGNATURE_HEADER, token, jsonPayload);
+    }
+
     public WebhookResult processWebhook(String jsonPayload, Map<String, String> headers, String token) {
-        return handleWebhook(jsonPayload, headers, token, "x-hub-signature-256", JobVia.Github.name(),
-                this::handleEvent);
+        return handleWebhook(jsonPayload, headers, token, JobVia.Github.name(), this::handleEvent);
     }
 
     private WebhookResult handleEvent(String jsonPayload, WebhookResult result, Map<String, String> headers) {
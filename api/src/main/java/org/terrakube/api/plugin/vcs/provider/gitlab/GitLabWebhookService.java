@@ -29,6 +29,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class GitLabWebhookService extends WebhookServiceBase {
 
+    public static final String TOKEN_HEADER = "x-gitlab-token";
+
     private final ObjectMapper objectMapper;
 
     @Value("${org.terrakube.hostname}")
@@ -38,19 +40,21 @@ public class GitLabWebhookService extends WebhookServiceBase {
         this.objectMapper = objectMapper;
     }
 
+    public boolean verifyWebhook(Map<String, String> headers, String token) {
+        String tokenHeader = headers.get(TOKEN_HEADER);
+        if (tokenHeader == null || !tokenHeader.equals(token)) {
+            log.error("X-Gitlab-Token header is missing or doesn't match!");
+            return false;
+        }
+        return true;
+    }
+
     public WebhookResult processWebhook(String jsonPayload, Map<String, String> headers, String token) {
         WebhookResult result = new WebhookResult();
         result.setBranch("");
         result.setVia("GitLab");
         try {
-            // Verify the GitLab token
-            String tokenHeader = headers.get("x-gitlab-token");
-            if (tokenHeader == null || !tokenHeader.equals(token)) {
-                log.error("X-Gitlab-Token header is missing or doesn't match!");
-                result.setValid(false);
-                return result;
-            }
-
+            // the token was verified when the delivery was queued
             result.setValid(true);
 
             log.info("Parsing GitLab webhook payload");
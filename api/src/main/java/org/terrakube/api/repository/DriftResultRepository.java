@@ -0,0 +1,28 @@
+package org.terrakube.api.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.terrakube.api.rs.drift.DriftResult;
+import org.terrakube.api.rs.drift.DriftResultStatus;
+import org.terrakube.api.rs.drift.DriftSweep;
+import org.terrakube.api.rs.drift.DriftSweepStatus;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface DriftResultRepository extends JpaRepository<DriftResult, UUID> {
+
+    List<DriftResult> findAllBySweepAndStatusOrderByIdAsc(DriftSweep sweep, DriftResultStatus status);
+
+    List<DriftResult> findAllByStatus(DriftResultStatus status);
+
+    List<DriftResult> findAllBySweepStatusAndStatusIn(DriftSweepStatus sweepStatus, List<DriftResultStatus> status);
+
+    long countBySweepAndStatus(DriftSweep sweep, DriftResultStatus status);
+
+    long countBySweep(DriftSweep sweep);
+
+    @Query("select r.workspace.id from drift_result r where r.sweep = :sweep")
+    List<UUID> findWorkspaceIdsBySweep(@Param("sweep") DriftSweep sweep);
+}
@@ -0,0 +1,13 @@
+package org.terrakube.api.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.terrakube.api.rs.drift.DriftSweep;
+import org.terrakube.api.rs.drift.DriftSweepStatus;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface DriftSweepRepository extends JpaRepository<DriftSweep, UUID> {
+
+    List<DriftSweep> findAllByStatusIn(List<DriftSweepStatus> status);
+}
@@ -1,10 +1,13 @@
 package org.terrakube.api.repository;
 
+import org.terrakube.api.rs.workspace.Workspace;
 import org.terrakube.api.rs.workspace.history.History;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
 import java.util.UUID;
 
 public interface HistoryRepository extends JpaRepository<History, UUID> {
 
+    Optional<History> findFirstByWorkspaceOrderByCreatedDateDesc(Workspace workspace);
 }
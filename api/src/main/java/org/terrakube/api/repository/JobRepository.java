@@ -1,13 +1,23 @@
 package org.terrakube.api.repository;
 
+import org.terrakube.api.plugin.scheduler.fairshare.OrganizationJobs;
+import org.terrakube.api.plugin.scheduler.fairshare.PendingJob;
 import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.job.Job;
 import org.terrakube.api.rs.job.JobStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.terrakube.api.rs.workspace.Workspace;
+import jakarta.persistence.LockModeType;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 public interface JobRepository extends JpaRepository<Job, Integer> {
 
@@ -20,4 +30,32 @@ public interface JobRepository extends JpaRepository<Job, Integer> {
 
     Optional<Job> findFirstByWorkspaceAndAndStatusInOrderByIdAsc(Workspace workspace, List<JobStatus> jobStatuses);
     Optional<Job> findFirstByWorkspaceAndStatusInOrderByIdAsc(Workspace workspace, List<JobStatus> jobStatuses);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select j from job j where j.id = :id")
+    Optional<Job> findForUpdateById(@Param("id") int id);
+
+    Optional<Job> findFirstByWorkspaceAndPlanFingerprintAndPlanChangesFalseAndStatusAndUpdatedDateAfterOrderByIdDesc(Workspace workspace, String planFingerprint, JobStatus status, Date updatedDate);
+
+    long countByStatus(JobStatus status);
+
+    @Query("select j.organization.id as organizationId, count(j) as jobs from job j where j.status in :status group by j.organization.id")
+    List<OrganizationJobs> countByOrganizationAndStatusIn(@Param("status") List<JobStatus> status);
+
+    @Query("select distinct j.workspace.id from job j where j.status in :status and j.workspace is not null")
+    List<UUID> findWorkspaceIdsByStatusIn(@Param("status") List<JobStatus> status);
+
+    @Query("select j.id as id, j.via as via, j.createdDate as createdDate, o.id as organizationId, o.name as organizationName, " +
+            "w.id as workspaceId, w.locked as workspaceLocked from job j join j.organization o join j.workspace w where j.status = :status order by j.id")
+    List<PendingJob> findPendingJobsByStatus(@Param("status") JobStatus status);
+
+    @Query("select j.id from job j where j.workspace.id = :workspaceId and j.id > :lastJobId order by j.id")
+    List<Integer> findIdsByWorkspaceId(@Param("workspaceId") UUID workspaceId, @Param("lastJobId") int lastJobId, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update job j set j.status = :toStatus, j.planChanges = :planChanges, j.output = :output, j.terraformPlan = :terraformPlan, " +
+            "j.commitId = :commitId, j.updatedDate = :updatedDate where j.id = :id and j.status = :fromStatus")
+    int transitionStatus(@Param("id") int id, @Param("fromStatus") JobStatus fromStatus, @Param("toStatus") JobStatus toStatus,
+                         @Param("planChanges") boolean planChanges, @Param("output") String output, @Param("terraformPlan") String terraformPlan,
+                         @Param("commitId") String commitId, @Param("updatedDate") Date updatedDate);
 }
@@ -9,4 +9,6 @@ import java.util.UUID;
 public interface PatRepository extends JpaRepository<Pat, UUID> {
 
     List<Pat> findByCreatedBy(String createdBy);
+
+    List<Pat> findByDeletedTrue();
 }
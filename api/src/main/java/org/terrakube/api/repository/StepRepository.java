@@ -1,5 +1,9 @@
 package org.terrakube.api.repository;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.terrakube.api.rs.job.JobStatus;
 import org.terrakube.api.rs.job.step.Step;
 import org.springframework.data.jpa.repository.JpaRepository;
 
@@ -12,4 +16,8 @@ public interface StepRepository extends JpaRepository<Step, UUID> {
     List<Step> findByJobId(int jobId);
 
     Optional<Step> findFirstByJobIdOrderByStepNumber(int jobId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update step s set s.status = :toStatus, s.output = coalesce(:output, s.output) where s.id = :id and s.status = :fromStatus")
+    int transitionStatus(@Param("id") UUID id, @Param("fromStatus") JobStatus fromStatus, @Param("toStatus") JobStatus toStatus, @Param("output") String output);
 }
@@ -8,4 +8,6 @@ import org.terrakube.api.rs.team.Team;
 
 public interface TeamRepository extends JpaRepository<Team, UUID> {
     List<Team> findAllByOrganizationIdAndNameIn(UUID organizationId, List<String> names);
+
+    List<Team> findAllByOrganizationId(UUID organizationId);
 }
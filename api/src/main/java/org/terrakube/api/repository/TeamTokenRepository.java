@@ -9,4 +9,6 @@ import java.util.UUID;
 public interface TeamTokenRepository extends JpaRepository<Group, UUID> {
 
     List<Group> findByGroupIn(List<String> groups);
+
+    List<Group> findByDeletedTrue();
 }
@@ -1,5 +1,6 @@
 package org.terrakube.api.repository;
 
+import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.workspace.Workspace;
 import org.springframework.data.jpa.repository.JpaRepository;
 
@@ -11,5 +12,7 @@ public interface WorkspaceRepository extends JpaRepository<Workspace, UUID> {
 
     Workspace getByOrganizationNameAndName(String organizationName, String workspaceName);
 
+    List<Workspace> findAllByOrganization(Organization organization);
+
     Optional<List<Workspace>> findWorkspacesByOrganizationNameAndNameStartingWith(String organizationName, String workspaceNameStartingWidth);
 }
@@ -4,11 +4,14 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.terrakube.api.rs.workspace.Workspace;
 import org.terrakube.api.rs.workspace.tag.WorkspaceTag;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface WorkspaceTagRepository extends JpaRepository<WorkspaceTag, UUID> {
 
     WorkspaceTag getByWorkspaceAndTagId(Workspace workspace, String tagId);
 
+    List<WorkspaceTag> findAllByTagId(String tagId);
+
     void deleteByWorkspace(Workspace workspace);
 }
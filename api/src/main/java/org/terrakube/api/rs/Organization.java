@@ -7,6 +7,7 @@ import java.util.UUID;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.SQLRestriction;
 import org.terrakube.api.rs.agent.Agent;
+import org.terrakube.api.rs.drift.DriftSweep;
 import org.terrakube.api.rs.globalvar.Globalvar;
 import org.terrakube.api.rs.hooks.organization.OrganizationManageHook;
 import org.terrakube.api.rs.job.Job;
@@ -105,6 +106,10 @@ public class Organization {
     @OneToMany(mappedBy = "organization")
     private List<Tag> tag;
 
+    @UpdatePermission(expression = "user belongs organization")
+    @OneToMany(mappedBy = "organization")
+    private List<DriftSweep> driftSweep;
+
     @Column(name = "execution_mode")
     private String executionMode;
 }
@@ -0,0 +1,28 @@
+package org.terrakube.api.rs.checks.drift;
+
+import com.yahoo.elide.annotation.SecurityCheck;
+import com.yahoo.elide.core.security.ChangeSpec;
+import com.yahoo.elide.core.security.RequestScope;
+import com.yahoo.elide.core.security.checks.OperationCheck;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.terrakube.api.rs.checks.membership.TeamPermission;
+import org.terrakube.api.rs.checks.membership.TeamPermissionService;
+import org.terrakube.api.rs.drift.DriftSweep;
+
+import java.util.Optional;
+
+@Slf4j
+@SecurityCheck(TeamManageDriftSweep.RULE)
+public class TeamManageDriftSweep extends OperationCheck<DriftSweep> {
+    public static final String RULE = "team manage drift sweep";
+
+    @Autowired
+    TeamPermissionService teamPermissionService;
+
+    @Override
+    public boolean ok(DriftSweep driftSweep, RequestScope requestScope, Optional<ChangeSpec> optional) {
+        log.debug("team manage drift sweep {}", driftSweep.getId());
+        return teamPermissionService.hasPermission(requestScope.getUser(), driftSweep.getOrganization(), TeamPermission.MANAGE_WORKSPACE);
+    }
+}
@@ -0,0 +1,31 @@
+package org.terrakube.api.rs.checks.drift;
+
+import com.yahoo.elide.annotation.SecurityCheck;
+import com.yahoo.elide.core.security.ChangeSpec;
+import com.yahoo.elide.core.security.RequestScope;
+import com.yahoo.elide.core.security.checks.OperationCheck;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.terrakube.api.plugin.security.user.AuthenticatedUser;
+import org.terrakube.api.rs.checks.membership.MembershipService;
+import org.terrakube.api.rs.drift.DriftSweep;
+
+import java.util.Optional;
+
+@Slf4j
+@SecurityCheck(TeamViewDriftSweep.RULE)
+public class TeamViewDriftSweep extends OperationCheck<DriftSweep> {
+    public static final String RULE = "team view drift sweep";
+
+    @Autowired
+    AuthenticatedUser authenticatedUser;
+
+    @Autowired
+    MembershipService membershipService;
+
+    @Override
+    public boolean ok(DriftSweep driftSweep, RequestScope requestScope, Optional<ChangeSpec> optional) {
+        log.debug("team view drift sweep {}", driftSweep.getId());
+        return authenticatedUser.isSuperUser(requestScope.getUser()) ? true : membershipService.checkMembership(requestScope.getUser(), driftSweep.getOrganization());
+    }
+}
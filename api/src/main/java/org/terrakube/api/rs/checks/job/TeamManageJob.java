@@ -6,12 +6,10 @@ import com.yahoo.elide.core.security.RequestScope;
 import com.yahoo.elide.core.security.checks.OperationCheck;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.terrakube.api.plugin.security.groups.GroupService;
-import org.terrakube.api.plugin.security.user.AuthenticatedUser;
+import org.terrakube.api.rs.checks.membership.TeamPermission;
+import org.terrakube.api.rs.checks.membership.TeamPermissionService;
 import org.terrakube.api.rs.job.Job;
-import org.terrakube.api.rs.team.Team;
 
-import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -20,26 +18,11 @@ public class TeamManageJob extends OperationCheck<Job> {
     public static final String RULE = "team manage job";
 
     @Autowired
-    AuthenticatedUser authenticatedUser;
-
-    @Autowired
-    GroupService groupService;
+    TeamPermissionService teamPermissionService;
 
     @Override
     public boolean ok(Job job, RequestScope requestScope, Optional<ChangeSpec> optional) {
         log.debug("team manage job {}", job.getId());
-        List<Team> teamList = job.getOrganization().getTeam();
-        boolean isServiceAccount = authenticatedUser.isServiceAccount(requestScope.getUser());
-        for (Team team : teamList) {
-            if (isServiceAccount){
-                if (groupService.isServiceMember(requestScope.getUser(), team.getName()) && team.isManageWorkspace()){
-                    return true;
-                }
-            } else {
-                if (groupService.isMember(requestScope.getUser(), team.getName()) && team.isManageWorkspace())
-                    return true;
-            }
-        }
-        return false;
+        return teamPermissionService.hasPermission(requestScope.getUser(), job.getOrganization(), TeamPermission.MANAGE_WORKSPACE);
     }
 }
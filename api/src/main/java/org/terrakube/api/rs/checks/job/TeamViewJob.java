@@ -9,9 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.terrakube.api.plugin.security.user.AuthenticatedUser;
 import org.terrakube.api.rs.checks.membership.MembershipService;
 import org.terrakube.api.rs.job.Job;
-import org.terrakube.api.rs.team.Team;
 
-import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -28,8 +26,7 @@ public class TeamViewJob extends OperationCheck<Job> {
     @Override
     public boolean ok(Job job, RequestScope requestScope, Optional<ChangeSpec> optional) {
         log.debug("team view job {}", job.getId());
-        List<Team> teamList = job.getOrganization().getTeam();
-        return authenticatedUser.isSuperUser(requestScope.getUser()) ? true : membershipService.checkMembership(requestScope.getUser(), teamList);
+        return authenticatedUser.isSuperUser(requestScope.getUser()) ? true : membershipService.checkMembership(requestScope.getUser(), job.getOrganization());
 
     }
 }
@@ -2,14 +2,11 @@ package org.terrakube.api.rs.checks.membership;
 
 import com.yahoo.elide.core.security.User;
 import lombok.extern.slf4j.Slf4j;
-import org.terrakube.api.plugin.security.groups.GroupService;
 import org.terrakube.api.plugin.security.user.AuthenticatedUser;
-import org.terrakube.api.rs.team.Team;
+import org.terrakube.api.rs.Organization;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Service
 @Slf4j
 public class MembershipService {
@@ -18,24 +15,15 @@ public class MembershipService {
     AuthenticatedUser authenticatedUser;
 
     @Autowired
-    GroupService groupService;
+    TeamPermissionService teamPermissionService;
 
-    public boolean checkMembership(User user, List<Team> teamList) {
-        for (Team team : teamList) {
-            if (authenticatedUser.isServiceAccount(user)) {
-                String applicationName = authenticatedUser.getApplication(user);
-                if (groupService.isServiceMember(user, team.getName())) {
-                    log.debug("application {} is member of {}", applicationName, team.getName());
-                    return true;
-                }
-            } else {
-                String userName = authenticatedUser.getEmail(user);
-                if (groupService.isMember(user, team.getName()))
-                    log.debug("user {} is member of {}", userName, team.getName());
-                return true;
-            }
-        }
-        return false;
+    public boolean checkMembership(User user, Organization organization) {
+        boolean isMember = teamPermissionService.hasPermission(user, organization, TeamPermission.MEMBER);
+        if (authenticatedUser.isServiceAccount(user))
+            log.debug("application {} is member of organization {} {}", authenticatedUser.getApplication(user), organization.getName(), isMember);
+        else
+            log.debug("user {} is member of organization {} {}", authenticatedUser.getEmail(user), organization.getName(), isMember);
+        return isMember;
     }
 
 }
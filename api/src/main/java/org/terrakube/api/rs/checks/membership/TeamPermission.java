@@ -0,0 +1,11 @@
+package org.terrakube.api.rs.checks.membership;
+
+public enum TeamPermission {
+    MEMBER,
+    MANAGE_STATE,
+    MANAGE_WORKSPACE,
+    MANAGE_MODULE,
+    MANAGE_PROVIDER,
+    MANAGE_VCS,
+    MANAGE_TEMPLATE
+}
@@ -0,0 +1,80 @@
+package org.terrakube.api.rs.checks.membership;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yahoo.elide.core.security.User;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.repository.TeamRepository;
+import org.terrakube.api.rs.Organization;
+import org.terrakube.api.rs.team.Team;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Resolves the team permissions of a token inside one organization with a single query and keeps the result for a few
+ * seconds, so the same lookup is not repeated for every entity returned in a collection.
+ */
+@Slf4j
+@Service
+public class TeamPermissionService {
+
+    private final TeamRepository teamRepository;
+    private final Cache<String, Set<TeamPermission>> permissionCache;
+
+    public TeamPermissionService(TeamRepository teamRepository, @Value("${org.terrakube.api.permissions.cacheSeconds:10}") int cacheSeconds) {
+        this.teamRepository = teamRepository;
+        this.permissionCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(cacheSeconds))
+                .maximumSize(10000)
+                .build();
+    }
+
+    public boolean hasPermission(User user, Organization organization, TeamPermission teamPermission) {
+        return getPermissions((JwtAuthenticationToken) user.getPrincipal(), organization.getId()).contains(teamPermission);
+    }
+
+    public Set<TeamPermission> getPermissions(JwtAuthenticationToken principal, UUID organizationId) {
+        String cacheKey = organizationId + "|" + DigestUtils.sha256Hex(principal.getToken().getTokenValue());
+        return permissionCache.get(cacheKey, key -> loadPermissions(principal, organizationId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<TeamPermission> loadPermissions(JwtAuthenticationToken principal, UUID organizationId) {
+        List<Team> teams;
+        if ("TerrakubeInternal".equals(principal.getTokenAttributes().get("iss"))) {
+            teams = teamRepository.findAllByOrganizationId(organizationId);
+        } else {
+            Object groups = principal.getTokenAttributes().get("groups");
+            if (groups == null)
+                return EnumSet.noneOf(TeamPermission.class);
+            teams = teamRepository.findAllByOrganizationIdAndNameIn(organizationId, (List<String>) groups);
+        }
+
+        Set<TeamPermission> permissions = EnumSet.noneOf(TeamPermission.class);
+        for (Team team : teams) {
+            permissions.add(TeamPermission.MEMBER);
+            if (team.isManageState())
+                permissions.add(TeamPermission.MANAGE_STATE);
+            if (team.isManageWorkspace())
+                permissions.add(TeamPermission.MANAGE_WORKSPACE);
+            if (team.isManageModule())
+                permissions.add(TeamPermission.MANAGE_MODULE);
+            if (team.isManageProvider())
+                permissions.add(TeamPermission.MANAGE_PROVIDER);
+            if (team.isManageVcs())
+                permissions.add(TeamPermission.MANAGE_VCS);
+            if (team.isManageTemplate())
+                permissions.add(TeamPermission.MANAGE_TEMPLATE);
+        }
+        log.debug("{} permissions in organization {}: {}", principal.getTokenAttributes().get("name"), organizationId, permissions);
+        return permissions;
+    }
+}
@@ -8,10 +8,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.terrakube.api.plugin.security.user.AuthenticatedUser;
 import org.terrakube.api.rs.checks.membership.MembershipService;
 import org.terrakube.api.rs.module.Module;
-import org.terrakube.api.rs.team.Team;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -29,7 +27,6 @@ public class TeamViewModule extends OperationCheck<Module> {
     @Override
     public boolean ok(Module module, RequestScope requestScope, Optional<ChangeSpec> optional) {
         log.debug("team view module {}", module.getId());
-        List<Team> teamList = module.getOrganization().getTeam();
-        return authenticatedUser.isSuperUser(requestScope.getUser()) ? true : membershipService.checkMembership(requestScope.getUser(), teamList);
+        return authenticatedUser.isSuperUser(requestScope.getUser()) ? true : membershipService.checkMembership(requestScope.getUser(), module.getOrganization());
     }
 }
@@ -6,13 +6,12 @@ import com.yahoo.elide.core.security.RequestScope;
 import com.yahoo.elide.core.security.User;
 import com.yahoo.elide.core.security.checks.OperationCheck;
 import lombok.extern.slf4j.Slf4j;
-import org.terrakube.api.plugin.security.groups.GroupService;
 import org.terrakube.api.plugin.security.user.AuthenticatedUser;
 import org.terrakube.api.rs.Organization;
-import org.terrakube.api.rs.team.Team;
+import org.terrakube.api.rs.checks.membership.TeamPermission;
+import org.terrakube.api.rs.checks.membership.TeamPermissionService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -25,7 +24,7 @@ public class UserBelongsOrganization extends OperationCheck<Organization> {
     AuthenticatedUser authenticatedUser;
 
     @Autowired
-    GroupService groupService;
+    TeamPermissionService teamPermissionService;
 
     @Override
     public boolean ok(Organization organization, RequestScope requestScope, Optional<ChangeSpec> optional) {
@@ -43,26 +42,9 @@ public class UserBelongsOrganization extends OperationCheck<Organization> {
      * @return
      */
     private boolean isMemberOrganization(User user, Organization organization){
-        boolean isServiceAccount=authenticatedUser.isServiceAccount(user);
-        String applicationName="";
-        if (isServiceAccount){
-            applicationName = authenticatedUser.getApplication(user);
-        }
-
-        List<Team> teamList = organization.getTeam();
-        for (Team team : teamList) {
-            if (isServiceAccount) {
-                log.debug("isServiceMember {} {}", team.getName(), groupService.isServiceMember(user, team.getName()));
-                if (groupService.isServiceMember(user, team.getName())) {
-                    return true;
-                }
-            } else {
-                log.debug("isMember {} {}", team.getName(), groupService.isMember(user, team.getName()));
-                if (groupService.isMember(user, team.getName()))
-                    return true;
-            }
-        }
-        return false;
+        boolean isMember = teamPermissionService.hasPermission(user, organization, TeamPermission.MEMBER);
+        log.debug("isMember {} {}", organization.getName(), isMember);
+        return isMember;
     }
 
 
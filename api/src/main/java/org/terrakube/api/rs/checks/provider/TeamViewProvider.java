@@ -8,10 +8,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.terrakube.api.plugin.security.user.AuthenticatedUser;
 import org.terrakube.api.rs.checks.membership.MembershipService;
 import org.terrakube.api.rs.provider.Provider;
-import org.terrakube.api.rs.team.Team;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -29,7 +27,6 @@ public class TeamViewProvider extends OperationCheck<Provider> {
     @Override
     public boolean ok(Provider provider, RequestScope requestScope, Optional<ChangeSpec> optional) {
         log.debug("team view provider {}", provider.getId());
-        List<Team> teamList = provider.getOrganization().getTeam();
-        return authenticatedUser.isSuperUser(requestScope.getUser()) ? true : membershipService.checkMembership(requestScope.getUser(), teamList);
+        return authenticatedUser.isSuperUser(requestScope.getUser()) ? true : membershipService.checkMembership(requestScope.getUser(), provider.getOrganization());
     }
 }
\ No newline at end of file
@@ -6,10 +6,9 @@ import com.yahoo.elide.core.security.RequestScope;
 import com.yahoo.elide.core.security.checks.OperationCheck;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.terrakube.api.plugin.security.groups.GroupService;
-import org.terrakube.api.plugin.security.user.AuthenticatedUser;
+import org.terrakube.api.rs.checks.membership.TeamPermission;
+import org.terrakube.api.rs.checks.membership.TeamPermissionService;
 import org.terrakube.api.rs.ssh.Ssh;
-import org.terrakube.api.rs.team.Team;
 
 import java.util.Optional;
 
@@ -19,24 +18,11 @@ public class TeamManageSsh extends OperationCheck<Ssh> {
     public static final String RULE = "team manage ssh";
 
     @Autowired
-    GroupService groupService;
-    @Autowired
-    AuthenticatedUser authenticatedUser;
+    TeamPermissionService teamPermissionService;
 
     @Override
     public boolean ok(Ssh ssh, RequestScope requestScope, Optional<ChangeSpec> optional) {
         log.debug("team manage ssh {}", ssh.getId());
-        boolean isServiceAccount = authenticatedUser.isServiceAccount(requestScope.getUser());
-        for (Team team : ssh.getOrganization().getTeam()) {
-            if (isServiceAccount){
-                if (groupService.isServiceMember(requestScope.getUser(), team.getName()) && team.isManageVcs() ){
-                    return true;
-                }
-            } else {
-                if (groupService.isMember(requestScope.getUser(), team.getName()) && team.isManageVcs())
-                    return true;
-            }
-        }
-        return false;
+        return teamPermissionService.hasPermission(requestScope.getUser(), ssh.getOrganization(), TeamPermission.MANAGE_VCS);
     }
 }
@@ -25,6 +25,6 @@ public class TeamViewSsh extends OperationCheck<Ssh> {
     @Override
     public boolean ok(Ssh ssh, RequestScope requestScope, Optional<ChangeSpec> optional) {
         log.debug("team view ssh {}", ssh.getId());
-        return authenticatedUser.isSuperUser(requestScope.getUser()) ? true : membershipService.checkMembership(requestScope.getUser(), ssh.getOrganization().getTeam());
+        return authenticatedUser.isSuperUser(requestScope.getUser()) ? true : membershipService.checkMembership(requestScope.getUser(), ssh.getOrganization());
     }
 }
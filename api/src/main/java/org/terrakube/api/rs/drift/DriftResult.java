@@ -0,0 +1,54 @@
+package org.terrakube.api.rs.drift;
+
+import com.yahoo.elide.annotation.CreatePermission;
+import com.yahoo.elide.annotation.DeletePermission;
+import com.yahoo.elide.annotation.Include;
+import com.yahoo.elide.annotation.UpdatePermission;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.terrakube.api.plugin.security.audit.GenericAuditFields;
+import org.terrakube.api.rs.IdConverter;
+import org.terrakube.api.rs.workspace.Workspace;
+
+import java.sql.Types;
+import java.util.UUID;
+
+@CreatePermission(expression = "user is a super service")
+@UpdatePermission(expression = "user is a super service")
+@DeletePermission(expression = "user is a super service")
+@Include(rootLevel = false)
+@Getter
+@Setter
+@Entity(name = "drift_result")
+public class DriftResult extends GenericAuditFields {
+
+    @Id
+    @JdbcTypeCode(Types.VARCHAR)
+    @Convert(converter = IdConverter.class)
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "job_id")
+    private Integer jobId;
+
+    @Column(name = "vcs_host")
+    private String vcsHost;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private DriftResultStatus status = DriftResultStatus.pending;
+
+    @Column(name = "resources_changed")
+    private int resourcesChanged;
+
+    @Column(name = "resources_deleted")
+    private int resourcesDeleted;
+
+    @ManyToOne
+    private DriftSweep sweep;
+
+    @ManyToOne
+    private Workspace workspace;
+}
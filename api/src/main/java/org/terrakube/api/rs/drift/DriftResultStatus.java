@@ -0,0 +1,11 @@
+package org.terrakube.api.rs.drift;
+
+public enum DriftResultStatus {
+    pending,
+    running,
+    drifted,
+    noDrift,
+    failed,
+    skipped,
+    cancelled
+}
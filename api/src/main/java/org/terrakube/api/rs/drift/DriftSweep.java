@@ -0,0 +1,76 @@
+package org.terrakube.api.rs.drift;
+
+import com.yahoo.elide.annotation.CreatePermission;
+import com.yahoo.elide.annotation.DeletePermission;
+import com.yahoo.elide.annotation.Include;
+import com.yahoo.elide.annotation.ReadPermission;
+import com.yahoo.elide.annotation.UpdatePermission;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.terrakube.api.plugin.security.audit.GenericAuditFields;
+import org.terrakube.api.rs.IdConverter;
+import org.terrakube.api.rs.Organization;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.UUID;
+
+@ReadPermission(expression = "team view drift sweep")
+@CreatePermission(expression = "team manage drift sweep")
+@UpdatePermission(expression = "team manage drift sweep")
+@DeletePermission(expression = "team manage drift sweep")
+@Include(rootLevel = false)
+@Getter
+@Setter
+@Entity(name = "drift_sweep")
+public class DriftSweep extends GenericAuditFields {
+
+    @Id
+    @JdbcTypeCode(Types.VARCHAR)
+    @Convert(converter = IdConverter.class)
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "tag_id")
+    private String tagId;
+
+    @Column(name = "template_reference")
+    private String templateReference;
+
+    @Column(name = "max_concurrent")
+    private int maxConcurrent = 10;
+
+    @Column(name = "max_per_vcs_host")
+    private int maxPerVcsHost;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private DriftSweepStatus status = DriftSweepStatus.pending;
+
+    @UpdatePermission(expression = "user is a super service")
+    @Column(name = "total")
+    private int total;
+
+    @UpdatePermission(expression = "user is a super service")
+    @Column(name = "drifted")
+    private int drifted;
+
+    @UpdatePermission(expression = "user is a super service")
+    @Column(name = "failed")
+    private int failed;
+
+    @ManyToOne
+    private Organization organization;
+
+    @UpdatePermission(expression = "user is a super service")
+    @OneToMany(mappedBy = "sweep")
+    private List<DriftResult> result;
+}
@@ -0,0 +1,8 @@
+package org.terrakube.api.rs.drift;
+
+public enum DriftSweepStatus {
+    pending,
+    running,
+    completed,
+    cancelled
+}
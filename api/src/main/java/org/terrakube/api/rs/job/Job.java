@@ -93,6 +93,10 @@ public class Job extends GenericAuditFields {
     @Column(name = "refresh_only")
     private boolean refreshOnly = false;
 
+    @Exclude
+    @Column(name = "plan_fingerprint")
+    private String planFingerprint;
+
     @ManyToOne
     private Organization organization;
 
@@ -29,15 +29,22 @@ import org.terrakube.api.rs.vcs.GitHubAppToken;
 import org.terrakube.api.rs.vcs.Vcs;
 import org.terrakube.api.rs.vcs.VcsConnectionType;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 
 @Slf4j
+@Component
 public class GitTagsCache {
     private static JedisPool jedisPool;
 
+    private final Counter cacheHit;
+    private final Counter cacheMiss;
+
     private static SSLSocketFactory createTrustStoreSSLSocketFactory(String jksFile, String password) throws Exception {
         KeyStore trustStore = KeyStore.getInstance("jks");
         InputStream inputStream = null;
@@ -67,8 +74,10 @@ public class GitTagsCache {
         }
     }
 
-    public GitTagsCache() {
+    public GitTagsCache(MeterRegistry meterRegistry) {
         log.debug("Init Module Cache...");
+        cacheHit = meterRegistry.counter("terrakube.module.tags.cache", "result", "hit");
+        cacheMiss = meterRegistry.counter("terrakube.module.tags.cache", "result", "miss");
 
         String truststorePath = System.getenv("TerrakubeRedisTruststorePath");
         String truststorePassword = System.getenv("TerrakubeRedisTruststorePassword");
@@ -149,9 +158,11 @@ public class GitTagsCache {
         Optional<String> currentList = Optional.ofNullable((jedisPool != null) ? cacheFromRedis : null);
         if (currentList.isPresent()) {
             log.info("Module {} is in cache", modulePath);
-            return Arrays.asList(StringUtils.split(currentList.get().toString(), "|"));
+            cacheHit.increment();
+            return parseVersions(currentList.get());
         } else {
             log.info("Module {} is not in cache, adding to cache (this should not happen...)", modulePath);
+            cacheMiss.increment();
             List<String> fromRepository = getVersionFromRepository(source, tagPrefix, vcs, ssh, gitHubAppToken);
             if (jedisPool != null) {
                 connection = getJedisConnection();
@@ -249,6 +260,10 @@ public class GitTagsCache {
         return versionList;
     }
 
+    public List<String> parseVersions(String cachedVersions) {
+        return Arrays.asList(StringUtils.split(cachedVersions, "|"));
+    }
+
     public void setVersions(String modulePath, List<String> moduleVersions) {
         if (jedisPool != null) {
             Jedis connection = getJedisConnection();
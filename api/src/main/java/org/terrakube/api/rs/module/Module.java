@@ -13,6 +13,7 @@ import org.terrakube.api.rs.ssh.Ssh;
 import org.terrakube.api.rs.vcs.GitHubAppToken;
 import org.terrakube.api.rs.vcs.Vcs;
 
+import jakarta.inject.Inject;
 import jakarta.persistence.*;
 
 import java.sql.Types;
@@ -60,7 +61,9 @@ public class Module extends GenericAuditFields {
     private Organization organization;
 
     @Exclude
-    private static final GitTagsCache gitTagsCache = new GitTagsCache();
+    @Transient
+    @Inject
+    private GitTagsCache gitTagsCache;
 
     @Transient
     @ComputedAttribute
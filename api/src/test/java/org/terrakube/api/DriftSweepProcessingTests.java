@@ -0,0 +1,163 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.terrakube.api.plugin.drift.DriftSweepService;
+import org.terrakube.api.plugin.scheduler.ScheduleJobService;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.repository.*;
+import org.terrakube.api.rs.Organization;
+import org.terrakube.api.rs.drift.DriftResult;
+import org.terrakube.api.rs.drift.DriftResultStatus;
+import org.terrakube.api.rs.drift.DriftSweep;
+import org.terrakube.api.rs.drift.DriftSweepStatus;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.job.step.Step;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DriftSweepProcessingTests {
+
+    private static final String LOCK = "terrakube:drift:lock";
+
+    RedisTemplate redisTemplate;
+    ValueOperations valueOperations;
+    DriftSweepRepository driftSweepRepository;
+    DriftResultRepository driftResultRepository;
+    JobRepository jobRepository;
+    StepRepository stepRepository;
+    StorageTypeService storageTypeService;
+    ScheduleJobService scheduleJobService;
+    DriftSweepService driftSweepService;
+
+    @BeforeEach
+    void setup() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(LOCK), anyString(), any(Duration.class))).thenReturn(true);
+        driftSweepRepository = mock(DriftSweepRepository.class);
+        driftResultRepository = mock(DriftResultRepository.class);
+        jobRepository = mock(JobRepository.class);
+        stepRepository = mock(StepRepository.class);
+        storageTypeService = mock(StorageTypeService.class);
+        scheduleJobService = mock(ScheduleJobService.class);
+
+        driftSweepService = new DriftSweepService(driftSweepRepository, driftResultRepository, mock(WorkspaceRepository.class),
+                mock(WorkspaceTagRepository.class), mock(TemplateRepository.class), jobRepository, stepRepository,
+                storageTypeService, scheduleJobService, redisTemplate, 0);
+    }
+
+    @Test
+    void cancelledSweepCancelsDispatchedJobs() throws Exception {
+        DriftResult runningResult = driftResult(DriftResultStatus.running, 1);
+        DriftResult pendingResult = driftResult(DriftResultStatus.pending, null);
+        when(driftResultRepository.findAllBySweepStatusAndStatusIn(eq(DriftSweepStatus.cancelled), anyList())).thenReturn(List.of(runningResult, pendingResult));
+        Job job = job(1, JobStatus.running);
+        when(jobRepository.findById(1)).thenReturn(Optional.of(job));
+
+        driftSweepService.processSweeps();
+
+        assertEquals(JobStatus.cancelled, job.getStatus());
+        verify(jobRepository).save(job);
+        verify(scheduleJobService).deleteJobContext(1);
+        assertEquals(DriftResultStatus.cancelled, runningResult.getStatus());
+        assertEquals(DriftResultStatus.cancelled, pendingResult.getStatus());
+    }
+
+    @Test
+    void finishedJobIsNotCancelled() throws Exception {
+        DriftResult runningResult = driftResult(DriftResultStatus.running, 1);
+        when(driftResultRepository.findAllBySweepStatusAndStatusIn(eq(DriftSweepStatus.cancelled), anyList())).thenReturn(List.of(runningResult));
+        when(jobRepository.findById(1)).thenReturn(Optional.of(job(1, JobStatus.completed)));
+
+        driftSweepService.processSweeps();
+
+        verify(scheduleJobService, never()).deleteJobContext(anyInt());
+        assertEquals(DriftResultStatus.cancelled, runningResult.getStatus());
+    }
+
+    @Test
+    void lockIsReleasedWithToken() {
+        driftSweepService.processSweeps();
+
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).setIfAbsent(eq(LOCK), token.capture(), any(Duration.class));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LOCK)), eq(token.getValue()));
+        verify(redisTemplate, never()).delete(LOCK);
+    }
+
+    @Test
+    void sweepsAreNotProcessedWithoutLock() {
+        when(valueOperations.setIfAbsent(eq(LOCK), anyString(), any(Duration.class))).thenReturn(false);
+
+        driftSweepService.processSweeps();
+
+        verifyNoInteractions(driftResultRepository, driftSweepRepository);
+    }
+
+    @Test
+    void driftIsReadFromCompressedPlanOutput() throws IOException {
+        DriftResult runningResult = driftResult(DriftResultStatus.running, 1);
+        when(driftResultRepository.findAllByStatus(DriftResultStatus.running)).thenReturn(List.of(runningResult));
+        Job job = job(1, JobStatus.completed);
+        job.setPlanChanges(true);
+        when(jobRepository.findById(1)).thenReturn(Optional.of(job));
+        Step step = new Step();
+        step.setId(UUID.randomUUID());
+        step.setStepNumber(100);
+        when(stepRepository.findByJobId(1)).thenReturn(List.of(step));
+        when(storageTypeService.getStepOutput(anyString(), eq("1"), eq(step.getId().toString())))
+                .thenReturn(compress("  # aws_instance.web has changed\n  # aws_s3_bucket.logs has been deleted\n"));
+
+        driftSweepService.processSweeps();
+
+        assertEquals(DriftResultStatus.drifted, runningResult.getStatus());
+        assertEquals(1, runningResult.getResourcesChanged());
+        assertEquals(1, runningResult.getResourcesDeleted());
+    }
+
+    private DriftResult driftResult(DriftResultStatus status, Integer jobId) {
+        DriftSweep driftSweep = new DriftSweep();
+        driftSweep.setId(UUID.randomUUID());
+        DriftResult driftResult = new DriftResult();
+        driftResult.setSweep(driftSweep);
+        driftResult.setStatus(status);
+        driftResult.setJobId(jobId);
+        return driftResult;
+    }
+
+    private Job job(int id, JobStatus status) {
+        Organization organization = new Organization();
+        organization.setId(UUID.randomUUID());
+        Job job = new Job();
+        job.setId(id);
+        job.setStatus(status);
+        job.setOrganization(organization);
+        return job;
+    }
+
+    private static byte[] compress(String output) throws IOException {
+        ByteArrayOutputStream compressedOutput = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressedOutput)) {
+            gzipOutputStream.write(output.getBytes(StandardCharsets.UTF_8));
+        }
+        return compressedOutput.toByteArray();
+    }
+}
@@ -0,0 +1,192 @@
+package org.terrakube.api;
+
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.terrakube.api.repository.DriftResultRepository;
+import org.terrakube.api.repository.DriftSweepRepository;
+import org.terrakube.api.repository.TeamRepository;
+import org.terrakube.api.rs.drift.DriftResult;
+import org.terrakube.api.rs.drift.DriftResultStatus;
+import org.terrakube.api.rs.drift.DriftSweep;
+import org.terrakube.api.rs.drift.DriftSweepStatus;
+import org.terrakube.api.rs.team.Team;
+
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+
+class DriftSweepTests extends ServerApplicationTests {
+
+    private static final String ORGANIZATION_ID = "d9b58bd3-f3fc-4056-a026-1163297e80a8";
+    private static final String WORKSPACE_ID = "5ed411ca-7ab8-4d2f-b591-02d0d5788afc";
+
+    @Autowired
+    DriftSweepRepository driftSweepRepository;
+
+    @Autowired
+    DriftResultRepository driftResultRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @BeforeEach
+    void manageWorkspace() {
+        Team team = teamRepository.findById(UUID.fromString("58529721-425e-44d7-8b0d-1d515043c2f7")).get();
+        team.setManageWorkspace(true);
+        teamRepository.save(team);
+    }
+
+    @Test
+    void createDriftSweepAsOrgMember() {
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"), "Content-Type", "application/vnd.api+json")
+                .body(driftSweep())
+                .when()
+                .post("/api/v1/organization/" + ORGANIZATION_ID + "/driftSweep")
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.CREATED.value());
+    }
+
+    @Test
+    void createDriftSweepAsNonOrgMember() {
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("FAKE_DEVELOPERS"), "Content-Type", "application/vnd.api+json")
+                .body(driftSweep())
+                .when()
+                .post("/api/v1/organization/" + ORGANIZATION_ID + "/driftSweep")
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.FORBIDDEN.value());
+    }
+
+    @Test
+    void searchDriftSweepAsOrgMember() {
+        DriftSweep driftSweep = createDriftSweep();
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .when()
+                .get("/api/v1/organization/" + ORGANIZATION_ID + "/driftSweep/" + driftSweep.getId())
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .body("data.attributes.name", IsEqual.equalTo("Nightly"))
+                .statusCode(HttpStatus.OK.value());
+    }
+
+    @Test
+    void searchDriftSweepAsNonOrgMember() {
+        DriftSweep driftSweep = createDriftSweep();
+
+        // team view drift sweep relies on the membership check that denies users without a team in the organization
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("FAKE_DEVELOPERS"))
+                .when()
+                .get("/api/v1/organization/" + ORGANIZATION_ID + "/driftSweep/" + driftSweep.getId())
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.FORBIDDEN.value());
+    }
+
+    @Test
+    void updateDriftSweepTotalsAsOrgMember() {
+        DriftSweep driftSweep = createDriftSweep();
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"), "Content-Type", "application/vnd.api+json")
+                .body("{\n" +
+                        "  \"data\": {\n" +
+                        "    \"type\": \"drift_sweep\",\n" +
+                        "    \"id\": \"" + driftSweep.getId() + "\",\n" +
+                        "    \"attributes\": {\n" +
+                        "      \"drifted\": 10\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "}")
+                .when()
+                .patch("/api/v1/organization/" + ORGANIZATION_ID + "/driftSweep/" + driftSweep.getId())
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.FORBIDDEN.value());
+    }
+
+    @Test
+    void searchDriftResultAsOrgMember() {
+        DriftSweep driftSweep = createDriftSweep();
+        DriftResult driftResult = new DriftResult();
+        driftResult.setSweep(driftSweep);
+        driftResult.setWorkspace(workspaceRepository.findById(UUID.fromString(WORKSPACE_ID)).get());
+        driftResult.setVcsHost("github.com");
+        driftResult.setStatus(DriftResultStatus.noDrift);
+        driftResultRepository.save(driftResult);
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .when()
+                .get("/api/v1/organization/" + ORGANIZATION_ID + "/driftSweep/" + driftSweep.getId() + "/result")
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .body("data[0].attributes.status", IsEqual.equalTo("noDrift"))
+                .statusCode(HttpStatus.OK.value());
+    }
+
+    @Test
+    void createDriftResultAsOrgMember() {
+        DriftSweep driftSweep = createDriftSweep();
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"), "Content-Type", "application/vnd.api+json")
+                .body("{\n" +
+                        "  \"data\": {\n" +
+                        "    \"type\": \"drift_result\",\n" +
+                        "    \"attributes\": {\n" +
+                        "      \"status\": \"drifted\"\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "}")
+                .when()
+                .post("/api/v1/organization/" + ORGANIZATION_ID + "/driftSweep/" + driftSweep.getId() + "/result")
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.FORBIDDEN.value());
+    }
+
+    private DriftSweep createDriftSweep() {
+        DriftSweep driftSweep = new DriftSweep();
+        driftSweep.setName("Nightly");
+        driftSweep.setStatus(DriftSweepStatus.completed);
+        driftSweep.setOrganization(organizationRepository.findById(UUID.fromString(ORGANIZATION_ID)).get());
+        return driftSweepRepository.save(driftSweep);
+    }
+
+    private String driftSweep() {
+        // an unknown tag and no concurrency so the sweep does not start jobs in the test workspace
+        return "{\n" +
+                "  \"data\": {\n" +
+                "    \"type\": \"drift_sweep\",\n" +
+                "    \"attributes\": {\n" +
+                "      \"name\": \"Nightly\",\n" +
+                "      \"tagId\": \"" + UUID.randomUUID() + "\",\n" +
+                "      \"maxConcurrent\": 0\n" +
+                "    }\n" +
+                "  }\n" +
+                "}";
+    }
+}
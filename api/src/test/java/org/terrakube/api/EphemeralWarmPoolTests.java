@@ -0,0 +1,141 @@
+package org.terrakube.api;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ValueOperations;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral.EphemeralConfiguration;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral.EphemeralProfile;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral.EphemeralWarmPoolService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@EnableKubernetesMockClient(crud = true)
+class EphemeralWarmPoolTests {
+
+    private static final String QUEUE = "terrakube:ephemeral:queue:";
+    private static final String RESERVED = "terrakube:ephemeral:reserved:";
+
+    KubernetesClient kubernetesClient;
+
+    RedisTemplate redisTemplate;
+    ListOperations listOperations;
+    ValueOperations valueOperations;
+    EphemeralConfiguration ephemeralConfiguration;
+    EphemeralWarmPoolService ephemeralWarmPoolService;
+
+    @BeforeEach
+    void setup() {
+        redisTemplate = mock(RedisTemplate.class);
+        listOperations = mock(ListOperations.class);
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(redisTemplate.opsForSet()).thenReturn(mock(SetOperations.class));
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        ephemeralConfiguration = new EphemeralConfiguration();
+        ephemeralConfiguration.setNamespace("terrakube");
+        ephemeralConfiguration.setImage("azbuilder/executor:latest");
+        ephemeralConfiguration.setSecret("terrakube-executor-secrets");
+        ephemeralConfiguration.setNodeSelector(new HashMap<>());
+        ephemeralConfiguration.setWarmPoolSize(2);
+
+        ephemeralWarmPoolService = new EphemeralWarmPoolService(kubernetesClient, ephemeralConfiguration, redisTemplate);
+    }
+
+    @Test
+    void replenishCreatesMissingWarmExecutors() {
+        EphemeralProfile profile = EphemeralProfile.fromEnvironment(new HashMap<>(), new HashMap<>());
+        assertEquals(0, ephemeralWarmPoolService.countIdleExecutors(profile));
+
+        ephemeralWarmPoolService.replenish(profile);
+        assertEquals(2, ephemeralWarmPoolService.countIdleExecutors(profile));
+
+        ephemeralWarmPoolService.replenish(profile);
+        assertEquals(2, kubernetesClient.batch().v1().jobs().inNamespace("terrakube").list().getItems().size());
+    }
+
+    @Test
+    void profilesUseSeparatePools() {
+        EphemeralProfile defaultProfile = EphemeralProfile.fromEnvironment(new HashMap<>(), new HashMap<>());
+        EphemeralProfile spotProfile = EphemeralProfile.fromEnvironment(
+                Map.of(EphemeralProfile.NODE_SELECTOR, "nodeType=spot"), new HashMap<>());
+        assertNotEquals(defaultProfile.getId(), spotProfile.getId());
+
+        ephemeralWarmPoolService.replenish(spotProfile);
+        assertEquals(0, ephemeralWarmPoolService.countIdleExecutors(defaultProfile));
+        assertEquals(2, ephemeralWarmPoolService.countIdleExecutors(spotProfile));
+    }
+
+    @Test
+    void assignmentUsesIdleExecutorAndReplacesIt() {
+        EphemeralProfile profile = EphemeralProfile.fromEnvironment(new HashMap<>(), new HashMap<>());
+        when(valueOperations.increment(RESERVED + profile.getId())).thenReturn(1L);
+        assertFalse(ephemeralWarmPoolService.assignToWarmExecutor(profile, "1", "{\"jobId\":\"1\"}"));
+        verify(valueOperations).decrement(RESERVED + profile.getId());
+
+        ephemeralWarmPoolService.replenish(profile);
+        assertTrue(ephemeralWarmPoolService.assignToWarmExecutor(profile, "1", "{\"jobId\":\"1\"}"));
+        verify(valueOperations).set("terrakube:ephemeral:assignment:1", "{\"jobId\":\"1\"}", 300L, TimeUnit.SECONDS);
+        verify(listOperations).rightPush(QUEUE + profile.getId(), "1");
+        verify(redisTemplate).expire(QUEUE + profile.getId(), 300L, TimeUnit.SECONDS);
+
+        String warmJobName = kubernetesClient.batch().v1().jobs().inNamespace("terrakube").list().getItems().get(0).getMetadata().getName();
+        when(listOperations.leftPop(anyString())).thenReturn("1", (Object) null);
+        when(valueOperations.getAndDelete("terrakube:ephemeral:assignment:1")).thenReturn("{\"jobId\":\"1\"}");
+        Optional<String> assignment = ephemeralWarmPoolService.pollAssignment(profile.getId(), warmJobName);
+        assertTrue(assignment.isPresent());
+        assertEquals("{\"jobId\":\"1\"}", assignment.get());
+        assertEquals(2, ephemeralWarmPoolService.countIdleExecutors(profile));
+        assertEquals("1", kubernetesClient.batch().v1().jobs().inNamespace("terrakube").withName(warmJobName).get()
+                .getMetadata().getLabels().get(EphemeralWarmPoolService.JOB_ID_LABEL));
+    }
+
+    @Test
+    void idleExecutorsReservedByOtherReplicasAreNotAssigned() {
+        EphemeralProfile profile = EphemeralProfile.fromEnvironment(new HashMap<>(), new HashMap<>());
+        ephemeralWarmPoolService.replenish(profile);
+        // two idle executors already reserved by other replicas
+        when(valueOperations.increment(RESERVED + profile.getId())).thenReturn(3L);
+
+        assertFalse(ephemeralWarmPoolService.assignToWarmExecutor(profile, "1", "{\"jobId\":\"1\"}"));
+
+        verify(listOperations, never()).rightPush(anyString(), any());
+        verify(valueOperations).decrement(RESERVED + profile.getId());
+        assertEquals(2, kubernetesClient.batch().v1().jobs().inNamespace("terrakube").list().getItems().size());
+    }
+
+    @Test
+    void pickedAssignmentReleasesTheReservation() {
+        when(listOperations.leftPop(anyString())).thenReturn("1", (Object) null);
+        when(valueOperations.getAndDelete("terrakube:ephemeral:assignment:1")).thenReturn("{\"jobId\":\"1\"}");
+        when(valueOperations.decrement(RESERVED + "profile")).thenReturn(0L);
+
+        assertTrue(ephemeralWarmPoolService.pollAssignment("profile", "warm-profile-abc").isPresent());
+
+        verify(redisTemplate).delete(RESERVED + "profile");
+    }
+
+    @Test
+    void expiredAssignmentIsSkipped() {
+        when(listOperations.leftPop(anyString())).thenReturn("1", "2", null);
+        when(valueOperations.getAndDelete("terrakube:ephemeral:assignment:2")).thenReturn("{\"jobId\":\"2\"}");
+
+        Optional<String> assignment = ephemeralWarmPoolService.pollAssignment("profile", "warm-profile-abc");
+        assertEquals("{\"jobId\":\"2\"}", assignment.orElse(null));
+
+        assertFalse(ephemeralWarmPoolService.pollAssignment("profile", "warm-profile-abc").isPresent());
+        verify(listOperations, never()).leftPop(anyString(), anyLong(), any(TimeUnit.class));
+    }
+}
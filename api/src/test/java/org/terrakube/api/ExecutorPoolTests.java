@@ -0,0 +1,164 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ExecutorContext;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolProperties;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolService;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExecutorPoolTests {
+
+    private static final String DEFAULT_URL = "http://terrakube-executor-service:8090/api/v1/terraform-rs";
+
+    RedisTemplate redisTemplate;
+    SetOperations setOperations;
+    HashOperations hashOperations;
+    ExecutorPoolProperties executorPoolProperties;
+    ExecutorPoolService executorPoolService;
+
+    Set<Object> executorIds;
+
+    @BeforeEach
+    void setup() {
+        redisTemplate = mock(RedisTemplate.class);
+        setOperations = mock(SetOperations.class);
+        hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+
+        executorIds = new LinkedHashSet<>();
+        when(setOperations.members(ExecutorPoolService.EXECUTOR_SET)).thenReturn(executorIds);
+        when(hashOperations.entries(anyString())).thenReturn(new HashMap<>());
+
+        executorPoolProperties = new ExecutorPoolProperties();
+        executorPoolProperties.setEnabled(true);
+        executorPoolService = new ExecutorPoolService(redisTemplate, executorPoolProperties);
+    }
+
+    @Test
+    void executorWithCachedPlanIsPreferred() {
+        addExecutor("busy-workspace", 4, "workspaces", "ws1", "sources", "https://github.com/org/repo.git");
+        addExecutor("cached-plan", 1, "plans", "job1/step1");
+        addExecutor("idle", 8);
+
+        List<String> urls = executorPoolService.getExecutorUrls(executorContext(), DEFAULT_URL);
+
+        assertEquals(List.of(url("cached-plan"), url("busy-workspace"), url("idle"), DEFAULT_URL), urls);
+    }
+
+    @Test
+    void planOfAnotherJobIsNotPreferred() {
+        addExecutor("other-job", 1, "plans", "job10/step1");
+        addExecutor("idle", 2);
+
+        List<String> urls = executorPoolService.getExecutorUrls(executorContext(), DEFAULT_URL);
+
+        assertEquals(List.of(url("idle"), url("other-job"), DEFAULT_URL), urls);
+    }
+
+    @Test
+    void affinityIsSortedByWorkspaceSourceAndVersion() {
+        addExecutor("version", 1, "terraformVersions", "1.5.7");
+        addExecutor("source", 1, "sources", "https://github.com/org/repo.git");
+        addExecutor("workspace", 1, "workspaces", "ws1");
+
+        List<String> urls = executorPoolService.getExecutorUrls(executorContext(), DEFAULT_URL);
+
+        assertEquals(List.of(url("workspace"), url("source"), url("version"), DEFAULT_URL), urls);
+    }
+
+    @Test
+    void sameAffinityIsSortedByFreeSlots() {
+        addExecutor("one-slot", 1);
+        addExecutor("three-slots", 3);
+        addExecutor("two-slots", 2);
+
+        List<String> urls = executorPoolService.getExecutorUrls(executorContext(), DEFAULT_URL);
+
+        assertEquals(List.of(url("three-slots"), url("two-slots"), url("one-slot"), DEFAULT_URL), urls);
+    }
+
+    @Test
+    void executorsWithoutFreeSlotsAreSkipped() {
+        addExecutor("full", 0, "plans", "job1/step1", "workspaces", "ws1");
+        addExecutor("free", 1);
+
+        List<String> urls = executorPoolService.getExecutorUrls(executorContext(), DEFAULT_URL);
+
+        assertEquals(List.of(url("free"), DEFAULT_URL), urls);
+    }
+
+    @Test
+    void defaultUrlIsNotDuplicated() {
+        Map<Object, Object> capacity = capacity("default", 2);
+        capacity.put("url", DEFAULT_URL);
+        executorIds.add("default");
+        when(hashOperations.entries(String.format(ExecutorPoolService.EXECUTOR_KEY, "default"))).thenReturn(capacity);
+
+        List<String> urls = executorPoolService.getExecutorUrls(executorContext(), DEFAULT_URL);
+
+        assertEquals(List.of(DEFAULT_URL), urls);
+    }
+
+    @Test
+    void executorWithoutCapacityIsRemovedFromPool() {
+        executorIds.add("expired");
+        addExecutor("alive", 1);
+
+        List<String> urls = executorPoolService.getExecutorUrls(executorContext(), DEFAULT_URL);
+
+        assertEquals(List.of(url("alive"), DEFAULT_URL), urls);
+        verify(setOperations).remove(ExecutorPoolService.EXECUTOR_SET, "expired");
+    }
+
+    @Test
+    void disabledPoolOnlyUsesDefaultUrl() {
+        executorPoolProperties.setEnabled(false);
+        addExecutor("idle", 8);
+
+        List<String> urls = executorPoolService.getExecutorUrls(executorContext(), DEFAULT_URL);
+
+        assertEquals(List.of(DEFAULT_URL), urls);
+        verifyNoInteractions(setOperations);
+    }
+
+    private ExecutorContext executorContext() {
+        ExecutorContext executorContext = new ExecutorContext();
+        executorContext.setJobId("job1");
+        executorContext.setWorkspaceId("ws1");
+        executorContext.setSource("https://github.com/org/repo.git");
+        executorContext.setTerraformVersion("1.5.7");
+        return executorContext;
+    }
+
+    private void addExecutor(String id, int freeSlots, String... cached) {
+        Map<Object, Object> capacity = capacity(id, freeSlots);
+        for (int i = 0; i < cached.length; i += 2)
+            capacity.put(cached[i], cached[i + 1]);
+        executorIds.add(id);
+        when(hashOperations.entries(String.format(ExecutorPoolService.EXECUTOR_KEY, id))).thenReturn(capacity);
+    }
+
+    private Map<Object, Object> capacity(String id, int freeSlots) {
+        Map<Object, Object> capacity = new HashMap<>();
+        capacity.put("id", id);
+        capacity.put("url", url(id));
+        capacity.put("slots", "8");
+        capacity.put("freeSlots", String.valueOf(freeSlots));
+        capacity.put("updated", String.valueOf(System.currentTimeMillis()));
+        return capacity;
+    }
+
+    private String url(String id) {
+        return "http://" + id + ":8090/api/v1/terraform-rs";
+    }
+}
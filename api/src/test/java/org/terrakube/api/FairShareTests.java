@@ -0,0 +1,209 @@
+package org.terrakube.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.terrakube.api.plugin.scheduler.fairshare.FairShareProperties;
+import org.terrakube.api.plugin.scheduler.fairshare.FairShareService;
+import org.terrakube.api.plugin.scheduler.fairshare.OrganizationJobs;
+import org.terrakube.api.plugin.scheduler.fairshare.PendingJob;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolProperties;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolService;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FairShareTests {
+
+    private static final String ADMITTED = "terrakube:fairshare:admitted";
+    private static final String SNAPSHOT = "terrakube:fairshare:snapshot";
+    private static final String LOCK = "terrakube:fairshare:lock";
+    private static final UUID ORGANIZATION_A = UUID.randomUUID();
+    private static final UUID ORGANIZATION_B = UUID.randomUUID();
+
+    RedisTemplate redisTemplate;
+    ValueOperations valueOperations;
+    SetOperations setOperations;
+    JobRepository jobRepository;
+    FairShareProperties properties;
+    FairShareService fairShareService;
+
+    @BeforeEach
+    void setup() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        setOperations = mock(SetOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(valueOperations.setIfAbsent(eq(LOCK), anyString(), any(Duration.class))).thenReturn(true);
+        jobRepository = mock(JobRepository.class);
+        when(jobRepository.countByOrganizationAndStatusIn(anyList())).thenReturn(new ArrayList<>());
+        when(jobRepository.findWorkspaceIdsByStatusIn(anyList())).thenReturn(new ArrayList<>());
+        properties = new FairShareProperties();
+        properties.setEnabled(true);
+        properties.setCapacity(1);
+
+        fairShareService = new FairShareService(jobRepository, mock(ExecutorPoolService.class), new ExecutorPoolProperties(),
+                properties, new SimpleMeterRegistry(), redisTemplate);
+    }
+
+    @Test
+    void interactiveJobGoesFirst() {
+        when(jobRepository.findPendingJobsByStatus(JobStatus.pending)).thenReturn(List.of(
+                pendingJob(1, "Schedule", ORGANIZATION_A, 0),
+                pendingJob(2, "UI", ORGANIZATION_B, 0)));
+
+        fairShareService.admit(job(2, "UI"));
+
+        assertAdmitted("2");
+        verify(valueOperations).set(eq(SNAPSHOT), eq("2"), any(Duration.class));
+    }
+
+    @Test
+    void waitingScheduledJobAgesAheadOfInteractiveJob() {
+        when(jobRepository.findPendingJobsByStatus(JobStatus.pending)).thenReturn(List.of(
+                pendingJob(1, "Schedule", ORGANIZATION_A, TimeUnit.MINUTES.toMillis(15)),
+                pendingJob(2, "UI", ORGANIZATION_B, 0)));
+
+        fairShareService.admit(job(1, "Schedule"));
+
+        assertAdmitted("1");
+    }
+
+    @Test
+    void agingCanBeDisabled() {
+        properties.setAgingSeconds(0);
+        when(jobRepository.findPendingJobsByStatus(JobStatus.pending)).thenReturn(List.of(
+                pendingJob(1, "Schedule", ORGANIZATION_A, TimeUnit.MINUTES.toMillis(15)),
+                pendingJob(2, "UI", ORGANIZATION_B, 0)));
+
+        fairShareService.admit(job(1, "Schedule"));
+
+        assertAdmitted("2");
+    }
+
+    @Test
+    void organizationWithLowerShareGoesFirst() {
+        when(jobRepository.countByOrganizationAndStatusIn(anyList())).thenReturn(List.of(organizationJobs(ORGANIZATION_A, 2)));
+        properties.setCapacity(3);
+        when(jobRepository.findPendingJobsByStatus(JobStatus.pending)).thenReturn(List.of(
+                pendingJob(1, "UI", ORGANIZATION_A, 0),
+                pendingJob(2, "UI", ORGANIZATION_B, 0)));
+
+        fairShareService.admit(job(2, "UI"));
+
+        assertAdmitted("2");
+    }
+
+    @Test
+    void jobIsAdmittedFromTheSharedDecision() {
+        when(valueOperations.get(SNAPSHOT)).thenReturn("5");
+        when(setOperations.remove(ADMITTED, "3")).thenReturn(1L);
+
+        assertTrue(fairShareService.admit(job(3, "UI")));
+
+        verifyNoInteractions(jobRepository);
+        verify(valueOperations, never()).setIfAbsent(anyString(), any(), any(Duration.class));
+    }
+
+    @Test
+    void jobAdmittedByAnotherReplicaIsDeferred() {
+        when(valueOperations.get(SNAPSHOT)).thenReturn("5");
+        when(setOperations.remove(ADMITTED, "3")).thenReturn(0L);
+
+        assertFalse(fairShareService.admit(job(3, "UI")));
+    }
+
+    @Test
+    void decisionIsNotTakenWithoutLock() {
+        when(valueOperations.setIfAbsent(eq(LOCK), anyString(), any(Duration.class))).thenReturn(false);
+
+        assertFalse(fairShareService.admit(job(3, "UI")));
+
+        verifyNoInteractions(jobRepository);
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any());
+    }
+
+    @Test
+    void lockIsReleasedWithToken() {
+        when(jobRepository.findPendingJobsByStatus(JobStatus.pending)).thenReturn(new ArrayList<>());
+
+        fairShareService.admit(job(3, "UI"));
+
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).setIfAbsent(eq(LOCK), token.capture(), any(Duration.class));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LOCK)), eq(token.getValue()));
+        verify(redisTemplate).delete(ADMITTED);
+    }
+
+    private void assertAdmitted(String jobId) {
+        verify(setOperations).add(startsWith(ADMITTED + ":"), eq(jobId));
+        verify(redisTemplate).rename(startsWith(ADMITTED + ":"), eq(ADMITTED));
+    }
+
+    private Job job(int id, String via) {
+        Job job = new Job();
+        job.setId(id);
+        job.setVia(via);
+        return job;
+    }
+
+    private OrganizationJobs organizationJobs(UUID organizationId, long jobs) {
+        return new OrganizationJobs() {
+            public UUID getOrganizationId() {
+                return organizationId;
+            }
+
+            public long getJobs() {
+                return jobs;
+            }
+        };
+    }
+
+    private PendingJob pendingJob(int id, String via, UUID organizationId, long waitingMillis) {
+        UUID workspaceId = UUID.randomUUID();
+        Date createdDate = new Date(System.currentTimeMillis() - waitingMillis);
+        return new PendingJob() {
+            public int getId() {
+                return id;
+            }
+
+            public String getVia() {
+                return via;
+            }
+
+            public Date getCreatedDate() {
+                return createdDate;
+            }
+
+            public UUID getOrganizationId() {
+                return organizationId;
+            }
+
+            public String getOrganizationName() {
+                return organizationId.toString();
+            }
+
+            public UUID getWorkspaceId() {
+                return workspaceId;
+            }
+
+            public boolean isWorkspaceLocked() {
+                return false;
+            }
+        };
+    }
+}
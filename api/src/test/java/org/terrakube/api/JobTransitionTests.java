@@ -0,0 +1,208 @@
+package org.terrakube.api;
+
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.job.step.Step;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobTransitionTests extends ServerApplicationTests {
+
+    private static final String ORGANIZATION_ID = "d9b58bd3-f3fc-4056-a026-1163297e80a8";
+    private static final String WORKSPACE_ID = "5ed411ca-7ab8-4d2f-b591-02d0d5788afc";
+    private static final String TRANSITION_PATH = "/transition/v1/organization/%s/job/%s/step/%s";
+    private static final String PARALLEL_PLANS = "flow:\n" +
+            "  - type: \"terraformPlan\"\n" +
+            "    step: 100\n" +
+            "    dependsOn: []\n" +
+            "  - type: \"terraformPlan\"\n" +
+            "    step: 200\n" +
+            "    dependsOn: []\n";
+
+    @Test
+    void staleFromStatusIsRejected() {
+        Step step = createStep(JobStatus.running, JobStatus.running);
+
+        given()
+                .headers("Authorization", "Bearer " + generateSystemToken(), "Content-Type", "application/json")
+                .body(transition("pending", "completed"))
+                .when()
+                .post(transitionPath(step))
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.CONFLICT.value())
+                .body("applied", IsEqual.equalTo(false))
+                .body("stepStatus", IsEqual.equalTo("running"));
+
+        assertEquals(JobStatus.running, stepRepository.findById(step.getId()).get().getStatus());
+    }
+
+    @Test
+    void cancelledJobIsNotUpdated() {
+        Step step = createStep(JobStatus.cancelled, JobStatus.running);
+
+        given()
+                .headers("Authorization", "Bearer " + generateSystemToken(), "Content-Type", "application/json")
+                .body(transition("running", "completed"))
+                .when()
+                .post(transitionPath(step))
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.OK.value())
+                .body("cancelled", IsEqual.equalTo(true))
+                .body("jobStatus", IsEqual.equalTo("cancelled"));
+
+        assertEquals(JobStatus.cancelled, jobRepository.findById(step.getJob().getId()).get().getStatus());
+    }
+
+    @Test
+    void retriedTransitionIsAccepted() {
+        Step step = createStep(JobStatus.running, JobStatus.completed);
+
+        given()
+                .headers("Authorization", "Bearer " + generateSystemToken(), "Content-Type", "application/json")
+                .body(transition("running", "completed"))
+                .when()
+                .post(transitionPath(step))
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.OK.value())
+                .body("applied", IsEqual.equalTo(true))
+                .body("stepStatus", IsEqual.equalTo("completed"));
+    }
+
+    @Test
+    void unknownStatusIsBadRequest() {
+        Step step = createStep(JobStatus.running, JobStatus.running);
+
+        given()
+                .headers("Authorization", "Bearer " + generateSystemToken(), "Content-Type", "application/json")
+                .body(transition("running", "finished"))
+                .when()
+                .post(transitionPath(step))
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        given()
+                .headers("Authorization", "Bearer " + generateSystemToken(), "Content-Type", "application/json")
+                .body("{\"toStatus\": \"completed\"}")
+                .when()
+                .post(transitionPath(step))
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    void userTokenIsForbidden() {
+        Step step = createStep(JobStatus.running, JobStatus.running);
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"), "Content-Type", "application/json")
+                .body(transition("running", "completed"))
+                .when()
+                .post(transitionPath(step))
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.FORBIDDEN.value());
+
+        assertEquals(JobStatus.running, stepRepository.findById(step.getId()).get().getStatus());
+    }
+
+    @Test
+    void parallelPlanWithoutChangesKeepsTheChangesOfTheOtherPlan() {
+        Job job = createJob(JobStatus.running, PARALLEL_PLANS);
+        Step first = createStep(job, 100, JobStatus.running);
+        Step second = createStep(job, 200, JobStatus.running);
+
+        given()
+                .headers("Authorization", "Bearer " + generateSystemToken(), "Content-Type", "application/json")
+                .body(planTransition(2))
+                .when()
+                .post(transitionPath(first))
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .body("jobStatus", IsEqual.equalTo("running"));
+
+        given()
+                .headers("Authorization", "Bearer " + generateSystemToken(), "Content-Type", "application/json")
+                .body(planTransition(0))
+                .when()
+                .post(transitionPath(second))
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .body("jobStatus", IsEqual.equalTo("pending"));
+
+        assertTrue(jobRepository.findById(job.getId()).get().isPlanChanges());
+    }
+
+    private Step createStep(JobStatus jobStatus, JobStatus stepStatus) {
+        return createStep(createJob(jobStatus, null), 100, stepStatus);
+    }
+
+    private Job createJob(JobStatus jobStatus, String template) {
+        Job job = new Job();
+        job.setOrganization(organizationRepository.findById(UUID.fromString(ORGANIZATION_ID)).get());
+        job.setWorkspace(workspaceRepository.findById(UUID.fromString(WORKSPACE_ID)).get());
+        job.setStatus(jobStatus);
+        job.setVia("Test");
+        if (template != null)
+            job.setTcl(Base64.getEncoder().encodeToString(template.getBytes(StandardCharsets.UTF_8)));
+        return jobRepository.save(job);
+    }
+
+    private Step createStep(Job job, int stepNumber, JobStatus stepStatus) {
+        Step step = new Step();
+        step.setName("Plan");
+        step.setStepNumber(stepNumber);
+        step.setStatus(stepStatus);
+        step.setJob(job);
+        return stepRepository.save(step);
+    }
+
+    private String transitionPath(Step step) {
+        return String.format(TRANSITION_PATH, ORGANIZATION_ID, step.getJob().getId(), step.getId());
+    }
+
+    private String transition(String fromStatus, String toStatus) {
+        return "{\n" +
+                "  \"fromStatus\": \"" + fromStatus + "\",\n" +
+                "  \"toStatus\": \"" + toStatus + "\",\n" +
+                "  \"exitCode\": 0,\n" +
+                "  \"plan\": false\n" +
+                "}";
+    }
+
+    private String planTransition(int exitCode) {
+        return "{\n" +
+                "  \"fromStatus\": \"running\",\n" +
+                "  \"toStatus\": \"completed\",\n" +
+                "  \"exitCode\": " + exitCode + ",\n" +
+                "  \"plan\": true\n" +
+                "}";
+    }
+}
@@ -1,6 +1,8 @@
 package org.terrakube.api;
 
 import org.apache.commons.io.FileUtils;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsNull;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -8,10 +10,13 @@ import org.terrakube.api.repository.TeamRepository;
 import org.terrakube.api.rs.team.Team;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 import static io.restassured.RestAssured.given;
 
@@ -118,4 +123,74 @@ public class LocalStorageTests extends ServerApplicationTests {
 
     }
 
+    @Test
+    void testLocalStorageCompressedOutputJob() throws IOException {
+        File outputFile = new File(String.format(OUTPUT_DIRECTORY, FileUtils.getUserDirectoryPath(), "4", "4", "4"));
+        FileUtils.forceMkdirParent(outputFile);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(new FileOutputStream(outputFile))) {
+            gzipOutputStream.write("SAMPLE".getBytes(StandardCharsets.UTF_8));
+        }
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .header("Accept-Encoding", "gzip")
+                .when()
+                .get("/tfoutput/v1/organization/4/job/4/step/4")
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.OK.value())
+                .header("Content-Encoding", IsEqual.equalTo("gzip"))
+                .body(IsEqual.equalTo("SAMPLE"));
+
+    }
+
+    @Test
+    void testLocalStorageCompressedOutputGzipNotAccepted() throws IOException {
+        File outputFile = new File(String.format(OUTPUT_DIRECTORY, FileUtils.getUserDirectoryPath(), "5", "5", "5"));
+        FileUtils.forceMkdirParent(outputFile);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(new FileOutputStream(outputFile))) {
+            gzipOutputStream.write("SAMPLE".getBytes(StandardCharsets.UTF_8));
+        }
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .header("Accept-Encoding", "gzip;q=0, identity")
+                .when()
+                .get("/tfoutput/v1/organization/5/job/5/step/5")
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.OK.value())
+                .header("Content-Encoding", IsNull.nullValue())
+                .body(IsEqual.equalTo("SAMPLE"));
+
+    }
+
+    @Test
+    void testLocalStorageOutputRange() throws IOException {
+        FileUtils.writeStringToFile(
+                new File(
+                        String.format(OUTPUT_DIRECTORY, FileUtils.getUserDirectoryPath(), "6", "6", "6")),
+                "SAMPLE OUTPUT",
+                Charset.defaultCharset().toString()
+        );
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .header("Range", "bytes=7-12")
+                .when()
+                .get("/tfoutput/v1/organization/6/job/6/step/6")
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.PARTIAL_CONTENT.value())
+                .header("Content-Range", IsEqual.equalTo("bytes 7-12/13"))
+                .body(IsEqual.equalTo("OUTPUT"));
+
+    }
+
 }
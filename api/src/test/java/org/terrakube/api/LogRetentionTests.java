@@ -0,0 +1,154 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.streaming.LogRetentionService;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.rs.Organization;
+import org.terrakube.api.rs.job.Job;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LogRetentionTests {
+
+    private static final String ORGANIZATION_ID = "d9b58bd3-f3fc-4056-a026-1163297e80a8";
+    private static final String LOCK = "terrakube:logs:archive:lock:1";
+
+    RedisTemplate redisTemplate;
+    StreamOperations streamOperations;
+    HashOperations hashOperations;
+    ValueOperations valueOperations;
+    StorageTypeService storageTypeService;
+    LogRetentionService logRetentionService;
+
+    @BeforeEach
+    void setup() {
+        redisTemplate = mock(RedisTemplate.class);
+        streamOperations = mock(StreamOperations.class);
+        hashOperations = mock(HashOperations.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(hashOperations.entries(anyString())).thenReturn(new HashMap<>());
+        when(redisTemplate.getKeySerializer()).thenReturn(RedisSerializer.string());
+        storageTypeService = mock(StorageTypeService.class);
+
+        logRetentionService = new LogRetentionService(redisTemplate, storageTypeService, mock(JobRepository.class), 2, 2);
+    }
+
+    @Test
+    void chunkIsArchivedAndLockReleasedWithToken() throws IOException {
+        when(streamOperations.size("1")).thenReturn(5L);
+        when(valueOperations.setIfAbsent(eq(LOCK), anyString(), any(Duration.class))).thenReturn(true);
+        when(streamOperations.range(eq("1"), any(Range.class), any(Limit.class))).thenReturn(records("1-0", "1-1"));
+
+        logRetentionService.archive(ORGANIZATION_ID, "1");
+
+        verify(storageTypeService).saveLogChunk(eq(ORGANIZATION_ID), eq("1"), eq(0), any());
+        verify(hashOperations).putAll("terrakube:logs:archive:1", Map.of("chunks", "1", "lastId", "1-1"));
+        verify(redisTemplate).execute(any(RedisCallback.class));
+        String lockToken = lockToken();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LOCK)), eq(lockToken));
+        verify(redisTemplate, never()).delete(LOCK);
+    }
+
+    @Test
+    void streamIsNotTrimmedWhenChunkUploadFails() throws IOException {
+        when(streamOperations.size("1")).thenReturn(5L);
+        when(valueOperations.setIfAbsent(eq(LOCK), anyString(), any(Duration.class))).thenReturn(true);
+        when(streamOperations.range(eq("1"), any(Range.class), any(Limit.class))).thenReturn(records("1-0", "1-1"));
+        doThrow(new UncheckedIOException(new IOException("disk full"))).when(storageTypeService).saveLogChunk(anyString(), anyString(), anyInt(), any());
+
+        assertThrows(UncheckedIOException.class, () -> logRetentionService.archive(ORGANIZATION_ID, "1"));
+
+        verify(hashOperations, never()).putAll(anyString(), anyMap());
+        verify(redisTemplate, never()).execute(any(RedisCallback.class));
+        String lockToken = lockToken();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LOCK)), eq(lockToken));
+    }
+
+    @Test
+    void streamIsNotArchivedWithoutLock() throws IOException {
+        when(streamOperations.size("1")).thenReturn(5L);
+        when(valueOperations.setIfAbsent(eq(LOCK), anyString(), any(Duration.class))).thenReturn(false);
+
+        logRetentionService.archive(ORGANIZATION_ID, "1");
+
+        verifyNoInteractions(storageTypeService);
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any());
+    }
+
+    @Test
+    void archivedChunksAreOnlyDownloadedOnce() throws IOException {
+        when(hashOperations.entries("terrakube:logs:archive:1")).thenReturn(Map.of("chunks", "2", "lastId", "1-3"));
+        when(storageTypeService.getLogChunk(ORGANIZATION_ID, "1", 0)).thenReturn(compress("line 1\nline 2\n"));
+        when(storageTypeService.getLogChunk(ORGANIZATION_ID, "1", 1)).thenReturn(compress("line 3\nline 4\n"));
+        when(streamOperations.range(eq("1"), any(Range.class))).thenReturn(records("1-4"));
+
+        assertEquals("line 1\nline 2\nline 3\nline 4\nline 1-4\n", logRetentionService.readLogs(job()).replace("\r\n", "\n"));
+        assertEquals("line 1\nline 2\nline 3\nline 4\nline 1-4\n", logRetentionService.readLogs(job()).replace("\r\n", "\n"));
+
+        verify(storageTypeService, times(1)).getLogChunk(ORGANIZATION_ID, "1", 0);
+        verify(storageTypeService, times(1)).getLogChunk(ORGANIZATION_ID, "1", 1);
+    }
+
+    @Test
+    void missingChunkIsNotCached() throws IOException {
+        when(hashOperations.entries("terrakube:logs:archive:1")).thenReturn(Map.of("chunks", "1", "lastId", "1-1"));
+        when(storageTypeService.getLogChunk(ORGANIZATION_ID, "1", 0)).thenReturn(new byte[0], compress("line 1\n"));
+
+        assertEquals("", logRetentionService.readLogs(job()));
+        assertEquals("line 1\n", logRetentionService.readLogs(job()));
+    }
+
+    private String lockToken() {
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).setIfAbsent(eq(LOCK), token.capture(), any(Duration.class));
+        return token.getValue();
+    }
+
+    private Job job() {
+        Organization organization = new Organization();
+        organization.setId(UUID.fromString(ORGANIZATION_ID));
+        Job job = new Job();
+        job.setId(1);
+        job.setOrganization(organization);
+        return job;
+    }
+
+    private List<MapRecord> records(String... ids) {
+        List<MapRecord> records = new ArrayList<>();
+        for (String id : ids)
+            records.add(StreamRecords.newRecord().in("1").withId(RecordId.of(id)).ofMap(Map.of("output", "line " + id)));
+        return records;
+    }
+
+    private static byte[] compress(String logs) throws IOException {
+        ByteArrayOutputStream compressedLogs = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressedLogs)) {
+            gzipOutputStream.write(logs.getBytes(StandardCharsets.UTF_8));
+        }
+        return compressedLogs.toByteArray();
+    }
+}
@@ -0,0 +1,187 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ExecutorContext;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.PlanFingerprintService;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.Flow;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.FlowType;
+import org.terrakube.api.repository.GlobalVarRepository;
+import org.terrakube.api.repository.HistoryRepository;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.rs.Organization;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.workspace.Workspace;
+import org.terrakube.api.rs.workspace.history.History;
+import org.terrakube.api.rs.workspace.parameters.Category;
+import org.terrakube.api.rs.workspace.parameters.Variable;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PlanFingerprintTests {
+
+    JobRepository jobRepository;
+    HistoryRepository historyRepository;
+    GlobalVarRepository globalVarRepository;
+    PlanFingerprintService planFingerprintService;
+
+    @BeforeEach
+    void setup() {
+        jobRepository = mock(JobRepository.class);
+        historyRepository = mock(HistoryRepository.class);
+        globalVarRepository = mock(GlobalVarRepository.class);
+        when(historyRepository.findFirstByWorkspaceOrderByCreatedDateDesc(any())).thenReturn(Optional.empty());
+        planFingerprintService = new PlanFingerprintService(jobRepository, historyRepository, globalVarRepository, true, 60);
+    }
+
+    @Test
+    void sameInputsHaveTheSameFingerprint() {
+        String fingerprint = planFingerprintService.getFingerprint(job(), plan(), executorContext());
+
+        assertNotNull(fingerprint);
+        assertEquals(fingerprint, planFingerprintService.getFingerprint(job(), plan(), executorContext()));
+    }
+
+    @Test
+    void everyInputChangesTheFingerprint() {
+        String fingerprint = planFingerprintService.getFingerprint(job(), plan(), executorContext());
+
+        ExecutorContext executorContext = executorContext();
+        executorContext.setCommitId("def");
+        assertNotEquals(fingerprint, planFingerprintService.getFingerprint(job(), plan(), executorContext));
+
+        executorContext = executorContext();
+        executorContext.setFolder("/other");
+        assertNotEquals(fingerprint, planFingerprintService.getFingerprint(job(), plan(), executorContext));
+
+        executorContext = executorContext();
+        executorContext.setTerraformVersion("1.6.0");
+        assertNotEquals(fingerprint, planFingerprintService.getFingerprint(job(), plan(), executorContext));
+
+        Job job = job();
+        job.getWorkspace().getVariable().get(0).setValue("t3.large");
+        assertNotEquals(fingerprint, planFingerprintService.getFingerprint(job, plan(), executorContext()));
+
+        job = job();
+        job.setTcl("ZmxvdzoK");
+        assertNotEquals(fingerprint, planFingerprintService.getFingerprint(job, plan(), executorContext()));
+
+        History history = new History();
+        history.setId(UUID.randomUUID());
+        history.setSerial(2);
+        when(historyRepository.findFirstByWorkspaceOrderByCreatedDateDesc(any())).thenReturn(Optional.of(history));
+        assertNotEquals(fingerprint, planFingerprintService.getFingerprint(job(), plan(), executorContext()));
+    }
+
+    @Test
+    void variableOrderDoesNotChangeTheFingerprint() {
+        String fingerprint = planFingerprintService.getFingerprint(job(), plan(), executorContext());
+
+        Job job = job();
+        Collections.reverse(job.getWorkspace().getVariable());
+        assertEquals(fingerprint, planFingerprintService.getFingerprint(job, plan(), executorContext()));
+    }
+
+    @Test
+    void planIsNotMemoizedWithoutFingerprintInputs() {
+        ExecutorContext executorContext = executorContext();
+        executorContext.setCommitId(null);
+        assertNull(planFingerprintService.getFingerprint(job(), plan(), executorContext));
+
+        executorContext = executorContext();
+        executorContext.getEnvironmentVariables().put(PlanFingerprintService.DISABLE_MEMOIZATION, "true");
+        assertNull(planFingerprintService.getFingerprint(job(), plan(), executorContext));
+
+        Job job = job();
+        job.setRefreshOnly(true);
+        assertNull(planFingerprintService.getFingerprint(job, plan(), executorContext()));
+
+        Flow apply = plan();
+        apply.setType(FlowType.terraformApply.name());
+        assertNull(planFingerprintService.getFingerprint(job(), apply, executorContext()));
+
+        planFingerprintService = new PlanFingerprintService(jobRepository, historyRepository, globalVarRepository, false, 60);
+        assertNull(planFingerprintService.getFingerprint(job(), plan(), executorContext()));
+    }
+
+    @Test
+    void planWithoutChangesIsReusedWithinMaxAge() {
+        Job previousJob = job();
+        previousJob.setId(1);
+        when(jobRepository.findFirstByWorkspaceAndPlanFingerprintAndPlanChangesFalseAndStatusAndUpdatedDateAfterOrderByIdDesc(
+                any(), eq("fingerprint"), eq(JobStatus.completed), any())).thenReturn(Optional.of(previousJob));
+        Job job = job();
+        job.setId(2);
+
+        assertTrue(planFingerprintService.skipUnchangedPlan(job, "fingerprint"));
+
+        ArgumentCaptor<Date> minDate = ArgumentCaptor.forClass(Date.class);
+        verify(jobRepository).findFirstByWorkspaceAndPlanFingerprintAndPlanChangesFalseAndStatusAndUpdatedDateAfterOrderByIdDesc(
+                any(), eq("fingerprint"), eq(JobStatus.completed), minDate.capture());
+        long maxAge = System.currentTimeMillis() - minDate.getValue().getTime();
+        assertTrue(maxAge >= TimeUnit.MINUTES.toMillis(60) && maxAge < TimeUnit.MINUTES.toMillis(61));
+
+        // the scheduler completes the step like any other plan without changes
+        assertTrue(job.isPlanChanges());
+        assertEquals(JobStatus.pending, job.getStatus());
+        assertNull(job.getPlanFingerprint());
+        verify(jobRepository, never()).save(any());
+    }
+
+    @Test
+    void planIsRunWithoutRecentUnchangedPlan() {
+        when(jobRepository.findFirstByWorkspaceAndPlanFingerprintAndPlanChangesFalseAndStatusAndUpdatedDateAfterOrderByIdDesc(
+                any(), anyString(), any(), any())).thenReturn(Optional.empty());
+        Job job = job();
+        job.setId(2);
+
+        assertFalse(planFingerprintService.skipUnchangedPlan(job, "fingerprint"));
+        assertTrue(job.isPlanChanges());
+        verify(jobRepository, never()).save(any());
+    }
+
+    private Job job() {
+        Workspace workspace = new Workspace();
+        workspace.setId(UUID.fromString("5ed411ca-7ab8-4d2f-b591-02d0d5788afc"));
+        workspace.setVariable(new ArrayList<>(List.of(
+                variable("instance_type", "t3.micro", Category.TERRAFORM),
+                variable("AWS_REGION", "us-east-1", Category.ENV))));
+        Job job = new Job();
+        job.setWorkspace(workspace);
+        job.setOrganization(new Organization());
+        job.setTcl("ZmxvdzoKICAtIHR5cGU6ICJ0ZXJyYWZvcm1QbGFuIgo=");
+        return job;
+    }
+
+    private Variable variable(String key, String value, Category category) {
+        Variable variable = new Variable();
+        variable.setKey(key);
+        variable.setValue(value);
+        variable.setCategory(category);
+        return variable;
+    }
+
+    private Flow plan() {
+        Flow flow = new Flow();
+        flow.setType(FlowType.terraformPlan.name());
+        return flow;
+    }
+
+    private ExecutorContext executorContext() {
+        ExecutorContext executorContext = new ExecutorContext();
+        executorContext.setCommitId("abc");
+        executorContext.setSource("https://github.com/terrakube/terraform-sample.git");
+        executorContext.setBranch("main");
+        executorContext.setFolder("/");
+        executorContext.setTerraformVersion("1.5.7");
+        executorContext.setEnvironmentVariables(new HashMap<>());
+        return executorContext;
+    }
+}
@@ -0,0 +1,159 @@
+package org.terrakube.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.terrakube.api.plugin.scheduler.ScheduleJob;
+import org.terrakube.api.plugin.scheduler.ScheduleJobService;
+import org.terrakube.api.plugin.scheduler.fairshare.FairShareService;
+import org.terrakube.api.plugin.scheduler.job.tcl.TclService;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.DispatchResult;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ExecutorService;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral.EphemeralExecutorService;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolProperties;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.Flow;
+import org.terrakube.api.plugin.scheduler.job.transition.JobTransitionService;
+import org.terrakube.api.plugin.softdelete.SoftDeleteService;
+import org.terrakube.api.plugin.streaming.LogRetentionService;
+import org.terrakube.api.plugin.vcs.provider.github.GitHubWebhookService;
+import org.terrakube.api.repository.*;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.job.step.Step;
+import org.terrakube.api.rs.workspace.Workspace;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ScheduleJobDagTests {
+
+    StepRepository stepRepository;
+    JobRepository jobRepository;
+    TclService tclService;
+    ExecutorService executorService;
+    ScheduleJobService scheduleJobService;
+    JobTransitionService jobTransitionService;
+    ScheduleJob scheduleJob;
+    JobExecutionContext jobExecutionContext;
+    Job job;
+    Map<String, Step> steps = new HashMap<>();
+
+    @BeforeEach
+    void setup() {
+        stepRepository = mock(StepRepository.class);
+        jobRepository = mock(JobRepository.class);
+        tclService = mock(TclService.class);
+        executorService = mock(ExecutorService.class);
+        scheduleJobService = mock(ScheduleJobService.class);
+        jobTransitionService = mock(JobTransitionService.class);
+        scheduleJob = new ScheduleJob(mock(ScheduleRepository.class), mock(TemplateRepository.class), mock(EphemeralExecutorService.class),
+                jobRepository, stepRepository, tclService, executorService, mock(WorkspaceRepository.class),
+                mock(SoftDeleteService.class), scheduleJobService, mock(LogRetentionService.class), mock(GitHubWebhookService.class),
+                new SimpleMeterRegistry(), mock(FairShareService.class), new ExecutorPoolProperties(), jobTransitionService);
+
+        job = new Job();
+        job.setId(1);
+        job.setStatus(JobStatus.running);
+        job.setCreatedDate(new Date());
+        job.setWorkspace(new Workspace());
+        when(jobRepository.getReferenceById(1)).thenReturn(job);
+        when(jobRepository.findByWorkspaceAndStatusNotInAndIdLessThan(any(), anyList(), anyInt())).thenReturn(Optional.empty());
+        when(stepRepository.getReferenceById(any(UUID.class))).thenAnswer(invocation -> steps.get(invocation.getArgument(0).toString()));
+        when(tclService.hasDependencies(job)).thenReturn(true);
+
+        JobDataMap jobDataMap = new JobDataMap();
+        jobDataMap.put(ScheduleJob.JOB_ID, "1");
+        JobDetail jobDetail = mock(JobDetail.class);
+        when(jobDetail.getJobDataMap()).thenReturn(jobDataMap);
+        jobExecutionContext = mock(JobExecutionContext.class);
+        when(jobExecutionContext.getJobDetail()).thenReturn(jobDetail);
+    }
+
+    @Test
+    void readyStepsAreQueuedAndSentTogether() throws Exception {
+        Map<String, Flow> readyFlows = readyFlows(200, 300);
+        when(executorService.execute(eq(job), anyString(), any(Flow.class))).thenReturn(DispatchResult.dispatched);
+
+        scheduleJob.execute(jobExecutionContext);
+
+        for (Map.Entry<String, Flow> readyFlow : readyFlows.entrySet()) {
+            verify(executorService).execute(job, readyFlow.getKey(), readyFlow.getValue());
+            assertEquals(JobStatus.queue, steps.get(readyFlow.getKey()).getStatus());
+        }
+    }
+
+    @Test
+    void busyExecutorReturnsStepToPending() throws Exception {
+        Map<String, Flow> readyFlows = readyFlows(200, 300);
+        List<String> stepIds = new ArrayList<>(readyFlows.keySet());
+        when(executorService.execute(eq(job), anyString(), any(Flow.class))).thenReturn(DispatchResult.busy);
+
+        scheduleJob.execute(jobExecutionContext);
+
+        verify(executorService).execute(job, stepIds.get(0), readyFlows.get(stepIds.get(0)));
+        verify(executorService, never()).execute(job, stepIds.get(1), readyFlows.get(stepIds.get(1)));
+        verify(scheduleJobService).createJobContextRetry(job, 1, 2000);
+        assertEquals(JobStatus.pending, steps.get(stepIds.get(0)).getStatus());
+        assertEquals(JobStatus.pending, steps.get(stepIds.get(1)).getStatus());
+    }
+
+    @Test
+    void memoizedStepOnlyCompletesItsStep() throws Exception {
+        Map<String, Flow> readyFlows = readyFlows(200, 300);
+        List<String> stepIds = new ArrayList<>(readyFlows.keySet());
+        when(executorService.execute(job, stepIds.get(0), readyFlows.get(stepIds.get(0)))).thenReturn(DispatchResult.memoized);
+        when(executorService.execute(job, stepIds.get(1), readyFlows.get(stepIds.get(1)))).thenReturn(DispatchResult.dispatched);
+
+        scheduleJob.execute(jobExecutionContext);
+
+        verify(jobTransitionService).completeMemoizedPlan(job, UUID.fromString(stepIds.get(0)));
+        verify(executorService).execute(job, stepIds.get(1), readyFlows.get(stepIds.get(1)));
+        assertEquals(JobStatus.running, job.getStatus());
+        verify(jobRepository, never()).save(job);
+    }
+
+    @Test
+    void flowsWithoutDependenciesAreNotSentInParallel() throws Exception {
+        Map<String, Flow> readyFlows = readyFlows(500);
+        readyFlows.values().forEach(flow -> flow.setDependsOn(null));
+
+        scheduleJob.execute(jobExecutionContext);
+
+        verifyNoInteractions(executorService);
+    }
+
+    @Test
+    void templateWithoutDependenciesIsNotDispatchedWhileRunning() throws Exception {
+        when(tclService.hasDependencies(job)).thenReturn(false);
+
+        scheduleJob.execute(jobExecutionContext);
+
+        verify(tclService, never()).getReadyFlows(any());
+        verifyNoInteractions(executorService);
+    }
+
+    private Map<String, Flow> readyFlows(int... stepNumbers) {
+        Map<String, Flow> readyFlows = new LinkedHashMap<>();
+        for (int stepNumber : stepNumbers) {
+            Step step = new Step();
+            step.setId(UUID.randomUUID());
+            step.setStepNumber(stepNumber);
+            step.setStatus(JobStatus.pending);
+            steps.put(step.getId().toString(), step);
+
+            Flow flow = new Flow();
+            flow.setType("customScripts");
+            flow.setStep(stepNumber);
+            flow.setDependsOn(List.of(100));
+            readyFlows.put(step.getId().toString(), flow);
+        }
+        when(tclService.getReadyFlows(job)).thenReturn(readyFlows);
+        return readyFlows;
+    }
+}
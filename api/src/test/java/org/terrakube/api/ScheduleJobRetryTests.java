@@ -0,0 +1,142 @@
+package org.terrakube.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.terrakube.api.plugin.scheduler.ScheduleJob;
+import org.terrakube.api.plugin.scheduler.ScheduleJobService;
+import org.terrakube.api.plugin.scheduler.fairshare.FairShareService;
+import org.terrakube.api.plugin.scheduler.job.tcl.TclService;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.DispatchResult;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ExecutorService;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral.EphemeralExecutorService;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolProperties;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.Flow;
+import org.terrakube.api.plugin.scheduler.job.transition.JobTransitionService;
+import org.terrakube.api.plugin.softdelete.SoftDeleteService;
+import org.terrakube.api.plugin.streaming.LogRetentionService;
+import org.terrakube.api.plugin.vcs.provider.github.GitHubWebhookService;
+import org.terrakube.api.repository.*;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.workspace.Workspace;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ScheduleJobRetryTests {
+
+    private static final String STEP_ID = "3c7c3c5e-52d6-4fbd-a1b4-9d2f4a0f3e11";
+
+    JobRepository jobRepository;
+    TclService tclService;
+    ExecutorService executorService;
+    ScheduleJobService scheduleJobService;
+    FairShareService fairShareService;
+    ScheduleJob scheduleJob;
+    Scheduler scheduler;
+    JobDataMap jobDataMap;
+    JobExecutionContext jobExecutionContext;
+    Job job;
+
+    @BeforeEach
+    void setup() {
+        jobRepository = mock(JobRepository.class);
+        tclService = mock(TclService.class);
+        executorService = mock(ExecutorService.class);
+        scheduleJobService = mock(ScheduleJobService.class);
+        fairShareService = mock(FairShareService.class);
+        scheduleJob = new ScheduleJob(mock(ScheduleRepository.class), mock(TemplateRepository.class), mock(EphemeralExecutorService.class),
+                jobRepository, mock(StepRepository.class), tclService, executorService, mock(WorkspaceRepository.class),
+                mock(SoftDeleteService.class), scheduleJobService, mock(LogRetentionService.class), mock(GitHubWebhookService.class),
+                new SimpleMeterRegistry(), fairShareService, new ExecutorPoolProperties(), mock(JobTransitionService.class));
+
+        job = new Job();
+        job.setId(1);
+        job.setStatus(JobStatus.pending);
+        job.setPlanChanges(true);
+        job.setCreatedDate(new Date());
+        job.setWorkspace(new Workspace());
+        when(jobRepository.getReferenceById(1)).thenReturn(job);
+        when(jobRepository.findByWorkspaceAndStatusNotInAndIdLessThan(any(), anyList(), anyInt())).thenReturn(Optional.empty());
+        when(fairShareService.admit(job)).thenReturn(true);
+
+        Flow flow = new Flow();
+        flow.setType("terraformPlan");
+        flow.setStep(100);
+        when(tclService.initJobConfiguration(job)).thenReturn(job);
+        when(tclService.getNextFlow(job)).thenReturn(flow);
+        when(tclService.getCurrentStepId(job)).thenReturn(STEP_ID);
+        when(executorService.execute(eq(job), eq(STEP_ID), any(Flow.class))).thenReturn(DispatchResult.busy);
+
+        jobDataMap = new JobDataMap();
+        jobDataMap.put(ScheduleJob.JOB_ID, "1");
+        JobDetail jobDetail = mock(JobDetail.class);
+        when(jobDetail.getJobDataMap()).thenReturn(jobDataMap);
+        scheduler = mock(Scheduler.class);
+        jobExecutionContext = mock(JobExecutionContext.class);
+        when(jobExecutionContext.getJobDetail()).thenReturn(jobDetail);
+        when(jobExecutionContext.getScheduler()).thenReturn(scheduler);
+    }
+
+    @Test
+    void busyExecutorsKeepThePeriodicJobContext() throws Exception {
+        scheduleJob.execute(jobExecutionContext);
+
+        verify(scheduleJobService).createJobContextRetry(job, 1, 2000);
+        verify(scheduleJobService).keepJobContext(job);
+        verify(scheduler, never()).deleteJob(any(JobKey.class));
+        assertEquals(JobStatus.pending, job.getStatus());
+    }
+
+    @Test
+    void jobStaysPendingAfterTheLastRetry() throws Exception {
+        jobDataMap.put(ScheduleJob.DISPATCH_ATTEMPT, 2);
+        jobDataMap.put("isTriggerFromStatusChange", "true");
+        jobDataMap.put("identity", "TerrakubeV2_Job_1_retry_2");
+
+        scheduleJob.execute(jobExecutionContext);
+
+        verify(scheduleJobService, never()).createJobContextRetry(any(), anyInt(), anyLong());
+        verify(scheduleJobService).keepJobContext(job);
+        verify(scheduler).deleteJob(new JobKey("TerrakubeV2_Job_1_retry_2"));
+        verify(scheduler, never()).deleteJob(new JobKey("TerrakubeV2_Job_1"));
+        verify(jobRepository, never()).save(job);
+        assertEquals(JobStatus.pending, job.getStatus());
+    }
+
+    @Test
+    void jobWaitingForFairShareKeepsThePeriodicJobContext() throws Exception {
+        when(fairShareService.admit(job)).thenReturn(false);
+        jobDataMap.put(ScheduleJob.DISPATCH_ATTEMPT, 1);
+        jobDataMap.put("isTriggerFromStatusChange", "true");
+        jobDataMap.put("identity", "TerrakubeV2_Job_1_retry_1");
+
+        scheduleJob.execute(jobExecutionContext);
+
+        verifyNoInteractions(executorService);
+        verify(scheduleJobService).keepJobContext(job);
+        verify(scheduler, never()).deleteJob(new JobKey("TerrakubeV2_Job_1"));
+    }
+
+    @Test
+    void dispatchedJobRemovesEveryJobContext() throws Exception {
+        when(executorService.execute(eq(job), eq(STEP_ID), any(Flow.class))).thenReturn(DispatchResult.dispatched);
+        jobDataMap.put("isTriggerFromStatusChange", "true");
+        jobDataMap.put("identity", "TerrakubeV2_Job_1_abc");
+
+        scheduleJob.execute(jobExecutionContext);
+
+        verify(scheduler).deleteJob(new JobKey("TerrakubeV2_Job_1"));
+        verify(scheduler).deleteJob(new JobKey("TerrakubeV2_Job_1_abc"));
+        verify(scheduleJobService, never()).keepJobContext(any());
+    }
+}
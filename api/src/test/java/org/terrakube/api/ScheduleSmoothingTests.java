@@ -0,0 +1,137 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.terrakube.api.plugin.scheduler.ScheduleJobService;
+import org.terrakube.api.plugin.scheduler.ScheduleSmoothingService;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorCapacity;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolProperties;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolService;
+import org.terrakube.api.repository.ScheduleRepository;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ScheduleSmoothingTests {
+
+    private static final String PENDING = "terrakube:schedules:pending";
+    private static final String LOCK = "terrakube:schedules:release:lock";
+
+    RedisTemplate redisTemplate;
+    ZSetOperations zSetOperations;
+    ValueOperations valueOperations;
+    ScheduleRepository scheduleRepository;
+    ScheduleJobService scheduleJobService;
+    ExecutorPoolService executorPoolService;
+    ExecutorPoolProperties executorPoolProperties;
+    ScheduleSmoothingService scheduleSmoothingService;
+
+    @BeforeEach
+    void setup() {
+        redisTemplate = mock(RedisTemplate.class);
+        zSetOperations = mock(ZSetOperations.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        scheduleRepository = mock(ScheduleRepository.class);
+        when(scheduleRepository.findById(any())).thenReturn(Optional.empty());
+        scheduleJobService = mock(ScheduleJobService.class);
+        executorPoolService = mock(ExecutorPoolService.class);
+        executorPoolProperties = new ExecutorPoolProperties();
+
+        scheduleSmoothingService = new ScheduleSmoothingService(redisTemplate, scheduleRepository, scheduleJobService,
+                executorPoolService, executorPoolProperties, true, 300, 2);
+    }
+
+    @Test
+    void queuedScheduleKeepsItsReleaseTime() {
+        String triggerId = UUID.randomUUID().toString();
+
+        scheduleSmoothingService.enqueue(triggerId, new Date());
+
+        verify(zSetOperations).addIfAbsent(eq(PENDING), eq(triggerId), anyDouble());
+        verify(zSetOperations, never()).add(anyString(), any(), anyDouble());
+    }
+
+    @Test
+    void schedulesAreNotReleasedWithoutLock() {
+        when(valueOperations.setIfAbsent(eq(LOCK), anyString(), any(Duration.class))).thenReturn(false);
+
+        scheduleSmoothingService.release();
+
+        verify(zSetOperations, never()).rangeByScore(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong());
+        verifyNoInteractions(scheduleJobService);
+    }
+
+    @Test
+    void releaseIsLimitedAndLockReleasedWithToken() {
+        when(valueOperations.setIfAbsent(eq(LOCK), anyString(), any(Duration.class))).thenReturn(true);
+        when(zSetOperations.rangeByScore(eq(PENDING), anyDouble(), anyDouble(), anyLong(), anyLong())).thenReturn(new LinkedHashSet<>(List.of("a", "b")));
+        when(zSetOperations.remove(eq(PENDING), any())).thenReturn(1L);
+
+        scheduleSmoothingService.release();
+
+        verify(zSetOperations).rangeByScore(eq(PENDING), eq(0d), anyDouble(), eq(0L), eq(2L));
+        verify(scheduleJobService).createScheduledJobs(List.of("a", "b"));
+        String lockToken = lockToken();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LOCK)), eq(lockToken));
+    }
+
+    @Test
+    void releaseIsLimitedByFreeExecutorSlots() {
+        executorPoolProperties.setEnabled(true);
+        ExecutorCapacity executorCapacity = new ExecutorCapacity();
+        executorCapacity.setFreeSlots(1);
+        when(executorPoolService.getAvailableExecutors()).thenReturn(List.of(executorCapacity));
+        when(valueOperations.setIfAbsent(eq(LOCK), anyString(), any(Duration.class))).thenReturn(true);
+        when(zSetOperations.rangeByScore(eq(PENDING), anyDouble(), anyDouble(), anyLong(), anyLong())).thenReturn(new LinkedHashSet<>(List.of("a")));
+        when(zSetOperations.remove(eq(PENDING), any())).thenReturn(1L);
+
+        scheduleSmoothingService.release();
+
+        verify(zSetOperations).rangeByScore(eq(PENDING), eq(0d), anyDouble(), eq(0L), eq(1L));
+    }
+
+    @Test
+    void releaseUsesTheLimitWhenNoExecutorAdvertisesCapacity() {
+        executorPoolProperties.setEnabled(true);
+        when(executorPoolService.getAvailableExecutors()).thenReturn(List.of());
+        when(valueOperations.setIfAbsent(eq(LOCK), anyString(), any(Duration.class))).thenReturn(true);
+        when(zSetOperations.rangeByScore(eq(PENDING), anyDouble(), anyDouble(), anyLong(), anyLong())).thenReturn(new LinkedHashSet<>(List.of("a", "b")));
+        when(zSetOperations.remove(eq(PENDING), any())).thenReturn(1L);
+
+        scheduleSmoothingService.release();
+
+        verify(zSetOperations).rangeByScore(eq(PENDING), eq(0d), anyDouble(), eq(0L), eq(2L));
+        verify(scheduleJobService).createScheduledJobs(List.of("a", "b"));
+    }
+
+    @Test
+    void failedSchedulesAreQueuedAgain() {
+        when(valueOperations.setIfAbsent(eq(LOCK), anyString(), any(Duration.class))).thenReturn(true);
+        when(zSetOperations.rangeByScore(eq(PENDING), anyDouble(), anyDouble(), anyLong(), anyLong())).thenReturn(new LinkedHashSet<>(List.of("a")));
+        when(zSetOperations.remove(eq(PENDING), any())).thenReturn(1L);
+        when(scheduleJobService.createScheduledJobs(anyCollection())).thenThrow(new IllegalStateException("database is down"));
+
+        scheduleSmoothingService.release();
+
+        verify(zSetOperations).addIfAbsent(eq(PENDING), eq("a"), anyDouble());
+        String lockToken = lockToken();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LOCK)), eq(lockToken));
+    }
+
+    private String lockToken() {
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).setIfAbsent(eq(LOCK), token.capture(), any(Duration.class));
+        return token.getValue();
+    }
+}
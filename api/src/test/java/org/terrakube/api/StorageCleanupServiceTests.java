@@ -0,0 +1,87 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.terrakube.api.plugin.softdelete.StorageCleanupService;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.repository.JobRepository;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StorageCleanupServiceTests {
+
+    private static final String ORGANIZATION_ID = UUID.randomUUID().toString();
+    private static final String WORKSPACE_ID = UUID.randomUUID().toString();
+
+    StorageTypeService storageTypeService;
+    JobRepository jobRepository;
+    RedisTemplate redisTemplate;
+    ValueOperations valueOperations;
+    StorageCleanupService storageCleanupService;
+
+    @BeforeEach
+    void setup() {
+        storageTypeService = mock(StorageTypeService.class);
+        jobRepository = mock(JobRepository.class);
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        // one thread and one job per batch, the second batch stays queued while the first one runs
+        storageCleanupService = new StorageCleanupService(storageTypeService, jobRepository, redisTemplate, 1, 1000, 1);
+    }
+
+    @Test
+    void cleanupIsCompletedAndCheckpointDeleted() throws Exception {
+        when(jobRepository.findIdsByWorkspaceId(any(UUID.class), eq(0), any(Pageable.class))).thenReturn(List.of(1, 2));
+        when(jobRepository.findIdsByWorkspaceId(any(UUID.class), eq(2), any(Pageable.class))).thenReturn(List.of());
+
+        storageCleanupService.cleanupWorkspace(ORGANIZATION_ID, WORKSPACE_ID);
+
+        verify(storageTypeService).deleteWorkspaceOutputData(ORGANIZATION_ID, List.of(1));
+        verify(storageTypeService).deleteWorkspaceOutputData(ORGANIZATION_ID, List.of(2));
+        verify(storageTypeService).deleteWorkspaceStateData(ORGANIZATION_ID, WORKSPACE_ID);
+        verify(redisTemplate).delete("terrakube:cleanup:workspace:" + WORKSPACE_ID);
+    }
+
+    @Test
+    void shutdownInterruptsCleanupWaitingForQueuedBatches() throws Exception {
+        when(jobRepository.findIdsByWorkspaceId(any(UUID.class), eq(0), any(Pageable.class))).thenReturn(List.of(1, 2));
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            new CountDownLatch(1).await();
+            return null;
+        }).when(storageTypeService).deleteWorkspaceOutputData(ORGANIZATION_ID, List.of(1));
+
+        ExecutorService quartzThread = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> cleanup = quartzThread.submit(() -> {
+                storageCleanupService.cleanupWorkspace(ORGANIZATION_ID, WORKSPACE_ID);
+                return null;
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            storageCleanupService.shutdown();
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> cleanup.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(InterruptedException.class, exception.getCause());
+        } finally {
+            quartzThread.shutdownNow();
+        }
+
+        // the checkpoint is kept so the next run resumes the cleanup
+        verify(storageTypeService, never()).deleteWorkspaceOutputData(ORGANIZATION_ID, List.of(2));
+        verify(storageTypeService, never()).deleteWorkspaceStateData(anyString(), anyString());
+        verify(redisTemplate, never()).delete(anyString());
+    }
+}
@@ -0,0 +1,163 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.terrakube.api.plugin.scheduler.job.tcl.ImportCommandsService;
+import org.terrakube.api.plugin.scheduler.job.tcl.TclService;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.Flow;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.repository.StepRepository;
+import org.terrakube.api.repository.TemplateRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.job.step.Step;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TclServiceTests {
+
+    private static final String SEQUENTIAL = "flow:\n" +
+            "  - type: \"terraformPlan\"\n" +
+            "    step: 100\n" +
+            "  - type: \"terraformApply\"\n" +
+            "    step: 200\n";
+
+    private static final String DAG = "flow:\n" +
+            "  - type: \"terraformPlan\"\n" +
+            "    step: 100\n" +
+            "  - type: \"customScripts\"\n" +
+            "    step: 200\n" +
+            "    dependsOn: [100]\n" +
+            "  - type: \"customScripts\"\n" +
+            "    step: 300\n" +
+            "    dependsOn: [100]\n" +
+            "  - type: \"terraformApply\"\n" +
+            "    step: 400\n" +
+            "    dependsOn: [200, 300]\n" +
+            "  - type: \"customScripts\"\n" +
+            "    step: 500\n";
+
+    private static final String PARALLEL_PLANS = "flow:\n" +
+            "  - type: \"customScripts\"\n" +
+            "    step: 100\n" +
+            "  - type: \"terraformPlan\"\n" +
+            "    step: 200\n" +
+            "    dependsOn: [100]\n" +
+            "  - type: \"terraformPlanDestroy\"\n" +
+            "    step: 300\n" +
+            "    dependsOn: [100]\n" +
+            "  - type: \"terraformApply\"\n" +
+            "    step: 400\n" +
+            "    dependsOn: [200, 300]\n" +
+            "  - type: \"terraformPlan\"\n" +
+            "    step: 500\n";
+
+    StepRepository stepRepository;
+    TclService tclService;
+
+    @BeforeEach
+    void setup() {
+        stepRepository = mock(StepRepository.class);
+        tclService = new TclService(mock(JobRepository.class), stepRepository, mock(TemplateRepository.class),
+                mock(ImportCommandsService.class), 10);
+    }
+
+    @Test
+    void templateWithoutDependenciesRunsOneStepAtATime() {
+        Job job = job(SEQUENTIAL);
+        Map<Integer, Step> steps = steps(job, Map.of(100, JobStatus.pending, 200, JobStatus.pending));
+
+        assertEquals(List.of(steps.get(100).getId().toString()), new ArrayList<>(tclService.getReadyFlows(job).keySet()));
+        assertEquals(100, tclService.getNextFlow(job).getStep());
+        assertFalse(tclService.hasDependencies(job));
+    }
+
+    @Test
+    void stepsWithFinishedDependenciesRunInParallel() {
+        Job job = job(DAG);
+        Map<Integer, Step> steps = steps(job, Map.of(100, JobStatus.completed, 200, JobStatus.pending,
+                300, JobStatus.pending, 400, JobStatus.pending, 500, JobStatus.pending));
+
+        Map<String, Flow> readyFlows = tclService.getReadyFlows(job);
+
+        assertEquals(List.of(steps.get(200).getId().toString(), steps.get(300).getId().toString()), new ArrayList<>(readyFlows.keySet()));
+        assertEquals(200, tclService.getNextFlow(job).getStep());
+        assertEquals(steps.get(200).getId().toString(), tclService.getCurrentStepId(job));
+        assertTrue(tclService.hasDependencies(job));
+    }
+
+    @Test
+    void stepWaitsForEveryDependency() {
+        Job job = job(DAG);
+        Map<Integer, Step> steps = steps(job, Map.of(100, JobStatus.completed, 200, JobStatus.running,
+                300, JobStatus.completed, 400, JobStatus.pending, 500, JobStatus.pending));
+
+        assertTrue(tclService.getReadyFlows(job).isEmpty());
+        assertNull(tclService.getNextFlow(job));
+
+        steps.get(200).setStatus(JobStatus.completed);
+        assertEquals(List.of(steps.get(400).getId().toString()), new ArrayList<>(tclService.getReadyFlows(job).keySet()));
+    }
+
+    @Test
+    void stepWithoutDependenciesWaitsForLowerSteps() {
+        Job job = job(DAG);
+        Map<Integer, Step> steps = steps(job, Map.of(100, JobStatus.completed, 200, JobStatus.completed,
+                300, JobStatus.completed, 400, JobStatus.queue, 500, JobStatus.pending));
+
+        assertTrue(tclService.getReadyFlows(job).isEmpty());
+
+        steps.get(400).setStatus(JobStatus.completed);
+        assertEquals(500, tclService.getNextFlow(job).getStep());
+    }
+
+    @Test
+    void dependencyOnHigherStepIsIgnored() {
+        Job job = job("flow:\n" +
+                "  - type: \"terraformPlan\"\n" +
+                "    step: 100\n" +
+                "    dependsOn: [200]\n" +
+                "  - type: \"customScripts\"\n" +
+                "    step: 200\n" +
+                "    dependsOn: [100]\n");
+        Map<Integer, Step> steps = steps(job, Map.of(100, JobStatus.pending, 200, JobStatus.pending));
+
+        assertEquals(List.of(steps.get(100).getId().toString()), new ArrayList<>(tclService.getReadyFlows(job).keySet()));
+    }
+
+    @Test
+    void plansWithoutOrderBetweenThemAreParallel() {
+        Job job = job(PARALLEL_PLANS);
+
+        assertEquals(Set.of(300), tclService.getParallelPlanSteps(job, 200));
+        assertEquals(Set.of(200), tclService.getParallelPlanSteps(job, 300));
+        assertTrue(tclService.getParallelPlanSteps(job, 400).isEmpty());
+        assertTrue(tclService.getParallelPlanSteps(job, 500).isEmpty());
+        assertTrue(tclService.getParallelPlanSteps(job(SEQUENTIAL), 100).isEmpty());
+    }
+
+    private Job job(String template) {
+        Job job = new Job();
+        job.setId(1);
+        job.setTcl(Base64.getEncoder().encodeToString(template.getBytes(StandardCharsets.UTF_8)));
+        return job;
+    }
+
+    private Map<Integer, Step> steps(Job job, Map<Integer, JobStatus> statuses) {
+        Map<Integer, Step> steps = new TreeMap<>();
+        statuses.forEach((stepNumber, status) -> {
+            Step step = new Step();
+            step.setId(UUID.randomUUID());
+            step.setStepNumber(stepNumber);
+            step.setStatus(status);
+            step.setJob(job);
+            steps.put(stepNumber, step);
+        });
+        when(stepRepository.findByJobId(job.getId())).thenReturn(new ArrayList<>(steps.values()));
+        return steps;
+    }
+}
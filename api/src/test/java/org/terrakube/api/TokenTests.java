@@ -1,8 +1,11 @@
 package org.terrakube.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 
+import java.util.Base64;
+
 import static io.restassured.RestAssured.given;
 
 class TokenTests extends ServerApplicationTests {
@@ -22,4 +25,29 @@ class TokenTests extends ServerApplicationTests {
                 .statusCode(HttpStatus.CREATED.value());
     }
 
+    @Test
+    void deletedTokenIsRejected() throws Exception {
+        String token = generatePAT("TERRAKUBE_DEVELOPERS");
+
+        given()
+                .headers("Authorization", "Bearer " + token)
+                .when()
+                .get("/api/v1/organization")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value());
+
+        String payload = new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]));
+        patService.deleteToken(new ObjectMapper().readTree(payload).get("jti").asText());
+
+        given()
+                .headers("Authorization", "Bearer " + token)
+                .when()
+                .get("/api/v1/organization")
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.UNAUTHORIZED.value());
+    }
 }
@@ -0,0 +1,165 @@
+package org.terrakube.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.terrakube.api.plugin.vcs.WebhookDelivery;
+import org.terrakube.api.plugin.vcs.WebhookQueueService;
+import org.terrakube.api.plugin.vcs.WebhookService;
+import org.terrakube.api.plugin.vcs.WebhookTrigger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WebhookQueueTests {
+
+    private static final String QUEUE = "terrakube:webhooks:queue";
+    private static final String PENDING = "terrakube:webhooks:pending";
+
+    RedisTemplate redisTemplate;
+    ListOperations listOperations;
+    HashOperations hashOperations;
+    WebhookService webhookService;
+    ObjectMapper objectMapper = new ObjectMapper();
+    WebhookQueueService webhookQueueService;
+
+    @BeforeEach
+    void setup() {
+        redisTemplate = mock(RedisTemplate.class);
+        listOperations = mock(ListOperations.class);
+        hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(PENDING)).thenReturn(new HashMap<>());
+        webhookService = mock(WebhookService.class);
+
+        webhookQueueService = new WebhookQueueService(webhookService, redisTemplate, objectMapper, 0, 100);
+    }
+
+    @Test
+    void invalidSignatureIsNotQueued() throws Exception {
+        when(webhookService.verifyWebhook(anyString(), anyString(), anyMap())).thenReturn(false);
+
+        assertFalse(webhookQueueService.enqueue("webhook", "{}", Map.of("x-hub-signature-256", "sha256=invalid")));
+        verifyNoInteractions(listOperations);
+    }
+
+    @Test
+    void signatureHeadersAreNotStored() throws Exception {
+        when(webhookService.verifyWebhook(anyString(), anyString(), anyMap())).thenReturn(true);
+        Map<String, String> headers = Map.of(
+                "x-hub-signature-256", "sha256=abc",
+                "x-hub-signature", "sha256=abc",
+                "x-gitlab-token", "secret",
+                "x-github-event", "push");
+
+        assertTrue(webhookQueueService.enqueue("webhook", "{}", headers));
+
+        ArgumentCaptor<String> delivery = ArgumentCaptor.forClass(String.class);
+        verify(listOperations).rightPush(eq(QUEUE), delivery.capture());
+        WebhookDelivery webhookDelivery = objectMapper.readValue(delivery.getValue(), WebhookDelivery.class);
+        assertEquals(Map.of("x-github-event", "push"), webhookDelivery.getHeaders());
+    }
+
+    @Test
+    void differentEventsAreNotCoalesced() throws Exception {
+        queueDeliveries(delivery("webhook"), delivery("webhook"));
+        when(webhookService.evaluateWebhook(anyString(), anyString(), anyMap()))
+                .thenReturn(Optional.of(trigger("push", "abc")), Optional.of(trigger("pull_request", "def")));
+
+        webhookQueueService.processQueue();
+
+        verify(hashOperations).put(eq(PENDING), eq("webhook|push|main"), anyString());
+        verify(hashOperations).put(eq(PENDING), eq("webhook|pull_request|main"), anyString());
+    }
+
+    @Test
+    void failedDeliveryIsQueuedAgain() throws Exception {
+        queueDeliveries(delivery("webhook"));
+        when(webhookService.evaluateWebhook(anyString(), anyString(), anyMap())).thenThrow(new IllegalStateException("database is down"));
+
+        webhookQueueService.processQueue();
+
+        ArgumentCaptor<String> delivery = ArgumentCaptor.forClass(String.class);
+        verify(listOperations).rightPush(eq(QUEUE), delivery.capture());
+        assertEquals(1, objectMapper.readValue(delivery.getValue(), WebhookDelivery.class).getAttempts());
+    }
+
+    @Test
+    void failedDeliveryIsDiscardedAfterMaxAttempts() throws Exception {
+        WebhookDelivery webhookDelivery = delivery("webhook");
+        webhookDelivery.setAttempts(2);
+        queueDeliveries(webhookDelivery);
+        when(webhookService.evaluateWebhook(anyString(), anyString(), anyMap())).thenThrow(new IllegalStateException("database is down"));
+
+        webhookQueueService.processQueue();
+
+        verify(listOperations, never()).rightPush(anyString(), any());
+    }
+
+    @Test
+    void pendingTriggerReplacedByOtherInstanceIsNotRun() throws Exception {
+        when(listOperations.leftPop(QUEUE)).thenReturn(null);
+        String pushTrigger = objectMapper.writeValueAsString(trigger("push", "abc"));
+        when(hashOperations.entries(PENDING)).thenReturn(Map.of("webhook|push|main", pushTrigger));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any())).thenReturn(0L);
+
+        webhookQueueService.processQueue();
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(PENDING)), eq("webhook|push|main"), eq(pushTrigger));
+        verify(webhookService, never()).triggerJob(any());
+    }
+
+    @Test
+    void pendingTriggerRemovedByThisInstanceIsRun() throws Exception {
+        when(listOperations.leftPop(QUEUE)).thenReturn(null);
+        String pushTrigger = objectMapper.writeValueAsString(trigger("push", "abc"));
+        when(hashOperations.entries(PENDING)).thenReturn(Map.of("webhook|push|main", pushTrigger));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any())).thenReturn(1L);
+
+        webhookQueueService.processQueue();
+
+        ArgumentCaptor<WebhookTrigger> trigger = ArgumentCaptor.forClass(WebhookTrigger.class);
+        verify(webhookService).triggerJob(trigger.capture());
+        assertEquals("abc", trigger.getValue().getCommit());
+    }
+
+    private void queueDeliveries(WebhookDelivery... deliveries) throws Exception {
+        Object[] queued = new Object[deliveries.length + 1];
+        for (int i = 0; i < deliveries.length; i++)
+            queued[i] = objectMapper.writeValueAsString(deliveries[i]);
+        when(listOperations.leftPop(QUEUE)).thenReturn(queued[0], java.util.Arrays.copyOfRange(queued, 1, queued.length));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any())).thenReturn(0L);
+    }
+
+    private WebhookDelivery delivery(String webhookId) {
+        WebhookDelivery webhookDelivery = new WebhookDelivery();
+        webhookDelivery.setWebhookId(webhookId);
+        webhookDelivery.setPayload("{}");
+        webhookDelivery.setHeaders(Map.of("x-github-event", "push"));
+        webhookDelivery.setReceived(System.currentTimeMillis());
+        return webhookDelivery;
+    }
+
+    private WebhookTrigger trigger(String event, String commit) {
+        WebhookTrigger webhookTrigger = new WebhookTrigger();
+        webhookTrigger.setWebhookId("webhook");
+        webhookTrigger.setWorkspaceId("workspace");
+        webhookTrigger.setBranch("main");
+        webhookTrigger.setEvent(event);
+        webhookTrigger.setCommit(commit);
+        webhookTrigger.setReceived(System.currentTimeMillis());
+        return webhookTrigger;
+    }
+}
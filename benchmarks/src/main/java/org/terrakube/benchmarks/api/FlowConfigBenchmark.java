@@ -0,0 +1,103 @@
+package org.terrakube.benchmarks.api;
+
+import org.openjdk.jmh.annotations.*;
+import org.terrakube.api.plugin.scheduler.job.tcl.TclService;
+import org.terrakube.api.rs.job.Job;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Template (TCL) parsing, done for every job and every step of the job
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlowConfigBenchmark {
+
+    private static final String PLAN_APPLY = """
+            flow:
+              - type: "terraformPlan"
+                name: "Plan"
+                step: 100
+                commands:
+                  - runtime: "GROOVY"
+                    priority: 100
+                    before: true
+                    script: |
+                      import TerraformTag
+                      new TerraformTag().loadTool("$workingDirectory", "$bashToolsDirectory", "0.8.0")
+                      "Terratag download completed"
+                  - runtime: "BASH"
+                    priority: 200
+                    before: true
+                    script: |
+                      cd $workingDirectory
+                      terratag -tags="{\\"environment_id\\": \\"development\\"}"
+                  - runtime: "BASH"
+                    priority: 100
+                    after: true
+                    script: |
+                      echo "plan completed"
+              - type: "approval"
+                name: "Approve Plan"
+                step: 150
+                team: "TERRAFORM_ADMIN"
+              - type: "terraformApply"
+                name: "Apply"
+                step: 200
+                inputsEnv:
+                  ENVIRONMENT: "$ENVIRONMENT"
+                  REGION: "us-east-1"
+                inputsTerraform:
+                  instance_type: "t3.medium"
+                commands:
+                  - runtime: "BASH"
+                    priority: 100
+                    after: true
+                    script: |
+                      infracost breakdown --path .
+              - type: "customScripts"
+                name: "Notify"
+                step: 300
+                importComands:
+                  repository: "https://github.com/AzBuilder/terrakube-extensions"
+                  folder: "templates/terratag"
+                  branch: "main"
+                  inputsEnv:
+                    SLACK_CHANNEL: "#infra"
+            """;
+
+    @Param({"small", "large"})
+    String template;
+
+    @Param({"0", "500"})
+    int cacheSize;
+
+    private TclService tclService;
+    private Job job;
+
+    @Setup
+    public void setup() {
+        tclService = new TclService(null, null, null, null, cacheSize);
+        String yaml = PLAN_APPLY;
+        if (template.equals("large")) {
+            StringBuilder flows = new StringBuilder("flow:\n");
+            for (int i = 0; i < 25; i++) {
+                flows.append(PLAN_APPLY.substring("flow:\n".length()).replace("step: ", "step: " + (i + 1)));
+            }
+            yaml = flows.toString();
+        }
+        job = new Job();
+        job.setTcl(Base64.getEncoder().encodeToString(yaml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public boolean hasDependencies() {
+        return tclService.hasDependencies(job);
+    }
+}
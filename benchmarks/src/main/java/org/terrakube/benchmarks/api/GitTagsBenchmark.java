@@ -0,0 +1,55 @@
+package org.terrakube.benchmarks.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.openjdk.jmh.annotations.*;
+import org.terrakube.api.rs.module.GitTagsCache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Module versions are stored in redis as a single "|" separated value, every registry request splits it and the
+ * registry clients need them sorted as versions
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GitTagsBenchmark {
+
+    @Param({"50", "1000"})
+    int tags;
+
+    private GitTagsCache gitTagsCache;
+    private String cachedVersions;
+
+    @Setup
+    public void setup() {
+        gitTagsCache = new GitTagsCache(new SimpleMeterRegistry());
+        List<String> versions = new ArrayList<>();
+        for (int i = 0; i < tags; i++) {
+            versions.add(String.format("%d.%d.%d", i % 7, i % 23, i));
+            if (i % 10 == 0)
+                versions.add(String.format("%d.%d.%d-rc.%d", i % 7, i % 23, i, i % 3));
+        }
+        cachedVersions = StringUtils.join(versions, "|");
+    }
+
+    @Benchmark
+    public List<String> split() {
+        return gitTagsCache.parseVersions(cachedVersions);
+    }
+
+    @Benchmark
+    public List<String> splitAndSort() {
+        List<String> versions = new ArrayList<>(gitTagsCache.parseVersions(cachedVersions));
+        versions.sort(Comparator.comparing(ComparableVersion::new));
+        return versions;
+    }
+}
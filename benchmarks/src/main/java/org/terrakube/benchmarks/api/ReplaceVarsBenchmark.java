@@ -0,0 +1,53 @@
+package org.terrakube.benchmarks.api;
+
+import org.openjdk.jmh.annotations.*;
+import org.terrakube.api.plugin.proxy.ProxyService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Variable substitution applied to the target url, every proxy header and the proxy body
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplaceVarsBenchmark {
+
+    @Param({"10", "200"})
+    int variables;
+
+    private ProxyService proxyService;
+    private Map<String, String> vars;
+    private String url;
+    private String body;
+
+    @Setup
+    public void setup() {
+        proxyService = new ProxyService(null, null, null, 10, 10, 30, 0);
+        vars = new HashMap<>();
+        for (int i = 0; i < variables; i++) {
+            vars.put("var" + i, "value-" + i);
+        }
+        url = "https://api.example.com/{{var.var0}}/projects/{{var.var1}}/items?token={{var.missing}}";
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < variables; i++) {
+            json.append("\"field").append(i).append("\":\"{{var.var").append(i).append("}}\",");
+        }
+        body = json.append("\"plain\":\"text\"}").toString();
+    }
+
+    @Benchmark
+    public String replaceUrl() {
+        return proxyService.replaceVars(url, vars);
+    }
+
+    @Benchmark
+    public String replaceBody() {
+        return proxyService.replaceVars(body, vars);
+    }
+}
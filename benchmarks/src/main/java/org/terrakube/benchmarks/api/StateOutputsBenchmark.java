@@ -0,0 +1,97 @@
+package org.terrakube.benchmarks.api;
+
+import org.openjdk.jmh.annotations.*;
+import org.terrakube.api.plugin.state.RemoteTfeController;
+import org.terrakube.api.plugin.state.RemoteTfeService;
+import org.terrakube.api.plugin.state.model.outputs.StateOutputs;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.repository.WorkspaceRepository;
+import org.terrakube.api.rs.Organization;
+import org.terrakube.api.rs.workspace.Workspace;
+import org.terrakube.benchmarks.support.Stubs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remote state outputs (terraform_remote_state / tfe_outputs), the whole state is read and parsed only to return the
+ * outputs section
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StateOutputsBenchmark {
+
+    @Param({"1", "50", "200"})
+    int stateSizeMb;
+
+    private RemoteTfeController remoteTfeController;
+    private String workspaceId;
+
+    @Setup
+    public void setup() {
+        Organization organization = new Organization();
+        organization.setId(UUID.randomUUID());
+        Workspace workspace = new Workspace();
+        workspace.setId(UUID.randomUUID());
+        workspace.setOrganization(organization);
+        workspaceId = workspace.getId().toString();
+
+        byte[] state = generateState(stateSizeMb * 1024L * 1024L);
+        WorkspaceRepository workspaceRepository = Stubs.of(WorkspaceRepository.class, Map.of(
+                "findById", args -> Optional.of(workspace)));
+        StorageTypeService storageTypeService = Stubs.of(StorageTypeService.class, Map.of(
+                "getCurrentTerraformState", args -> state));
+
+        RemoteTfeService remoteTfeService = new RemoteTfeService(null, null, null, workspaceRepository, null, null, null,
+                "localhost", storageTypeService, null, null, 1, null, null, null, null);
+        remoteTfeController = new RemoteTfeController(remoteTfeService);
+    }
+
+    @Benchmark
+    public StateOutputs getCurrentOutputs() {
+        return remoteTfeController.getCurrentOutputs(workspaceId).getBody();
+    }
+
+    /**
+     * Builds a terraform state with a few outputs and enough managed resources to reach the requested size, outputs
+     * are written first like terraform does
+     */
+    static byte[] generateState(long size) {
+        StringBuilder state = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, size + 4096));
+        state.append("{\"version\":4,\"terraform_version\":\"1.5.7\",\"serial\":42,")
+                .append("\"lineage\":\"").append(UUID.randomUUID()).append("\",\"outputs\":{");
+        for (int i = 0; i < 20; i++) {
+            if (i > 0)
+                state.append(',');
+            if (i % 2 == 0)
+                state.append("\"output_").append(i).append("\":{\"value\":\"value-").append(i).append("\",\"type\":\"string\"}");
+            else
+                state.append("\"output_").append(i).append("\":{\"value\":{\"id\":\"").append(i)
+                        .append("\",\"tags\":[\"a\",\"b\"]},\"type\":[\"object\",{\"id\":\"string\",\"tags\":[\"list\",\"string\"]}],\"sensitive\":true}");
+        }
+        state.append("},\"resources\":[");
+        int resource = 0;
+        while (state.length() < size) {
+            if (resource > 0)
+                state.append(',');
+            state.append("{\"mode\":\"managed\",\"type\":\"aws_instance\",\"name\":\"server_").append(resource)
+                    .append("\",\"provider\":\"provider[\\\"registry.terraform.io/hashicorp/aws\\\"]\",\"instances\":[{")
+                    .append("\"schema_version\":1,\"attributes\":{\"ami\":\"ami-0c55b159cbfafe1f0\",\"arn\":\"arn:aws:ec2:us-east-1:123456789012:instance/i-")
+                    .append(String.format("%017x", resource))
+                    .append("\",\"instance_type\":\"t3.medium\",\"private_ip\":\"10.0.").append(resource % 255).append('.').append(resource % 253)
+                    .append("\",\"tags\":{\"Name\":\"server-").append(resource).append("\",\"environment\":\"production\"},")
+                    .append("\"user_data\":\"").append("x".repeat(256)).append("\"},")
+                    .append("\"sensitive_attributes\":[],\"dependencies\":[\"aws_subnet.private\",\"aws_security_group.default\"]}]}");
+            resource++;
+        }
+        state.append("],\"check_results\":null}");
+        return state.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
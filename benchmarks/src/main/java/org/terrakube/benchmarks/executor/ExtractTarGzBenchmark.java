@@ -0,0 +1,84 @@
+package org.terrakube.benchmarks.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.terrakube.executor.service.workspace.SetupWorkspaceImpl;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Workspace content uploaded by the CLI (remote-content branch) is extracted by the executor before every run
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ExtractTarGzBenchmark {
+
+    @Param({"200:4096", "2000:65536"})
+    String archive;
+
+    private SetupWorkspaceImpl setupWorkspace;
+    private File archiveFile;
+    private File destination;
+
+    @Setup
+    public void setup() throws IOException {
+        setupWorkspace = new SetupWorkspaceImpl(null, false, null, new SimpleMeterRegistry());
+        String[] archiveInfo = archive.split(":");
+        archiveFile = Files.createTempFile("terrakube-benchmark", ".tar.gz").toFile();
+        destination = Files.createTempDirectory("terrakube-benchmark").toFile().getCanonicalFile();
+        createArchive(archiveFile, Integer.parseInt(archiveInfo[0]), Integer.parseInt(archiveInfo[1]));
+    }
+
+    @Benchmark
+    public File extractTarGZ() throws IOException {
+        try (InputStream in = new FileInputStream(archiveFile)) {
+            setupWorkspace.extractTarGZ(in, destination.getPath());
+        }
+        return destination;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteQuietly(archiveFile);
+        FileUtils.deleteDirectory(destination);
+    }
+
+    private static void createArchive(File file, int files, int fileSize) throws IOException {
+        Random random = new Random(42);
+        byte[] content = new byte[fileSize];
+        try (TarArchiveOutputStream tarOut = new TarArchiveOutputStream(
+                new GzipCompressorOutputStream(new BufferedOutputStream(new FileOutputStream(file))))) {
+            tarOut.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            for (int i = 0; i < files; i++) {
+                // half text like terraform files, half random like binaries/lock files
+                if (i % 2 == 0)
+                    fillText(content, i);
+                else
+                    random.nextBytes(content);
+                TarArchiveEntry entry = new TarArchiveEntry(String.format("modules/module_%d/file_%d.tf", i % 20, i));
+                entry.setSize(content.length);
+                tarOut.putArchiveEntry(entry);
+                tarOut.write(content);
+                tarOut.closeArchiveEntry();
+            }
+        }
+    }
+
+    private static void fillText(byte[] content, int seed) {
+        byte[] line = String.format("resource \"null_resource\" \"r%d\" { triggers = { id = \"%d\" } }%n", seed, seed).getBytes();
+        for (int i = 0; i < content.length; i++) {
+            content[i] = line[i % line.length];
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.terrakube.benchmarks.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.terrakube.benchmarks.support.InMemoryStreamRedisTemplate;
+import org.terrakube.executor.service.logs.LogsConsumer;
+import org.terrakube.executor.service.logs.LogsService;
+import org.terrakube.executor.service.logs.StepOutputSpool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Terraform output ingestion, every line goes through LogsConsumer into LogsService and is added to the job stream
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogsBenchmark {
+
+    @Param({"80", "400"})
+    int lineLength;
+
+    private InMemoryStreamRedisTemplate redisTemplate;
+    private LogsService logsService;
+    private LogsConsumer logsConsumer;
+    private StepOutputSpool terraformOutput;
+    private String line;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        redisTemplate = new InMemoryStreamRedisTemplate();
+        logsService = new LogsService(redisTemplate, new SimpleMeterRegistry());
+        terraformOutput = new StepOutputSpool("b2e2a5a4-5a6c-4d3b-8f4e-0a0d1f3c2b11");
+        logsConsumer = LogsConsumer.builder()
+                .jobId(1)
+                .stepId("b2e2a5a4-5a6c-4d3b-8f4e-0a0d1f3c2b11")
+                .terraformOutput(terraformOutput)
+                .processLogs(logsService)
+                .lineNumber(new AtomicInteger(0))
+                .build();
+        line = "module.network.aws_subnet.private[0]: Refreshing state... [id=subnet-0a1b2c3d4e5f]"
+                .repeat(lineLength / 80 + 1)
+                .substring(0, lineLength);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        terraformOutput.delete();
+    }
+
+    @Benchmark
+    public void sendLogs() {
+        logsService.sendLogs(1, "b2e2a5a4-5a6c-4d3b-8f4e-0a0d1f3c2b11", 1, line);
+    }
+
+    @Benchmark
+    public void consumeLine() {
+        logsConsumer.accept(line);
+    }
+}
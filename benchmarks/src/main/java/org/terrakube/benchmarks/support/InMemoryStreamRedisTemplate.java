@@ -0,0 +1,52 @@
+package org.terrakube.benchmarks.support;
+
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis stand-in for the log stream, XADD only counts entries and bytes per stream so the benchmark measures the
+ * executor side of the ingestion without network noise
+ */
+public class InMemoryStreamRedisTemplate extends RedisTemplate<Object, Object> {
+
+    private final Map<Object, LongAdder> entries = new ConcurrentHashMap<>();
+    private final LongAdder bytes = new LongAdder();
+    private final AtomicLong sequence = new AtomicLong();
+    private final StreamOperations streamOperations;
+
+    public InMemoryStreamRedisTemplate() {
+        streamOperations = Stubs.of(StreamOperations.class, Map.of(
+                "add", args -> {
+                    entries.computeIfAbsent(args[0], key -> new LongAdder()).increment();
+                    if (args.length > 1 && args[1] instanceof Map<?, ?> content)
+                        content.values().forEach(value -> bytes.add(value != null ? value.toString().length() : 0));
+                    return RecordId.of(System.currentTimeMillis(), sequence.incrementAndGet());
+                }));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <HK, HV> StreamOperations<Object, HK, HV> opsForStream() {
+        return streamOperations;
+    }
+
+    @Override
+    public Boolean delete(Object key) {
+        return entries.remove(key) != null;
+    }
+
+    public long size(Object key) {
+        LongAdder counter = entries.get(key);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    public long bytes() {
+        return bytes.sum();
+    }
+}
@@ -0,0 +1,33 @@
+package org.terrakube.benchmarks.support;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Minimal stand-ins for repositories and services, only the methods used by the benchmark are answered
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T of(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "toString":
+                    return "Stub<" + type.getSimpleName() + ">";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer == null)
+                        throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+                    return answer.apply(args);
+            }
+        });
+    }
+}
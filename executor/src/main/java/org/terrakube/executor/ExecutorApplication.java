@@ -2,12 +2,24 @@ package org.terrakube.executor;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ExecutorApplication {
 
+	public static final String BATCH_PROFILE = "batch";
+
 	public static void main(String[] args) {
-		SpringApplication.run(ExecutorApplication.class, args);
+		createApplication(Boolean.parseBoolean(System.getenv("EphemeralFlagBatch"))).run(args);
+	}
+
+	public static SpringApplication createApplication(boolean ephemeral) {
+		SpringApplication application = new SpringApplication(ExecutorApplication.class);
+		// ephemeral executors run a single job, the batch profile starts them without web server and with lazy beans
+		if (ephemeral)
+			application.setAdditionalProfiles(BATCH_PROFILE);
+		return application;
 	}
 
 }
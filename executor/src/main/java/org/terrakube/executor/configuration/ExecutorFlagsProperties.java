@@ -18,5 +18,10 @@ public class ExecutorFlagsProperties {
     private String ephemeralJobData;
     private String batchJobFile;
     private boolean disableAcknowledge;
+    private String ephemeralWarmPool;
+    private String ephemeralWarmPoolJobName;
+    private int ephemeralWarmPoolIdleMinutes = 30;
+    private boolean stateJsonView = true;
+    private int folderParallelism = 4;
 
 }
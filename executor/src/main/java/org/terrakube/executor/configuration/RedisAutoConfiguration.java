@@ -13,10 +13,14 @@ import javax.net.ssl.TrustManagerFactory;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.terrakube.executor.service.cancel.JobCancellationService;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -99,4 +103,16 @@ public class RedisAutoConfiguration {
         template.setConnectionFactory(jedisConnectionFactory);
         return template;
     }
+
+    /**
+     * Not lazy, ephemeral executors start with lazy initialization and nothing else depends on the cancel listener
+     */
+    @Bean
+    @Lazy(false)
+    RedisMessageListenerContainer redisMessageListenerContainer(JedisConnectionFactory jedisConnectionFactory, JobCancellationService jobCancellationService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(jedisConnectionFactory);
+        container.addMessageListener(jobCancellationService, new ChannelTopic(JobCancellationService.CANCEL_CHANNEL));
+        return container;
+    }
 }
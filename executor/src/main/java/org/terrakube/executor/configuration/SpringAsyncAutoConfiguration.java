@@ -4,6 +4,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.terrakube.executor.service.capacity.ExecutorCapacityProperties;
 
 import java.util.concurrent.Executor;
 
@@ -12,7 +13,10 @@ import java.util.concurrent.Executor;
 public class SpringAsyncAutoConfiguration {
 
     @Bean(name = "threadPoolTaskExecutor")
-    public Executor threadPoolTaskExecutor() {
-        return new ThreadPoolTaskExecutor();
+    public Executor threadPoolTaskExecutor(ExecutorCapacityProperties executorCapacityProperties) {
+        ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+        if (executorCapacityProperties.isEnabled())
+            threadPoolTaskExecutor.setCorePoolSize(Math.max(1, executorCapacityProperties.getSlots()));
+        return threadPoolTaskExecutor;
     }
 }
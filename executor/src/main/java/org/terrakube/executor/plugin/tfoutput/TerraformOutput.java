@@ -1,5 +1,15 @@
 package org.terrakube.executor.plugin.tfoutput;
 
+import java.io.File;
+
 public interface TerraformOutput {
-    String save(String organizationId, String jobId, String stepId, String output, String outputError);
+
+    /**
+     * Upload the step output
+     *
+     * @param compressedOutput gzip file with the step output, it is streamed to the storage without decompressing it
+     * @return url to read the step output from the api
+     * @throws RuntimeException when the output could not be uploaded
+     */
+    String save(String organizationId, String jobId, String stepId, File compressedOutput);
 }
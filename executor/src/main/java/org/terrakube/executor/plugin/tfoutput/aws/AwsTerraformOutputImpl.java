@@ -1,23 +1,29 @@
 package org.terrakube.executor.plugin.tfoutput.aws;
 
-import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.StringUtils;
 import org.terrakube.executor.plugin.tfoutput.TerraformOutput;
 import org.terrakube.executor.plugin.tfoutput.TerraformOutputPathService;
 
+import java.io.File;
+
 @Builder
 @Getter
 @Setter
 @Slf4j
 public class AwsTerraformOutputImpl implements TerraformOutput {
 
+    /**
+     * Shared by all the uploads, it switches to a multipart upload for big outputs
+     */
     @NonNull
-    private AmazonS3 s3client;
+    private TransferManager transferManager;
 
     @NonNull
     private String bucketName;
@@ -26,19 +32,33 @@ public class AwsTerraformOutputImpl implements TerraformOutput {
     TerraformOutputPathService terraformOutputPathService;
 
     @Override
-    public String save(String organizationId, String jobId, String stepId, String output, String outputError) {
+    public String save(String organizationId, String jobId, String stepId, File compressedOutput) {
         String blobKey = "tfoutput/" + organizationId + "/" + jobId + "/" + stepId + ".tfoutput";
         log.info("blobKey: {}", blobKey);
 
-        byte[] bytes = StringUtils.getBytesUtf8(output + outputError);
-        String utf8EncodedString = StringUtils.newStringUtf8(bytes);
+        if (compressedOutput != null) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType("text/plain; charset=utf-8");
+            metadata.setContentEncoding("gzip");
+            metadata.setContentLength(compressedOutput.length());
 
-        s3client.putObject(
-                bucketName,
-                blobKey,
-                utf8EncodedString
-        );
+            try {
+                transferManager.upload(new PutObjectRequest(bucketName, blobKey, compressedOutput).withMetadata(metadata))
+                        .waitForCompletion();
+                log.info("Output uploaded {} bytes", compressedOutput.length());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Output upload was interrupted for " + blobKey, e);
+            }
+        }
 
         return terraformOutputPathService.getOutputPath(organizationId, jobId, stepId);
     }
+
+    /**
+     * Inferred destroy method of the terraformOutput bean
+     */
+    public void shutdown() {
+        transferManager.shutdownNow(false);
+    }
 }
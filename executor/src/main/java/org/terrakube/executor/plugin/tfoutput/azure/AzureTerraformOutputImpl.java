@@ -1,21 +1,24 @@
 package org.terrakube.executor.plugin.tfoutput.azure;
 
-import com.azure.core.util.BinaryData;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.ParallelTransferOptions;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.StringUtils;
 import org.terrakube.executor.plugin.tfoutput.TerraformOutput;
 import org.terrakube.executor.plugin.tfoutput.TerraformOutputPathService;
 
+import java.io.File;
+
 @Slf4j
 @Builder
 public class AzureTerraformOutputImpl implements TerraformOutput {
 
     private static final String CONTAINER_NAME = "tfoutput";
+    private static final long BLOCK_SIZE = 8L * 1024 * 1024;
 
     @NonNull
     BlobServiceClient blobServiceClient;
@@ -24,7 +27,7 @@ public class AzureTerraformOutputImpl implements TerraformOutput {
     TerraformOutputPathService terraformOutputPathService;
 
     @Override
-    public String save(String organizationId, String jobId, String stepId, String output, String outputError) {
+    public String save(String organizationId, String jobId, String stepId, File compressedOutput) {
         BlobContainerClient blobContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME);
 
         log.info("blobContainerClient.exists {}", blobContainerClient.exists());
@@ -35,9 +38,15 @@ public class AzureTerraformOutputImpl implements TerraformOutput {
         log.info("blobName: {}", blobName);
         BlobClient blobClient = blobContainerClient.getBlobClient(blobName);
 
-        byte[] bytes = StringUtils.getBytesUtf8(output + outputError);
-        String utf8EncodedString = StringUtils.newStringUtf8(bytes);
-        blobClient.upload(BinaryData.fromString(utf8EncodedString));
+        if (compressedOutput != null) {
+            BlobHttpHeaders headers = new BlobHttpHeaders()
+                    .setContentType("text/plain; charset=utf-8")
+                    .setContentEncoding("gzip");
+            ParallelTransferOptions transferOptions = new ParallelTransferOptions()
+                    .setBlockSizeLong(BLOCK_SIZE)
+                    .setMaxSingleUploadSizeLong(BLOCK_SIZE);
+            blobClient.uploadFromFile(compressedOutput.getAbsolutePath(), transferOptions, headers, null, null, null, null);
+        }
 
         return terraformOutputPathService.getOutputPath(organizationId, jobId, stepId);
     }
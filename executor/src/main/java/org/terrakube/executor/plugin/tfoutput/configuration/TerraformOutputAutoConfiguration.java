@@ -8,6 +8,7 @@ import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
 import com.google.auth.Credentials;
@@ -88,7 +89,7 @@ public class TerraformOutputAutoConfiguration {
                                 .build();
 
                     terraformOutput = AwsTerraformOutputImpl.builder()
-                            .s3client(s3client)
+                            .transferManager(TransferManagerBuilder.standard().withS3Client(s3client).build())
                             .bucketName(awsTerraformOutputProperties.getBucketName())
                             .terraformOutputPathService(terraformOutputPathService)
                             .build();
@@ -6,10 +6,13 @@ import com.google.cloud.storage.Storage;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.StringUtils;
 import org.terrakube.executor.plugin.tfoutput.TerraformOutput;
 import org.terrakube.executor.plugin.tfoutput.TerraformOutputPathService;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 @Slf4j
 @Builder
 public class GcpTerraformOutputImpl implements TerraformOutput {
@@ -23,16 +26,21 @@ public class GcpTerraformOutputImpl implements TerraformOutput {
     @NonNull
     TerraformOutputPathService terraformOutputPathService;
     @Override
-    public String save(String organizationId, String jobId, String stepId, String output, String outputError) {
+    public String save(String organizationId, String jobId, String stepId, File compressedOutput) {
         String blobKey = String.format("tfoutput/%s/%s/%s.tfoutput",organizationId, jobId, stepId);
         log.info("blobKey: {}", blobKey);
 
-        byte[] bytes = StringUtils.getBytesUtf8(output + outputError);
-        String utf8EncodedString = StringUtils.newStringUtf8(bytes);
-        BlobId blobId = BlobId.of(bucketName, blobKey);
-        BlobInfo blobInfo = BlobInfo.newBuilder(blobId).build();
-        storage.create(blobInfo, utf8EncodedString.getBytes());
-        log.info("File uploaded to bucket {} as {}", bucketName, blobKey);
+        if (compressedOutput != null) {
+            BlobId blobId = BlobId.of(bucketName, blobKey);
+            // no content encoding metadata, gcs would decompress the object when it is downloaded by the api
+            BlobInfo blobInfo = BlobInfo.newBuilder(blobId).setContentType("application/gzip").build();
+            try {
+                storage.createFrom(blobInfo, compressedOutput.toPath());
+                log.info("File uploaded to bucket {} as {}", bucketName, blobKey);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
 
         return terraformOutputPathService.getOutputPath(organizationId, jobId, stepId);
     }
@@ -8,7 +8,7 @@ import org.terrakube.executor.plugin.tfoutput.TerraformOutputPathService;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.UncheckedIOException;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
@@ -26,7 +26,7 @@ public class LocalTerraformOutputImpl implements TerraformOutput {
     TerraformOutputPathService terraformOutputPathService;
 
     @Override
-    public String save(String organizationId, String jobId, String stepId, String output, String outputError) {
+    public String save(String organizationId, String jobId, String stepId, File compressedOutput) {
         String outputFilePath = String.format(LOCAL_OUTPUT_DIRECTORY, organizationId, jobId , stepId);
         log.info("blobName: {}", outputFilePath);
 
@@ -37,9 +37,10 @@ public class LocalTerraformOutputImpl implements TerraformOutput {
 
         log.info("Creating Output File: {}", localOutputDirectory.getAbsolutePath());
         try {
-            FileUtils.writeStringToFile(localOutputDirectory, output + outputError, Charset.defaultCharset());
+            if (compressedOutput != null)
+                FileUtils.copyFile(compressedOutput, localOutputDirectory);
         } catch (IOException e) {
-            log.error(e.getMessage());
+            throw new UncheckedIOException(e);
         }
 
         return terraformOutputPathService.getOutputPath(organizationId, jobId, stepId);
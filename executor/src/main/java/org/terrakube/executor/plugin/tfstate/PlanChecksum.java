@@ -0,0 +1,46 @@
+package org.terrakube.executor.plugin.tfstate;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * SHA-256 of the terraform plan, it is stored with the plan so the apply step can verify the file it received
+ */
+@Slf4j
+public final class PlanChecksum {
+
+    public static final String METADATA_KEY = "sha256";
+
+    private PlanChecksum() {
+    }
+
+    public static String of(File planFile) throws IOException {
+        try (InputStream inputStream = FileUtils.openInputStream(planFile)) {
+            return DigestUtils.sha256Hex(inputStream);
+        }
+    }
+
+    /**
+     * @return true when the plan matches the expected checksum or there is no checksum to compare (plans uploaded by
+     * older executors), a plan that does not match is deleted
+     */
+    public static boolean verify(File planFile, String expected) throws IOException {
+        if (expected == null || expected.isEmpty()) {
+            log.warn("Plan {} has no checksum", planFile.getAbsolutePath());
+            return true;
+        }
+
+        String actual = of(planFile);
+        if (!actual.equals(expected)) {
+            log.error("Plan checksum does not match, expected {} found {}", expected, actual);
+            FileUtils.deleteQuietly(planFile);
+            return false;
+        }
+        return true;
+    }
+}
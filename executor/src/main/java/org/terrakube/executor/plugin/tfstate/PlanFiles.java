@@ -0,0 +1,45 @@
+package org.terrakube.executor.plugin.tfstate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * A job running several folders saves one plan per folder, the job keeps a json map from the state workspace of every
+ * folder (workspaceId/folders/key) to its plan. Jobs with a single folder keep the plan url as it is.
+ */
+@Slf4j
+public final class PlanFiles {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PlanFiles() {
+    }
+
+    public static String of(Map<String, String> planFiles) {
+        try {
+            return objectMapper.writeValueAsString(planFiles);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the plan saved for the state workspace, null when the job has no plan for it
+     */
+    public static String get(String terraformPlan, String workspaceId) {
+        if (terraformPlan == null || !terraformPlan.startsWith("{"))
+            return terraformPlan;
+
+        try {
+            return objectMapper.readValue(terraformPlan, new TypeReference<Map<String, String>>() {
+            }).get(workspaceId);
+        } catch (JsonProcessingException e) {
+            log.error("Unable to read folder plans: {}", e.getMessage());
+            return null;
+        }
+    }
+}
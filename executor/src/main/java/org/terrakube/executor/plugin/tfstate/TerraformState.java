@@ -10,7 +10,17 @@ public interface TerraformState {
 
     String saveTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId, File workingDirectory);
 
+    /**
+     * Download the plan saved by the job for the workspace, jobs running several folders use the state workspace of the
+     * folder (workspaceId/folders/key) to pick the plan of that folder
+     */
     boolean downloadTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId, File workingDirectory);
 
-    void saveStateJson(TerraformJob terraformJob, String applyJSON, String rawState);
+    /**
+     * Upload the state after an apply and add it to the workspace history
+     *
+     * @param jsonState terraform show output, null when the state json view is disabled
+     * @param rawState  terraform state pull output
+     */
+    void saveStateJson(TerraformJob terraformJob, File jsonState, File rawState);
 }
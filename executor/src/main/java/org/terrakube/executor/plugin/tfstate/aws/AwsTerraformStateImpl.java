@@ -2,14 +2,14 @@ package org.terrakube.executor.plugin.tfstate.aws;
 
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
-import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.StringUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.text.TextStringBuilder;
@@ -18,11 +18,12 @@ import org.terrakube.client.TerrakubeClient;
 import org.terrakube.client.model.organization.workspace.history.History;
 import org.terrakube.client.model.organization.workspace.history.HistoryAttributes;
 import org.terrakube.client.model.organization.workspace.history.HistoryRequest;
+import org.terrakube.executor.plugin.tfstate.PlanChecksum;
+import org.terrakube.executor.plugin.tfstate.PlanFiles;
 import org.terrakube.executor.plugin.tfstate.TerraformState;
 import org.terrakube.executor.plugin.tfstate.TerraformStatePathService;
 import org.terrakube.executor.service.mode.TerraformJob;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
@@ -128,11 +129,13 @@ public class AwsTerraformStateImpl implements TerraformState {
         File tfPlanContent = new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE);
         log.info("terraformStateFile Path: {} {}", workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE, tfPlanContent.exists());
         if (tfPlanContent.exists()) {
-            s3client.putObject(
-                    bucketName,
-                    blobKey,
-                    tfPlanContent
-            );
+            ObjectMetadata metadata = new ObjectMetadata();
+            try {
+                metadata.addUserMetadata(PlanChecksum.METADATA_KEY, PlanChecksum.of(tfPlanContent));
+            } catch (IOException e) {
+                log.error("Unable to generate plan checksum: {}", e.getMessage());
+            }
+            s3client.putObject(new PutObjectRequest(bucketName, blobKey, tfPlanContent).withMetadata(metadata));
 
             return s3client.getUrl(bucketName, blobKey).toExternalForm();
         } else {
@@ -143,7 +146,7 @@ public class AwsTerraformStateImpl implements TerraformState {
     @Override
     public boolean downloadTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId, File workingDirectory) {
         AtomicBoolean planExists = new AtomicBoolean(false);
-        Optional.ofNullable(terrakubeClient.getJobById(organizationId, jobId).getData().getAttributes().getTerraformPlan())
+        Optional.ofNullable(PlanFiles.get(terrakubeClient.getJobById(organizationId, jobId).getData().getAttributes().getTerraformPlan(), workspaceId))
                 .ifPresent(stateUrl -> {
                     try {
                         log.info("Downloading state from {}", stateUrl);
@@ -151,14 +154,11 @@ public class AwsTerraformStateImpl implements TerraformState {
                         //log.info("Buket location: {}", new URL(stateUrl).getPath().replace(endpoint != null ? bucketName + "/tfstate" :"/tfstate","tfstate").substring(1));
                         log.info("Buket location: {}", "tfstate/" + new URL(stateUrl).getPath().split("/tfstate/")[1]);
 
-                        S3Object s3object = s3client.getObject(bucketName, "tfstate/" + new URL(stateUrl).getPath().split("/tfstate/")[1]);
-                        S3ObjectInputStream inputStream = s3object.getObjectContent();
-                        byte[] data = inputStream.getDelegateStream().readAllBytes();
-
-                        FileUtils.copyToFile(
-                                new ByteArrayInputStream(data),
-                                new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE));
-                        planExists.set(true);
+                        File tfPlanFile = new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE);
+                        try (S3Object s3object = s3client.getObject(bucketName, "tfstate/" + new URL(stateUrl).getPath().split("/tfstate/")[1])) {
+                            FileUtils.copyInputStreamToFile(s3object.getObjectContent(), tfPlanFile);
+                            planExists.set(PlanChecksum.verify(tfPlanFile, s3object.getObjectMetadata().getUserMetaDataOf(PlanChecksum.METADATA_KEY)));
+                        }
                     } catch (IOException e) {
                         log.error(e.getMessage());
                     }
@@ -167,30 +167,17 @@ public class AwsTerraformStateImpl implements TerraformState {
     }
 
     @Override
-    public void saveStateJson(TerraformJob terraformJob, String applyJSON, String rawState) {
-        if (applyJSON != null) {
+    public void saveStateJson(TerraformJob terraformJob, File jsonState, File rawState) {
+        if (rawState != null) {
             String stateFilename = UUID.randomUUID().toString();
             String blobKey = "tfstate/" + terraformJob.getOrganizationId() + "/" + terraformJob.getWorkspaceId() + "/state/" + stateFilename + ".json";
             String blobKeyRaw = "tfstate/" + terraformJob.getOrganizationId() + "/" + terraformJob.getWorkspaceId() + "/state/" + stateFilename + ".raw.json";
             log.info("terraformStateFile: {}", blobKey);
             log.info("terraformRawStateFile: {}", blobKeyRaw);
 
-            byte[] bytes = StringUtils.getBytesUtf8(applyJSON);
-            byte[] rawBytes = StringUtils.getBytesUtf8(rawState);
-            String utf8EncodedString = StringUtils.newStringUtf8(bytes);
-            String rawUtf8EncodedString = StringUtils.newStringUtf8(rawBytes);
-
-            s3client.putObject(
-                    bucketName,
-                    blobKey,
-                    utf8EncodedString
-            );
-
-            s3client.putObject(
-                    bucketName,
-                    blobKeyRaw,
-                    rawUtf8EncodedString
-            );
+            if (jsonState != null)
+                s3client.putObject(stateRequest(blobKey, jsonState));
+            s3client.putObject(stateRequest(blobKeyRaw, rawState));
 
             String stateURL = terraformStatePathService.getStateJsonPath(terraformJob.getOrganizationId(), terraformJob.getWorkspaceId(), stateFilename);
 
@@ -210,4 +197,9 @@ public class AwsTerraformStateImpl implements TerraformState {
         }
     }
 
-}
\ No newline at end of file
+    private PutObjectRequest stateRequest(String blobKey, File stateFile) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType("application/json");
+        return new PutObjectRequest(bucketName, blobKey, stateFile).withMetadata(metadata);
+    }
+}
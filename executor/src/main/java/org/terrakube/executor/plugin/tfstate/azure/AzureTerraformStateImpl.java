@@ -1,18 +1,14 @@
 package org.terrakube.executor.plugin.tfstate.azure;
 
-import com.azure.core.util.BinaryData;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClient;
-import com.azure.storage.blob.sas.BlobSasPermission;
-import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
-import com.azure.storage.common.sas.SasProtocol;
+import com.azure.storage.blob.models.BlobProperties;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.StringUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.text.TextStringBuilder;
@@ -20,6 +16,8 @@ import org.terrakube.client.TerrakubeClient;
 import org.terrakube.client.model.organization.workspace.history.History;
 import org.terrakube.client.model.organization.workspace.history.HistoryAttributes;
 import org.terrakube.client.model.organization.workspace.history.HistoryRequest;
+import org.terrakube.executor.plugin.tfstate.PlanChecksum;
+import org.terrakube.executor.plugin.tfstate.PlanFiles;
 import org.terrakube.executor.plugin.tfstate.TerraformState;
 import org.terrakube.executor.plugin.tfstate.TerraformStatePathService;
 import org.terrakube.executor.service.mode.TerraformJob;
@@ -28,7 +26,8 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.Charset;
-import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -101,7 +100,13 @@ public class AzureTerraformStateImpl implements TerraformState {
         File tfPlan = new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE);
         log.info("terraformStateFile Path: {} {}", workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE, tfPlan.exists());
         if (tfPlan.exists()) {
-            blobClient.uploadFromFile(tfPlan.getAbsolutePath());
+            Map<String, String> metadata = new HashMap<>();
+            try {
+                metadata.put(PlanChecksum.METADATA_KEY, PlanChecksum.of(tfPlan));
+            } catch (IOException e) {
+                log.error("Unable to generate plan checksum: {}", e.getMessage());
+            }
+            blobClient.uploadFromFile(tfPlan.getAbsolutePath(), null, null, metadata, null, null, null);
             return blobClient.getBlobUrl();
         } else {
             return null;
@@ -109,8 +114,8 @@ public class AzureTerraformStateImpl implements TerraformState {
     }
 
     @Override
-    public void saveStateJson(TerraformJob terraformJob, String applyJSON, String rawState) {
-        if (applyJSON != null) {
+    public void saveStateJson(TerraformJob terraformJob, File jsonState, File rawState) {
+        if (rawState != null) {
             BlobContainerClient blobContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME);
 
             log.info("blobContainerClient.exists {}", blobContainerClient.exists());
@@ -125,12 +130,9 @@ public class AzureTerraformStateImpl implements TerraformState {
             BlobClient blobClient = blobContainerClient.getBlobClient(blobName);
             BlobClient blobRawClient = blobContainerClient.getBlobClient(blobRawName);
 
-            byte[] bytes = StringUtils.getBytesUtf8(applyJSON);
-            byte[] rawBytes = StringUtils.getBytesUtf8(rawState);
-            String utf8EncodedString = StringUtils.newStringUtf8(bytes);
-            String rawUtf8EncodedString = StringUtils.newStringUtf8(rawBytes);
-            blobClient.upload(BinaryData.fromString(utf8EncodedString));
-            blobRawClient.upload(BinaryData.fromString(rawUtf8EncodedString));
+            if (jsonState != null)
+                blobClient.uploadFromFile(jsonState.getAbsolutePath(), true);
+            blobRawClient.uploadFromFile(rawState.getAbsolutePath(), true);
 
             String stateURL =  terraformStatePathService.getStateJsonPath(terraformJob.getOrganizationId(), terraformJob.getWorkspaceId(), stateFilename);
 
@@ -153,7 +155,7 @@ public class AzureTerraformStateImpl implements TerraformState {
     @Override
     public boolean downloadTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId, File workingDirectory) {
         AtomicBoolean planExists = new AtomicBoolean(false);
-        Optional.ofNullable(terrakubeClient.getJobById(organizationId, jobId).getData().getAttributes().getTerraformPlan())
+        Optional.ofNullable(PlanFiles.get(terrakubeClient.getJobById(organizationId, jobId).getData().getAttributes().getTerraformPlan(), workspaceId))
                 .ifPresent(stateUrl -> {
                     try {
                         log.info("Downloading state from {}:", stateUrl);
@@ -166,16 +168,9 @@ public class AzureTerraformStateImpl implements TerraformState {
                         BlobContainerClient blobContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME);
                         BlobClient blobClient = blobContainerClient.getBlobClient(blobName);
 
-                        BlobSasPermission blobSasPermission = new BlobSasPermission().setReadPermission(true);
-                        BlobServiceSasSignatureValues builder = new BlobServiceSasSignatureValues(OffsetDateTime.now().plusMinutes(5), blobSasPermission)
-                                .setProtocol(SasProtocol.HTTPS_ONLY);
-
-                        FileUtils.copyURLToFile(
-                                new URL(String.format("%s?%s", blobClient.getBlobUrl(), blobClient.generateSas(builder))),
-                                new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE),
-                                30000,
-                                30000);
-                        planExists.set(true);
+                        File tfPlanFile = new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE);
+                        BlobProperties blobProperties = blobClient.downloadToFile(tfPlanFile.getAbsolutePath(), true);
+                        planExists.set(PlanChecksum.verify(tfPlanFile, blobProperties.getMetadata().get(PlanChecksum.METADATA_KEY)));
                     } catch (IOException e) {
                         log.error(e.getMessage());
                     }
@@ -1,5 +1,6 @@
 package org.terrakube.executor.plugin.tfstate.gcp;
 
+import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
@@ -7,7 +8,6 @@ import lombok.Builder;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.codec.binary.StringUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.text.TextStringBuilder;
@@ -15,6 +15,8 @@ import org.terrakube.client.TerrakubeClient;
 import org.terrakube.client.model.organization.workspace.history.History;
 import org.terrakube.client.model.organization.workspace.history.HistoryAttributes;
 import org.terrakube.client.model.organization.workspace.history.HistoryRequest;
+import org.terrakube.executor.plugin.tfstate.PlanChecksum;
+import org.terrakube.executor.plugin.tfstate.PlanFiles;
 import org.terrakube.executor.plugin.tfstate.TerraformState;
 import org.terrakube.executor.plugin.tfstate.TerraformStatePathService;
 import org.terrakube.executor.service.mode.TerraformJob;
@@ -24,9 +26,9 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
@@ -97,8 +99,10 @@ public class GcpTerraformStateImpl implements TerraformState {
             String url = null;
             try {
                 BlobId blobId = BlobId.of(bucketName, blobKey);
-                BlobInfo blobInfo = BlobInfo.newBuilder(blobId).build();
-                storage.create(blobInfo, FileUtils.readFileToByteArray(tfPlanContent));
+                BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
+                        .setMetadata(Map.of(PlanChecksum.METADATA_KEY, PlanChecksum.of(tfPlanContent)))
+                        .build();
+                storage.createFrom(blobInfo, tfPlanContent.toPath());
                 url = String.format("https://storage.cloud.google.com/%s/%s", bucketName, blobKey);
                 log.info("File URL {}", url);
             } catch (IOException e) {
@@ -114,26 +118,23 @@ public class GcpTerraformStateImpl implements TerraformState {
     @Override
     public boolean downloadTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId, File workingDirectory) {
         AtomicBoolean planGcExist = new AtomicBoolean(false);
-        Optional.ofNullable(terrakubeClient.getJobById(organizationId, jobId).getData().getAttributes().getTerraformPlan())
+        Optional.ofNullable(PlanFiles.get(terrakubeClient.getJobById(organizationId, jobId).getData().getAttributes().getTerraformPlan(), workspaceId))
                 .ifPresent(stateUrl -> {
                     try {
                         log.info("Downloading state from {}:", stateUrl);
                         String buketNamePath = String.format("/%s/",bucketName);
-                        log.info("Generating pre-signed URL. {}", new URL(stateUrl).getPath().replace(buketNamePath, ""));
-
-                        // Define resource
-                        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucketName, new URL(stateUrl).getPath().replace(buketNamePath, ""))).build();
-
-                        URL signedUrl = storage.signUrl(blobInfo, 5, TimeUnit.MINUTES);
-
-                        log.info("Pre-Signed URL: " + signedUrl.toString());
-
-                        FileUtils.copyURLToFile(
-                                signedUrl,
-                                new File(FilenameUtils.concat(workingDirectory.getAbsolutePath() , TERRAFORM_PLAN_FILE)),
-                                30000,
-                                30000);
-                        planGcExist.set(true);
+                        log.info("Downloading plan {}", new URL(stateUrl).getPath().replace(buketNamePath, ""));
+
+                        Blob blob = storage.get(BlobId.of(bucketName, new URL(stateUrl).getPath().replace(buketNamePath, "")));
+                        if (blob == null) {
+                            log.error("Plan {} not found", stateUrl);
+                            return;
+                        }
+
+                        File tfPlanFile = new File(FilenameUtils.concat(workingDirectory.getAbsolutePath(), TERRAFORM_PLAN_FILE));
+                        blob.downloadTo(tfPlanFile.toPath());
+                        planGcExist.set(PlanChecksum.verify(tfPlanFile,
+                                blob.getMetadata() != null ? blob.getMetadata().get(PlanChecksum.METADATA_KEY) : null));
                     } catch (IOException e) {
                         log.error(e.getMessage());
                     }
@@ -142,23 +143,26 @@ public class GcpTerraformStateImpl implements TerraformState {
     }
 
     @Override
-    public void saveStateJson(TerraformJob terraformJob, String applyJSON, String rawState) {
-        if (applyJSON != null) {
+    public void saveStateJson(TerraformJob terraformJob, File jsonState, File rawState) {
+        if (rawState != null) {
             String stateFilename = UUID.randomUUID().toString();
             String blobKey = String.format("tfstate/%s/%s/state/%s.json", terraformJob.getOrganizationId(), terraformJob.getWorkspaceId(), stateFilename);
             String rawBlobKey = String.format("tfstate/%s/%s/state/%s.raw.json", terraformJob.getOrganizationId(), terraformJob.getWorkspaceId(), stateFilename);
             log.info("terraformGcpStateFile: {}", blobKey);
             log.info("terraformGcpRawStateFile: {}", rawBlobKey);
 
-            String utf8EncodedString = StringUtils.newStringUtf8(StringUtils.getBytesUtf8(applyJSON));
-            String rawUtf8EncodedString = StringUtils.newStringUtf8(StringUtils.getBytesUtf8(rawState));
-
             BlobId blobId = BlobId.of(bucketName, blobKey);
             BlobId rawBlobId = BlobId.of(bucketName, rawBlobKey);
-            BlobInfo blobInfo = BlobInfo.newBuilder(blobId).build();
-            BlobInfo rawBlobInfo = BlobInfo.newBuilder(rawBlobId).build();
-            storage.create(blobInfo, utf8EncodedString.getBytes());
-            storage.create(rawBlobInfo, rawUtf8EncodedString.getBytes());
+            BlobInfo blobInfo = BlobInfo.newBuilder(blobId).setContentType("application/json").build();
+            BlobInfo rawBlobInfo = BlobInfo.newBuilder(rawBlobId).setContentType("application/json").build();
+            try {
+                if (jsonState != null)
+                    storage.createFrom(blobInfo, jsonState.toPath());
+                storage.createFrom(rawBlobInfo, rawState.toPath());
+            } catch (IOException e) {
+                log.error("Unable to upload state: {}", e.getMessage());
+                return;
+            }
             log.info("File uploaded to bucket {} as {}", bucketName, blobKey);
             log.info("File uploaded to bucket {} as {}", bucketName, rawBlobKey);
 
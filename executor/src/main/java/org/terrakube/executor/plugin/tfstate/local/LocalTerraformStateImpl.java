@@ -20,6 +20,7 @@ import org.terrakube.client.TerrakubeClient;
 import org.terrakube.client.model.organization.workspace.history.History;
 import org.terrakube.client.model.organization.workspace.history.HistoryAttributes;
 import org.terrakube.client.model.organization.workspace.history.HistoryRequest;
+import org.terrakube.executor.plugin.tfstate.PlanFiles;
 import org.terrakube.executor.plugin.tfstate.TerraformState;
 import org.terrakube.executor.plugin.tfstate.TerraformStatePathService;
 import org.terrakube.executor.service.mode.TerraformJob;
@@ -106,7 +107,7 @@ public class LocalTerraformStateImpl implements TerraformState {
                                          File workingDirectory) {
         AtomicBoolean planExists = new AtomicBoolean(false);
         Optional.ofNullable(
-                        terrakubeClient.getJobById(organizationId, jobId).getData().getAttributes().getTerraformPlan())
+                        PlanFiles.get(terrakubeClient.getJobById(organizationId, jobId).getData().getAttributes().getTerraformPlan(), workspaceId))
                 .ifPresent(stateFilePath -> {
                     try {
                         log.info("Copying state from {}:", stateFilePath);
@@ -126,8 +127,8 @@ public class LocalTerraformStateImpl implements TerraformState {
     }
 
     @Override
-    public void saveStateJson(TerraformJob terraformJob, String applyJSON, String rawState) {
-        if (applyJSON != null) {
+    public void saveStateJson(TerraformJob terraformJob, File jsonState, File rawState) {
+        if (rawState != null) {
             String stateFilenameUUID = UUID.randomUUID().toString();
             String stateFileName = String.format(LOCAL_PLAN_DIRECTORY_JSON, terraformJob.getOrganizationId(),
                     terraformJob.getWorkspaceId(), stateFilenameUUID);
@@ -144,8 +145,9 @@ public class LocalTerraformStateImpl implements TerraformState {
                                     stateFileName.replace(".json", ".raw.json"))));
 
             try {
-                FileUtils.writeStringToFile(localStateFile, applyJSON, Charset.defaultCharset());
-                FileUtils.writeStringToFile(localRawStateFile, rawState, Charset.defaultCharset());
+                if (jsonState != null)
+                    FileUtils.copyFile(jsonState, localStateFile);
+                FileUtils.copyFile(rawState, localRawStateFile);
 
                 String stateURL = terraformStatePathService.getStateJsonPath(terraformJob.getOrganizationId(),
                         terraformJob.getWorkspaceId(), stateFilenameUUID);
@@ -0,0 +1,116 @@
+package org.terrakube.executor.service.cancel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The api publishes the id of a cancelled job in the cancel channel. The executor running the job sends SIGINT to the
+ * terraform and script processes started in the working directory of every step of the job so terraform stops
+ * gracefully, the processes still alive after the timeout get SIGTERM. The step threads then complete as failed and
+ * the executor slots are released.
+ */
+@Slf4j
+@Service
+public class JobCancellationService implements MessageListener {
+
+    public static final String CANCEL_CHANNEL = "terrakube:executor:cancel";
+
+    // steps of the same job run in parallel in their own working directory, running steps are kept by job and step id
+    private final Map<String, Map<String, File>> runningJobs = new ConcurrentHashMap<>();
+    private final long timeoutSeconds;
+
+    public JobCancellationService(@Value("${org.terrakube.executor.cancel.timeout:15}") long timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public void register(String jobId, String stepId, File workingDirectory) {
+        runningJobs.computeIfAbsent(jobId, key -> new ConcurrentHashMap<>()).put(stepId, workingDirectory);
+    }
+
+    public void unregister(String jobId, String stepId) {
+        runningJobs.computeIfPresent(jobId, (key, runningSteps) -> {
+            runningSteps.remove(stepId);
+            return runningSteps.isEmpty() ? null : runningSteps;
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String jobId = new String(message.getBody(), StandardCharsets.UTF_8).trim();
+        Map<String, File> runningSteps = runningJobs.get(jobId);
+        if (runningSteps == null)
+            return;
+
+        for (Map.Entry<String, File> runningStep : Map.copyOf(runningSteps).entrySet()) {
+            log.warn("Job {} was cancelled, stopping processes of step {} running in {}", jobId, runningStep.getKey(), runningStep.getValue().getAbsolutePath());
+            CompletableFuture.runAsync(() -> cancel(jobId, runningStep.getValue()));
+        }
+    }
+
+    private void cancel(String jobId, File workingDirectory) {
+        List<ProcessHandle> processes = ProcessHandle.current().children()
+                .filter(process -> isRunningIn(process, workingDirectory))
+                .toList();
+        if (processes.isEmpty()) {
+            log.warn("No processes running for job {}", jobId);
+            return;
+        }
+
+        for (ProcessHandle process : processes) {
+            log.warn("Sending SIGINT to process {} of job {}", process.pid(), jobId);
+            interrupt(process);
+        }
+
+        for (ProcessHandle process : processes) {
+            try {
+                process.onExit().get(timeoutSeconds, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Process {} of job {} still running after {} seconds, sending SIGTERM", process.pid(), jobId, timeoutSeconds);
+                process.descendants().forEach(ProcessHandle::destroy);
+                process.destroy();
+            } catch (Exception e) {
+                log.error("Unable to wait for process {} of job {}: {}", process.pid(), jobId, e.getMessage());
+                if (e instanceof InterruptedException)
+                    Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static boolean isRunningIn(ProcessHandle process, File workingDirectory) {
+        try {
+            Path processDirectory = Files.readSymbolicLink(Path.of("/proc", String.valueOf(process.pid()), "cwd"));
+            return processDirectory.startsWith(workingDirectory.getCanonicalFile().toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("Unable to read working directory of process {}: {}", process.pid(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * ProcessHandle only supports SIGTERM and SIGKILL, SIGINT is sent with kill like an interactive terraform stop
+     */
+    private static void interrupt(ProcessHandle process) {
+        try {
+            new ProcessBuilder("kill", "-INT", String.valueOf(process.pid())).start().waitFor(5, TimeUnit.SECONDS);
+        } catch (IOException e) {
+            log.error("Unable to send SIGINT to process {}: {}", process.pid(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
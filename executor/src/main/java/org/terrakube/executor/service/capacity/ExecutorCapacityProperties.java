@@ -0,0 +1,23 @@
+package org.terrakube.executor.service.capacity;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
+@PropertySource(value = "classpath:application-${spring.profiles.active}.properties", ignoreResourceNotFound = true)
+@ConfigurationProperties(prefix = "org.terrakube.executor.capacity")
+public class ExecutorCapacityProperties {
+
+    private boolean enabled;
+    private String executorId;
+    private String url;
+    private int slots = 1;
+    private int heartbeat = 15;
+    private int cacheSize = 50;
+}
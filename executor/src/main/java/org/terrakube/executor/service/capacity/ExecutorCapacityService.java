@@ -0,0 +1,142 @@
+package org.terrakube.executor.service.capacity;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.terrakube.executor.configuration.ExecutorFlagsProperties;
+import org.terrakube.executor.service.mode.TerraformJob;
+import org.terrakube.executor.service.plan.PlanCacheService;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the jobs running in this executor and advertises the free slots, running jobs and the workspaces,
+ * repositories, terraform versions and plans already cached on disk so the api can route new jobs to the least loaded executor.
+ */
+@Slf4j
+@Service
+public class ExecutorCapacityService {
+
+    public static final String EXECUTOR_SET = "terrakube:executors";
+    public static final String EXECUTOR_KEY = "terrakube:executor:%s";
+
+    private final ExecutorCapacityProperties capacityProperties;
+    private final ExecutorFlagsProperties executorFlagsProperties;
+    private final RedisTemplate redisTemplate;
+    private final PlanCacheService planCacheService;
+    private final String executorId;
+
+    // steps of the same job can run in parallel in this executor, every step takes its own slot
+    private final Map<String, String> runningJobs = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> cachedWorkspaces;
+    private final Map<String, Boolean> cachedSources;
+    private final Map<String, Boolean> cachedVersions;
+
+    public ExecutorCapacityService(ExecutorCapacityProperties capacityProperties, ExecutorFlagsProperties executorFlagsProperties, RedisTemplate redisTemplate, PlanCacheService planCacheService) {
+        this.capacityProperties = capacityProperties;
+        this.executorFlagsProperties = executorFlagsProperties;
+        this.redisTemplate = redisTemplate;
+        this.planCacheService = planCacheService;
+        this.executorId = capacityProperties.getExecutorId() != null && !capacityProperties.getExecutorId().isEmpty()
+                ? capacityProperties.getExecutorId()
+                : getHostname();
+        this.cachedWorkspaces = lruMap(capacityProperties.getCacheSize());
+        this.cachedSources = lruMap(capacityProperties.getCacheSize());
+        this.cachedVersions = lruMap(capacityProperties.getCacheSize());
+    }
+
+    public boolean isEnabled() {
+        return capacityProperties.isEnabled() && !executorFlagsProperties.isEphemeral();
+    }
+
+    public synchronized boolean tryAcquire(TerraformJob terraformJob) {
+        if (!isEnabled())
+            return true;
+
+        if (runningJobs.containsKey(getStepKey(terraformJob))) {
+            log.warn("Job {} step {} is already running in executor {}", terraformJob.getJobId(), terraformJob.getStepId(), executorId);
+            return true;
+        }
+
+        if (getFreeSlots() <= 0) {
+            log.warn("Executor {} has no free slots, rejecting job {} step {}", executorId, terraformJob.getJobId(), terraformJob.getStepId());
+            return false;
+        }
+
+        runningJobs.put(getStepKey(terraformJob), terraformJob.getJobId());
+        publishCapacity();
+        return true;
+    }
+
+    public synchronized void release(TerraformJob terraformJob) {
+        if (terraformJob.getWorkspaceId() != null)
+            cachedWorkspaces.put(terraformJob.getWorkspaceId(), Boolean.TRUE);
+        if (terraformJob.getSource() != null)
+            cachedSources.put(terraformJob.getSource(), Boolean.TRUE);
+        if (terraformJob.getTerraformVersion() != null)
+            cachedVersions.put(terraformJob.getTerraformVersion(), Boolean.TRUE);
+
+        if (runningJobs.remove(getStepKey(terraformJob)) != null && isEnabled())
+            publishCapacity();
+    }
+
+    public int getFreeSlots() {
+        return Math.max(0, capacityProperties.getSlots() - runningJobs.size());
+    }
+
+    @Scheduled(fixedDelayString = "${org.terrakube.executor.capacity.heartbeat:15}", timeUnit = TimeUnit.SECONDS)
+    public void heartbeat() {
+        if (isEnabled())
+            publishCapacity();
+    }
+
+    private synchronized void publishCapacity() {
+        try {
+            String executorKey = String.format(EXECUTOR_KEY, executorId);
+            Map<String, String> capacity = new HashMap<>();
+            capacity.put("id", executorId);
+            capacity.put("url", capacityProperties.getUrl());
+            capacity.put("slots", String.valueOf(capacityProperties.getSlots()));
+            capacity.put("freeSlots", String.valueOf(getFreeSlots()));
+            capacity.put("runningJobs", String.join(",", new TreeSet<>(runningJobs.values())));
+            capacity.put("workspaces", String.join(",", cachedWorkspaces.keySet()));
+            capacity.put("sources", String.join(",", cachedSources.keySet()));
+            capacity.put("terraformVersions", String.join(",", cachedVersions.keySet()));
+            capacity.put("plans", String.join(",", planCacheService.getCachedPlans()));
+            capacity.put("updated", String.valueOf(System.currentTimeMillis()));
+
+            redisTemplate.opsForHash().putAll(executorKey, capacity);
+            redisTemplate.expire(executorKey, capacityProperties.getHeartbeat() * 3L, TimeUnit.SECONDS);
+            redisTemplate.opsForSet().add(EXECUTOR_SET, executorId);
+            log.debug("Executor {} free slots {}", executorId, capacity.get("freeSlots"));
+        } catch (Exception ex) {
+            log.error("Unable to publish executor capacity: {}", ex.getMessage());
+        }
+    }
+
+    private static String getStepKey(TerraformJob terraformJob) {
+        return terraformJob.getJobId() + "/" + terraformJob.getStepId();
+    }
+
+    private static <K> Map<K, Boolean> lruMap(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    private static String getHostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+}
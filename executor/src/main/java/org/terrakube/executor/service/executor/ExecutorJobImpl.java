@@ -4,8 +4,10 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.text.TextStringBuilder;
 import org.terrakube.executor.configuration.ExecutorFlagsProperties;
+import org.terrakube.executor.service.cancel.JobCancellationService;
+import org.terrakube.executor.service.capacity.ExecutorCapacityService;
+import org.terrakube.executor.service.logs.StepOutputSpool;
 import org.terrakube.executor.service.mode.TerraformJob;
 import org.terrakube.executor.service.scripts.ScriptEngineService;
 import org.terrakube.executor.service.workspace.SetupWorkspace;
@@ -30,13 +32,31 @@ public class ExecutorJobImpl implements ExecutorJob {
     ExecutorFlagsProperties executorFlagsProperties;
     ShutdownServiceImpl shutdownService;
     ScriptEngineService scriptEngineService;
+    ExecutorCapacityService executorCapacityService;
+    JobCancellationService jobCancellationService;
 
     @Async
     @Override
     public void createJob(TerraformJob terraformJob) {
+        File terraformWorkingDir = null;
+        try {
+            terraformWorkingDir = setupWorkspace.prepareWorkspace(terraformJob);
+            jobCancellationService.register(terraformJob.getJobId(), terraformJob.getStepId(), terraformWorkingDir);
+            runJob(terraformJob, terraformWorkingDir);
+        } finally {
+            jobCancellationService.unregister(terraformJob.getJobId(), terraformJob.getStepId());
+            if (terraformWorkingDir != null)
+                setupWorkspace.releaseWorkspace(terraformWorkingDir);
+            executorCapacityService.release(terraformJob);
+        }
+
+        if (executorFlagsProperties.isEphemeral())
+            shutdownService.shutdownApplication();
+    }
+
+    private void runJob(TerraformJob terraformJob, File terraformWorkingDir) {
         log.info("Create Job for Organization {} Workspace {} ", terraformJob.getOrganizationId(), terraformJob.getWorkspaceId());
         boolean executionSuccess = true;
-        File terraformWorkingDir = setupWorkspace.prepareWorkspace(terraformJob);
 
         String commitId = "000000000";
         ExecutorJobResult terraformResult = new ExecutorJobResult();
@@ -63,34 +83,36 @@ public class ExecutorJobImpl implements ExecutorJob {
             case "customScripts":
             case "approval":
                 log.info("Execute Groovy Script for Organization {} Workspace {} ", terraformJob.getOrganizationId(), terraformJob.getWorkspaceId());
-                TextStringBuilder scriptOutput = new TextStringBuilder();
-                TextStringBuilder scriptErrorOutput = new TextStringBuilder();
-                Consumer<String> output = outputScripts -> scriptOutput.appendln(outputScripts);
+                StepOutputSpool scriptOutput = new StepOutputSpool(terraformJob.getStepId());
+                Consumer<String> output = scriptOutput::append;
                 executionSuccess = scriptEngineService.execute(terraformJob, terraformJob.getCommandList(), terraformWorkingDir, output);
-                terraformResult.setOutputLog(scriptOutput.toString());
-                terraformResult.setOutputErrorLog(scriptErrorOutput.toString());
+                terraformResult.setOutput(scriptOutput);
                 terraformResult.setSuccessfulExecution(executionSuccess);
                 break;
             default:
                 terraformResult = new ExecutorJobResult();
-                terraformResult.setOutputLog("Command Completed");
-                terraformResult.setOutputErrorLog("Command type not defined");
+                StepOutputSpool commandOutput = new StepOutputSpool(terraformJob.getStepId());
+                commandOutput.append("Command Completed");
+                commandOutput.append("Command type not defined");
+                terraformResult.setOutput(commandOutput);
                 terraformResult.setSuccessfulExecution(false);
                 break;
         }
 
 
         executionSuccess = terraformResult.isSuccessfulExecution();
-        updateJobStatus.setCompletedStatus(executionSuccess, terraformResult.isPlan, terraformResult.getExitCode(), terraformJob, terraformResult.getOutputLog(), terraformResult.getOutputErrorLog(), terraformResult.getPlanFile(), commitId);
+        try {
+            updateJobStatus.setCompletedStatus(executionSuccess, terraformResult.isPlan, terraformResult.getExitCode(), terraformJob, terraformResult.getOutput(), terraformResult.getPlanFile(), commitId);
+        } finally {
+            if (terraformResult.getOutput() != null)
+                terraformResult.getOutput().delete();
+        }
 
         try {
             FileUtils.cleanDirectory(terraformWorkingDir);
         } catch (IOException e) {
             log.error(e.getMessage());
         }
-
-        if (executorFlagsProperties.isEphemeral())
-            shutdownService.shutdownApplication();
     }
 
     private static String getCommitId(File workspaceFolder) {
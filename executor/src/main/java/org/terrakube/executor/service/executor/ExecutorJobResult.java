@@ -2,14 +2,14 @@ package org.terrakube.executor.service.executor;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.terrakube.executor.service.logs.StepOutputSpool;
 
 @Getter
 @Setter
 public class ExecutorJobResult {
     boolean successfulExecution;
     String planFile;
-    String outputLog;
-    String outputErrorLog;
+    StepOutputSpool output;
     int exitCode;
     boolean isPlan;
 }
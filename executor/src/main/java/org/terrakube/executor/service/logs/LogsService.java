@@ -1,20 +1,41 @@
 package org.terrakube.executor.service.logs;
 
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service
 @Slf4j
-@AllArgsConstructor
 public class LogsService implements ProcessLogs {
 
     RedisTemplate redisTemplate;
 
+    private final Counter linesCounter;
+    private final DistributionSummary lineBytes;
+    private final Timer streamAddTimer;
+
+    public LogsService(RedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.linesCounter = Counter.builder("terrakube.logs.lines")
+                .description("Log lines sent to redis")
+                .register(meterRegistry);
+        this.lineBytes = DistributionSummary.builder("terrakube.logs.entry.size")
+                .description("Size of every log entry sent to redis")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.streamAddTimer = Timer.builder("terrakube.logs.xadd")
+                .description("Redis XADD latency")
+                .register(meterRegistry);
+    }
+
     @Override
     public void sendLogs(Integer jobId, String stepId, int lineNumber, String output) {
         Map<String, String> streamData = new LinkedHashMap();
@@ -23,10 +44,13 @@ public class LogsService implements ProcessLogs {
         streamData.put("lineNumber", String.valueOf(lineNumber));
         streamData.put("output", output);
 
-        redisTemplate.opsForStream().add(jobId.toString(), streamData);
+        streamAddTimer.record(() -> redisTemplate.opsForStream().add(jobId.toString(), streamData));
+        linesCounter.increment();
+        if (output != null)
+            lineBytes.record(output.getBytes(StandardCharsets.UTF_8).length);
     }
 
     public void deleteLogs(String jobId) {
         redisTemplate.delete(jobId);
     }
-}
\ No newline at end of file
+}
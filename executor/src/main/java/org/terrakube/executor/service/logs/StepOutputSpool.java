@@ -0,0 +1,97 @@
+package org.terrakube.executor.service.logs;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Step output written to a gzip temp file as the lines arrive, the executor only keeps the compression buffer in memory
+ * and the tfoutput plugin uploads the compressed file when the step is completed
+ */
+@Slf4j
+public class StepOutputSpool implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Getter
+    private File file;
+    private Writer writer;
+    @Getter
+    private long lines;
+
+    public StepOutputSpool(String stepId) {
+        try {
+            file = Files.createTempFile("terrakube-" + stepId + "-", ".tfoutput.gz").toFile();
+            writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(new FileOutputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE);
+        } catch (IOException e) {
+            log.error("Unable to create output spool for step {}: {}", stepId, e.getMessage());
+        }
+    }
+
+    public synchronized void append(String line) {
+        if (writer == null)
+            return;
+        try {
+            writer.write(line);
+            writer.write('\n');
+            lines++;
+        } catch (IOException e) {
+            log.error("Unable to write step output: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Append the lines of another spool, the other spool is finished and can not receive more lines
+     */
+    public void append(StepOutputSpool spool) {
+        File spoolFile = spool.finish();
+        if (spoolFile == null)
+            return;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(spoolFile), BUFFER_SIZE), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null)
+                append(line);
+        } catch (IOException e) {
+            log.error("Unable to read step output: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Finish the gzip stream, no more lines are accepted after this
+     *
+     * @return the compressed output or null if the spool could not be created
+     */
+    public synchronized File finish() {
+        close();
+        return file != null && file.exists() ? file : null;
+    }
+
+    public long getSize() {
+        return file != null ? file.length() : 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer == null)
+            return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.error("Unable to close step output: {}", e.getMessage());
+        }
+        writer = null;
+    }
+
+    public void delete() {
+        close();
+        FileUtils.deleteQuietly(file);
+    }
+}
@@ -26,7 +26,6 @@ public class TerraformJob {
     private String accessToken;
     private String connectionType;
     private String terraformOutput;
-    private String rawState;
     private boolean showHeader;
     private boolean refresh;
     private boolean refreshOnly;
@@ -34,6 +33,9 @@ public class TerraformJob {
     private String commitId;
     private boolean tofu;
     private String agentUrl;
+    private String stateKey;
+    private String terraformPlan;
+    private String sshDirectory;
     private HashMap<String, String> environmentVariables;
     private HashMap<String, String> variables;
 
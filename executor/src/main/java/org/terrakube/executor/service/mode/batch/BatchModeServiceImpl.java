@@ -2,10 +2,17 @@ package org.terrakube.executor.service.mode.batch;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
 import org.terrakube.executor.configuration.ExecutorFlagsProperties;
 import org.terrakube.executor.service.executor.ExecutorJob;
 import org.terrakube.executor.service.mode.TerraformJob;
+import org.terrakube.executor.service.shutdown.ShutdownServiceImpl;
+import org.terrakube.executor.service.workspace.security.WorkspaceSecurity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Service;
@@ -13,29 +20,106 @@ import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 public class BatchModeServiceImpl implements ApplicationListener<ContextRefreshedEvent> {
 
+    private static final long ASSIGNMENT_POLL_INTERVAL = 2000;
+
     @Autowired
     ExecutorJob executorJob;
 
     @Autowired
     ExecutorFlagsProperties executorFlagsProperties;
 
+    @Autowired
+    OkHttpClient okHttpClient;
+
+    @Autowired
+    WorkspaceSecurity workspaceSecurity;
+
+    @Autowired
+    ShutdownServiceImpl shutdownService;
+
+    @Autowired
+    ColdStartService coldStartService;
+
+    @Value("${org.terrakube.client.url}")
+    String terrakubeApiUrl;
+
     @Override
     public void onApplicationEvent(ContextRefreshedEvent contextRefreshedEvent) {
+        coldStartService.contextReady();
         log.info("Ephemeral mode is enable: {}", executorFlagsProperties.isEphemeral());
         if (executorFlagsProperties.isEphemeral())
-            try {
-                log.info("Running in ephemeral mode....");
-                String batchJob = new String(Base64.getDecoder().decode(executorFlagsProperties.getEphemeralJobData()), StandardCharsets.UTF_8);
-                TerraformJob terraformJob = new ObjectMapper().readValue(batchJob, TerraformJob.class);
-                log.info("Creating ephemeral job....");
-                executorJob.createJob(terraformJob);
+            if (isWarmExecutor()) {
+                log.info("Running in ephemeral warm pool mode....");
+                new Thread(this::waitForAssignment, "warm-pool-assignment").start();
+            } else
+                try {
+                    log.info("Running in ephemeral mode....");
+                    String batchJob = new String(Base64.getDecoder().decode(executorFlagsProperties.getEphemeralJobData()), StandardCharsets.UTF_8);
+                    runBatchJob(batchJob);
+                } catch (IOException exception) {
+                    log.error(exception.getMessage());
+                }
+    }
+
+    private boolean isWarmExecutor() {
+        return (executorFlagsProperties.getEphemeralJobData() == null || executorFlagsProperties.getEphemeralJobData().isEmpty())
+                && executorFlagsProperties.getEphemeralWarmPool() != null
+                && !executorFlagsProperties.getEphemeralWarmPool().isEmpty();
+    }
+
+    private void runBatchJob(String batchJob) throws IOException {
+        TerraformJob terraformJob = new ObjectMapper().readValue(batchJob, TerraformJob.class);
+        log.info("Creating ephemeral job....");
+        executorJob.createJob(terraformJob);
+    }
+
+    private void waitForAssignment() {
+        long idleLimit = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(executorFlagsProperties.getEphemeralWarmPoolIdleMinutes());
+        HttpUrl assignmentUrl = HttpUrl.parse(terrakubeApiUrl)
+                .newBuilder()
+                .addPathSegments("ephemeral/v1/assignment")
+                .addPathSegment(executorFlagsProperties.getEphemeralWarmPool())
+                .addQueryParameter("jobName", executorFlagsProperties.getEphemeralWarmPoolJobName())
+                .build();
+
+        while (System.currentTimeMillis() < idleLimit && !Thread.currentThread().isInterrupted()) {
+            Request request = new Request.Builder()
+                    .url(assignmentUrl)
+                    .header("Authorization", "Bearer " + workspaceSecurity.generateAccessToken(5))
+                    .get()
+                    .build();
+            try (Response response = okHttpClient.newCall(request).execute()) {
+                if (response.code() == 200 && response.body() != null) {
+                    runBatchJob(response.body().string());
+                    return;
+                }
+                if (response.code() != 204) {
+                    log.warn("Unexpected warm pool assignment response {}", response.code());
+                    sleepQuietly(5000);
+                } else {
+                    sleepQuietly(ASSIGNMENT_POLL_INTERVAL);
+                }
             } catch (IOException exception) {
-                log.error(exception.getMessage());
+                log.error("Unable to get warm pool assignment: {}", exception.getMessage());
+                sleepQuietly(5000);
             }
+        }
+
+        log.info("Warm executor was idle for {} minutes, shutting down", executorFlagsProperties.getEphemeralWarmPoolIdleMinutes());
+        shutdownService.shutdownApplication();
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package org.terrakube.executor.service.mode.batch;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.terrakube.executor.configuration.ExecutorFlagsProperties;
+import org.terrakube.executor.service.mode.TerraformJob;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Time from the JVM start to the first terraform command of an ephemeral executor. Ephemeral executors run a single job
+ * so this is the startup latency added to every job, it is logged and written to the job output with the time spent
+ * starting the spring context and preparing the workspace. Online executors start once for many jobs and do not
+ * record it.
+ */
+@Slf4j
+@Service
+public class ColdStartService {
+
+    private final MeterRegistry meterRegistry;
+    private final ExecutorFlagsProperties executorFlagsProperties;
+    private final AtomicLong contextReady = new AtomicLong(-1);
+    private final AtomicBoolean reported = new AtomicBoolean(false);
+
+    public ColdStartService(MeterRegistry meterRegistry, ExecutorFlagsProperties executorFlagsProperties) {
+        this.meterRegistry = meterRegistry;
+        this.executorFlagsProperties = executorFlagsProperties;
+    }
+
+    public void contextReady() {
+        contextReady.compareAndSet(-1, ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    public void firstCommand(TerraformJob terraformJob, Consumer<String> output) {
+        if (!executorFlagsProperties.isEphemeral() || !reported.compareAndSet(false, true))
+            return;
+
+        long coldStart = ManagementFactory.getRuntimeMXBean().getUptime();
+        meterRegistry.timer("terrakube.executor.coldstart").record(coldStart, TimeUnit.MILLISECONDS);
+        log.info("Executor cold start for job {}: first terraform command after {} ms, context ready after {} ms",
+                terraformJob.getJobId(), coldStart, contextReady.get());
+
+        if (contextReady.get() >= 0)
+            output.accept(String.format("Executor started in %d ms (spring context %d ms, workspace setup %d ms)",
+                    coldStart, contextReady.get(), coldStart - contextReady.get()));
+    }
+}
@@ -1,8 +1,10 @@
 package org.terrakube.executor.service.mode.online;
 
+import org.terrakube.executor.service.capacity.ExecutorCapacityService;
 import org.terrakube.executor.service.mode.TerraformJob;
 import org.terrakube.executor.service.executor.ExecutorJob;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -15,10 +17,18 @@ public class OnlineModeServiceImpl {
     @Autowired
     ExecutorJob executorJob;
 
+    @Autowired
+    ExecutorCapacityService executorCapacityService;
+
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.ACCEPTED)
 
     public ResponseEntity<TerraformJob> terraformJob(@RequestBody TerraformJob terraformJob) {
+        if (!executorCapacityService.tryAcquire(terraformJob)) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "5");
+            return new ResponseEntity<>(headers, HttpStatus.TOO_MANY_REQUESTS);
+        }
         executorJob.createJob(terraformJob);
         return new ResponseEntity<TerraformJob>(terraformJob, HttpStatus.ACCEPTED);
     }
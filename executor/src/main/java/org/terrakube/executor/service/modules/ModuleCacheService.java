@@ -0,0 +1,185 @@
+package org.terrakube.executor.service.modules;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.FileFilterUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.terrakube.executor.configuration.ExecutorFlagsProperties;
+import org.terrakube.executor.service.mode.TerraformJob;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the modules downloaded by terraform init so the next step with the same dependencies does not download them
+ * again. The key is a hash of .terraform.lock.hcl and the module sources and versions found in the terraform files,
+ * the cached .terraform/modules folder is restored before init and terraform only installs the modules that do not
+ * match. Configurations with git refs or registry modules without a version are not cached because the same source
+ * can resolve to new code. The organization is part of the key, private modules downloaded with the credentials of one
+ * organization are never restored in the working directory of another one.
+ */
+@Slf4j
+@Service
+public class ModuleCacheService {
+
+    private static final String CACHE_DIRECTORY = "%s/.terraform-spring-boot/executor/modules";
+    private static final String MODULES_DIRECTORY = ".terraform/modules";
+    private static final String LOCK_FILE = ".terraform.lock.hcl";
+    private static final Pattern MODULE_BLOCK = Pattern.compile("module\\s+\"[^\"]+\"\\s*\\{(.*?)\\n\\s*}", Pattern.DOTALL);
+    private static final Pattern SOURCE = Pattern.compile("^\\s*source\\s*=\\s*\"([^\"]+)\"", Pattern.MULTILINE);
+    private static final Pattern VERSION = Pattern.compile("^\\s*version\\s*=\\s*\"([^\"]+)\"", Pattern.MULTILINE);
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong cacheSize;
+    private final File cacheDirectory;
+    private final long maxCacheBytes;
+    private final boolean enabled;
+
+    public ModuleCacheService(MeterRegistry meterRegistry,
+                              ExecutorFlagsProperties executorFlagsProperties,
+                              @Value("${org.terrakube.executor.modules.cacheSizeMb:1024}") long cacheSizeMb) {
+        this.meterRegistry = meterRegistry;
+        this.cacheSize = meterRegistry.gauge("terrakube.executor.modules.cache.size", new AtomicLong());
+        this.cacheDirectory = new File(String.format(CACHE_DIRECTORY, FileUtils.getUserDirectoryPath()));
+        this.maxCacheBytes = cacheSizeMb * 1024 * 1024;
+        this.enabled = cacheSizeMb > 0 && !executorFlagsProperties.isEphemeral();
+    }
+
+    /**
+     * Restore the cached modules in the working directory
+     *
+     * @return the cache key to save the modules after init when the modules were not cached, null otherwise
+     */
+    public String restore(TerraformJob terraformJob, File workingDirectory) {
+        if (!enabled)
+            return null;
+
+        String cacheKey;
+        try {
+            cacheKey = getCacheKey(terraformJob, workingDirectory);
+        } catch (IOException e) {
+            log.error("Unable to generate module cache key: {}", e.getMessage());
+            cacheKey = null;
+        }
+        if (cacheKey == null) {
+            count("skip");
+            return null;
+        }
+
+        File cachedModules = new File(cacheDirectory, cacheKey);
+        if (!cachedModules.isDirectory()) {
+            count("miss");
+            return cacheKey;
+        }
+
+        try {
+            FileUtils.copyDirectory(cachedModules, new File(workingDirectory, MODULES_DIRECTORY));
+            cachedModules.setLastModified(System.currentTimeMillis());
+            count("hit");
+            log.info("Restored terraform modules from cache {}", cacheKey);
+            return null;
+        } catch (IOException e) {
+            log.error("Unable to restore cached modules {}: {}", cacheKey, e.getMessage());
+            FileUtils.deleteQuietly(new File(workingDirectory, MODULES_DIRECTORY));
+            count("miss");
+            return cacheKey;
+        }
+    }
+
+    public void save(String cacheKey, File workingDirectory) {
+        if (!enabled)
+            return;
+
+        File modules = new File(workingDirectory, MODULES_DIRECTORY);
+        if (cacheKey == null || !modules.isDirectory())
+            return;
+
+        File cachedModules = new File(cacheDirectory, cacheKey);
+        File tempModules = new File(cacheDirectory, cacheKey + "." + UUID.randomUUID() + ".tmp");
+        try {
+            FileUtils.copyDirectory(modules, tempModules);
+            Files.move(tempModules.toPath(), cachedModules.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            log.info("Terraform modules saved in cache {}", cacheKey);
+            evict();
+        } catch (IOException e) {
+            log.warn("Unable to save modules in cache {}: {}", cacheKey, e.getMessage());
+        } finally {
+            FileUtils.deleteQuietly(tempModules);
+        }
+    }
+
+    private String getCacheKey(TerraformJob terraformJob, File workingDirectory) throws IOException {
+        List<String> modules = new ArrayList<>();
+        Collection<File> terraformFiles = FileUtils.listFiles(workingDirectory,
+                FileFilterUtils.suffixFileFilter(".tf"),
+                FileFilterUtils.notFileFilter(FileFilterUtils.nameFileFilter(".terraform")));
+        for (File terraformFile : terraformFiles) {
+            Matcher moduleBlock = MODULE_BLOCK.matcher(FileUtils.readFileToString(terraformFile, StandardCharsets.UTF_8));
+            while (moduleBlock.find()) {
+                Matcher source = SOURCE.matcher(moduleBlock.group(1));
+                if (!source.find())
+                    continue;
+                Matcher version = VERSION.matcher(moduleBlock.group(1));
+                String moduleVersion = version.find() ? version.group(1) : null;
+                if (!isPinned(source.group(1), moduleVersion)) {
+                    log.info("Module {} is not pinned, skipping module cache", source.group(1));
+                    return null;
+                }
+                modules.add(source.group(1) + "|" + moduleVersion);
+            }
+        }
+
+        if (modules.stream().allMatch(module -> isLocal(module.split("\\|")[0])))
+            return null;
+
+        Collections.sort(modules);
+        File lockFile = new File(workingDirectory, LOCK_FILE);
+        String lock = lockFile.exists() ? FileUtils.readFileToString(lockFile, StandardCharsets.UTF_8) : "";
+        return DigestUtils.sha256Hex(String.join("\n", terraformJob.getOrganizationId(), terraformJob.isTofu() ? "tofu" : "terraform", lock, String.join("\n", modules)));
+    }
+
+    private static boolean isPinned(String source, String version) {
+        if (isLocal(source))
+            return true;
+        if (source.contains("::") || source.startsWith("git@") || source.startsWith("http://") || source.startsWith("https://")
+                || source.startsWith("github.com/") || source.startsWith("bitbucket.org/"))
+            return source.contains("ref=");
+        return version != null && !version.isEmpty();
+    }
+
+    private static boolean isLocal(String source) {
+        return source.startsWith("./") || source.startsWith("../");
+    }
+
+    private void evict() {
+        File[] cachedEntries = cacheDirectory.listFiles(file -> file.isDirectory() && !file.getName().endsWith(".tmp"));
+        if (cachedEntries == null)
+            return;
+
+        Arrays.sort(cachedEntries, Comparator.comparingLong(File::lastModified));
+        long totalSize = Arrays.stream(cachedEntries).mapToLong(FileUtils::sizeOfDirectory).sum();
+        for (File cachedEntry : cachedEntries) {
+            if (totalSize <= maxCacheBytes)
+                break;
+            long entrySize = FileUtils.sizeOfDirectory(cachedEntry);
+            log.info("Evicting cached modules {}", cachedEntry.getName());
+            FileUtils.deleteQuietly(cachedEntry);
+            totalSize -= entrySize;
+        }
+        cacheSize.set(totalSize);
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("terrakube.executor.modules.cache", "result", result).increment();
+    }
+}
@@ -0,0 +1,119 @@
+package org.terrakube.executor.service.plan;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.terrakube.executor.configuration.ExecutorFlagsProperties;
+import org.terrakube.executor.plugin.tfstate.PlanChecksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short lived copy of the plans generated in this executor, an apply step dispatched to the same executor reuses the
+ * plan from disk instead of downloading it from the storage backend. Plans are cached per job step and state folder,
+ * the apply looks them up by the plan url stored in the job so parallel plan steps never replace each other. The
+ * cached plan keys are advertised with the executor capacity so the api can send the apply to the executor that
+ * generated the plan.
+ */
+@Slf4j
+@Service
+public class PlanCacheService {
+
+    private static final String TERRAFORM_PLAN_FILE = "terraformLibrary.tfPlan";
+    private static final String CHECKSUM_FILE = "terraformLibrary.tfPlan.sha256";
+    private static final String PLAN_CACHE_DIRECTORY = "%s/.terraform-spring-boot/executor/plans/%s";
+
+    private final Map<String, Long> cachedPlans = new ConcurrentHashMap<>();
+    private final Map<String, String> planUrls = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long cacheMillis;
+
+    public PlanCacheService(ExecutorFlagsProperties executorFlagsProperties,
+                            @Value("${org.terrakube.executor.plan.cacheMinutes:60}") int cacheMinutes) {
+        this.enabled = cacheMinutes > 0 && !executorFlagsProperties.isEphemeral();
+        this.cacheMillis = TimeUnit.MINUTES.toMillis(cacheMinutes);
+    }
+
+    /**
+     * @param planKey jobId/stepId of the plan step, followed by the state key of the folder
+     * @param planUrl url returned when the plan was saved in the storage backend
+     */
+    public void put(String planKey, String planUrl, File workingDirectory) {
+        if (!enabled || planUrl == null || planUrl.isEmpty())
+            return;
+
+        File tfPlan = new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE);
+        if (!tfPlan.exists())
+            return;
+
+        File cacheDirectory = getCacheDirectory(planKey);
+        try {
+            FileUtils.copyFileToDirectory(tfPlan, cacheDirectory);
+            FileUtils.writeStringToFile(new File(cacheDirectory, CHECKSUM_FILE), PlanChecksum.of(tfPlan), StandardCharsets.UTF_8);
+            cachedPlans.put(planKey, System.currentTimeMillis());
+            planUrls.put(planUrl, planKey);
+            log.info("Plan {} cached in {}", planKey, cacheDirectory.getAbsolutePath());
+        } catch (IOException e) {
+            log.error("Unable to cache plan {}: {}", planKey, e.getMessage());
+            evict(planKey);
+        }
+    }
+
+    /**
+     * @return true when the cached plan was copied to the working directory and the checksum matches
+     */
+    public boolean restore(String planUrl, File workingDirectory) {
+        if (!enabled || planUrl == null)
+            return false;
+
+        String planKey = planUrls.get(planUrl);
+        if (planKey == null || !cachedPlans.containsKey(planKey))
+            return false;
+
+        File cacheDirectory = getCacheDirectory(planKey);
+        File tfPlan = new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE);
+        try {
+            FileUtils.copyFile(new File(cacheDirectory, TERRAFORM_PLAN_FILE), tfPlan);
+            String checksum = FileUtils.readFileToString(new File(cacheDirectory, CHECKSUM_FILE), StandardCharsets.UTF_8);
+            if (PlanChecksum.verify(tfPlan, checksum)) {
+                log.info("Using cached plan {}", planKey);
+                return true;
+            }
+        } catch (IOException e) {
+            log.error("Unable to restore cached plan {}: {}", planKey, e.getMessage());
+        }
+        evict(planKey);
+        return false;
+    }
+
+    public Set<String> getCachedPlans() {
+        return cachedPlans.keySet();
+    }
+
+    @Scheduled(fixedDelay = 5, timeUnit = TimeUnit.MINUTES)
+    public void evictExpired() {
+        long expired = System.currentTimeMillis() - cacheMillis;
+        cachedPlans.forEach((planKey, created) -> {
+            if (created < expired)
+                evict(planKey);
+        });
+    }
+
+    private void evict(String planKey) {
+        cachedPlans.remove(planKey);
+        planUrls.values().remove(planKey);
+        FileUtils.deleteQuietly(getCacheDirectory(planKey));
+    }
+
+    private static File getCacheDirectory(String planKey) {
+        return new File(String.format(PLAN_CACHE_DIRECTORY, FileUtils.getUserDirectoryPath(), planKey));
+    }
+}
@@ -0,0 +1,84 @@
+package org.terrakube.executor.service.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.terrakube.executor.service.workspace.security.WorkspaceSecurity;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Moves the step and the job to a new status with a single request to the api, the response includes if the job was
+ * cancelled. An empty result means the api does not support the transition endpoint or could not be reached and the
+ * caller should use the JSON:API resources.
+ */
+@Slf4j
+@Service
+public class JobTransitionClient {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OkHttpClient okHttpClient;
+    private final WorkspaceSecurity workspaceSecurity;
+    private final String terrakubeApiUrl;
+
+    public JobTransitionClient(OkHttpClient okHttpClient,
+                               WorkspaceSecurity workspaceSecurity,
+                               @Value("${org.terrakube.client.url}") String terrakubeApiUrl) {
+        this.okHttpClient = okHttpClient;
+        this.workspaceSecurity = workspaceSecurity;
+        this.terrakubeApiUrl = terrakubeApiUrl;
+    }
+
+    public Optional<StepTransitionResult> transition(String organizationId, String jobId, String stepId, StepTransition transition) {
+        HttpUrl transitionUrl = HttpUrl.parse(terrakubeApiUrl)
+                .newBuilder()
+                .addPathSegments("transition/v1/organization")
+                .addPathSegment(organizationId)
+                .addPathSegment("job")
+                .addPathSegment(jobId)
+                .addPathSegment("step")
+                .addPathSegment(stepId)
+                .build();
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                Request request = new Request.Builder()
+                        .url(transitionUrl)
+                        .header("Authorization", "Bearer " + workspaceSecurity.generateAccessToken(5))
+                        .post(RequestBody.create(objectMapper.writeValueAsString(transition), JSON))
+                        .build();
+                try (Response response = okHttpClient.newCall(request).execute()) {
+                    if ((response.code() == 200 || response.code() == 409) && response.body() != null) {
+                        StepTransitionResult result = objectMapper.readValue(response.body().string(), StepTransitionResult.class);
+                        log.info("Step {} transition {} -> {}: {}", stepId, transition.getFromStatus(), transition.getToStatus(), result);
+                        return Optional.of(result);
+                    }
+                    if (response.code() < 500) {
+                        log.warn("Step transition not available, response {}", response.code());
+                        return Optional.empty();
+                    }
+                    log.warn("Step transition attempt {} failed with response {}", attempt, response.code());
+                }
+            } catch (IOException e) {
+                log.error("Step transition attempt {} failed: {}", attempt, e.getMessage());
+            }
+            if (attempt < MAX_ATTEMPTS)
+                backoff(attempt);
+        }
+        return Optional.empty();
+    }
+
+    static void backoff(int attempt) {
+        try {
+            Thread.sleep(1000L * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.terrakube.executor.service.status;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@ToString
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class StepTransitionResult {
+    private boolean applied;
+    private boolean cancelled;
+    private String jobStatus;
+    private String stepStatus;
+}
@@ -12,9 +12,11 @@ import org.terrakube.client.model.organization.job.step.StepRequest;
 import org.terrakube.executor.configuration.ExecutorFlagsProperties;
 import org.terrakube.executor.plugin.tfoutput.TerraformOutput;
 import org.terrakube.executor.plugin.tfoutput.TerraformOutputPathService;
+import org.terrakube.executor.service.logs.StepOutputSpool;
 import org.terrakube.executor.service.mode.TerraformJob;
 
-import java.io.IOException;
+import java.util.Optional;
+
 
 @Slf4j
 @Service
@@ -30,9 +32,23 @@ public class UpdateJobStatusImpl implements UpdateJobStatus {
 
     private TerraformOutputPathService terraformOutputPathService;
 
+    private JobTransitionClient jobTransitionClient;
+
     @Override
     public void setRunningStatus(TerraformJob terraformJob, String commitId) {
         if (!executorFlagsProperties.isDisableAcknowledge()) {
+            StepTransition transition = new StepTransition();
+            transition.setFromStatus("pending");
+            transition.setToStatus("running");
+            transition.setOutput(terraformOutputPathService.getOutputPath(terraformJob.getOrganizationId(), terraformJob.getJobId(), terraformJob.getStepId()));
+            transition.setCommitId(commitId);
+            Optional<StepTransitionResult> result = jobTransitionClient.transition(terraformJob.getOrganizationId(), terraformJob.getJobId(), terraformJob.getStepId(), transition);
+            if (result.isPresent()) {
+                if (result.get().isCancelled())
+                    log.warn("Job {} was cancelled before running executor", terraformJob.getJobId());
+                return;
+            }
+
             Job job = null;
             for(int retry=0; retry<5; retry++) {
                 job = terrakubeClient.getJobById(terraformJob.getOrganizationId(), terraformJob.getJobId()).getData();
@@ -42,6 +58,7 @@ public class UpdateJobStatusImpl implements UpdateJobStatus {
                     break;
                 } else {
                     log.error("Step list is empty for some reason...");
+                    JobTransitionClient.backoff(retry + 1);
                 }
             }
 
@@ -58,11 +75,37 @@ public class UpdateJobStatusImpl implements UpdateJobStatus {
     }
 
     @Override
-    public void setCompletedStatus(boolean successful, boolean isPlan, int exitCode, TerraformJob terraformJob, String jobOutput, String jobErrorOutput, String jobPlan, String commitId) {
+    public void setCompletedStatus(boolean successful, boolean isPlan, int exitCode, TerraformJob terraformJob, StepOutputSpool jobOutput, String jobPlan, String commitId) {
         if (!executorFlagsProperties.isDisableAcknowledge()) {
-            updateStepStatus(successful, terraformJob.getOrganizationId(), terraformJob.getJobId(), terraformJob.getStepId(), jobOutput, jobErrorOutput);
+            String stepOutput = null;
+            try {
+                stepOutput = this.terraformOutput.save(terraformJob.getOrganizationId(), terraformJob.getJobId(), terraformJob.getStepId(), jobOutput.finish());
+                log.info("output: {} lines {} bytes compressed", jobOutput.getLines(), jobOutput.getSize());
+            } catch (RuntimeException e) {
+                // the step result is still reported, only without a link to an output that does not exist
+                log.error("Unable to upload output of step {}: {}", terraformJob.getStepId(), e.getMessage());
+            }
+
+            StepTransition transition = new StepTransition();
+            transition.setFromStatus("running");
+            transition.setToStatus(successful ? "completed" : "failed");
+            transition.setExitCode(exitCode);
+            transition.setPlan(isPlan);
+            transition.setTerraformPlan(jobPlan);
+            transition.setOutput(stepOutput);
+            transition.setCommitId(commitId);
+            Optional<StepTransitionResult> result = jobTransitionClient.transition(terraformJob.getOrganizationId(), terraformJob.getJobId(), terraformJob.getStepId(), transition);
+            if (result.isPresent()) {
+                if (result.get().isCancelled())
+                    log.warn("Job {} was cancelled when running executor", terraformJob.getJobId());
+                else if (!result.get().isApplied())
+                    log.warn("Step {} was already {}", terraformJob.getStepId(), result.get().getStepStatus());
+                return;
+            }
+
+            updateStepStatus(successful, terraformJob.getOrganizationId(), terraformJob.getJobId(), terraformJob.getStepId(), stepOutput);
             if(!isJobCancelled(terraformJob))
-                updateJobStatus(successful, isPlan, exitCode, terraformJob.getOrganizationId(), terraformJob.getJobId(), terraformJob.getStepId(), jobOutput, jobErrorOutput, jobPlan, commitId);
+                updateJobStatus(successful, isPlan, exitCode, terraformJob.getOrganizationId(), terraformJob.getJobId(), terraformJob.getStepId(), jobPlan, commitId);
         }
     }
 
@@ -78,7 +121,7 @@ public class UpdateJobStatusImpl implements UpdateJobStatus {
         }
     }
 
-    private void updateJobStatus(boolean successful, boolean isPlan, int exitCode, String organizationId, String jobId, String stepId, String jobOutput, String jobErrorOutput, String jobPlan, String commitId) {
+    private void updateJobStatus(boolean successful, boolean isPlan, int exitCode, String organizationId, String jobId, String stepId, String jobPlan, String commitId) {
         Job job = terrakubeClient.getJobById(organizationId, jobId).getData();
         String status = "";
         boolean planChanges = true;
@@ -107,8 +150,6 @@ public class UpdateJobStatusImpl implements UpdateJobStatus {
         job.getAttributes().setPlanChanges(planChanges);
         log.info("JobStatus: {}", status);
         log.info("StepId: {}", stepId);
-        log.info("output: {}", jobOutput.length());
-        log.info("outputError: {}", jobErrorOutput.length());
 
         job.getAttributes().setOutput(
                 job.getAttributes().getOutput() == null ? "" : job.getAttributes().getOutput() + " Step " + stepId + " completed\n"
@@ -122,9 +163,9 @@ public class UpdateJobStatusImpl implements UpdateJobStatus {
         terrakubeClient.updateJob(jobRequest, job.getRelationships().getOrganization().getData().getId(), job.getId());
     }
 
-    private void updateStepStatus(boolean status, String organizationId, String jobId, String stepId, String jobOutput, String jobErrorOutput) {
+    private void updateStepStatus(boolean status, String organizationId, String jobId, String stepId, String stepOutput) {
         StepAttributes stepAttributes = new StepAttributes();
-        stepAttributes.setOutput(this.terraformOutput.save(organizationId, jobId, stepId, jobOutput, jobErrorOutput));
+        stepAttributes.setOutput(stepOutput);
         stepAttributes.setStatus(status ? "completed": "failed");
 
         Step step = new Step();
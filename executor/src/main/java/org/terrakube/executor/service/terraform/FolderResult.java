@@ -0,0 +1,18 @@
+package org.terrakube.executor.service.terraform;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+class FolderResult {
+
+    private boolean success;
+    private int exitCode;
+    private String planFile;
+
+    FolderResult(boolean success, int exitCode) {
+        this.success = success;
+        this.exitCode = exitCode;
+    }
+}
@@ -0,0 +1,101 @@
+package org.terrakube.executor.service.terraform;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Output of a terraform state command written line by line to a temp file, the state is uploaded from the file and
+ * never kept in memory
+ */
+@Slf4j
+public class StateFile implements Consumer<String>, Closeable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Getter
+    private final File file;
+    private Writer writer;
+
+    public StateFile(String jobId, String type) throws IOException {
+        file = Files.createTempFile("terrakube-" + jobId + "-", "." + type + ".json").toFile();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public synchronized void accept(String line) {
+        if (writer == null)
+            return;
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            log.error("Unable to write state file {}: {}", file.getName(), e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer == null)
+            return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.error("Unable to close state file {}: {}", file.getName(), e.getMessage());
+        }
+        writer = null;
+    }
+
+    public void delete() {
+        close();
+        FileUtils.deleteQuietly(file);
+    }
+
+    /**
+     * Outputs of a raw state in the same format as terraform output -json, only the outputs object is parsed and the
+     * resources are skipped
+     *
+     * @return the outputs json or null if the state has no outputs
+     */
+    public String readOutputs() throws IOException {
+        close();
+        try (JsonParser parser = objectMapper.createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                return null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (!"outputs".equals(fieldName)) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                JsonNode stateOutputs = parser.readValueAsTree();
+                ObjectNode outputs = objectMapper.createObjectNode();
+                for (Iterator<Map.Entry<String, JsonNode>> it = stateOutputs.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> stateOutput = it.next();
+                    ObjectNode output = outputs.putObject(stateOutput.getKey());
+                    output.put("sensitive", stateOutput.getValue().path("sensitive").asBoolean(false));
+                    if (stateOutput.getValue().has("type"))
+                        output.set("type", stateOutput.getValue().get("type"));
+                    output.set("value", stateOutput.getValue().get("value"));
+                }
+                return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(outputs);
+            }
+        }
+        return null;
+    }
+}
@@ -1,16 +1,24 @@
 package org.terrakube.executor.service.terraform;
 
 import com.diogonunes.jcolor.AnsiFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.text.TextStringBuilder;
+import org.springframework.beans.BeanUtils;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.terrakube.executor.configuration.ExecutorFlagsProperties;
+import org.terrakube.executor.plugin.tfstate.PlanFiles;
 import org.terrakube.executor.plugin.tfstate.TerraformState;
 import org.terrakube.executor.service.executor.ExecutorJobResult;
 import org.terrakube.executor.service.mode.TerraformJob;
+import org.terrakube.executor.service.mode.batch.ColdStartService;
+import org.terrakube.executor.service.modules.ModuleCacheService;
+import org.terrakube.executor.service.plan.PlanCacheService;
 import org.terrakube.executor.service.scripts.ScriptEngineService;
-import org.jetbrains.annotations.NotNull;
 import org.terrakube.terraform.TerraformClient;
 import org.springframework.stereotype.Service;
 import org.terrakube.executor.service.logs.*;
@@ -19,16 +27,22 @@ import org.terrakube.terraform.TerraformProcessData;
 import java.io.File;
 import java.nio.file.Path;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.diogonunes.jcolor.Ansi.colorize;
 import static com.diogonunes.jcolor.Attribute.*;
-import static org.terrakube.executor.service.workspace.SetupWorkspaceImpl.SSH_DIRECTORY;
 
 @AllArgsConstructor
 @Slf4j
@@ -36,6 +50,7 @@ import static org.terrakube.executor.service.workspace.SetupWorkspaceImpl.SSH_DI
 public class TerraformExecutorServiceImpl implements TerraformExecutor {
 
     private static final String STEP_SEPARATOR = "***************************************";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
 
     TerraformClient terraformClient;
     TerraformState terraformState;
@@ -44,6 +59,16 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
 
     LogsService logsService;
 
+    MeterRegistry meterRegistry;
+
+    PlanCacheService planCacheService;
+
+    ExecutorFlagsProperties executorFlagsProperties;
+
+    ModuleCacheService moduleCacheService;
+
+    ColdStartService coldStartService;
+
     private void setupConsumerGroups(String jobId) {
         try {
             redisTemplate.opsForStream().createGroup(jobId, "CLI");
@@ -77,16 +102,15 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
     @Override
     public ExecutorJobResult plan(TerraformJob terraformJob, File workingDirectory, boolean isDestroy) {
         setupConsumerGroups(terraformJob.getJobId());
+        if (getFolders(terraformJob).size() > 1)
+            return executeFolders(terraformJob, workingDirectory, true,
+                    (folderJob, folderWorkingDir, output) -> executePlan(folderJob, folderWorkingDir, output, isDestroy));
+
         ExecutorJobResult result;
 
-        TextStringBuilder jobOutput = new TextStringBuilder();
-        TextStringBuilder jobErrorOutput = new TextStringBuilder();
+        StepOutputSpool jobOutput = new StepOutputSpool(terraformJob.getStepId());
         try {
             File terraformWorkingDir = getTerraformWorkingDir(terraformJob, workingDirectory);
-            boolean executionPlan = false;
-            int exitCode = 0;
-            boolean scriptBeforeSuccessPlan;
-            boolean scriptAfterSuccessPlan;
 
             Consumer<String> planOutput = LogsConsumer.builder()
                     .jobId(Integer.valueOf(terraformJob.getJobId()))
@@ -96,62 +120,82 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
                     .lineNumber(new AtomicInteger(0))
                     .build();
 
-            terraformClient.setRedirectErrorStream(true);
-            executeTerraformInit(
-                    terraformJob,
-                    terraformWorkingDir,
-                    planOutput,
-                    null);
-
-            scriptBeforeSuccessPlan = executePreOperationScripts(terraformJob, terraformWorkingDir, planOutput);
-
-            showTerraformMessage(terraformJob,"PLAN", planOutput);
-
-            if (scriptBeforeSuccessPlan)
-                if (isDestroy) {
-                    log.warn("Executor running a plan to destroy resources...");
-                    exitCode = terraformClient.planDestroyDetailExitCode(
-                            getTerraformProcessData(terraformJob, terraformWorkingDir),
-                            planOutput,
-                            null).get();
-                } else {
-                    exitCode = terraformClient.planDetailExitCode(
-                            getTerraformProcessData(terraformJob, terraformWorkingDir),
-                            planOutput,
-                            null).get();
-                }
-
-            if(exitCode != 1) {
-                executionPlan = true;
-            }
-
-            log.warn("Terraform plan Executed Successfully: {} Exit Code: {}", executionPlan, exitCode);
-
-            scriptAfterSuccessPlan = executePostOperationScripts(terraformJob, terraformWorkingDir, planOutput, executionPlan);
+            FolderResult planResult = executePlan(terraformJob, terraformWorkingDir, planOutput, isDestroy);
 
             Thread.sleep(10000);
 
-            result = generateJobResult(scriptAfterSuccessPlan, jobOutput.toString(), jobErrorOutput.toString());
-            result.setPlanFile(executionPlan ? terraformState.saveTerraformPlan(terraformJob.getOrganizationId(),
-                    terraformJob.getWorkspaceId(), terraformJob.getJobId(), terraformJob.getStepId(), terraformWorkingDir)
-                    : "");
+            result = generateJobResult(planResult.isSuccess(), jobOutput);
+            result.setPlanFile(planResult.getPlanFile());
             result.setPlan(true);
-            result.setExitCode(exitCode);
+            result.setExitCode(planResult.getExitCode());
         } catch (IOException | ExecutionException | InterruptedException exception) {
-            result = setError(exception);
+            result = setError(exception, jobOutput);
             result.setExitCode(1);
         }
         return result;
 
     }
 
+    private FolderResult executePlan(TerraformJob terraformJob, File terraformWorkingDir, Consumer<String> planOutput, boolean isDestroy)
+            throws IOException, ExecutionException, InterruptedException {
+        boolean executionPlan = false;
+        int exitCode = 0;
+        boolean scriptBeforeSuccessPlan;
+        boolean scriptAfterSuccessPlan;
+
+        terraformClient.setRedirectErrorStream(true);
+        executeTerraformInit(
+                terraformJob,
+                terraformWorkingDir,
+                planOutput,
+                null);
+
+        scriptBeforeSuccessPlan = executePreOperationScripts(terraformJob, terraformWorkingDir, planOutput);
+
+        showTerraformMessage(terraformJob,"PLAN", planOutput);
+
+        Timer.Sample planSample = Timer.start(meterRegistry);
+        if (scriptBeforeSuccessPlan)
+            if (isDestroy) {
+                log.warn("Executor running a plan to destroy resources...");
+                exitCode = terraformClient.planDestroyDetailExitCode(
+                        getTerraformProcessData(terraformJob, terraformWorkingDir),
+                        planOutput,
+                        null).get();
+            } else {
+                exitCode = terraformClient.planDetailExitCode(
+                        getTerraformProcessData(terraformJob, terraformWorkingDir),
+                        planOutput,
+                        null).get();
+            }
+        planSample.stop(commandTimer(isDestroy ? "planDestroy" : "plan", terraformJob));
+
+        if(exitCode != 1) {
+            executionPlan = true;
+        }
+
+        log.warn("Terraform plan Executed Successfully: {} Exit Code: {}", executionPlan, exitCode);
+
+        scriptAfterSuccessPlan = executePostOperationScripts(terraformJob, terraformWorkingDir, planOutput, executionPlan);
+
+        FolderResult planResult = new FolderResult(scriptAfterSuccessPlan, exitCode);
+        planResult.setPlanFile(executionPlan ? terraformState.saveTerraformPlan(terraformJob.getOrganizationId(),
+                getStateWorkspaceId(terraformJob), terraformJob.getJobId(), terraformJob.getStepId(), terraformWorkingDir)
+                : "");
+        if (executionPlan)
+            planCacheService.put(getPlanCacheKey(terraformJob), planResult.getPlanFile(), terraformWorkingDir);
+        return planResult;
+    }
+
     @Override
     public ExecutorJobResult apply(TerraformJob terraformJob, File workingDirectory) {
         setupConsumerGroups(terraformJob.getJobId());
+        if (getFolders(terraformJob).size() > 1)
+            return executeFolders(terraformJob, workingDirectory, false, this::executeApply);
+
         ExecutorJobResult result;
 
-        TextStringBuilder terraformOutput = new TextStringBuilder();
-        TextStringBuilder terraformErrorOutput = new TextStringBuilder();
+        StepOutputSpool terraformOutput = new StepOutputSpool(terraformJob.getStepId());
         try {
             File terraformWorkingDir = getTerraformWorkingDir(terraformJob, workingDirectory);
             Consumer<String> applyOutput = LogsConsumer.builder()
@@ -162,56 +206,68 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
                     .processLogs(logsService)
                     .build();
 
-            HashMap<String, String> terraformParameters = getWorkspaceParameters(terraformJob.getVariables());
+            FolderResult applyResult = executeApply(terraformJob, terraformWorkingDir, applyOutput);
 
-            boolean execution = false;
-            boolean scriptBeforeSuccess;
-            boolean scriptAfterSuccess;
-
-            terraformClient.setRedirectErrorStream(true);
-            executeTerraformInit(
-                    terraformJob,
-                    terraformWorkingDir,
-                    applyOutput,
-                    null);
-
-            scriptBeforeSuccess = executePreOperationScripts(terraformJob, terraformWorkingDir, applyOutput);
+            Thread.sleep(10000);
+            result = generateJobResult(applyResult.isSuccess(), terraformOutput);
+        } catch (IOException | ExecutionException | InterruptedException exception) {
+            result = setError(exception, terraformOutput);
+        }
+        return result;
+    }
 
-            showTerraformMessage(terraformJob, "APPLY", applyOutput);
+    private FolderResult executeApply(TerraformJob terraformJob, File terraformWorkingDir, Consumer<String> applyOutput)
+            throws IOException, ExecutionException, InterruptedException {
+        HashMap<String, String> terraformParameters = getWorkspaceParameters(terraformJob.getVariables());
 
-            if (scriptBeforeSuccess) {
-                TerraformProcessData terraformProcessData = getTerraformProcessData(terraformJob, terraformWorkingDir);
-                terraformProcessData.setTerraformVariables((terraformState.downloadTerraformPlan(terraformJob.getOrganizationId(),
-                        terraformJob.getWorkspaceId(), terraformJob.getJobId(), terraformJob.getStepId(),
-                        terraformWorkingDir) ? new HashMap<>() : terraformParameters));
-                execution = terraformClient.apply(
-                        terraformProcessData,
-                        applyOutput,
-                        null).get();
+        boolean execution = false;
+        boolean scriptBeforeSuccess;
+        boolean scriptAfterSuccess;
 
-                handleTerraformStateChange(terraformJob, terraformWorkingDir);
+        terraformClient.setRedirectErrorStream(true);
+        executeTerraformInit(
+                terraformJob,
+                terraformWorkingDir,
+                applyOutput,
+                null);
+
+        scriptBeforeSuccess = executePreOperationScripts(terraformJob, terraformWorkingDir, applyOutput);
+
+        showTerraformMessage(terraformJob, "APPLY", applyOutput);
+
+        if (scriptBeforeSuccess) {
+            TerraformProcessData terraformProcessData = getTerraformProcessData(terraformJob, terraformWorkingDir);
+            boolean planExists = planCacheService.restore(getPlanUrl(terraformJob), terraformWorkingDir)
+                    || terraformState.downloadTerraformPlan(terraformJob.getOrganizationId(),
+                    getStateWorkspaceId(terraformJob), terraformJob.getJobId(), terraformJob.getStepId(),
+                    terraformWorkingDir);
+            terraformProcessData.setTerraformVariables(planExists ? new HashMap<>() : terraformParameters);
+            Timer.Sample applySample = Timer.start(meterRegistry);
+            execution = terraformClient.apply(
+                    terraformProcessData,
+                    applyOutput,
+                    null).get();
+            applySample.stop(commandTimer("apply", terraformJob));
 
-            }
+            handleTerraformStateChange(terraformJob, terraformWorkingDir);
 
-            log.warn("Terraform apply Executed Successfully: {}", execution);
-            scriptAfterSuccess = executePostOperationScripts(terraformJob, terraformWorkingDir, applyOutput, execution);
+        }
 
+        log.warn("Terraform apply Executed Successfully: {}", execution);
+        scriptAfterSuccess = executePostOperationScripts(terraformJob, terraformWorkingDir, applyOutput, execution);
 
-            Thread.sleep(10000);
-            result = generateJobResult(scriptAfterSuccess, terraformOutput.toString(), terraformErrorOutput.toString());
-        } catch (IOException | ExecutionException | InterruptedException exception) {
-            result = setError(exception);
-        }
-        return result;
+        return new FolderResult(scriptAfterSuccess, execution ? 0 : 1);
     }
 
     @Override
     public ExecutorJobResult destroy(TerraformJob terraformJob, File workingDirectory) {
         setupConsumerGroups(terraformJob.getJobId());
+        if (getFolders(terraformJob).size() > 1)
+            return executeFolders(terraformJob, workingDirectory, false, this::executeDestroy);
+
         ExecutorJobResult result;
 
-        TextStringBuilder jobOutput = new TextStringBuilder();
-        TextStringBuilder jobErrorOutput = new TextStringBuilder();
+        StepOutputSpool jobOutput = new StepOutputSpool(terraformJob.getStepId());
         try {
             File terraformWorkingDir = getTerraformWorkingDir(terraformJob, workingDirectory);
             Consumer<String> outputDestroy = LogsConsumer.builder()
@@ -222,46 +278,196 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
                     .lineNumber(new AtomicInteger(0))
                     .build();
 
-            boolean execution = false;
-            boolean scriptBeforeSuccess;
-            boolean scriptAfterSuccess;
+            FolderResult destroyResult = executeDestroy(terraformJob, terraformWorkingDir, outputDestroy);
 
-            terraformClient.setRedirectErrorStream(true);
-            executeTerraformInit(
-                    terraformJob,
-                    terraformWorkingDir,
+            Thread.sleep(10000);
+            result = generateJobResult(destroyResult.isSuccess(), jobOutput);
+        } catch (IOException | ExecutionException | InterruptedException exception) {
+            result = setError(exception, jobOutput);
+        }
+        return result;
+    }
+
+    private FolderResult executeDestroy(TerraformJob terraformJob, File terraformWorkingDir, Consumer<String> outputDestroy)
+            throws IOException, ExecutionException, InterruptedException {
+        boolean execution = false;
+        boolean scriptBeforeSuccess;
+        boolean scriptAfterSuccess;
+
+        terraformClient.setRedirectErrorStream(true);
+        executeTerraformInit(
+                terraformJob,
+                terraformWorkingDir,
+                outputDestroy,
+                null);
+
+        scriptBeforeSuccess = executePreOperationScripts(terraformJob, terraformWorkingDir, outputDestroy);
+
+        showTerraformMessage(terraformJob, "DESTROY", outputDestroy);
+
+        if (scriptBeforeSuccess) {
+            Timer.Sample destroySample = Timer.start(meterRegistry);
+            execution = terraformClient.destroy(
+                    getTerraformProcessData(terraformJob, terraformWorkingDir),
                     outputDestroy,
-                    null);
+                    null).get();
+            destroySample.stop(commandTimer("destroy", terraformJob));
 
-            scriptBeforeSuccess = executePreOperationScripts(terraformJob, terraformWorkingDir, outputDestroy);
+            handleTerraformStateChange(terraformJob, terraformWorkingDir);
+        }
 
-            showTerraformMessage(terraformJob, "DESTROY", outputDestroy);
+        log.warn("Terraform destroy Executed Successfully: {}", execution);
+        scriptAfterSuccess = executePostOperationScripts(terraformJob, terraformWorkingDir, outputDestroy, execution);
 
-            if (scriptBeforeSuccess) {
-                execution = terraformClient.destroy(
-                        getTerraformProcessData(terraformJob, terraformWorkingDir),
-                        outputDestroy,
-                        null).get();
+        return new FolderResult(scriptAfterSuccess, execution ? 0 : 1);
+    }
 
-                handleTerraformStateChange(terraformJob, terraformWorkingDir);
+    /**
+     * Workspaces with several comma separated folders run every folder from the same clone, init and the terraform
+     * operation run concurrently for up to folderParallelism folders. Each folder uses its own state key, the output of
+     * every folder is streamed with the folder as prefix and stored as a separate section followed by a summary.
+     */
+    private ExecutorJobResult executeFolders(TerraformJob terraformJob, File workingDirectory, boolean isPlan, FolderOperation folderOperation) {
+        List<String> folders = getFolders(terraformJob);
+        int parallelism = Math.max(1, Math.min(executorFlagsProperties.getFolderParallelism(), folders.size()));
+        log.info("Running {} folders for job {} step {} with parallelism {}", folders.size(), terraformJob.getJobId(), terraformJob.getStepId(), parallelism);
+
+        StepOutputSpool jobOutput = new StepOutputSpool(terraformJob.getStepId());
+        AtomicInteger lineNumber = new AtomicInteger(0);
+        Consumer<String> jobLogs = LogsConsumer.builder()
+                .jobId(Integer.valueOf(terraformJob.getJobId()))
+                .terraformOutput(jobOutput)
+                .stepId(terraformJob.getStepId())
+                .processLogs(logsService)
+                .lineNumber(lineNumber)
+                .build();
+
+        Map<String, StepOutputSpool> folderOutputs = new LinkedHashMap<>();
+        Map<String, TerraformJob> folderJobs = new LinkedHashMap<>();
+        Map<String, Future<FolderResult>> folderResults = new LinkedHashMap<>();
+        ExecutorService folderExecutor = Executors.newFixedThreadPool(parallelism);
+        ExecutorJobResult result;
+        try {
+            for (String folder : folders) {
+                StepOutputSpool folderOutput = new StepOutputSpool(terraformJob.getStepId());
+                folderOutputs.put(folder, folderOutput);
+                Consumer<String> folderLogs = LogsConsumer.builder()
+                        .jobId(Integer.valueOf(terraformJob.getJobId()))
+                        .terraformOutput(folderOutput)
+                        .stepId(terraformJob.getStepId())
+                        .processLogs(logsService)
+                        .lineNumber(lineNumber)
+                        .build();
+                Consumer<String> output = line -> folderLogs.accept(String.format("[%s] %s", folder, line));
+                TerraformJob folderJob = getFolderJob(terraformJob, folder);
+                folderJobs.put(folder, folderJob);
+                folderResults.put(folder, folderExecutor.submit(() ->
+                        folderOperation.execute(folderJob, getTerraformWorkingDir(folderJob, workingDirectory), output)));
             }
 
-            log.warn("Terraform destroy Executed Successfully: {}", execution);
-            scriptAfterSuccess = executePostOperationScripts(terraformJob, terraformWorkingDir, outputDestroy, execution);
+            Map<String, FolderResult> results = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<FolderResult>> folderResult : folderResults.entrySet()) {
+                try {
+                    results.put(folderResult.getKey(), folderResult.getValue().get());
+                } catch (ExecutionException exception) {
+                    log.error("Folder {} failed for job {}: {}", folderResult.getKey(), terraformJob.getJobId(), exception.getCause().getMessage());
+                    folderOutputs.get(folderResult.getKey()).append(exception.getCause().getMessage());
+                    results.put(folderResult.getKey(), new FolderResult(false, 1));
+                }
+            }
+
+            AnsiFormat colorMessage = new AnsiFormat(GREEN_TEXT(), BLACK_BACK(), BOLD());
+            for (Map.Entry<String, StepOutputSpool> folderOutput : folderOutputs.entrySet()) {
+                jobOutput.append(colorize(STEP_SEPARATOR, colorMessage));
+                jobOutput.append(colorize("Folder " + folderOutput.getKey(), colorMessage));
+                jobOutput.append(colorize(STEP_SEPARATOR, colorMessage));
+                jobOutput.append(folderOutput.getValue());
+            }
+
+            boolean success = true;
+            int exitCode = 0;
+            Map<String, String> planFiles = new LinkedHashMap<>();
+            ObjectNode terraformOutputs = objectMapper.createObjectNode();
+            jobLogs.accept(colorize(STEP_SEPARATOR, colorMessage));
+            jobLogs.accept(colorize("Folders Summary:", colorMessage));
+            for (Map.Entry<String, FolderResult> folderResult : results.entrySet()) {
+                FolderResult value = folderResult.getValue();
+                success = success && value.isSuccess();
+                if (value.getExitCode() == 1 || exitCode == 1)
+                    exitCode = 1;
+                else
+                    exitCode = Math.max(exitCode, value.getExitCode());
+                TerraformJob folderJob = folderJobs.get(folderResult.getKey());
+                if (value.getPlanFile() != null && !value.getPlanFile().isEmpty())
+                    planFiles.put(getStateWorkspaceId(folderJob), value.getPlanFile());
+                if (folderJob.getTerraformOutput() != null)
+                    terraformOutputs.set(folderResult.getKey(), objectMapper.readTree(folderJob.getTerraformOutput()));
+                jobLogs.accept(String.format("%s: %s%s", folderResult.getKey(), value.isSuccess() ? "success" : "failed",
+                        isPlan ? value.getExitCode() == 2 ? " (changes)" : " (no changes)" : ""));
+            }
+            jobLogs.accept(colorize(STEP_SEPARATOR, colorMessage));
 
             Thread.sleep(10000);
-            result = generateJobResult(scriptAfterSuccess, jobOutput.toString(), jobErrorOutput.toString());
-        } catch (IOException | ExecutionException | InterruptedException exception) {
-            result = setError(exception);
+
+            // folder jobs are copies, the outputs read from every folder state are set on the job keyed by folder
+            if (!terraformOutputs.isEmpty())
+                terraformJob.setTerraformOutput(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(terraformOutputs));
+
+            result = generateJobResult(success, jobOutput);
+            if (isPlan) {
+                result.setPlanFile(planFiles.isEmpty() ? "" : PlanFiles.of(planFiles));
+                result.setPlan(true);
+                result.setExitCode(exitCode);
+            }
+        } catch (IOException | InterruptedException exception) {
+            result = setError(exception, jobOutput);
+            result.setExitCode(1);
+        } finally {
+            folderExecutor.shutdownNow();
+            folderOutputs.values().forEach(StepOutputSpool::delete);
         }
         return result;
     }
 
-    private ExecutorJobResult generateJobResult(boolean scriptAfterSuccess, String jobOutput, String jobErrorOutput) {
+    private List<String> getFolders(TerraformJob terraformJob) {
+        if (terraformJob.getFolder() == null)
+            return List.of();
+        return Arrays.stream(terraformJob.getFolder().split(","))
+                .map(String::trim)
+                .filter(folder -> !folder.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private TerraformJob getFolderJob(TerraformJob terraformJob, String folder) {
+        TerraformJob folderJob = new TerraformJob();
+        BeanUtils.copyProperties(terraformJob, folderJob);
+        folderJob.setFolder(folder);
+        String folderKey = folder.replaceAll("^/+|/+$", "").replaceAll("[^A-Za-z0-9._-]", "_");
+        folderJob.setStateKey("folders/" + (folderKey.isEmpty() ? "root" : folderKey));
+        return folderJob;
+    }
+
+    private String getStateWorkspaceId(TerraformJob terraformJob) {
+        return terraformJob.getStateKey() != null ? terraformJob.getWorkspaceId() + "/" + terraformJob.getStateKey() : terraformJob.getWorkspaceId();
+    }
+
+    private String getPlanCacheKey(TerraformJob terraformJob) {
+        String planKey = terraformJob.getJobId() + "/" + terraformJob.getStepId();
+        return terraformJob.getStateKey() != null ? planKey + "/" + terraformJob.getStateKey() : planKey;
+    }
+
+    /**
+     * Url of the plan applied by this job, folder jobs use the plan saved under the folder state key
+     */
+    private String getPlanUrl(TerraformJob terraformJob) {
+        return PlanFiles.get(terraformJob.getTerraformPlan(), getStateWorkspaceId(terraformJob));
+    }
+
+    private ExecutorJobResult generateJobResult(boolean scriptAfterSuccess, StepOutputSpool jobOutput) {
         ExecutorJobResult jobResult = new ExecutorJobResult();
         jobResult.setSuccessfulExecution(scriptAfterSuccess);
-        jobResult.setOutputLog(jobOutput);
-        jobResult.setOutputErrorLog(jobErrorOutput);
+        jobResult.setOutput(jobOutput);
 
         return jobResult;
     }
@@ -311,32 +517,50 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
 
     private void handleTerraformStateChange(TerraformJob terraformJob, File workingDirectory)
             throws IOException, ExecutionException, InterruptedException {
-        log.info("Running Terraform show");
-        TextStringBuilder jsonState = new TextStringBuilder();
-        TextStringBuilder rawTfState = new TextStringBuilder();
-        Consumer<String> applyJSON = getStringConsumer(jsonState);
-        Consumer<String> rawStateJSON = getStringConsumer(rawTfState);
         TerraformProcessData terraformProcessData = getTerraformProcessData(terraformJob, workingDirectory);
         terraformProcessData.setTerraformVariables(new HashMap());
         terraformProcessData.setTerraformEnvironmentVariables(new HashMap());
-        Boolean showJsonState = terraformClient.show(terraformProcessData, applyJSON, applyJSON).get();
-        Boolean showRawState = terraformClient.statePull(terraformProcessData, rawStateJSON, rawStateJSON).get();
-
-        if (Boolean.TRUE.equals(showRawState))
-            terraformJob.setRawState(rawStateJSON.toString());
+        Consumer<String> stateError = line -> log.warn("Terraform state: {}", line);
 
-        if (Boolean.TRUE.equals(showJsonState)) {
-            log.info("Uploading terraform state json");
-            terraformState.saveStateJson(terraformJob, jsonState.toString(), rawTfState.toString());
+        StateFile rawState = new StateFile(terraformJob.getJobId(), "raw");
+        StateFile jsonState = null;
+        try {
+            log.info("Running Terraform state pull");
+            Boolean showRawState = terraformClient.statePull(terraformProcessData, rawState, stateError).get();
+            rawState.close();
+
+            if (Boolean.TRUE.equals(showRawState)) {
+                log.info("Reading terraform outputs from state, {} bytes", rawState.getFile().length());
+                String outputs = rawState.readOutputs();
+                if (outputs != null)
+                    terraformJob.setTerraformOutput(outputs);
+            }
 
-            TextStringBuilder jsonOutput = new TextStringBuilder();
-            Consumer<String> terraformJsonOutput = getStringConsumer(jsonOutput);
+            if (terraformJob.getStateKey() != null) {
+                log.warn("State json view is not uploaded for folder {}, the workspace history only tracks a single state", terraformJob.getFolder());
+                return;
+            }
 
-            log.info("Checking terraform output json");
-            Boolean showOutput = terraformClient.output(terraformProcessData, terraformJsonOutput, terraformJsonOutput).get();
-            if (Boolean.TRUE.equals(showOutput))
-                terraformJob.setTerraformOutput(jsonOutput.toString());
+            File jsonStateFile = null;
+            if (executorFlagsProperties.isStateJsonView()) {
+                log.info("Running Terraform show");
+                jsonState = new StateFile(terraformJob.getJobId(), "show");
+                Boolean showJsonState = terraformClient.show(terraformProcessData, jsonState, stateError).get();
+                jsonState.close();
+                if (Boolean.TRUE.equals(showJsonState))
+                    jsonStateFile = jsonState.getFile();
+            } else {
+                log.warn("Terraform show is disabled, the state history is uploaded without the json view");
+            }
 
+            if (Boolean.TRUE.equals(showRawState)) {
+                log.info("Uploading terraform state, {} bytes", rawState.getFile().length());
+                terraformState.saveStateJson(terraformJob, jsonStateFile, rawState.getFile());
+            }
+        } finally {
+            rawState.delete();
+            if (jsonState != null)
+                jsonState.delete();
         }
     }
 
@@ -354,13 +578,16 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
             });
             terraformVersion = terraformClient.version().get();
         } catch (IOException | ExecutionException | InterruptedException exception) {
-            setError(exception);
+            log.error(exception.getMessage());
+            if (exception instanceof InterruptedException)
+                Thread.currentThread().interrupt();
         }
         return terraformVersion;
     }
 
-    private ExecutorJobResult setError(Exception exception) {
-        ExecutorJobResult error = generateJobResult(false, "", exception.getMessage());
+    private ExecutorJobResult setError(Exception exception, StepOutputSpool jobOutput) {
+        jobOutput.append(exception.getMessage());
+        ExecutorJobResult error = generateJobResult(false, jobOutput);
         log.error(exception.getMessage());
 
         if (exception instanceof InterruptedException)
@@ -377,29 +604,34 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
         terraformProcessData.setTerraformEnvironmentVariables(terraformProcessData.getTerraformEnvironmentVariables());
         terraformProcessData.setTerraformVariables(new HashMap<>());
 
+        String moduleCacheKey = moduleCacheService.restore(terraformJob, workingDirectory);
+
+        coldStartService.firstCommand(terraformJob, terraformJob.isShowHeader() ? output : s -> log.info(s));
+        Timer.Sample initSample = Timer.start(meterRegistry);
+        Boolean initSuccess;
         if (terraformJob.isShowHeader())
-            terraformClient.init(terraformProcessData, output, errorOutput).get();
+            initSuccess = terraformClient.init(terraformProcessData, output, errorOutput).get();
         else
-            terraformClient.init(terraformProcessData, s -> {
+            initSuccess = terraformClient.init(terraformProcessData, s -> {
                 log.info(s);
             }, s -> {
                 log.info(s);
             }).get();
+        initSample.stop(commandTimer("init", terraformJob));
 
-        Thread.sleep(5000);
+        if (Boolean.TRUE.equals(initSuccess))
+            moduleCacheService.save(moduleCacheKey, workingDirectory);
         return terraformProcessData.getTerraformBackendConfigFileName();
     }
 
-    private HashMap<String, String> getWorkspaceParameters(HashMap<String, String> parameters) {
-        return parameters != null ? parameters : new HashMap<>();
+    private Timer commandTimer(String command, TerraformJob terraformJob) {
+        return meterRegistry.timer("terrakube.terraform.command",
+                "command", command,
+                "tool", terraformJob.isTofu() ? "tofu" : "terraform");
     }
 
-    @NotNull
-    private Consumer<String> getStringConsumer(TextStringBuilder terraformOutput) {
-        return responseOutput -> {
-            log.info(responseOutput);
-            terraformOutput.appendln(responseOutput);
-        };
+    private HashMap<String, String> getWorkspaceParameters(HashMap<String, String> parameters) {
+        return parameters != null ? parameters : new HashMap<>();
     }
 
     private void initBanner(TerraformJob terraformJob, Consumer<String> output) {
@@ -428,25 +660,22 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
     private TerraformProcessData getTerraformProcessData(TerraformJob terraformJob, File workingDirectory) {
 
         terraformState.getBackendStateFile(terraformJob.getOrganizationId(),
-                terraformJob.getWorkspaceId(), workingDirectory, terraformJob.getTerraformVersion());
+                getStateWorkspaceId(terraformJob), workingDirectory, terraformJob.getTerraformVersion());
 
         File sshKeyFile = null;
         if (terraformJob.getVcsType().startsWith("SSH") && terraformJob.getModuleSshKey() != null && terraformJob.getModuleSshKey().length() > 0) {
             //USING MODULE SSH KEY TO DOWNLOAD THE MODULES AND NOT THE DEFAULT SSH KEY THAT WAS USED TO CLONE THE WORKSPACE
-            String sshFilePath = String.format(SSH_DIRECTORY, FileUtils.getUserDirectoryPath(), terraformJob.getOrganizationId(), terraformJob.getWorkspaceId(), terraformJob.getJobId());
-            log.warn("1 - Using SSH key from: {}", sshFilePath);
-            sshKeyFile = new File(sshFilePath);
+            sshKeyFile = new File(terraformJob.getSshDirectory(), terraformJob.getJobId());
+            log.warn("1 - Using SSH key from: {}", sshKeyFile.getPath());
         } else if(terraformJob.getVcsType().startsWith("SSH")){
             //USING THE SAME SSH KEY THAT WAS USED TO CLONE THE REPOSITORY
             String sshFileName = terraformJob.getVcsType().split("~")[1];
-            String sshFilePath = String.format(SSH_DIRECTORY, FileUtils.getUserDirectoryPath(), terraformJob.getOrganizationId(), terraformJob.getWorkspaceId(), sshFileName);
-            log.warn("2 - Using SSH key from: {}", sshFilePath);
-            sshKeyFile = new File(sshFilePath);
+            sshKeyFile = new File(terraformJob.getSshDirectory(), sshFileName);
+            log.warn("2 - Using SSH key from: {}", sshKeyFile.getPath());
         } else if(terraformJob.getModuleSshKey() != null && terraformJob.getModuleSshKey().length() > 0){
             //USING MODULE SSH KEY TO DOWNLOAD THE MODULES IN OTHER CASE FOR EXAMPLE WHEN USING VCS WITH A MODULE SSH KEY
-            String sshFilePath = String.format(SSH_DIRECTORY, FileUtils.getUserDirectoryPath(), terraformJob.getOrganizationId(), terraformJob.getWorkspaceId(), terraformJob.getJobId());
-            log.warn("3 - Using SSH key from: {}", sshFilePath);
-            sshKeyFile = new File(sshFilePath);
+            sshKeyFile = new File(terraformJob.getSshDirectory(), terraformJob.getJobId());
+            log.warn("3 - Using SSH key from: {}", sshKeyFile.getPath());
         } else {
             log.warn("Not using any SSH key to download modules");
         }
@@ -464,4 +693,10 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
 
         return terraformProcessData;
     }
+
+    @FunctionalInterface
+    private interface FolderOperation {
+        FolderResult execute(TerraformJob folderJob, File folderWorkingDir, Consumer<String> output)
+                throws IOException, ExecutionException, InterruptedException;
+    }
 }
\ No newline at end of file
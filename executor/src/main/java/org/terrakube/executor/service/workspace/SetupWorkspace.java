@@ -8,4 +8,6 @@ import java.io.File;
 public interface SetupWorkspace {
 
     File prepareWorkspace(TerraformJob terraformJob);
+
+    void releaseWorkspace(File workspaceFolder);
 }
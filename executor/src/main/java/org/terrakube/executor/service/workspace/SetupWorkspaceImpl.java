@@ -1,5 +1,7 @@
 package org.terrakube.executor.service.workspace;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
@@ -33,24 +35,30 @@ import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
 import java.security.PublicKey;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
 public class SetupWorkspaceImpl implements SetupWorkspace {
 
     private static final String EXECUTOR_DIRECTORY = "%s/.terraform-spring-boot/executor/%s/%s";
-    public static final String SSH_DIRECTORY = "%s/.terraform-spring-boot/executor/%s/%s/.ssh/%s";
+    private static final String STEP_DIRECTORY = "%s/.terraform-spring-boot/executor/%s/%s-%s";
+    private static final String SSH_DIRECTORY = ".ssh";
 
     WorkspaceSecurity workspaceSecurity;
     boolean enableRegistrySecurity;
     TerraformExecutor terraformExecutor;
+    MeterRegistry meterRegistry;
+    private final Set<String> workspacesInUse = ConcurrentHashMap.newKeySet();
 
     public SetupWorkspaceImpl(WorkspaceSecurity workspaceSecurity,
             @Value("${org.terrakube.client.enableSecurity}") boolean enableRegistrySecurity,
-            TerraformExecutor terraformExecutor) {
+            TerraformExecutor terraformExecutor,
+            MeterRegistry meterRegistry) {
         this.workspaceSecurity = workspaceSecurity;
         this.enableRegistrySecurity = enableRegistrySecurity;
         this.terraformExecutor = terraformExecutor;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -58,15 +66,20 @@ public class SetupWorkspaceImpl implements SetupWorkspace {
         File workspaceCloneFolder = null;
         try {
             workspaceCloneFolder = setupWorkspaceDirectory(terraformJob.getOrganizationId(),
-                    terraformJob.getWorkspaceId());
+                    terraformJob.getWorkspaceId(), terraformJob.getStepId());
+            // ssh keys live in the directory of the step, parallel steps never share or clean them
+            terraformJob.setSshDirectory(new File(workspaceCloneFolder, SSH_DIRECTORY).getPath());
+            Timer.Sample downloadSample = Timer.start(meterRegistry);
             if (!terraformJob.getBranch().equals("remote-content")) {
                 downloadWorkspace(workspaceCloneFolder, terraformJob);
+                downloadSample.stop(meterRegistry.timer("terrakube.workspace.clone", "type", "git"));
             } else {
                 downloadWorkspaceTarGz(workspaceCloneFolder, terraformJob.getSource());
+                downloadSample.stop(meterRegistry.timer("terrakube.workspace.clone", "type", "tar.gz"));
             }
             if (terraformJob.getModuleSshKey() != null && terraformJob.getModuleSshKey().length() > 0) {
-                generateModuleSshFolder(terraformJob.getModuleSshKey(), terraformJob.getOrganizationId(),
-                        terraformJob.getWorkspaceId(), terraformJob.getJobId());
+                generateModuleSshFolder(terraformJob.getModuleSshKey(), terraformJob.getSshDirectory(),
+                        terraformJob.getJobId());
             }
 
             if (enableRegistrySecurity)
@@ -125,14 +138,29 @@ public class SetupWorkspaceImpl implements SetupWorkspace {
         }
     }
 
-    private File setupWorkspaceDirectory(String organizationId, String workspaceId) throws IOException {
+    @Override
+    public void releaseWorkspace(File workspaceFolder) {
+        if (!workspacesInUse.remove(workspaceFolder.getPath()))
+            FileUtils.deleteQuietly(workspaceFolder);
+    }
+
+    private File setupWorkspaceDirectory(String organizationId, String workspaceId, String stepId) throws IOException {
         String userHomeDirectory = FileUtils.getUserDirectoryPath();
         log.info("User Home Directory: {}", userHomeDirectory);
 
-        String executorPath = String.format(EXECUTOR_DIRECTORY, userHomeDirectory, organizationId, workspaceId);
-        File executorFolder = new File(executorPath);
-        FileUtils.forceMkdir(executorFolder);
-        FileUtils.cleanDirectory(executorFolder);
+        File executorFolder = new File(String.format(EXECUTOR_DIRECTORY, userHomeDirectory, organizationId, workspaceId));
+        // steps of the same job running in parallel on this executor get their own directory
+        boolean workspaceDirectory = workspacesInUse.add(executorFolder.getPath());
+        if (!workspaceDirectory)
+            executorFolder = new File(String.format(STEP_DIRECTORY, userHomeDirectory, organizationId, workspaceId, stepId));
+        try {
+            FileUtils.forceMkdir(executorFolder);
+            FileUtils.cleanDirectory(executorFolder);
+        } catch (IOException e) {
+            if (workspaceDirectory)
+                workspacesInUse.remove(executorFolder.getPath());
+            throw e;
+        }
         log.info("Workspace git clone directory: {}", executorFolder.getPath());
         return executorFolder;
     }
@@ -147,7 +175,7 @@ public class SetupWorkspaceImpl implements SetupWorkspace {
                         .setTransportConfigCallback(transport -> {
                             ((SshTransport) transport).setSshSessionFactory(
                                     getSshdSessionFactory(terraformJob.getVcsType(), terraformJob.getAccessToken(),
-                                            terraformJob.getOrganizationId(), terraformJob.getWorkspaceId()));
+                                            terraformJob.getSshDirectory()));
                         })
                         .setCloneSubmodules(true)
                         .call();
@@ -193,7 +221,9 @@ public class SetupWorkspaceImpl implements SetupWorkspace {
             stream.close();
         }
 
+        Timer.Sample extractSample = Timer.start(meterRegistry);
         extractTarGZ(new FileInputStream(terraformTarGz), tarGzFolder.getPath());
+        extractSample.stop(meterRegistry.timer("terrakube.workspace.extract"));
     }
 
     public void extractTarGZ(InputStream in, String destinationFilePath) throws IOException {
@@ -266,9 +296,8 @@ public class SetupWorkspaceImpl implements SetupWorkspace {
         }
     }
 
-    public SshdSessionFactory getSshdSessionFactory(String vcsType, String accessToken, String organizationId,
-            String workspaceId) {
-        File sshDir = generateWorkspaceSshFolder(vcsType, accessToken, organizationId, workspaceId);
+    public SshdSessionFactory getSshdSessionFactory(String vcsType, String accessToken, String sshDirectory) {
+        File sshDir = generateWorkspaceSshFolder(vcsType, accessToken, sshDirectory);
         SshdSessionFactory sshdSessionFactory = new SshdSessionFactoryBuilder()
                 .setServerKeyDatabase((h, s) -> new ServerKeyDatabase() {
 
@@ -296,14 +325,11 @@ public class SetupWorkspaceImpl implements SetupWorkspace {
         return sshdSessionFactory;
     }
 
-    private File generateWorkspaceSshFolder(String vcsType, String privateKey, String organizationId,
-            String workspaceId) {
+    private File generateWorkspaceSshFolder(String vcsType, String privateKey, String sshDirectory) {
         String sshFileName = vcsType.split("~")[1];
-        String sshFilePath = String.format(SSH_DIRECTORY, FileUtils.getUserDirectoryPath(), organizationId, workspaceId,
-                sshFileName);
-        File sshFile = new File(sshFilePath);
+        File sshFile = new File(sshDirectory, sshFileName);
         try {
-            log.info("Creating new SSH folder for organization {} wordkspace {}", organizationId, workspaceId);
+            log.info("Creating new SSH folder {}", sshDirectory);
             FileUtils.forceMkdirParent(sshFile);
             FileUtils.writeStringToFile(sshFile, privateKey + "\n", Charset.defaultCharset());
 
@@ -318,16 +344,13 @@ public class SetupWorkspaceImpl implements SetupWorkspace {
         return sshFile.getParentFile();
     }
 
-    private File generateModuleSshFolder(String privateKey, String organizationId, String workspaceId, String jobId) {
+    private File generateModuleSshFolder(String privateKey, String sshDirectory, String jobId) {
         log.warn("Generate new file SSH Key for modules...");
-        String sshFilePath = String.format(SSH_DIRECTORY, FileUtils.getUserDirectoryPath(), organizationId, workspaceId,
-                jobId);
-        File sshFile = new File(sshFilePath);
+        File sshFile = new File(sshDirectory, jobId);
         try {
 
             FileUtils.forceMkdirParent(sshFile);
-            log.info("Creating new module SSH folder for organization {} workspace {} with jobId {}", organizationId,
-                    workspaceId, jobId);
+            log.info("Creating new module SSH folder {} with jobId {}", sshDirectory, jobId);
             FileUtils.writeStringToFile(sshFile, privateKey + "\n", Charset.defaultCharset());
 
             Set<PosixFilePermission> perms = new HashSet<>();
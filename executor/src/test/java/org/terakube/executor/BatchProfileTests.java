@@ -0,0 +1,46 @@
+package org.terakube.executor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.LazyInitializationBeanFactoryPostProcessor;
+import org.springframework.context.annotation.AnnotatedBeanDefinitionReader;
+import org.springframework.context.annotation.ConfigurationClassPostProcessor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.terrakube.executor.ExecutorApplication;
+import org.terrakube.executor.configuration.RedisAutoConfiguration;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchProfileTests {
+
+    @Test
+    void ephemeralExecutorStartsWithBatchProfile() {
+        assertEquals(Set.of(ExecutorApplication.BATCH_PROFILE), ExecutorApplication.createApplication(true).getAdditionalProfiles());
+        assertTrue(ExecutorApplication.createApplication(false).getAdditionalProfiles().isEmpty());
+    }
+
+    @Test
+    void batchProfileStartsWithoutWebServerAndLazyBeans() throws IOException {
+        Properties batchProperties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-" + ExecutorApplication.BATCH_PROFILE + ".properties"));
+
+        assertEquals("none", batchProperties.getProperty("spring.main.web-application-type"));
+        assertEquals("true", batchProperties.getProperty("spring.main.lazy-initialization"));
+    }
+
+    @Test
+    void cancelListenerStartsWithLazyInitialization() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        new AnnotatedBeanDefinitionReader(beanFactory).register(RedisAutoConfiguration.class);
+        new ConfigurationClassPostProcessor().postProcessBeanDefinitionRegistry(beanFactory);
+
+        new LazyInitializationBeanFactoryPostProcessor().postProcessBeanFactory(beanFactory);
+
+        assertFalse(beanFactory.getBeanDefinition("redisMessageListenerContainer").isLazyInit());
+        assertTrue(beanFactory.getBeanDefinition("redisTemplate").isLazyInit());
+    }
+}
@@ -0,0 +1,51 @@
+package org.terakube.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.terrakube.executor.configuration.ExecutorFlagsProperties;
+import org.terrakube.executor.service.mode.TerraformJob;
+import org.terrakube.executor.service.mode.batch.ColdStartService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColdStartServiceTests {
+
+    SimpleMeterRegistry meterRegistry;
+    ExecutorFlagsProperties executorFlagsProperties;
+    List<String> output = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        executorFlagsProperties = new ExecutorFlagsProperties();
+    }
+
+    @Test
+    void onlineExecutorDoesNotRecordColdStart() {
+        ColdStartService coldStartService = new ColdStartService(meterRegistry, executorFlagsProperties);
+        coldStartService.contextReady();
+
+        coldStartService.firstCommand(new TerraformJob(), output::add);
+
+        assertNull(meterRegistry.find("terrakube.executor.coldstart").timer());
+        assertTrue(output.isEmpty());
+    }
+
+    @Test
+    void ephemeralExecutorRecordsColdStartOnce() {
+        executorFlagsProperties.setEphemeral(true);
+        ColdStartService coldStartService = new ColdStartService(meterRegistry, executorFlagsProperties);
+        coldStartService.contextReady();
+
+        coldStartService.firstCommand(new TerraformJob(), output::add);
+        coldStartService.firstCommand(new TerraformJob(), output::add);
+
+        assertEquals(1, meterRegistry.get("terrakube.executor.coldstart").timer().count());
+        assertEquals(1, output.size());
+        assertTrue(output.get(0).startsWith("Executor started in"));
+    }
+}
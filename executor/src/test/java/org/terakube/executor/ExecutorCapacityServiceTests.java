@@ -0,0 +1,127 @@
+package org.terakube.executor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.terrakube.executor.configuration.ExecutorFlagsProperties;
+import org.terrakube.executor.service.capacity.ExecutorCapacityProperties;
+import org.terrakube.executor.service.capacity.ExecutorCapacityService;
+import org.terrakube.executor.service.mode.TerraformJob;
+import org.terrakube.executor.service.plan.PlanCacheService;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExecutorCapacityServiceTests {
+
+    RedisTemplate redisTemplate;
+    HashOperations hashOperations;
+    PlanCacheService planCacheService;
+    ExecutorCapacityProperties capacityProperties;
+    ExecutorFlagsProperties executorFlagsProperties;
+    ExecutorCapacityService executorCapacityService;
+
+    @BeforeEach
+    void setup() {
+        redisTemplate = mock(RedisTemplate.class);
+        hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.opsForSet()).thenReturn(mock(SetOperations.class));
+        planCacheService = mock(PlanCacheService.class);
+        when(planCacheService.getCachedPlans()).thenReturn(Set.of("job1/step1"));
+
+        capacityProperties = new ExecutorCapacityProperties();
+        capacityProperties.setEnabled(true);
+        capacityProperties.setExecutorId("executor-1");
+        capacityProperties.setUrl("http://executor-1:8090/api/v1/terraform-rs");
+        capacityProperties.setSlots(2);
+        executorFlagsProperties = new ExecutorFlagsProperties();
+
+        executorCapacityService = new ExecutorCapacityService(capacityProperties, executorFlagsProperties, redisTemplate, planCacheService);
+    }
+
+    @Test
+    void jobIsRejectedWhenSlotsAreFull() {
+        assertTrue(executorCapacityService.tryAcquire(terraformJob("job1")));
+        assertTrue(executorCapacityService.tryAcquire(terraformJob("job2")));
+        assertEquals(0, executorCapacityService.getFreeSlots());
+
+        assertFalse(executorCapacityService.tryAcquire(terraformJob("job3")));
+
+        executorCapacityService.release(terraformJob("job1"));
+        assertEquals(1, executorCapacityService.getFreeSlots());
+        assertTrue(executorCapacityService.tryAcquire(terraformJob("job3")));
+    }
+
+    @Test
+    void runningJobIsNotCountedTwice() {
+        assertTrue(executorCapacityService.tryAcquire(terraformJob("job1")));
+        assertTrue(executorCapacityService.tryAcquire(terraformJob("job1")));
+
+        assertEquals(1, executorCapacityService.getFreeSlots());
+    }
+
+    @Test
+    void parallelStepsOfTheSameJobTakeTheirOwnSlot() {
+        assertTrue(executorCapacityService.tryAcquire(terraformJob("job1", "step1")));
+        assertTrue(executorCapacityService.tryAcquire(terraformJob("job1", "step2")));
+        assertEquals(0, executorCapacityService.getFreeSlots());
+        assertFalse(executorCapacityService.tryAcquire(terraformJob("job1", "step3")));
+
+        executorCapacityService.release(terraformJob("job1", "step1"));
+        assertEquals(1, executorCapacityService.getFreeSlots());
+        assertEquals("job1", lastPublishedCapacity().get("runningJobs"));
+    }
+
+    @Test
+    void releasedJobIsAdvertisedAsCached() {
+        executorCapacityService.tryAcquire(terraformJob("job1"));
+        executorCapacityService.release(terraformJob("job1"));
+
+        Map<String, String> capacity = lastPublishedCapacity();
+        assertEquals("executor-1", capacity.get("id"));
+        assertEquals("2", capacity.get("freeSlots"));
+        assertEquals("", capacity.get("runningJobs"));
+        assertEquals("ws1", capacity.get("workspaces"));
+        assertEquals("https://github.com/org/repo.git", capacity.get("sources"));
+        assertEquals("1.5.7", capacity.get("terraformVersions"));
+        assertEquals("job1/step1", capacity.get("plans"));
+    }
+
+    @Test
+    void ephemeralExecutorIsNotLimited() {
+        executorFlagsProperties.setEphemeral(true);
+        capacityProperties.setSlots(1);
+
+        assertTrue(executorCapacityService.tryAcquire(terraformJob("job1")));
+        assertTrue(executorCapacityService.tryAcquire(terraformJob("job2")));
+        verifyNoInteractions(hashOperations);
+    }
+
+    private Map<String, String> lastPublishedCapacity() {
+        ArgumentCaptor<Map> capacity = ArgumentCaptor.forClass(Map.class);
+        verify(hashOperations, atLeastOnce()).putAll(eq("terrakube:executor:executor-1"), capacity.capture());
+        return capacity.getValue();
+    }
+
+    private TerraformJob terraformJob(String jobId) {
+        return terraformJob(jobId, "step1");
+    }
+
+    private TerraformJob terraformJob(String jobId, String stepId) {
+        TerraformJob terraformJob = new TerraformJob();
+        terraformJob.setJobId(jobId);
+        terraformJob.setStepId(stepId);
+        terraformJob.setWorkspaceId("ws1");
+        terraformJob.setSource("https://github.com/org/repo.git");
+        terraformJob.setTerraformVersion("1.5.7");
+        return terraformJob;
+    }
+}
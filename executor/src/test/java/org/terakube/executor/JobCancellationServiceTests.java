@@ -0,0 +1,85 @@
+package org.terakube.executor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.terrakube.executor.service.cancel.JobCancellationService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobCancellationServiceTests {
+
+    @TempDir
+    File tempDirectory;
+
+    JobCancellationService jobCancellationService;
+    List<Process> processes = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        jobCancellationService = new JobCancellationService(5);
+    }
+
+    @AfterEach
+    void cleanup() {
+        processes.forEach(Process::destroyForcibly);
+    }
+
+    @Test
+    void everyStepOfTheCancelledJobIsStopped() throws Exception {
+        Process planStep = startProcess("1", "step1");
+        Process scriptStep = startProcess("1", "step2");
+        Process otherJob = startProcess("2", "step1");
+
+        jobCancellationService.onMessage(cancel("1"), null);
+
+        assertTrue(planStep.waitFor(10, TimeUnit.SECONDS));
+        assertTrue(scriptStep.waitFor(10, TimeUnit.SECONDS));
+        assertTrue(otherJob.isAlive());
+    }
+
+    @Test
+    void completedStepIsNotStopped() throws Exception {
+        Process completedStep = startProcess("1", "step1");
+        Process runningStep = startProcess("1", "step2");
+        jobCancellationService.unregister("1", "step1");
+
+        jobCancellationService.onMessage(cancel("1"), null);
+
+        assertTrue(runningStep.waitFor(10, TimeUnit.SECONDS));
+        assertTrue(completedStep.isAlive());
+    }
+
+    @Test
+    void unknownJobIsIgnored() throws Exception {
+        Process runningStep = startProcess("1", "step1");
+        jobCancellationService.unregister("1", "step1");
+
+        jobCancellationService.onMessage(cancel("1"), null);
+        jobCancellationService.onMessage(cancel("3"), null);
+
+        assertFalse(runningStep.waitFor(2, TimeUnit.SECONDS));
+    }
+
+    private Process startProcess(String jobId, String stepId) throws IOException {
+        File workingDirectory = new File(tempDirectory, jobId + "-" + stepId);
+        assertTrue(workingDirectory.mkdirs());
+        jobCancellationService.register(jobId, stepId, workingDirectory);
+        Process process = new ProcessBuilder("sleep", "60").directory(workingDirectory).start();
+        processes.add(process);
+        return process;
+    }
+
+    private static DefaultMessage cancel(String jobId) {
+        return new DefaultMessage(JobCancellationService.CANCEL_CHANNEL.getBytes(StandardCharsets.UTF_8), jobId.getBytes(StandardCharsets.UTF_8));
+    }
+}
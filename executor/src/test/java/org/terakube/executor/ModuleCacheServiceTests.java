@@ -0,0 +1,72 @@
+package org.terakube.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.terrakube.executor.configuration.ExecutorFlagsProperties;
+import org.terrakube.executor.service.mode.TerraformJob;
+import org.terrakube.executor.service.modules.ModuleCacheService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModuleCacheServiceTests {
+
+    @TempDir
+    File tempDirectory;
+
+    String cacheKey;
+    ModuleCacheService moduleCacheService;
+
+    @BeforeEach
+    void setup() {
+        moduleCacheService = new ModuleCacheService(new SimpleMeterRegistry(), new ExecutorFlagsProperties(), 1024);
+    }
+
+    @AfterEach
+    void cleanup() {
+        if (cacheKey != null)
+            FileUtils.deleteQuietly(new File(FileUtils.getUserDirectoryPath() + "/.terraform-spring-boot/executor/modules/" + cacheKey));
+    }
+
+    @Test
+    void modulesAreNotSharedBetweenOrganizations() throws IOException {
+        String module = "module \"vpc\" {\n  source = \"git::https://github.com/" + UUID.randomUUID() + "/vpc.git?ref=v1.0.0\"\n}\n";
+        File firstDirectory = workingDirectory("first", module);
+        TerraformJob firstJob = terraformJob(UUID.randomUUID().toString());
+
+        cacheKey = moduleCacheService.restore(firstJob, firstDirectory);
+        assertNotNull(cacheKey);
+        FileUtils.writeStringToFile(new File(firstDirectory, ".terraform/modules/modules.json"), "{}", StandardCharsets.UTF_8);
+        moduleCacheService.save(cacheKey, firstDirectory);
+
+        File sameOrganization = workingDirectory("second", module);
+        assertNull(moduleCacheService.restore(firstJob, sameOrganization));
+        assertTrue(new File(sameOrganization, ".terraform/modules/modules.json").exists());
+
+        File otherOrganization = workingDirectory("third", module);
+        String otherKey = moduleCacheService.restore(terraformJob(UUID.randomUUID().toString()), otherOrganization);
+        assertNotNull(otherKey);
+        assertNotEquals(cacheKey, otherKey);
+        assertFalse(new File(otherOrganization, ".terraform/modules").exists());
+    }
+
+    private TerraformJob terraformJob(String organizationId) {
+        TerraformJob terraformJob = new TerraformJob();
+        terraformJob.setOrganizationId(organizationId);
+        return terraformJob;
+    }
+
+    private File workingDirectory(String name, String terraform) throws IOException {
+        File workingDirectory = new File(tempDirectory, name);
+        FileUtils.writeStringToFile(new File(workingDirectory, "main.tf"), terraform, StandardCharsets.UTF_8);
+        return workingDirectory;
+    }
+}
@@ -0,0 +1,76 @@
+package org.terakube.executor;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.terrakube.executor.configuration.ExecutorFlagsProperties;
+import org.terrakube.executor.service.plan.PlanCacheService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlanCacheServiceTests {
+
+    @TempDir
+    File tempDirectory;
+
+    String jobId;
+    PlanCacheService planCacheService;
+
+    @BeforeEach
+    void setup() {
+        jobId = UUID.randomUUID().toString();
+        planCacheService = new PlanCacheService(new ExecutorFlagsProperties(), 60);
+    }
+
+    @AfterEach
+    void cleanup() {
+        FileUtils.deleteQuietly(new File(FileUtils.getUserDirectoryPath() + "/.terraform-spring-boot/executor/plans/" + jobId));
+    }
+
+    @Test
+    void planStepsOfTheSameJobAreCachedSeparately() throws IOException {
+        planCacheService.put(jobId + "/step1", "https://storage/" + jobId + "/step1/terraformLibrary.tfPlan", workingDirectory("plan1", "first plan"));
+        planCacheService.put(jobId + "/step2", "https://storage/" + jobId + "/step2/terraformLibrary.tfPlan", workingDirectory("plan2", "second plan"));
+
+        assertEquals(Set.of(jobId + "/step1", jobId + "/step2"), planCacheService.getCachedPlans());
+
+        File applyDirectory = workingDirectory("apply", "");
+        assertTrue(planCacheService.restore("https://storage/" + jobId + "/step1/terraformLibrary.tfPlan", applyDirectory));
+        assertEquals("first plan", FileUtils.readFileToString(new File(applyDirectory, "terraformLibrary.tfPlan"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void unknownPlanIsNotRestored() throws IOException {
+        planCacheService.put(jobId + "/step1", "https://storage/" + jobId + "/step1/terraformLibrary.tfPlan", workingDirectory("plan1", "first plan"));
+
+        assertFalse(planCacheService.restore("https://storage/" + jobId + "/step3/terraformLibrary.tfPlan", workingDirectory("apply", "")));
+        assertFalse(planCacheService.restore(null, workingDirectory("apply", "")));
+    }
+
+    @Test
+    void ephemeralExecutorDoesNotCachePlans() throws IOException {
+        ExecutorFlagsProperties executorFlagsProperties = new ExecutorFlagsProperties();
+        executorFlagsProperties.setEphemeral(true);
+        planCacheService = new PlanCacheService(executorFlagsProperties, 60);
+
+        planCacheService.put(jobId + "/step1", "https://storage/" + jobId + "/step1/terraformLibrary.tfPlan", workingDirectory("plan1", "first plan"));
+
+        assertTrue(planCacheService.getCachedPlans().isEmpty());
+    }
+
+    private File workingDirectory(String name, String plan) throws IOException {
+        File workingDirectory = new File(tempDirectory, name);
+        FileUtils.forceMkdir(workingDirectory);
+        if (!plan.isEmpty())
+            FileUtils.writeStringToFile(new File(workingDirectory, "terraformLibrary.tfPlan"), plan, StandardCharsets.UTF_8);
+        return workingDirectory;
+    }
+}
@@ -0,0 +1,33 @@
+package org.terakube.executor;
+
+import org.junit.jupiter.api.Test;
+import org.terrakube.executor.plugin.tfstate.PlanFiles;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlanFilesTests {
+
+    @Test
+    void everyFolderUsesItsOwnPlan() {
+        Map<String, String> planFiles = new LinkedHashMap<>();
+        planFiles.put("workspace/folders/app", "https://storage/tfstate/org/workspace/folders/app/1/step/terraformLibrary.tfPlan");
+        planFiles.put("workspace/folders/db", "https://storage/tfstate/org/workspace/folders/db/1/step/terraformLibrary.tfPlan");
+        String terraformPlan = PlanFiles.of(planFiles);
+
+        assertEquals(planFiles.get("workspace/folders/app"), PlanFiles.get(terraformPlan, "workspace/folders/app"));
+        assertEquals(planFiles.get("workspace/folders/db"), PlanFiles.get(terraformPlan, "workspace/folders/db"));
+        assertNull(PlanFiles.get(terraformPlan, "workspace/folders/network"));
+        assertNull(PlanFiles.get(terraformPlan, "workspace"));
+    }
+
+    @Test
+    void singleFolderPlanIsUsedAsItIs() {
+        String terraformPlan = "https://storage/tfstate/org/workspace/1/step/terraformLibrary.tfPlan";
+
+        assertEquals(terraformPlan, PlanFiles.get(terraformPlan, "workspace"));
+        assertNull(PlanFiles.get(null, "workspace"));
+    }
+}